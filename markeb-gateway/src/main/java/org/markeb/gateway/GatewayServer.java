@@ -5,13 +5,14 @@ import org.markeb.gateway.config.GatewayConfig;
 import org.markeb.gateway.handler.FrontendChannelInitializer;
 import org.markeb.gateway.route.NodeRouter;
 import org.markeb.gateway.session.SessionManager;
+import org.markeb.net.handler.FlushCoalescingStats;
+import org.markeb.net.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.WriteBufferWaterMark;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,8 @@ import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 网关服务器
@@ -42,7 +45,8 @@ public class GatewayServer {
 
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final List<Channel> serverChannels = new ArrayList<>();
+    private final FlushCoalescingStats flushStats = new FlushCoalescingStats();
 
     @PostConstruct
     public void start() {
@@ -50,29 +54,36 @@ public class GatewayServer {
         config.getNodes().forEach(nodeRouter::addStaticNode);
 
         // 启动服务器
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = config.getWorkerThreads() > 0 
-                ? new NioEventLoopGroup(config.getWorkerThreads())
-                : new NioEventLoopGroup();
+        NettyTransport transport = config.transport();
+        int acceptors = transport.bindCount(config.getAcceptorThreads());
+        bossGroup = transport.newEventLoopGroup(acceptors);
+        workerGroup = transport.newEventLoopGroup(Math.max(0, config.getWorkerThreads()));
 
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(transport.serverChannelClass())
                 .option(ChannelOption.SO_BACKLOG, 1024)
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .childOption(ChannelOption.SO_KEEPALIVE, true)
                 .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        config.getFrontendWriteBufferLowWaterMark(), config.getFrontendWriteBufferHighWaterMark()))
                 .childHandler(new FrontendChannelInitializer(
                         sessionManager,
                         backendChannelManager,
                         nodeRouter,
-                        config.getReadIdleTimeout()
+                        config.getReadIdleTimeout(),
+                        config.getFlush().isEnabled() ? () -> config.getFlush().newHandler(flushStats) : null,
+                        sessionManager.getCompression()
                 ));
+        transport.configure(bootstrap);
 
         try {
-            ChannelFuture future = bootstrap.bind(config.getPort()).sync();
-            serverChannel = future.channel();
-            log.info("Gateway server started on port {}", config.getPort());
+            for (int i = 0; i < acceptors; i++) {
+                ChannelFuture future = bootstrap.bind(config.getPort()).sync();
+                serverChannels.add(future.channel());
+            }
+            log.info("Gateway server started on port {} ({}, {} acceptor(s))", config.getPort(), transport, acceptors);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Failed to start gateway server", e);
@@ -83,9 +94,8 @@ public class GatewayServer {
     public void stop() {
         log.info("Stopping gateway server...");
 
-        if (serverChannel != null) {
-            serverChannel.close();
-        }
+        serverChannels.forEach(Channel::close);
+        serverChannels.clear();
 
         if (bossGroup != null) {
             bossGroup.shutdownGracefully();
@@ -105,6 +115,13 @@ public class GatewayServer {
         return sessionManager.getSessionCount();
     }
 
+    /**
+     * 获取前端连接的写合并统计
+     */
+    public FlushCoalescingStats getFlushStats() {
+        return flushStats;
+    }
+
     /**
      * 获取已认证连接数
      */
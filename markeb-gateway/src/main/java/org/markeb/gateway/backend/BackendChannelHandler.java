@@ -39,9 +39,21 @@ public class BackendChannelHandler extends SimpleChannelInboundHandler<GatewayPa
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         log.info("Backend channel inactive: {}", nodeAddress);
+        // 连接断开后不会再恢复可写，恢复因它暂停的客户端，后续请求由连接池切换到其他连接
+        channelManager.releaseThrottled(ctx.channel());
         super.channelInactive(ctx);
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            channelManager.releaseThrottled(ctx.channel());
+        } else {
+            log.debug("Backend channel not writable: {}", nodeAddress);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent idleEvent) {
@@ -1,24 +1,30 @@
 package org.markeb.gateway.backend;
 
+import org.markeb.gateway.config.GatewayConfig;
 import org.markeb.gateway.session.GatewaySession;
-import org.markeb.gateway.session.SessionManager;
 import org.markeb.net.gateway.GatewayPacket;
+import org.markeb.net.gateway.backend.PendingRequestTable;
 import org.markeb.net.gateway.codec.GatewayDecoder;
 import org.markeb.net.gateway.codec.GatewayEncoder;
+import org.markeb.net.handler.FlushCoalescingHandler;
+import org.markeb.net.handler.FlushCoalescingStats;
+import org.markeb.net.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.net.InetSocketAddress;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -26,106 +32,227 @@ import java.util.concurrent.TimeUnit;
 /**
  * 后端连接管理器
  * 管理网关到游戏节点的连接
+ * <p>
+ * 每个节点维护一个 {@link BackendConnectionPool}（N 条连接，按 sessionId 哈希选择），
+ * 连接异步建立并自动重连；写出经 {@link FlushCoalescingHandler} 合并 flush。
+ * </p>
+ * <p>
+ * pending 请求以 (sessionId, seq) 打包成的 long 为 key，会话断开时按会话索引清理，
+ * 超时未响应的请求由后台定时清理。
+ * </p>
+ * <p>
+ * 背压：转发后后端连接不可写时，暂停读取发起转发的客户端，并登记在该连接上；
+ * 连接恢复可写或断开时统一恢复，压力不会在网关内存中堆积。
+ * </p>
  */
 @Component
 public class BackendChannelManager {
 
     private static final Logger log = LoggerFactory.getLogger(BackendChannelManager.class);
 
-    private final EventLoopGroup workerGroup = new NioEventLoopGroup(4);
+    /**
+     * pending 超时清理间隔（毫秒）
+     */
+    private static final long EXPIRE_INTERVAL_MS = 1000;
+
+    /**
+     * 后端连接的事件循环线程数
+     */
+    private static final int BACKEND_THREADS = 4;
+
+    /**
+     * 因该后端连接不可写而暂停读取的会话
+     */
+    private static final AttributeKey<Set<GatewaySession>> THROTTLED_SESSIONS =
+            AttributeKey.valueOf("gateway.backend.throttledSessions");
+
+    private NettyTransport transport;
+
+    private EventLoopGroup workerGroup;
 
     /**
-     * nodeAddress -> Channel（到后端节点的连接）
+     * nodeAddress -> 连接池（到后端节点的连接）
      */
-    private final Map<String, Channel> backendChannels = new ConcurrentHashMap<>();
+    private final Map<String, BackendConnectionPool> backendPools = new ConcurrentHashMap<>();
 
     /**
-     * pendingKey (sessionId:seq) -> sessionId
+     * 所有后端连接共享的写合并统计
+     */
+    private final FlushCoalescingStats flushStats = new FlushCoalescingStats();
+
+    /**
+     * (sessionId, seq) -> 网关会话
      * 用于后端响应时找到对应的前端会话
      */
-    private final Map<String, Integer> pendingRequests = new ConcurrentHashMap<>();
+    private PendingRequestTable<GatewaySession> pendingRequests;
 
     @Autowired
-    private SessionManager sessionManager;
+    private GatewayConfig config;
+
+    @PostConstruct
+    public void init() {
+        // 后端连接与前端监听使用相同的 I/O 模型，客户端连接不需要 SO_REUSEPORT
+        transport = NettyTransport.create(config.getIoMode(), false, config.isEdgeTriggered());
+        workerGroup = transport.newEventLoopGroup(BACKEND_THREADS);
+        pendingRequests = new PendingRequestTable<>(config.getPendingTimeoutMs());
+        workerGroup.scheduleAtFixedRate(this::expirePending,
+                EXPIRE_INTERVAL_MS, EXPIRE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
 
     /**
      * 转发请求到后端节点
+     * <p>
+     * 只改写协议头（填充 sessionId），消息体与前端包共享同一块内存。
+     * 不接管 packet 的引用计数，写出时自行 retain 一份，由编码器写完后释放。
+     * </p>
      *
      * @param nodeAddress 节点地址 (host:port)
      * @param session     网关会话
      * @param packet      协议包
      */
     public CompletableFuture<Void> forward(String nodeAddress, GatewaySession session, GatewayPacket packet) {
-        Channel backend = getOrCreateChannel(nodeAddress);
-        if (backend == null || !backend.isActive()) {
+        BackendConnectionPool pool = getOrCreatePool(nodeAddress);
+        if (pool == null) {
             return CompletableFuture.failedFuture(
                     new IllegalStateException("Backend not available: " + nodeAddress));
         }
 
+        int sessionId = session.getSessionId();
         // 构建内部协议包（带 sessionId）
-        GatewayPacket internalPacket = new GatewayPacket(
-                session.getSessionId(),
-                packet.getMsgId(),
-                packet.getSeq(),
-                packet.getBody()
-        );
+        GatewayPacket internalPacket = packet.withSessionId(sessionId);
 
-        // 记录 pending 请求
-        String pendingKey = internalPacket.getPendingKey();
-        pendingRequests.put(pendingKey, session.getSessionId());
+        Channel backend = pool.select(sessionId);
+        if (backend != null) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            write(backend, session, internalPacket.retain(), future);
+            return future;
+        }
 
+        // 连接尚在建立中：挂在连接 future 上，连上后按提交顺序写出
+        ChannelFuture connecting = pool.connecting(sessionId);
+        if (connecting == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Backend not available: " + nodeAddress));
+        }
         CompletableFuture<Void> future = new CompletableFuture<>();
-        backend.writeAndFlush(internalPacket).addListener(f -> {
+        GatewayPacket retained = internalPacket.retain();
+        connecting.addListener(f -> {
+            if (f.isSuccess()) {
+                write(connecting.channel(), session, retained, future);
+            } else {
+                retained.release();
+                future.completeExceptionally(f.cause());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 写出已 retain 的内部协议包，并记录 pending 请求
+     * <p>
+     * 使用 writeAndFlush，实际的 flush 由 {@link FlushCoalescingHandler} 合并。
+     * 写出失败时 Netty 会释放消息，这里无需额外处理引用计数。
+     * </p>
+     */
+    private void write(Channel backend, GatewaySession session, GatewayPacket packet, CompletableFuture<Void> future) {
+        int sessionId = packet.getSessionId();
+        int seq = packet.getSeq();
+        pendingRequests.put(sessionId, seq, session);
+
+        backend.writeAndFlush(packet).addListener(f -> {
             if (f.isSuccess()) {
                 session.updateActiveTime();
                 future.complete(null);
             } else {
-                pendingRequests.remove(pendingKey);
+                pendingRequests.remove(sessionId, seq);
                 future.completeExceptionally(f.cause());
             }
         });
+        if (config.isBackpressure() && !backend.isWritable()) {
+            throttle(backend, session);
+        }
+    }
 
-        return future;
+    /**
+     * 后端连接不可写：暂停读取该会话的客户端，等连接恢复可写后再继续
+     */
+    private void throttle(Channel backend, GatewaySession session) {
+        // 先暂停再登记，再检查一次可写性：登记前连接可能已经恢复可写并完成了释放，此时由这里负责恢复
+        session.pauseRead(GatewaySession.PAUSED_BY_BACKEND);
+        throttledSessions(backend).add(session);
+        if (backend.isWritable()) {
+            releaseThrottled(backend);
+        }
+    }
+
+    private static Set<GatewaySession> throttledSessions(Channel backend) {
+        Attribute<Set<GatewaySession>> attr = backend.attr(THROTTLED_SESSIONS);
+        Set<GatewaySession> sessions = attr.get();
+        if (sessions == null) {
+            Set<GatewaySession> created = ConcurrentHashMap.newKeySet();
+            sessions = attr.setIfAbsent(created);
+            if (sessions == null) {
+                sessions = created;
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * 恢复因该后端连接不可写而暂停的会话（连接恢复可写或断开时调用）
+     */
+    void releaseThrottled(Channel backend) {
+        Set<GatewaySession> sessions = backend.attr(THROTTLED_SESSIONS).get();
+        if (sessions == null) {
+            return;
+        }
+        for (GatewaySession session : sessions) {
+            if (sessions.remove(session)) {
+                session.resumeRead(GatewaySession.PAUSED_BY_BACKEND);
+            }
+        }
+    }
+
+    /**
+     * 是否开启端到端背压
+     */
+    public boolean isBackpressure() {
+        return config.isBackpressure();
     }
 
     /**
      * 处理后端响应
+     * <p>
+     * packet 由 {@link BackendChannelHandler} 在返回后释放，回给客户端的包需要额外 retain。
+     * </p>
      */
     public void handleResponse(String nodeAddress, GatewayPacket packet) {
-        String pendingKey = packet.getPendingKey();
-        Integer sessionId = pendingRequests.remove(pendingKey);
+        GatewaySession session = pendingRequests.remove(packet.getSessionId(), packet.getSeq());
 
-        if (sessionId == null) {
-            log.warn("No pending request for key: {}", pendingKey);
+        if (session == null) {
+            log.warn("No pending request for sessionId {} seq {}", packet.getSessionId(), packet.getSeq());
             return;
         }
 
-        sessionManager.getSession(sessionId).ifPresentOrElse(
-                session -> {
-                    if (session.isActive()) {
-                        // 回给客户端（不带 sessionId）
-                        GatewayPacket clientPacket = new GatewayPacket(
-                                0, packet.getMsgId(), packet.getSeq(), packet.getBody());
-                        session.send(clientPacket);
-                    } else {
-                        log.warn("Session {} is not active, dropping response", sessionId);
-                    }
-                },
-                () -> log.warn("Session {} not found for response", sessionId)
-        );
+        if (!session.isActive() && session.getState() != GatewaySession.SessionState.DETACHED) {
+            log.warn("Session {} is not active, dropping response", session.getSessionId());
+            return;
+        }
+        // 回给客户端（不带 sessionId），只改写协议头；等待恢复的会话只记入补发缓冲
+        session.send(packet.withSessionId(0).retain());
     }
 
     /**
-     * 获取或创建到后端的连接
+     * 获取或创建到后端的连接池（不阻塞，连接异步建立）
      */
-    private Channel getOrCreateChannel(String nodeAddress) {
-        return backendChannels.computeIfAbsent(nodeAddress, this::createChannel);
+    private BackendConnectionPool getOrCreatePool(String nodeAddress) {
+        return backendPools.computeIfAbsent(nodeAddress, this::createPool);
     }
 
     /**
-     * 创建到后端的连接
+     * 创建到后端的连接池
      */
-    private Channel createChannel(String nodeAddress) {
+    private BackendConnectionPool createPool(String nodeAddress) {
         String[] parts = nodeAddress.split(":");
         if (parts.length != 2) {
             log.error("Invalid node address: {}", nodeAddress);
@@ -143,68 +270,112 @@ public class BackendChannelManager {
 
         Bootstrap bootstrap = new Bootstrap();
         bootstrap.group(workerGroup)
-                .channel(NioSocketChannel.class)
+                .channel(transport.socketChannelClass())
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .option(ChannelOption.TCP_NODELAY, true)
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getBackendConnectTimeoutMs())
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) {
-                        ch.pipeline()
-                                .addLast(new IdleStateHandler(0, 30, 0, TimeUnit.SECONDS))
-                                .addLast(new GatewayDecoder(false))
+                        ChannelPipeline pipeline = ch.pipeline();
+                        pipeline.addLast(new IdleStateHandler(0, 30, 0, TimeUnit.SECONDS));
+                        if (config.getBackendFlush().isEnabled()) {
+                            // 位于编解码器靠 socket 的一侧，按编码后的字节计数
+                            pipeline.addLast(config.getBackendFlush().newHandler(flushStats));
+                        }
+                        pipeline.addLast(new GatewayDecoder(false))
                                 .addLast(new GatewayEncoder(false))
                                 .addLast(new BackendChannelHandler(BackendChannelManager.this, nodeAddress));
                     }
                 });
 
-        try {
-            ChannelFuture cf = bootstrap.connect(new InetSocketAddress(host, port)).sync();
-            Channel channel = cf.channel();
-
-            // 监听连接关闭
-            channel.closeFuture().addListener(f -> {
-                log.info("Backend channel closed: {}", nodeAddress);
-                backendChannels.remove(nodeAddress);
-            });
-
-            log.info("Connected to backend node: {}", nodeAddress);
-            return channel;
-        } catch (Exception e) {
-            log.error("Failed to connect to backend: {}", nodeAddress, e);
-            return null;
-        }
+        log.info("Creating backend pool for node {} with {} connections", nodeAddress, config.getBackendConnections());
+        return new BackendConnectionPool(nodeAddress, new InetSocketAddress(host, port), bootstrap,
+                config.getBackendConnections(),
+                config.getBackendReconnectInitialDelayMs(),
+                config.getBackendReconnectMaxDelayMs());
     }
 
     /**
      * 清理会话相关的 pending 请求
      */
     public void cleanupSession(int sessionId) {
-        String prefix = sessionId + ":";
-        pendingRequests.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix));
+        pendingRequests.removeSession(sessionId);
+    }
+
+    private void expirePending() {
+        int expired = pendingRequests.expire();
+        if (expired > 0) {
+            log.warn("Expired {} pending requests without backend response", expired);
+        }
+    }
+
+    /**
+     * 获取当前 pending 请求数
+     */
+    public int getPendingCount() {
+        return pendingRequests.getPendingCount();
+    }
+
+    /**
+     * 获取累计超时过期的 pending 请求数
+     */
+    public long getExpiredCount() {
+        return pendingRequests.getExpiredCount();
+    }
+
+    /**
+     * 获取所有后端连接已写入但尚未发出的字节数
+     */
+    public long getQueuedBytes() {
+        long total = 0;
+        for (BackendConnectionPool pool : backendPools.values()) {
+            total += pool.getQueuedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * 获取当前不可写的后端连接数
+     */
+    public int getUnwritableConnections() {
+        int total = 0;
+        for (BackendConnectionPool pool : backendPools.values()) {
+            total += pool.getUnwritableCount();
+        }
+        return total;
+    }
+
+    /**
+     * 获取写合并统计
+     */
+    public FlushCoalescingStats getFlushStats() {
+        return flushStats;
+    }
+
+    /**
+     * 获取指定节点当前可用的连接数
+     */
+    public int getActiveConnections(String nodeAddress) {
+        BackendConnectionPool pool = backendPools.get(nodeAddress);
+        return pool != null ? pool.getActiveCount() : 0;
     }
 
     /**
      * 关闭指定节点的连接
      */
     public void closeChannel(String nodeAddress) {
-        Channel channel = backendChannels.remove(nodeAddress);
-        if (channel != null && channel.isActive()) {
-            channel.close();
+        BackendConnectionPool pool = backendPools.remove(nodeAddress);
+        if (pool != null) {
+            pool.close();
         }
     }
 
     @PreDestroy
     public void shutdown() {
         log.info("Shutting down backend channel manager...");
-        backendChannels.values().forEach(ch -> {
-            try {
-                ch.close().sync();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+        backendPools.values().forEach(BackendConnectionPool::close);
+        backendPools.clear();
         workerGroup.shutdownGracefully();
     }
 }
-
@@ -0,0 +1,221 @@
+package org.markeb.gateway.backend;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 到单个后端节点的连接池
+ * <p>
+ * 固定 N 条长连接，按 sessionId 哈希选择连接，同一玩家的请求始终走同一条连接，保证顺序。
+ * 选中的连接不可用时依次尝试池中其他可用连接（故障切换期间不再保证顺序）。
+ * </p>
+ * <p>
+ * 连接全部异步建立，不阻塞调用线程；连接失败或断开后按指数退避自动重连。
+ * </p>
+ */
+public class BackendConnectionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendConnectionPool.class);
+
+    private final String nodeAddress;
+    private final InetSocketAddress address;
+    private final Bootstrap bootstrap;
+    private final EventLoopGroup group;
+    private final long reconnectInitialDelayMs;
+    private final long reconnectMaxDelayMs;
+    private final Slot[] slots;
+
+    private volatile boolean closed;
+
+    /**
+     * 创建连接池并立即发起异步连接
+     *
+     * @param nodeAddress             节点地址 (host:port)
+     * @param address                 解析后的地址
+     * @param bootstrap               已配置好 handler 的 Bootstrap
+     * @param size                    连接数
+     * @param reconnectInitialDelayMs 重连初始退避（毫秒）
+     * @param reconnectMaxDelayMs     重连最大退避（毫秒）
+     */
+    public BackendConnectionPool(String nodeAddress, InetSocketAddress address, Bootstrap bootstrap, int size,
+                                 long reconnectInitialDelayMs, long reconnectMaxDelayMs) {
+        this.nodeAddress = nodeAddress;
+        this.address = address;
+        this.bootstrap = bootstrap;
+        this.group = bootstrap.config().group();
+        this.reconnectInitialDelayMs = reconnectInitialDelayMs;
+        this.reconnectMaxDelayMs = reconnectMaxDelayMs;
+        this.slots = new Slot[Math.max(1, size)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot(i);
+        }
+        for (Slot slot : slots) {
+            slot.connect();
+        }
+    }
+
+    private int indexFor(int sessionId) {
+        return (sessionId & 0x7FFFFFFF) % slots.length;
+    }
+
+    /**
+     * 为会话选择一条可用连接
+     *
+     * @return 可用连接，全部不可用时返回 null
+     */
+    public Channel select(int sessionId) {
+        int start = indexFor(sessionId);
+        for (int i = 0; i < slots.length; i++) {
+            Channel channel = slots[(start + i) % slots.length].channel;
+            if (channel != null && channel.isActive()) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取会话所属连接正在进行的连接操作，没有时返回 null
+     * <p>
+     * 池刚创建或连接正在建立时，调用方可以挂在该 future 上等待，而不是直接失败。
+     * </p>
+     */
+    public ChannelFuture connecting(int sessionId) {
+        ChannelFuture future = slots[indexFor(sessionId)].connectFuture;
+        return future != null && !future.isDone() ? future : null;
+    }
+
+    /**
+     * 获取当前可用连接数
+     */
+    public int getActiveCount() {
+        int count = 0;
+        for (Slot slot : slots) {
+            Channel channel = slot.channel;
+            if (channel != null && channel.isActive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取池中连接已写入但尚未发出的字节数
+     */
+    public long getQueuedBytes() {
+        long total = 0;
+        for (Slot slot : slots) {
+            Channel channel = slot.channel;
+            ChannelOutboundBuffer buffer = channel != null ? channel.unsafe().outboundBuffer() : null;
+            if (buffer != null) {
+                total += buffer.totalPendingWriteBytes();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 获取当前可用但不可写的连接数
+     */
+    public int getUnwritableCount() {
+        int count = 0;
+        for (Slot slot : slots) {
+            Channel channel = slot.channel;
+            if (channel != null && channel.isActive() && !channel.isWritable()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取连接池大小
+     */
+    public int getSize() {
+        return slots.length;
+    }
+
+    public String getNodeAddress() {
+        return nodeAddress;
+    }
+
+    /**
+     * 关闭连接池，不再重连
+     */
+    public void close() {
+        closed = true;
+        for (Slot slot : slots) {
+            Channel channel = slot.channel;
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 连接池中的一个连接位
+     */
+    private final class Slot {
+
+        private final int index;
+        private volatile Channel channel;
+        private volatile ChannelFuture connectFuture;
+        private int failures;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        void connect() {
+            if (closed) {
+                return;
+            }
+            ChannelFuture future = bootstrap.connect(address);
+            connectFuture = future;
+            future.addListener(f -> {
+                if (f.isSuccess()) {
+                    Channel ch = future.channel();
+                    if (closed) {
+                        ch.close();
+                        return;
+                    }
+                    failures = 0;
+                    channel = ch;
+                    ch.closeFuture().addListener(c -> onClosed(ch));
+                    log.info("Connected to backend node: {} [{}]", nodeAddress, index);
+                } else {
+                    log.warn("Failed to connect to backend: {} [{}], {}", nodeAddress, index, f.cause().toString());
+                    scheduleReconnect();
+                }
+            });
+        }
+
+        private void onClosed(Channel ch) {
+            if (channel == ch) {
+                channel = null;
+            }
+            if (!closed) {
+                log.info("Backend channel closed: {} [{}], reconnecting", nodeAddress, index);
+                scheduleReconnect();
+            }
+        }
+
+        private void scheduleReconnect() {
+            if (closed || group.isShuttingDown()) {
+                return;
+            }
+            // 指数退避：initial * 2^failures，封顶 max
+            long delay = Math.min(reconnectMaxDelayMs, reconnectInitialDelayMs << Math.min(failures, 20));
+            failures++;
+            group.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
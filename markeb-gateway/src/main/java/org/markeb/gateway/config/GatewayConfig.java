@@ -1,5 +1,10 @@
 package org.markeb.gateway.config;
 
+import org.markeb.gateway.session.SlowConsumerGuard;
+import org.markeb.net.compress.CompressionConfig;
+import org.markeb.net.handler.FlushCoalescingConfig;
+import org.markeb.net.transport.IoMode;
+import org.markeb.net.transport.NettyTransport;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -23,6 +28,26 @@ public class GatewayConfig {
      */
     private int workerThreads = 0;
 
+    /**
+     * acceptor 线程数，开启 SO_REUSEPORT 时每个线程各绑定一个监听 Channel
+     */
+    private int acceptorThreads = 1;
+
+    /**
+     * I/O 模型，原生传输不可用时自动回退到 NIO
+     */
+    private IoMode ioMode = IoMode.AUTO;
+
+    /**
+     * 是否开启 SO_REUSEPORT（仅原生传输生效）
+     */
+    private boolean reusePort = false;
+
+    /**
+     * epoll 下是否使用边缘触发，关闭时使用水平触发
+     */
+    private boolean edgeTriggered = true;
+
     /**
      * 读空闲超时（秒）
      */
@@ -33,6 +58,66 @@ public class GatewayConfig {
      */
     private int maxConnections = 10000;
 
+    /**
+     * 是否开启端到端背压：后端连接不可写时暂停读取转发到它的客户端，客户端自身不可写时暂停读取它的请求
+     */
+    private boolean backpressure = true;
+
+    /**
+     * 前端连接写缓冲区低水位（字节）
+     */
+    private int frontendWriteBufferLowWaterMark = 32 * 1024;
+
+    /**
+     * 前端连接写缓冲区高水位（字节），超过后连接变为不可写
+     */
+    private int frontendWriteBufferHighWaterMark = 64 * 1024;
+
+    /**
+     * 每个会话的出站字节预算，超出后按 slowConsumerPolicy 处理，<= 0 表示不限制
+     */
+    private long sessionOutboundBudgetBytes = 1024 * 1024;
+
+    /**
+     * 慢客户端策略：DROP 丢弃超出预算的消息，DISCONNECT 断开会话
+     */
+    private SlowConsumerGuard.Policy slowConsumerPolicy = SlowConsumerGuard.Policy.DISCONNECT;
+
+    /**
+     * 前端连接的写合并配置
+     */
+    private FlushCoalescingConfig flush = new FlushCoalescingConfig();
+
+    /**
+     * 后端连接的写合并配置
+     */
+    private FlushCoalescingConfig backendFlush = new FlushCoalescingConfig();
+
+    /**
+     * 是否开启会话恢复：断线后在宽限期内保留会话，客户端凭令牌重连时接回原会话并补发错过的响应
+     */
+    private boolean sessionResume = false;
+
+    /**
+     * 断线后保留会话的宽限期（毫秒）
+     */
+    private long sessionResumeGraceMs = 30_000;
+
+    /**
+     * 每个会话缓存的最近响应数，用于重连后补发
+     */
+    private int replayBufferSize = 256;
+
+    /**
+     * 每个会话缓存的最近响应字节数上限
+     */
+    private int replayBufferMaxBytes = 256 * 1024;
+
+    /**
+     * 客户端链路的消息体压缩（按 msgId 选择 LZ4/zstd），客户端需支持协议头中的压缩标记
+     */
+    private CompressionConfig compression = new CompressionConfig();
+
     /**
      * 静态节点配置（nodeId -> host:port）
      */
@@ -43,6 +128,36 @@ public class GatewayConfig {
      */
     private String routeStrategy = "ROUND_ROBIN";
 
+    /**
+     * 一致性哈希环中每个节点的虚拟节点数（权重为 1 时），按节点权重等比缩放
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * 转发到后端的请求超时时间（毫秒），超时未收到响应的 pending 请求会被清理
+     */
+    private long pendingTimeoutMs = 30_000;
+
+    /**
+     * 每个后端节点的连接数，按 sessionId 哈希选择连接
+     */
+    private int backendConnections = 4;
+
+    /**
+     * 后端连接超时（毫秒）
+     */
+    private int backendConnectTimeoutMs = 5000;
+
+    /**
+     * 后端重连初始退避（毫秒），每次失败翻倍
+     */
+    private long backendReconnectInitialDelayMs = 100;
+
+    /**
+     * 后端重连最大退避（毫秒）
+     */
+    private long backendReconnectMaxDelayMs = 10_000;
+
     public int getPort() {
         return port;
     }
@@ -59,6 +174,45 @@ public class GatewayConfig {
         this.workerThreads = workerThreads;
     }
 
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    public void setAcceptorThreads(int acceptorThreads) {
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    public IoMode getIoMode() {
+        return ioMode;
+    }
+
+    public void setIoMode(IoMode ioMode) {
+        this.ioMode = ioMode;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    public void setEdgeTriggered(boolean edgeTriggered) {
+        this.edgeTriggered = edgeTriggered;
+    }
+
+    /**
+     * 按配置创建前端监听使用的传输层
+     */
+    public NettyTransport transport() {
+        return NettyTransport.create(ioMode, reusePort, edgeTriggered);
+    }
+
     public int getReadIdleTimeout() {
         return readIdleTimeout;
     }
@@ -75,6 +229,102 @@ public class GatewayConfig {
         this.maxConnections = maxConnections;
     }
 
+    public boolean isBackpressure() {
+        return backpressure;
+    }
+
+    public void setBackpressure(boolean backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    public int getFrontendWriteBufferLowWaterMark() {
+        return frontendWriteBufferLowWaterMark;
+    }
+
+    public void setFrontendWriteBufferLowWaterMark(int frontendWriteBufferLowWaterMark) {
+        this.frontendWriteBufferLowWaterMark = frontendWriteBufferLowWaterMark;
+    }
+
+    public int getFrontendWriteBufferHighWaterMark() {
+        return frontendWriteBufferHighWaterMark;
+    }
+
+    public void setFrontendWriteBufferHighWaterMark(int frontendWriteBufferHighWaterMark) {
+        this.frontendWriteBufferHighWaterMark = frontendWriteBufferHighWaterMark;
+    }
+
+    public long getSessionOutboundBudgetBytes() {
+        return sessionOutboundBudgetBytes;
+    }
+
+    public void setSessionOutboundBudgetBytes(long sessionOutboundBudgetBytes) {
+        this.sessionOutboundBudgetBytes = sessionOutboundBudgetBytes;
+    }
+
+    public SlowConsumerGuard.Policy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    public void setSlowConsumerPolicy(SlowConsumerGuard.Policy slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    public FlushCoalescingConfig getFlush() {
+        return flush;
+    }
+
+    public void setFlush(FlushCoalescingConfig flush) {
+        this.flush = flush;
+    }
+
+    public FlushCoalescingConfig getBackendFlush() {
+        return backendFlush;
+    }
+
+    public void setBackendFlush(FlushCoalescingConfig backendFlush) {
+        this.backendFlush = backendFlush;
+    }
+
+    public boolean isSessionResume() {
+        return sessionResume;
+    }
+
+    public void setSessionResume(boolean sessionResume) {
+        this.sessionResume = sessionResume;
+    }
+
+    public long getSessionResumeGraceMs() {
+        return sessionResumeGraceMs;
+    }
+
+    public void setSessionResumeGraceMs(long sessionResumeGraceMs) {
+        this.sessionResumeGraceMs = sessionResumeGraceMs;
+    }
+
+    public int getReplayBufferSize() {
+        return replayBufferSize;
+    }
+
+    public void setReplayBufferSize(int replayBufferSize) {
+        this.replayBufferSize = replayBufferSize;
+    }
+
+    public int getReplayBufferMaxBytes() {
+        return replayBufferMaxBytes;
+    }
+
+    public void setReplayBufferMaxBytes(int replayBufferMaxBytes) {
+        this.replayBufferMaxBytes = replayBufferMaxBytes;
+    }
+
+    public CompressionConfig getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionConfig compression) {
+        this.compression = compression;
+    }
+
     public Map<String, String> getNodes() {
         return nodes;
     }
@@ -90,5 +340,52 @@ public class GatewayConfig {
     public void setRouteStrategy(String routeStrategy) {
         this.routeStrategy = routeStrategy;
     }
-}
 
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public long getPendingTimeoutMs() {
+        return pendingTimeoutMs;
+    }
+
+    public void setPendingTimeoutMs(long pendingTimeoutMs) {
+        this.pendingTimeoutMs = pendingTimeoutMs;
+    }
+
+    public int getBackendConnections() {
+        return backendConnections;
+    }
+
+    public void setBackendConnections(int backendConnections) {
+        this.backendConnections = backendConnections;
+    }
+
+    public int getBackendConnectTimeoutMs() {
+        return backendConnectTimeoutMs;
+    }
+
+    public void setBackendConnectTimeoutMs(int backendConnectTimeoutMs) {
+        this.backendConnectTimeoutMs = backendConnectTimeoutMs;
+    }
+
+    public long getBackendReconnectInitialDelayMs() {
+        return backendReconnectInitialDelayMs;
+    }
+
+    public void setBackendReconnectInitialDelayMs(long backendReconnectInitialDelayMs) {
+        this.backendReconnectInitialDelayMs = backendReconnectInitialDelayMs;
+    }
+
+    public long getBackendReconnectMaxDelayMs() {
+        return backendReconnectMaxDelayMs;
+    }
+
+    public void setBackendReconnectMaxDelayMs(long backendReconnectMaxDelayMs) {
+        this.backendReconnectMaxDelayMs = backendReconnectMaxDelayMs;
+    }
+}
@@ -3,13 +3,16 @@ package org.markeb.gateway.handler;
 import org.markeb.gateway.backend.BackendChannelManager;
 import org.markeb.gateway.route.NodeRouter;
 import org.markeb.gateway.session.SessionManager;
+import org.markeb.net.compress.MessageCompression;
 import org.markeb.net.gateway.codec.GatewayDecoder;
 import org.markeb.net.gateway.codec.GatewayEncoder;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.timeout.IdleStateHandler;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 前端连接初始化器
@@ -20,25 +23,57 @@ public class FrontendChannelInitializer extends ChannelInitializer<SocketChannel
     private final BackendChannelManager backendChannelManager;
     private final NodeRouter nodeRouter;
     private final int readIdleTimeout;
+    private final Supplier<ChannelHandler> flushHandler;
+    private final MessageCompression compression;
 
     public FrontendChannelInitializer(SessionManager sessionManager,
                                        BackendChannelManager backendChannelManager,
                                        NodeRouter nodeRouter,
                                        int readIdleTimeout) {
+        this(sessionManager, backendChannelManager, nodeRouter, readIdleTimeout, null);
+    }
+
+    /**
+     * @param flushHandler 出站写合并处理器工厂，为 null 时不合并
+     */
+    public FrontendChannelInitializer(SessionManager sessionManager,
+                                       BackendChannelManager backendChannelManager,
+                                       NodeRouter nodeRouter,
+                                       int readIdleTimeout,
+                                       Supplier<ChannelHandler> flushHandler) {
+        this(sessionManager, backendChannelManager, nodeRouter, readIdleTimeout, flushHandler, null);
+    }
+
+    /**
+     * @param flushHandler 出站写合并处理器工厂，为 null 时不合并
+     * @param compression  客户端链路的消息体压缩，为 null 时不压缩
+     */
+    public FrontendChannelInitializer(SessionManager sessionManager,
+                                       BackendChannelManager backendChannelManager,
+                                       NodeRouter nodeRouter,
+                                       int readIdleTimeout,
+                                       Supplier<ChannelHandler> flushHandler,
+                                       MessageCompression compression) {
         this.sessionManager = sessionManager;
         this.backendChannelManager = backendChannelManager;
         this.nodeRouter = nodeRouter;
         this.readIdleTimeout = readIdleTimeout;
+        this.flushHandler = flushHandler;
+        this.compression = compression;
     }
 
     @Override
     protected void initChannel(SocketChannel ch) {
+        // 空闲检测
+        ch.pipeline().addLast(new IdleStateHandler(readIdleTimeout, 0, 0, TimeUnit.SECONDS));
+        // 出站写合并（位于编码器靠 socket 一侧，按编码后的字节计数）
+        if (flushHandler != null) {
+            ch.pipeline().addLast(flushHandler.get());
+        }
         ch.pipeline()
-                // 空闲检测
-                .addLast(new IdleStateHandler(readIdleTimeout, 0, 0, TimeUnit.SECONDS))
                 // 编解码器（前端协议，不带 sessionId）
-                .addLast(new GatewayDecoder(true))
-                .addLast(new GatewayEncoder(true))
+                .addLast(new GatewayDecoder(true, compression))
+                .addLast(new GatewayEncoder(true, compression))
                 // 业务处理器
                 .addLast(new FrontendHandler(sessionManager, backendChannelManager, nodeRouter));
     }
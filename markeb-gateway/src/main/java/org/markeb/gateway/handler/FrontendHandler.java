@@ -5,6 +5,8 @@ import org.markeb.gateway.route.NodeRouter;
 import org.markeb.gateway.session.GatewaySession;
 import org.markeb.gateway.session.SessionManager;
 import org.markeb.net.gateway.GatewayPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.timeout.IdleState;
@@ -25,6 +27,14 @@ public class FrontendHandler extends SimpleChannelInboundHandler<GatewayPacket>
      */
     private static final int MSG_ID_LOGIN = 1001;
 
+    /**
+     * 会话恢复消息ID：请求体为 token(8) + lastSeq(4)，应答体为 result(4)，0 表示成功，随后补发错过的响应
+     */
+    private static final int MSG_ID_RESUME = 1002;
+
+    private static final int RESUME_OK = 0;
+    private static final int RESUME_FAILED = 1;
+
     private final SessionManager sessionManager;
     private final BackendChannelManager backendChannelManager;
     private final NodeRouter nodeRouter;
@@ -61,6 +71,10 @@ public class FrontendHandler extends SimpleChannelInboundHandler<GatewayPacket>
             handleLogin(msg);
             return;
         }
+        if (msg.getMsgId() == MSG_ID_RESUME) {
+            handleResume(ctx, msg);
+            return;
+        }
 
         // 检查是否已认证
         if (!session.isAuthenticated()) {
@@ -100,6 +114,34 @@ public class FrontendHandler extends SimpleChannelInboundHandler<GatewayPacket>
                 );
     }
 
+    /**
+     * 处理会话恢复请求：凭令牌接回断线前的会话，失败时客户端按正常流程重新登录
+     */
+    private void handleResume(ChannelHandlerContext ctx, GatewayPacket packet) {
+        ByteBuf body = packet.content();
+        if (session.getState() != GatewaySession.SessionState.CONNECTED || body.readableBytes() < 12) {
+            session.send(resumeResult(packet.getSeq(), RESUME_FAILED));
+            return;
+        }
+        long token = body.getLong(body.readerIndex());
+        int lastSeq = body.getInt(body.readerIndex() + 8);
+
+        GatewaySession resumed = sessionManager.resume(token, lastSeq, ctx.channel(),
+                resumeResult(packet.getSeq(), RESUME_OK));
+        if (resumed == null) {
+            session.send(resumeResult(packet.getSeq(), RESUME_FAILED));
+            return;
+        }
+        // 丢弃为本连接新建的临时会话，之后的请求都走原会话
+        GatewaySession fresh = session;
+        session = resumed;
+        sessionManager.removeSession(fresh.getSessionId());
+    }
+
+    private static GatewayPacket resumeResult(int seq, int result) {
+        return new GatewayPacket(0, MSG_ID_RESUME, seq, Unpooled.copyInt(result));
+    }
+
     /**
      * 路由消息到后端节点
      */
@@ -123,18 +165,39 @@ public class FrontendHandler extends SimpleChannelInboundHandler<GatewayPacket>
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        if (session != null) {
-            log.info("Client disconnected, session: {}", session.getSessionId());
-
-            // 清理 pending 请求
-            backendChannelManager.cleanupSession(session.getSessionId());
-
-            // 移除会话
-            sessionManager.removeSession(session.getSessionId());
+        if (session != null && session.getFrontendChannel() == ctx.channel()) {
+            // 开启会话恢复时保留会话，pending 请求的响应继续记入补发缓冲，宽限期到期后再清理
+            if (sessionManager.detach(session, ctx.channel(),
+                    expired -> backendChannelManager.cleanupSession(expired.getSessionId()))) {
+                log.info("Client disconnected, session {} kept for resume", session.getSessionId());
+            } else {
+                log.info("Client disconnected, session: {}", session.getSessionId());
+
+                // 清理 pending 请求
+                backendChannelManager.cleanupSession(session.getSessionId());
+
+                // 移除会话
+                sessionManager.removeSession(session.getSessionId());
+            }
         }
         super.channelInactive(ctx);
     }
 
+    /**
+     * 客户端不读响应导致前端连接不可写时，暂停读取它的请求，恢复可写后继续
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (session != null && backendChannelManager.isBackpressure()) {
+            if (ctx.channel().isWritable()) {
+                session.resumeRead(GatewaySession.PAUSED_BY_FRONTEND);
+            } else {
+                session.pauseRead(GatewaySession.PAUSED_BY_FRONTEND);
+            }
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent idleEvent) {
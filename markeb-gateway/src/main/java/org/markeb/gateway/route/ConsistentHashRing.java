@@ -0,0 +1,204 @@
+package org.markeb.gateway.route;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 不可变的一致性哈希环
+ * <p>
+ * 每个节点按权重映射为若干虚拟节点，虚拟节点的哈希值排序后存放在 long 数组中，
+ * 查找时二分定位顺时针方向的第一个虚拟节点，O(log n)。
+ * 增删一个节点只影响其相邻区间的 key，其余 key 的归属保持不变。
+ * </p>
+ * <p>
+ * 环一经构建不再修改，节点变化时整体重建并替换，读路径无锁。
+ * </p>
+ */
+public final class ConsistentHashRing {
+
+    private static final ConsistentHashRing EMPTY = new ConsistentHashRing(new long[0], new int[0], new String[0]);
+
+    private static final double TWO_POW_64 = 0x1p64;
+
+    /**
+     * 虚拟节点哈希，升序
+     */
+    private final long[] points;
+
+    /**
+     * points[i] 对应的节点下标
+     */
+    private final int[] owners;
+
+    /**
+     * 节点 ID
+     */
+    private final String[] nodeIds;
+
+    private ConsistentHashRing(long[] points, int[] owners, String[] nodeIds) {
+        this.points = points;
+        this.owners = owners;
+        this.nodeIds = nodeIds;
+    }
+
+    public static ConsistentHashRing empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 构建哈希环
+     *
+     * @param weights      nodeId -> 权重，权重 <= 0 的节点不参与
+     * @param virtualNodes 权重为 1 时每个节点的虚拟节点数
+     */
+    public static ConsistentHashRing build(Map<String, Double> weights, int virtualNodes) {
+        String[] ids = weights.entrySet().stream()
+                .filter(e -> e.getValue() != null && e.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toArray(String[]::new);
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+
+        int total = 0;
+        int[] counts = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            counts[i] = Math.max(1, (int) Math.round(virtualNodes * weights.get(ids[i])));
+            total += counts[i];
+        }
+
+        // 先按下标排序，再按顺序重排哈希值与所属节点
+        long[] hashes = new long[total];
+        int[] owners = new int[total];
+        Integer[] order = new Integer[total];
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) {
+            for (int v = 0; v < counts[i]; v++) {
+                hashes[n] = hash(ids[i] + "#" + v);
+                owners[n] = i;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compare(hashes[a], hashes[b]);
+            // 哈希碰撞时按节点 ID 排序，保证构建结果确定
+            return c != 0 ? c : Integer.compare(owners[a], owners[b]);
+        });
+
+        long[] points = new long[total];
+        int[] sortedOwners = new int[total];
+        for (int i = 0; i < total; i++) {
+            points[i] = hashes[order[i]];
+            sortedOwners[i] = owners[order[i]];
+        }
+        return new ConsistentHashRing(points, sortedOwners, ids);
+    }
+
+    /**
+     * 定位 key 所属节点
+     *
+     * @return 节点 ID，环为空时返回 null
+     */
+    public String locate(long key) {
+        if (points.length == 0) {
+            return null;
+        }
+        return nodeIds[owners[indexOf(mix(key))]];
+    }
+
+    /**
+     * 顺时针方向第一个 >= hash 的虚拟节点下标（越过末尾回到 0）
+     */
+    private int indexOf(long hash) {
+        int i = Arrays.binarySearch(points, hash);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return i == points.length ? 0 : i;
+    }
+
+    private String ownerOf(long hash) {
+        return nodeIds[owners[indexOf(hash)]];
+    }
+
+    /**
+     * 获取节点数
+     */
+    public int size() {
+        return nodeIds.length;
+    }
+
+    /**
+     * 获取虚拟节点总数
+     */
+    public int getVirtualNodeCount() {
+        return points.length;
+    }
+
+    public boolean isEmpty() {
+        return nodeIds.length == 0;
+    }
+
+    /**
+     * 计算相对旧环，归属发生变化的 key 所占比例（0 ~ 1）
+     * <p>
+     * 合并两个环的虚拟节点作为分界点，每段区间在两个环中的归属都是确定的，
+     * 累加归属不同的区间长度即可精确得到迁移比例。
+     * </p>
+     */
+    public double movedFraction(ConsistentHashRing previous) {
+        if (previous.isEmpty() || isEmpty()) {
+            return previous.isEmpty() && isEmpty() ? 0 : 1;
+        }
+        long[] bounds = new long[points.length + previous.points.length];
+        System.arraycopy(points, 0, bounds, 0, points.length);
+        System.arraycopy(previous.points, 0, bounds, points.length, previous.points.length);
+        Arrays.sort(bounds);
+
+        double moved = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            long end = bounds[i];
+            long start = i == 0 ? bounds[bounds.length - 1] : bounds[i - 1];
+            long length = end - start;
+            if (length == 0 && bounds.length > 1) {
+                continue;
+            }
+            if (!ownerOf(end).equals(previous.ownerOf(end))) {
+                // (start, end] 的长度按无符号数计，只有一个分界点时为整个环
+                moved += length == 0 ? TWO_POW_64 : unsigned(length);
+            }
+        }
+        return moved / TWO_POW_64;
+    }
+
+    private static double unsigned(long value) {
+        double d = (double) (value >>> 1) * 2.0;
+        return d + (value & 1L);
+    }
+
+    /**
+     * 64 位混淆，打散连续的 key（如自增的玩家 ID）
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 字符串哈希：FNV-1a 后再做一次 64 位混淆
+     */
+    static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+}
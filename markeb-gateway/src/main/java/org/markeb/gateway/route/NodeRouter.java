@@ -1,6 +1,9 @@
 package org.markeb.gateway.route;
 
+import org.markeb.gateway.config.GatewayConfig;
 import org.markeb.gateway.session.GatewaySession;
+import org.markeb.service.registry.ServiceChangeListener;
+import org.markeb.service.registry.ServiceDiscovery;
 import org.markeb.service.registry.ServiceInstance;
 import org.markeb.service.registry.ServiceRegistry;
 import org.slf4j.Logger;
@@ -8,15 +11,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 节点路由器
  * 负责将请求路由到合适的游戏节点
+ * <p>
+ * 可用节点保存为不可变快照（节点列表、地址表、一致性哈希环），
+ * 只在服务发现推送变更或静态节点增删时重建，路由时只读快照，不访问注册中心。
+ * </p>
  */
 @Component
 public class NodeRouter {
@@ -25,9 +36,20 @@ public class NodeRouter {
 
     private static final String NODE_SERVICE_NAME = "markeb-node";
 
+    /**
+     * 节点权重的元数据 key，未配置时使用实例自身的 weight
+     */
+    static final String WEIGHT_METADATA_KEY = "weight";
+
     @Autowired(required = false)
     private ServiceRegistry serviceRegistry;
 
+    @Autowired(required = false)
+    private ServiceDiscovery serviceDiscovery;
+
+    @Autowired
+    private GatewayConfig config;
+
     /**
      * 静态节点配置（当没有服务注册时使用）
      */
@@ -38,6 +60,32 @@ public class NodeRouter {
      */
     private final AtomicInteger roundRobinCounter = new AtomicInteger(0);
 
+    private final ServiceChangeListener changeListener = (serviceName, instances) -> onNodesChanged(instances);
+
+    /**
+     * 服务发现得到的节点，只在变更通知时替换
+     */
+    private List<ServiceInstance> discoveredNodes = List.of();
+
+    private volatile RouteSnapshot snapshot = RouteSnapshot.EMPTY;
+
+    /**
+     * 最近一次重建时迁移的 key 比例
+     */
+    private volatile double lastMovedFraction;
+
+    /**
+     * 路由快照，构建后不再修改
+     *
+     * @param nodeIds   节点 ID（有序）
+     * @param addresses nodeId -> host:port
+     * @param ring      一致性哈希环
+     */
+    private record RouteSnapshot(List<String> nodeIds, Map<String, String> addresses, ConsistentHashRing ring) {
+
+        static final RouteSnapshot EMPTY = new RouteSnapshot(List.of(), Map.of(), ConsistentHashRing.empty());
+    }
+
     /**
      * 路由策略
      */
@@ -63,6 +111,25 @@ public class NodeRouter {
         DESIGNATED
     }
 
+    @PostConstruct
+    public void init() {
+        if (serviceDiscovery != null) {
+            serviceDiscovery.subscribe(NODE_SERVICE_NAME, changeListener);
+            onNodesChanged(serviceDiscovery.getInstances(NODE_SERVICE_NAME));
+        } else if (serviceRegistry != null) {
+            // 没有服务发现时无法收到变更通知，只在启动时加载一次
+            log.warn("No ServiceDiscovery available, node list of {} will not be refreshed", NODE_SERVICE_NAME);
+            onNodesChanged(serviceRegistry.getInstances(NODE_SERVICE_NAME));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (serviceDiscovery != null) {
+            serviceDiscovery.unsubscribe(NODE_SERVICE_NAME, changeListener);
+        }
+    }
+
     /**
      * 为会话选择节点
      *
@@ -76,121 +143,129 @@ public class NodeRouter {
             return getNodeAddress(session.getNodeId());
         }
 
-        // 获取可用节点列表
-        List<ServiceInstance> nodes = getAvailableNodes();
-        if (nodes.isEmpty()) {
-            // 尝试使用静态配置
-            if (!staticNodes.isEmpty()) {
-                return selectFromStaticNodes(session, strategy);
-            }
+        RouteSnapshot current = snapshot;
+        List<String> nodeIds = current.nodeIds();
+        if (nodeIds.isEmpty()) {
             log.warn("No available nodes for routing");
             return Optional.empty();
         }
 
         // 根据策略选择节点
-        ServiceInstance selected = switch (strategy) {
-            case ROUND_ROBIN -> selectByRoundRobin(nodes);
-            case RANDOM -> selectByRandom(nodes);
-            case CONSISTENT_HASH -> selectByConsistentHash(nodes, session.getPlayerId());
-            case DESIGNATED -> nodes.get(0); // 默认选第一个
+        String selected = switch (strategy) {
+            case ROUND_ROBIN -> selectByRoundRobin(nodeIds);
+            case RANDOM -> nodeIds.get(ThreadLocalRandom.current().nextInt(nodeIds.size()));
+            case CONSISTENT_HASH -> selectByConsistentHash(current, session.getPlayerId());
+            case DESIGNATED -> nodeIds.get(0); // 默认选第一个
         };
 
-        if (selected != null) {
-            String nodeId = selected.getInstanceId();
-            session.setNodeId(nodeId);
-            return Optional.of(selected.getHost() + ":" + selected.getPort());
+        if (selected == null) {
+            return Optional.empty();
         }
-
-        return Optional.empty();
+        session.setNodeId(selected);
+        return Optional.ofNullable(current.addresses().get(selected));
     }
 
     /**
      * 获取指定节点的地址
      */
     public Optional<String> getNodeAddress(String nodeId) {
-        // 先从服务注册中心查找
-        if (serviceRegistry != null) {
-            List<ServiceInstance> instances = serviceRegistry.getInstances(NODE_SERVICE_NAME);
-            for (ServiceInstance instance : instances) {
-                if (nodeId.equals(instance.getInstanceId())) {
-                    return Optional.of(instance.getHost() + ":" + instance.getPort());
-                }
-            }
+        String address = snapshot.addresses().get(nodeId);
+        if (address == null) {
+            // 服务发现有节点时快照中不含静态节点，仍允许按 ID 访问
+            address = staticNodes.get(nodeId);
         }
-
-        // 从静态配置查找
-        String address = staticNodes.get(nodeId);
         return Optional.ofNullable(address);
     }
 
     /**
-     * 获取可用节点列表
+     * 轮询选择
      */
-    private List<ServiceInstance> getAvailableNodes() {
-        if (serviceRegistry == null) {
-            return List.of();
-        }
-        return serviceRegistry.getInstances(NODE_SERVICE_NAME);
+    private String selectByRoundRobin(List<String> nodeIds) {
+        int index = Math.abs(roundRobinCounter.getAndIncrement() % nodeIds.size());
+        return nodeIds.get(index);
     }
 
     /**
-     * 轮询选择
+     * 一致性哈希选择，同一玩家在节点不变时始终路由到同一节点
      */
-    private ServiceInstance selectByRoundRobin(List<ServiceInstance> nodes) {
-        int index = Math.abs(roundRobinCounter.getAndIncrement() % nodes.size());
-        return nodes.get(index);
+    private String selectByConsistentHash(RouteSnapshot current, Long playerId) {
+        if (playerId == null || current.ring().isEmpty()) {
+            return selectByRoundRobin(current.nodeIds());
+        }
+        return current.ring().locate(playerId);
     }
 
     /**
-     * 随机选择
+     * 服务发现变更通知
      */
-    private ServiceInstance selectByRandom(List<ServiceInstance> nodes) {
-        int index = (int) (Math.random() * nodes.size());
-        return nodes.get(index);
+    private synchronized void onNodesChanged(List<ServiceInstance> instances) {
+        discoveredNodes = instances != null ? List.copyOf(instances) : List.of();
+        rebuild();
     }
 
     /**
-     * 一致性哈希选择
+     * 重建路由快照：服务发现有可用节点时使用服务发现，否则使用静态配置
      */
-    private ServiceInstance selectByConsistentHash(List<ServiceInstance> nodes, Long playerId) {
-        if (playerId == null) {
-            return selectByRoundRobin(nodes);
+    private synchronized void rebuild() {
+        Map<String, String> addresses = new HashMap<>();
+        Map<String, Double> weights = new HashMap<>();
+        for (ServiceInstance instance : discoveredNodes) {
+            if (!instance.isHealthy() || !instance.isEnabled()) {
+                continue;
+            }
+            addresses.put(instance.getInstanceId(), instance.getHost() + ":" + instance.getPort());
+            weights.put(instance.getInstanceId(), weightOf(instance));
+        }
+        if (addresses.isEmpty()) {
+            addresses.putAll(staticNodes);
+            staticNodes.keySet().forEach(nodeId -> weights.put(nodeId, 1.0));
         }
-        int hash = Math.abs(Long.hashCode(playerId));
-        int index = hash % nodes.size();
-        return nodes.get(index);
+
+        ConsistentHashRing ring = ConsistentHashRing.build(weights, config.getVirtualNodes());
+        RouteSnapshot previous = snapshot;
+        snapshot = new RouteSnapshot(addresses.keySet().stream().sorted().toList(), Map.copyOf(addresses), ring);
+
+        lastMovedFraction = ring.movedFraction(previous.ring());
+        log.info("Route table rebuilt: {} nodes, {} virtual nodes, {}% of keys moved",
+                ring.size(), ring.getVirtualNodeCount(), String.format("%.2f", lastMovedFraction * 100));
     }
 
     /**
-     * 从静态配置选择节点
+     * 节点权重：优先取元数据中的 weight，解析失败或未配置时取实例权重
+     * <p>
+     * 可路由的节点都要出现在哈希环上，否则环与节点列表不一致，非正数或非法的权重按 1 处理。
+     * </p>
      */
-    private Optional<String> selectFromStaticNodes(GatewaySession session, RouteStrategy strategy) {
-        if (staticNodes.isEmpty()) {
-            return Optional.empty();
+    static double weightOf(ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        String value = metadata != null ? metadata.get(WEIGHT_METADATA_KEY) : null;
+        double weight = instance.getWeight();
+        if (value != null) {
+            try {
+                weight = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid weight metadata of node {}: {}", instance.getInstanceId(), value);
+            }
+        }
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            log.warn("Non-positive weight of node {}: {}, using 1", instance.getInstanceId(), weight);
+            return 1.0;
         }
+        return weight;
+    }
 
-        List<String> nodeIds = List.copyOf(staticNodes.keySet());
-        String selectedId = switch (strategy) {
-            case ROUND_ROBIN -> {
-                int index = Math.abs(roundRobinCounter.getAndIncrement() % nodeIds.size());
-                yield nodeIds.get(index);
-            }
-            case RANDOM -> {
-                int index = (int) (Math.random() * nodeIds.size());
-                yield nodeIds.get(index);
-            }
-            case CONSISTENT_HASH -> {
-                if (session.getPlayerId() == null) {
-                    yield nodeIds.get(0);
-                }
-                int hash = Math.abs(Long.hashCode(session.getPlayerId()));
-                yield nodeIds.get(hash % nodeIds.size());
-            }
-            case DESIGNATED -> nodeIds.get(0);
-        };
+    /**
+     * 获取当前可路由的节点数
+     */
+    public int getNodeCount() {
+        return snapshot.nodeIds().size();
+    }
 
-        session.setNodeId(selectedId);
-        return Optional.ofNullable(staticNodes.get(selectedId));
+    /**
+     * 获取最近一次重建时迁移的 key 比例（0 ~ 1）
+     */
+    public double getLastMovedFraction() {
+        return lastMovedFraction;
     }
 
     /**
@@ -199,6 +274,7 @@ public class NodeRouter {
     public void addStaticNode(String nodeId, String address) {
         staticNodes.put(nodeId, address);
         log.info("Added static node: {} -> {}", nodeId, address);
+        rebuild();
     }
 
     /**
@@ -206,6 +282,6 @@ public class NodeRouter {
      */
     public void removeStaticNode(String nodeId) {
         staticNodes.remove(nodeId);
+        rebuild();
     }
 }
-
@@ -0,0 +1,302 @@
+package org.markeb.gateway.session;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * long 为 key 的并发表，用于会话表（sessionId / playerId -> 会话）
+ * <p>
+ * 相比 {@code ConcurrentHashMap<Long, V>}，查找与删除不装箱 key，也不为每个 key 分配 Node：
+ * </p>
+ * <ul>
+ *   <li>按 key 分段，写入与删除在分段内加锁</li>
+ *   <li>分段内为线性探测开放寻址表，槽位存放不可变的 (key, value) 条目，读取不加锁</li>
+ *   <li>删除时写入墓碑，不移动其他条目，无锁读取不会因为条目移位而漏读；墓碑在扩容/缩容重建时清除</li>
+ * </ul>
+ * <p>
+ * 迭代与 ConcurrentHashMap 一样是弱一致的：不抛出 ConcurrentModificationException，
+ * 可能看不到迭代期间新增的条目。
+ * </p>
+ *
+ * @param <V> 值类型
+ */
+final class ConcurrentLongMap<V> {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Entry<?> TOMBSTONE = new Entry<>(0, null);
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    ConcurrentLongMap() {
+        this.segments = new Segment[1 << SEGMENT_BITS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private Segment<V> segmentFor(long key) {
+        return segments[(int) (mix(key) >>> (64 - SEGMENT_BITS))];
+    }
+
+    /**
+     * 获取 key 对应的值，不存在时返回 null
+     */
+    V get(long key) {
+        return segmentFor(key).get(key);
+    }
+
+    /**
+     * 写入 key -> value
+     *
+     * @return 原来的值，不存在时返回 null
+     */
+    V put(long key, V value) {
+        Segment<V> segment = segmentFor(key);
+        segment.lock();
+        try {
+            return segment.put(key, value);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 移除 key
+     *
+     * @return 被移除的值，不存在时返回 null
+     */
+    V remove(long key) {
+        Segment<V> segment = segmentFor(key);
+        segment.lock();
+        try {
+            return segment.remove(key, null);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 仅当 key 当前映射到 value（同一对象）时移除
+     */
+    boolean remove(long key, V value) {
+        Segment<V> segment = segmentFor(key);
+        segment.lock();
+        try {
+            return segment.remove(key, value) != null;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 获取条目数（各分段计数之和，并发修改时为近似值）
+     */
+    int size() {
+        int total = 0;
+        for (Segment<V> segment : segments) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+    /**
+     * 所有值的弱一致视图
+     */
+    Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentLongMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * 不可变条目，替换值时整体换新条目，无锁读取总能看到一致的 key 与 value
+     */
+    private static final class Entry<V> {
+
+        final long key;
+        final V value;
+
+        Entry(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Segment<V> extends ReentrantLock {
+
+        /**
+         * 重建时整体替换；读取方拿到旧表时看到的是替换前的快照
+         */
+        private volatile AtomicReferenceArray<Entry<V>> table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+        private volatile int size;
+        private int tombstones;
+
+        @SuppressWarnings("unchecked")
+        private static <V> Entry<V> tombstone() {
+            return (Entry<V>) TOMBSTONE;
+        }
+
+        V get(long key) {
+            AtomicReferenceArray<Entry<V>> tab = table;
+            int mask = tab.length() - 1;
+            int i = (int) mix(key) & mask;
+            Entry<V> e;
+            while ((e = tab.get(i)) != null) {
+                if (e != TOMBSTONE && e.key == key) {
+                    return e.value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        V put(long key, V value) {
+            // 保证表中始终有空槽，探测一定会终止
+            if ((size + tombstones + 1) * 2 > table.length()) {
+                rebuild(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, size + 1)) << 2));
+            }
+            AtomicReferenceArray<Entry<V>> tab = table;
+            int mask = tab.length() - 1;
+            int i = (int) mix(key) & mask;
+            int reuse = -1;
+            Entry<V> e;
+            while ((e = tab.get(i)) != null) {
+                if (e == TOMBSTONE) {
+                    if (reuse < 0) {
+                        reuse = i;
+                    }
+                } else if (e.key == key) {
+                    tab.set(i, new Entry<>(key, value));
+                    return e.value;
+                }
+                i = (i + 1) & mask;
+            }
+            if (reuse >= 0) {
+                tab.set(reuse, new Entry<>(key, value));
+                tombstones--;
+            } else {
+                tab.set(i, new Entry<>(key, value));
+            }
+            size++;
+            return null;
+        }
+
+        /**
+         * @param expected 非 null 时仅在当前值为该对象时移除
+         */
+        V remove(long key, V expected) {
+            AtomicReferenceArray<Entry<V>> tab = table;
+            int mask = tab.length() - 1;
+            int i = (int) mix(key) & mask;
+            Entry<V> e;
+            while ((e = tab.get(i)) != null) {
+                if (e != TOMBSTONE && e.key == key) {
+                    if (expected != null && e.value != expected) {
+                        return null;
+                    }
+                    tab.set(i, tombstone());
+                    size--;
+                    tombstones++;
+                    if (tab.length() > INITIAL_CAPACITY && size * 8 < tab.length()) {
+                        rebuild(Math.max(INITIAL_CAPACITY, tab.length() >> 1));
+                    }
+                    return e.value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * 把存活条目搬到新表并发布，清除墓碑
+         */
+        private void rebuild(int capacity) {
+            AtomicReferenceArray<Entry<V>> old = table;
+            AtomicReferenceArray<Entry<V>> tab = new AtomicReferenceArray<>(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < old.length(); j++) {
+                Entry<V> e = old.get(j);
+                if (e != null && e != TOMBSTONE) {
+                    int i = (int) mix(e.key) & mask;
+                    while (tab.get(i) != null) {
+                        i = (i + 1) & mask;
+                    }
+                    tab.set(i, e);
+                }
+            }
+            tombstones = 0;
+            table = tab;
+        }
+    }
+
+    /**
+     * 逐分段遍历当前表的快照
+     */
+    private final class ValueIterator implements Iterator<V> {
+
+        private int segmentIndex = -1;
+        private AtomicReferenceArray<Entry<V>> tab;
+        private int slot;
+        private V next;
+
+        ValueIterator() {
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (true) {
+                if (tab != null) {
+                    while (slot < tab.length()) {
+                        Entry<V> e = tab.get(slot++);
+                        if (e != null && e != TOMBSTONE) {
+                            next = e.value;
+                            return;
+                        }
+                    }
+                }
+                if (++segmentIndex >= segments.length) {
+                    return;
+                }
+                tab = segments[segmentIndex].table;
+                slot = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            V value = next;
+            if (value == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return value;
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package org.markeb.gateway.session;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.util.ReferenceCountUtil;
+import org.markeb.net.gateway.GatewayPacket;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -11,6 +18,16 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class GatewaySession {
 
+    /**
+     * 暂停读取原因：转发目标的后端连接不可写
+     */
+    public static final int PAUSED_BY_BACKEND = 1;
+
+    /**
+     * 暂停读取原因：前端连接自身不可写（客户端不读响应时不再接收它的请求）
+     */
+    public static final int PAUSED_BY_FRONTEND = 1 << 1;
+
     /**
      * 会话ID（网关内唯一）
      */
@@ -27,9 +44,9 @@ public class GatewaySession {
     private volatile String nodeId;
 
     /**
-     * 前端连接（客户端到网关）
+     * 前端连接（客户端到网关），会话恢复时切换到新连接
      */
-    private final Channel frontendChannel;
+    private volatile Channel frontendChannel;
 
     /**
      * 会话创建时间
@@ -51,9 +68,50 @@ public class GatewaySession {
      */
     private volatile SessionState state = SessionState.CONNECTED;
 
+    /**
+     * 慢客户端保护
+     */
+    private final SlowConsumerGuard slowConsumerGuard;
+
+    /**
+     * 暂停读取的原因位，全部清除后恢复读取
+     */
+    private final AtomicInteger pauseReasons = new AtomicInteger(0);
+
+    /**
+     * 是否已计入 SessionManager 的已认证计数，保证认证与移除各只计一次
+     */
+    private final AtomicBoolean counted = new AtomicBoolean(false);
+
+    /**
+     * 响应补发缓冲，未开启会话恢复时为 null
+     */
+    private final ReplayBuffer replayBuffer;
+
+    /**
+     * 会话恢复令牌，0 表示未签发
+     */
+    private volatile long resumeToken;
+
+    /**
+     * 断线宽限期到期后移除会话的任务，由 SessionManager 在会话锁内维护
+     */
+    ScheduledFuture<?> expiryTask;
+
     public GatewaySession(int sessionId, Channel frontendChannel) {
+        this(sessionId, frontendChannel, SlowConsumerGuard.UNLIMITED);
+    }
+
+    public GatewaySession(int sessionId, Channel frontendChannel, SlowConsumerGuard slowConsumerGuard) {
+        this(sessionId, frontendChannel, slowConsumerGuard, null);
+    }
+
+    GatewaySession(int sessionId, Channel frontendChannel, SlowConsumerGuard slowConsumerGuard,
+                   ReplayBuffer replayBuffer) {
         this.sessionId = sessionId;
         this.frontendChannel = frontendChannel;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.replayBuffer = replayBuffer;
         this.createTime = LocalDateTime.now();
         this.lastActiveTime = this.createTime;
     }
@@ -107,7 +165,8 @@ public class GatewaySession {
     }
 
     public boolean isActive() {
-        return frontendChannel != null && frontendChannel.isActive();
+        Channel channel = frontendChannel;
+        return channel != null && channel.isActive();
     }
 
     public boolean isAuthenticated() {
@@ -116,11 +175,175 @@ public class GatewaySession {
 
     /**
      * 发送消息到客户端
+     * <p>
+     * 接管 msg 的引用计数：连接已断开或超出出站预算时直接释放，不会泄漏池化内存。
+     * 使用 writeAndFlush，实际的 flush 由前端 pipeline 中的 FlushCoalescingHandler 按事件循环 tick 合并。
+     * </p>
+     * <p>
+     * 开启会话恢复时，带 seq 的响应先记入补发缓冲（断线期间也会记录），记录与写出在同一把锁内，
+     * 重连补发不会与新响应交错。
+     * </p>
      */
     public void send(Object msg) {
-        if (isActive()) {
-            frontendChannel.writeAndFlush(msg);
+        ReplayBuffer replay = replayBuffer;
+        if (replay != null && msg instanceof GatewayPacket packet && packet.getSeq() > 0) {
+            synchronized (replay) {
+                replay.record(packet);
+                write(msg);
+            }
+            return;
+        }
+        write(msg);
+    }
+
+    private void write(Object msg) {
+        Channel channel = frontendChannel;
+        if (channel != null && channel.isActive() && admit(sizeOf(msg))) {
+            channel.writeAndFlush(msg);
+        } else {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * 把会话切换到客户端重连后的新连接，依次写出 ack 与客户端错过的响应
+     * <p>
+     * 由 SessionManager 在会话锁内调用。缓冲中已经缺少客户端错过的响应时不做切换。
+     * </p>
+     *
+     * @param lastSeq 客户端最后收到的响应 seq
+     * @param ack     恢复成功的应答，接管其引用计数
+     * @return 是否切换成功
+     */
+    boolean rebind(Channel channel, int lastSeq, GatewayPacket ack) {
+        ReplayBuffer replay = replayBuffer;
+        if (replay == null) {
+            ack.release();
+            return false;
+        }
+        synchronized (replay) {
+            if (!replay.covers(lastSeq)) {
+                ack.release();
+                return false;
+            }
+            frontendChannel = channel;
+            // 旧连接上的暂停状态不适用于新连接
+            pauseReasons.set(0);
+            write(ack);
+            replay.replayAfter(lastSeq, this::write);
+        }
+        return true;
+    }
+
+    /**
+     * 释放补发缓冲（会话移除时调用）
+     */
+    void releaseReplay() {
+        ReplayBuffer replay = replayBuffer;
+        if (replay != null) {
+            synchronized (replay) {
+                replay.release();
+            }
+        }
+    }
+
+    public long getResumeToken() {
+        return resumeToken;
+    }
+
+    void setResumeToken(long resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    /**
+     * 判断能否再向客户端写入 size 字节，超出出站预算时按慢客户端策略丢弃或断开
+     */
+    public boolean admit(long size) {
+        return slowConsumerGuard.admit(this, size);
+    }
+
+    /**
+     * 获取前端连接已写入但尚未发出的字节数
+     */
+    public long getQueuedBytes() {
+        Channel channel = frontendChannel;
+        if (channel == null) {
+            return 0;
+        }
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer != null ? buffer.totalPendingWriteBytes() : 0;
+    }
+
+    /**
+     * 因指定原因暂停读取客户端数据，可在任意线程调用
+     *
+     * @return 是否由本次调用从读取状态切换为暂停
+     */
+    public boolean pauseRead(int reason) {
+        int prev = pauseReasons.getAndUpdate(r -> r | reason);
+        if (prev == 0) {
+            applyAutoRead();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 清除指定的暂停原因，所有原因都清除后恢复读取，可在任意线程调用
+     *
+     * @return 是否由本次调用恢复读取
+     */
+    public boolean resumeRead(int reason) {
+        int prev = pauseReasons.getAndUpdate(r -> r & ~reason);
+        if (prev != 0 && (prev & ~reason) == 0) {
+            applyAutoRead();
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * 在前端连接的事件循环中按最新的暂停状态设置 autoRead
+     * <p>
+     * 暂停与恢复可能来自不同线程，统一投递到同一个事件循环并在执行时读取最新状态，
+     * 最后执行的任务总是反映最终状态，不会因为两次 setAutoRead 乱序而一直暂停。
+     * </p>
+     */
+    private void applyAutoRead() {
+        Channel channel = frontendChannel;
+        if (channel == null) {
+            return;
+        }
+        if (channel.eventLoop().inEventLoop()) {
+            channel.config().setAutoRead(pauseReasons.get() == 0);
+        } else {
+            channel.eventLoop().execute(() -> channel.config().setAutoRead(pauseReasons.get() == 0));
+        }
+    }
+
+    /**
+     * 是否暂停了读取
+     */
+    public boolean isReadPaused() {
+        return pauseReasons.get() != 0;
+    }
+
+    private static long sizeOf(Object msg) {
+        if (msg instanceof ByteBuf buf) {
+            return buf.readableBytes();
+        }
+        if (msg instanceof ByteBufHolder holder) {
+            return holder.content().readableBytes();
+        }
+        return 0;
+    }
+
+    boolean markCounted() {
+        return counted.compareAndSet(false, true);
+    }
+
+    boolean unmarkCounted() {
+        return counted.compareAndSet(true, false);
     }
 
     /**
@@ -128,8 +351,9 @@ public class GatewaySession {
      */
     public void close() {
         state = SessionState.CLOSED;
-        if (frontendChannel != null && frontendChannel.isActive()) {
-            frontendChannel.close();
+        Channel channel = frontendChannel;
+        if (channel != null && channel.isActive()) {
+            channel.close();
         }
     }
 
@@ -149,6 +373,11 @@ public class GatewaySession {
          */
         AUTHENTICATED,
 
+        /**
+         * 连接已断开，在宽限期内等待客户端凭令牌恢复
+         */
+        DETACHED,
+
         /**
          * 已关闭
          */
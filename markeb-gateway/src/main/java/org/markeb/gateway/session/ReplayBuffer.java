@@ -0,0 +1,110 @@
+package org.markeb.gateway.session;
+
+import org.markeb.net.gateway.GatewayPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * 会话的响应补发缓冲
+ * <p>
+ * 按发送顺序保存最近回给客户端的响应（seq > 0 的包），条数与字节数都有上限，超出时淘汰最旧的。
+ * 同一会话的请求经同一条后端连接、由同一个 Actor 处理，响应的 seq 单调递增，
+ * 客户端重连时带上最后收到的 seq，补发其后的所有响应即可。
+ * </p>
+ * <p>
+ * 消息体拷贝为独立的池化缓冲区保存，不会因为引用解码切片而长期占住后端连接的读缓冲。
+ * 非线程安全，由 {@link GatewaySession} 在同一把锁内完成记录与写出，保证补发与新响应的顺序。
+ * </p>
+ */
+class ReplayBuffer {
+
+    private final int maxPackets;
+    private final long maxBytes;
+
+    private final ArrayDeque<GatewayPacket> packets = new ArrayDeque<>();
+    private long bytes;
+
+    /**
+     * 已淘汰的最大 seq，客户端最后收到的 seq 小于它时，有响应已无法补发
+     */
+    private int evictedSeq;
+
+    private boolean released;
+
+    ReplayBuffer(int maxPackets, long maxBytes) {
+        this.maxPackets = Math.max(1, maxPackets);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 记录一个即将写出的响应，不改变 packet 的引用计数
+     */
+    void record(GatewayPacket packet) {
+        if (released) {
+            return;
+        }
+        ByteBuf body = packet.content();
+        int size = body.readableBytes();
+        ByteBuf copy = PooledByteBufAllocator.DEFAULT.buffer(size);
+        copy.writeBytes(body, body.readerIndex(), size);
+        packets.addLast(new GatewayPacket(packet.getSessionId(), packet.getMsgId(), packet.getSeq(), copy));
+        bytes += size;
+        while (packets.size() > maxPackets || (bytes > maxBytes && packets.size() > 1)) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * 客户端最后收到 lastSeq 时，其后的响应是否都还在缓冲中
+     */
+    boolean covers(int lastSeq) {
+        return !released && lastSeq >= evictedSeq;
+    }
+
+    /**
+     * 补发 seq 大于 lastSeq 的响应，同时丢弃客户端已确认收到的部分
+     *
+     * @param sink 接收补发包，每个包已 retain，由接收方负责释放
+     * @return 补发的数量
+     */
+    int replayAfter(int lastSeq, Consumer<GatewayPacket> sink) {
+        GatewayPacket head;
+        while ((head = packets.peekFirst()) != null && head.getSeq() <= lastSeq) {
+            evictOldest();
+        }
+        for (GatewayPacket packet : packets) {
+            sink.accept(packet.replace(packet.content().retainedDuplicate()));
+        }
+        return packets.size();
+    }
+
+    /**
+     * 释放所有缓存的响应，之后的记录直接忽略
+     */
+    void release() {
+        released = true;
+        GatewayPacket packet;
+        while ((packet = packets.pollFirst()) != null) {
+            packet.release();
+        }
+        bytes = 0;
+    }
+
+    private void evictOldest() {
+        GatewayPacket packet = packets.pollFirst();
+        bytes -= packet.content().readableBytes();
+        evictedSeq = Math.max(evictedSeq, packet.getSeq());
+        packet.release();
+    }
+
+    int size() {
+        return packets.size();
+    }
+
+    long bytes() {
+        return bytes;
+    }
+}
@@ -1,56 +1,147 @@
 package org.markeb.gateway.session;
 
+import org.markeb.gateway.config.GatewayConfig;
+import org.markeb.net.broadcast.BroadcastStats;
+import org.markeb.net.broadcast.Broadcaster;
+import org.markeb.net.compress.MessageCompression;
+import org.markeb.net.gateway.GatewayPacket;
+import org.markeb.net.gateway.codec.GatewayEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.security.SecureRandom;
 import java.util.Collection;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * 会话管理器
  * 管理所有客户端到网关的会话
+ * <p>
+ * 连接数达到十万级时，会话表的每次查找都不应产生垃圾：
+ * </p>
+ * <ul>
+ *   <li>Channel -> 会话：会话直接存放在 Channel 属性上，不再拼接 channelId 长字符串做 key</li>
+ *   <li>sessionId / playerId -> 会话：以原始 long 为 key 的 {@link ConcurrentLongMap}，查找不装箱、不加锁</li>
+ *   <li>在线数与已认证数：创建、认证、移除时增减计数器，读取为 O(1)</li>
+ * </ul>
+ * <p>
+ * 会话恢复（{@code markeb.gateway.session-resume}）：认证后向客户端签发令牌，连接断开时会话进入宽限期而不是立即移除，
+ * 节点侧看到的 sessionId 与 Actor 都保持不变；客户端在宽限期内凭令牌与最后收到的 seq 重连，
+ * 接回原会话并只补发错过的响应，不必重新登录、重新加载玩家数据。宽限期到期后会话按正常断线移除。
+ * </p>
  */
 @Component
 public class SessionManager {
 
     private static final Logger log = LoggerFactory.getLogger(SessionManager.class);
 
+    /**
+     * 前端 Channel 上绑定的会话
+     */
+    public static final AttributeKey<GatewaySession> SESSION_KEY = AttributeKey.valueOf("gateway.session");
+
+    /**
+     * 会话恢复令牌下发消息ID（网关 -> 客户端，消息体为 8 字节令牌）
+     */
+    public static final int MSG_ID_RESUME_TOKEN = 1003;
+
     /**
      * sessionId -> GatewaySession
      */
-    private final Map<Integer, GatewaySession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<GatewaySession> sessions = new ConcurrentLongMap<>();
+
+    /**
+     * playerId -> GatewaySession（用于通过玩家ID快速查找会话）
+     */
+    private final ConcurrentLongMap<GatewaySession> playerSessions = new ConcurrentLongMap<>();
+
+    /**
+     * 在线会话数
+     */
+    private final AtomicInteger sessionCount = new AtomicInteger(0);
 
     /**
-     * playerId -> sessionId（用于通过玩家ID快速查找会话）
+     * 已认证会话数（包含宽限期内等待恢复的会话）
      */
-    private final Map<Long, Integer> playerSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger authenticatedCount = new AtomicInteger(0);
 
     /**
-     * channelId -> sessionId
+     * resumeToken -> GatewaySession
      */
-    private final Map<String, Integer> channelSessions = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<GatewaySession> resumeTokens = new ConcurrentLongMap<>();
+
+    /**
+     * 宽限期内等待恢复的会话数
+     */
+    private final AtomicInteger detachedCount = new AtomicInteger(0);
+
+    private final SecureRandom tokenRandom = new SecureRandom();
 
     /**
      * sessionId 生成器
      */
     private final AtomicInteger sessionIdGenerator = new AtomicInteger(0);
 
+    /**
+     * 一次编码、按 EventLoop 分片扇出的广播器
+     */
+    private final Broadcaster broadcaster = new Broadcaster(new BroadcastStats());
+
+    /**
+     * 所有会话共享的慢客户端保护（出站字节预算）
+     */
+    private final SlowConsumerGuard slowConsumerGuard;
+
+    private final boolean sessionResume;
+    private final long resumeGraceMs;
+    private final int replayBufferSize;
+    private final int replayBufferMaxBytes;
+
+    /**
+     * 客户端链路的消息体压缩，未启用时为 null
+     */
+    private final MessageCompression compression;
+
+    /**
+     * 广播帧的编码器（客户端协议），只调用其编码方法，不加入 pipeline
+     */
+    private final GatewayEncoder frontendEncoder;
+
+    public SessionManager(GatewayConfig config) {
+        this.slowConsumerGuard = new SlowConsumerGuard(config.getSessionOutboundBudgetBytes(),
+                config.getSlowConsumerPolicy());
+        this.sessionResume = config.isSessionResume() && config.getSessionResumeGraceMs() > 0;
+        this.resumeGraceMs = config.getSessionResumeGraceMs();
+        this.replayBufferSize = config.getReplayBufferSize();
+        this.replayBufferMaxBytes = config.getReplayBufferMaxBytes();
+        this.compression = config.getCompression().newCompression();
+        this.frontendEncoder = new GatewayEncoder(true, compression);
+    }
+
     /**
      * 创建新会话
      */
     public GatewaySession createSession(Channel channel) {
         int sessionId = sessionIdGenerator.incrementAndGet();
-        GatewaySession session = new GatewaySession(sessionId, channel);
+        ReplayBuffer replay = sessionResume ? new ReplayBuffer(replayBufferSize, replayBufferMaxBytes) : null;
+        GatewaySession session = new GatewaySession(sessionId, channel, slowConsumerGuard, replay);
 
         sessions.put(sessionId, session);
-        channelSessions.put(channel.id().asLongText(), sessionId);
+        channel.attr(SESSION_KEY).set(session);
+        sessionCount.incrementAndGet();
 
-        log.info("Created session: {}", session);
+        log.debug("Created session: {}", session);
         return session;
     }
 
@@ -65,23 +156,142 @@ public class SessionManager {
         }
 
         // 检查是否已有该玩家的会话（踢掉旧连接）
-        Integer oldSessionId = playerSessions.get(playerId);
-        if (oldSessionId != null && oldSessionId != sessionId) {
-            GatewaySession oldSession = sessions.get(oldSessionId);
-            if (oldSession != null) {
-                log.info("Kicking old session for player {}: {}", playerId, oldSessionId);
-                oldSession.close();
-                removeSession(oldSessionId);
-            }
+        GatewaySession oldSession = playerSessions.get(playerId);
+        if (oldSession != null && oldSession != session) {
+            log.info("Kicking old session for player {}: {}", playerId, oldSession.getSessionId());
+            removeSession(oldSession.getSessionId());
+            oldSession.close();
         }
 
         session.setPlayerId(playerId);
         session.setState(GatewaySession.SessionState.AUTHENTICATED);
-        playerSessions.put(playerId, sessionId);
+        playerSessions.put(playerId, session);
+        if (session.markCounted()) {
+            authenticatedCount.incrementAndGet();
+        }
+        if (sessions.get(sessionId) != session) {
+            // 绑定期间会话已被移除（连接断开），撤销本次绑定
+            playerSessions.remove(playerId, session);
+            if (session.unmarkCounted()) {
+                authenticatedCount.decrementAndGet();
+            }
+            return;
+        }
+        if (sessionResume) {
+            issueResumeToken(session);
+        }
 
         log.info("Bound player {} to session {}", playerId, sessionId);
     }
 
+    /**
+     * 签发会话恢复令牌并下发给客户端，令牌在会话生命周期内保持不变
+     */
+    private void issueResumeToken(GatewaySession session) {
+        long token = session.getResumeToken();
+        if (token == 0) {
+            do {
+                token = tokenRandom.nextLong();
+            } while (token == 0 || resumeTokens.get(token) != null);
+            session.setResumeToken(token);
+            resumeTokens.put(token, session);
+        }
+        session.send(new GatewayPacket(0, MSG_ID_RESUME_TOKEN, 0, Unpooled.copyLong(token)));
+    }
+
+    /**
+     * 连接断开后保留会话，等待客户端在宽限期内恢复
+     *
+     * @param channel   断开的连接，会话已经切换到其他连接时不处理
+     * @param onExpired 宽限期到期、会话被移除后的回调（如清理 pending 请求）
+     * @return 是否进入宽限期；false 时调用方按正常断线移除会话
+     */
+    public boolean detach(GatewaySession session, Channel channel, Consumer<GatewaySession> onExpired) {
+        if (!sessionResume || session.getResumeToken() == 0) {
+            return false;
+        }
+        synchronized (session) {
+            if (session.getFrontendChannel() != channel
+                    || session.getState() != GatewaySession.SessionState.AUTHENTICATED
+                    || sessions.get(session.getSessionId()) != session) {
+                return false;
+            }
+            session.setState(GatewaySession.SessionState.DETACHED);
+            detachedCount.incrementAndGet();
+            session.expiryTask = channel.eventLoop().schedule(
+                    () -> expire(session, onExpired), resumeGraceMs, TimeUnit.MILLISECONDS);
+        }
+        log.debug("Detached session {} for up to {} ms", session.getSessionId(), resumeGraceMs);
+        return true;
+    }
+
+    private void expire(GatewaySession session, Consumer<GatewaySession> onExpired) {
+        synchronized (session) {
+            if (session.getState() != GatewaySession.SessionState.DETACHED) {
+                return;
+            }
+            removeSession(session.getSessionId());
+            session.setState(GatewaySession.SessionState.CLOSED);
+        }
+        log.debug("Resume grace expired for session {}", session.getSessionId());
+        onExpired.accept(session);
+    }
+
+    /**
+     * 客户端凭令牌重连：把原会话切换到新连接，写出恢复应答并补发 seq 大于 lastSeq 的响应
+     *
+     * @param token      会话恢复令牌
+     * @param lastSeq    客户端最后收到的响应 seq
+     * @param channel    重连后的新连接
+     * @param ack        恢复成功时写给客户端的应答，接管其引用计数
+     * @return 恢复的会话；令牌无效、会话已移除或错过的响应已不在缓冲中时返回 null
+     */
+    public GatewaySession resume(long token, int lastSeq, Channel channel, GatewayPacket ack) {
+        GatewaySession session = sessionResume && token != 0 ? resumeTokens.get(token) : null;
+        if (session == null) {
+            ack.release();
+            return null;
+        }
+        Channel oldChannel;
+        synchronized (session) {
+            GatewaySession.SessionState state = session.getState();
+            // 旧连接可能还没有被判定断开（半开连接），同样允许恢复
+            if ((state != GatewaySession.SessionState.DETACHED && state != GatewaySession.SessionState.AUTHENTICATED)
+                    || sessions.get(session.getSessionId()) != session) {
+                ack.release();
+                return null;
+            }
+            oldChannel = session.getFrontendChannel();
+            if (!session.rebind(channel, lastSeq, ack)) {
+                log.info("Session {} cannot resume from seq {}, responses no longer buffered",
+                        session.getSessionId(), lastSeq);
+                return null;
+            }
+            if (state == GatewaySession.SessionState.DETACHED) {
+                cancelExpiry(session);
+            }
+            session.setState(GatewaySession.SessionState.AUTHENTICATED);
+        }
+        channel.attr(SESSION_KEY).set(session);
+        if (oldChannel != null && oldChannel != channel) {
+            oldChannel.attr(SESSION_KEY).compareAndSet(session, null);
+            oldChannel.close();
+        }
+        log.info("Resumed session {} for player {} from seq {}", session.getSessionId(), session.getPlayerId(), lastSeq);
+        return session;
+    }
+
+    /**
+     * 结束宽限期（会话锁内调用）
+     */
+    private void cancelExpiry(GatewaySession session) {
+        detachedCount.decrementAndGet();
+        if (session.expiryTask != null) {
+            session.expiryTask.cancel(false);
+            session.expiryTask = null;
+        }
+    }
+
     /**
      * 绑定节点到会话
      */
@@ -104,22 +314,14 @@ public class SessionManager {
      * 通过 Channel 获取会话
      */
     public Optional<GatewaySession> getSessionByChannel(Channel channel) {
-        Integer sessionId = channelSessions.get(channel.id().asLongText());
-        if (sessionId == null) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(sessions.get(sessionId));
+        return Optional.ofNullable(channel.attr(SESSION_KEY).get());
     }
 
     /**
      * 通过玩家ID获取会话
      */
     public Optional<GatewaySession> getSessionByPlayerId(long playerId) {
-        Integer sessionId = playerSessions.get(playerId);
-        if (sessionId == null) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(sessions.get(sessionId));
+        return Optional.ofNullable(playerSessions.get(playerId));
     }
 
     /**
@@ -128,13 +330,30 @@ public class SessionManager {
     public void removeSession(int sessionId) {
         GatewaySession session = sessions.remove(sessionId);
         if (session != null) {
-            if (session.getPlayerId() != null) {
-                playerSessions.remove(session.getPlayerId());
+            sessionCount.decrementAndGet();
+            synchronized (session) {
+                if (session.getState() == GatewaySession.SessionState.DETACHED) {
+                    cancelExpiry(session);
+                }
             }
-            if (session.getFrontendChannel() != null) {
-                channelSessions.remove(session.getFrontendChannel().id().asLongText());
+            long token = session.getResumeToken();
+            if (token != 0) {
+                resumeTokens.remove(token, session);
             }
-            log.info("Removed session: {}", session);
+            session.releaseReplay();
+            Long playerId = session.getPlayerId();
+            if (playerId != null) {
+                // 玩家可能已在新会话上登录，只移除指向本会话的映射
+                playerSessions.remove(playerId, session);
+            }
+            if (session.unmarkCounted()) {
+                authenticatedCount.decrementAndGet();
+            }
+            Channel channel = session.getFrontendChannel();
+            if (channel != null) {
+                channel.attr(SESSION_KEY).compareAndSet(session, null);
+            }
+            log.debug("Removed session: {}", session);
         }
     }
 
@@ -142,9 +361,9 @@ public class SessionManager {
      * 通过 Channel 移除会话
      */
     public void removeSessionByChannel(Channel channel) {
-        Integer sessionId = channelSessions.get(channel.id().asLongText());
-        if (sessionId != null) {
-            removeSession(sessionId);
+        GatewaySession session = channel.attr(SESSION_KEY).get();
+        if (session != null) {
+            removeSession(session.getSessionId());
         }
     }
 
@@ -159,16 +378,21 @@ public class SessionManager {
      * 获取在线会话数
      */
     public int getSessionCount() {
-        return sessions.size();
+        return sessionCount.get();
     }
 
     /**
-     * 获取已认证的会话数
+     * 获取已认证的会话数（包含宽限期内等待恢复的会话）
      */
     public long getAuthenticatedCount() {
-        return sessions.values().stream()
-                .filter(GatewaySession::isAuthenticated)
-                .count();
+        return authenticatedCount.get();
+    }
+
+    /**
+     * 获取宽限期内等待恢复的会话数
+     */
+    public int getDetachedCount() {
+        return detachedCount.get();
     }
 
     /**
@@ -186,12 +410,104 @@ public class SessionManager {
 
     /**
      * 广播消息给所有已认证的玩家
+     * <p>
+     * 接管 msg 的引用计数。消息只编码一次，所有接收者共享同一块内存，见 {@link Broadcaster}。
+     * </p>
+     *
+     * @param msg {@link GatewayPacket} 或已编码好的帧 {@link ByteBuf}
+     * @return 实际投递的玩家数
      */
-    public void broadcast(Object msg) {
-        sessions.values().stream()
-                .filter(GatewaySession::isAuthenticated)
-                .filter(GatewaySession::isActive)
-                .forEach(session -> session.send(msg));
+    public int broadcast(Object msg) {
+        return broadcast(msg, session -> true);
+    }
+
+    /**
+     * 广播消息给满足条件的已认证玩家（如同一区服）
+     *
+     * @param msg    {@link GatewayPacket} 或已编码好的帧 {@link ByteBuf}，接管其引用计数
+     * @param filter 会话过滤条件
+     * @return 实际投递的玩家数
+     */
+    public int broadcast(Object msg, Predicate<GatewaySession> filter) {
+        ByteBuf frame = encodeFrame(msg);
+        int size = frame.readableBytes();
+        return broadcaster.broadcast(frame, sessions.values(),
+                session -> session.isAuthenticated() && filter.test(session) && session.admit(size)
+                        ? session.getFrontendChannel() : null);
+    }
+
+    /**
+     * 广播消息给一组玩家（如公会成员、AOI 列表），不在线的玩家被跳过
+     *
+     * @param msg       {@link GatewayPacket} 或已编码好的帧 {@link ByteBuf}，接管其引用计数
+     * @param playerIds 接收者玩家 ID
+     * @return 实际投递的玩家数
+     */
+    public int broadcastToPlayers(Object msg, Collection<Long> playerIds) {
+        ByteBuf frame = encodeFrame(msg);
+        int size = frame.readableBytes();
+        return broadcaster.broadcast(frame, playerIds, playerId -> {
+            GatewaySession session = playerSessions.get(playerId);
+            return session != null && session.isAuthenticated() && session.admit(size)
+                    ? session.getFrontendChannel() : null;
+        });
+    }
+
+    /**
+     * 获取当前暂停读取的会话数
+     */
+    public long getPausedSessionCount() {
+        return sessions.values().stream()
+                .filter(GatewaySession::isReadPaused)
+                .count();
+    }
+
+    /**
+     * 获取所有前端连接已写入但尚未发出的字节数
+     */
+    public long getQueuedBytes() {
+        return sessions.values().stream()
+                .mapToLong(GatewaySession::getQueuedBytes)
+                .sum();
+    }
+
+    /**
+     * 获取慢客户端保护（丢弃 / 断开统计）
+     */
+    public SlowConsumerGuard getSlowConsumerGuard() {
+        return slowConsumerGuard;
+    }
+
+    /**
+     * 获取广播扇出统计
+     */
+    public BroadcastStats getBroadcastStats() {
+        return broadcaster.getStats();
+    }
+
+    /**
+     * 获取客户端链路的消息体压缩（含压缩统计），未启用时返回 null
+     */
+    public MessageCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * 把广播消息编码为客户端协议的帧，接管 msg 的引用计数
+     */
+    private ByteBuf encodeFrame(Object msg) {
+        if (msg instanceof ByteBuf frame) {
+            return frame;
+        }
+        if (msg instanceof GatewayPacket packet) {
+            try {
+                return frontendEncoder.encode(PooledByteBufAllocator.DEFAULT, packet);
+            } finally {
+                packet.release();
+            }
+        }
+        ReferenceCountUtil.release(msg);
+        throw new IllegalArgumentException("Unsupported broadcast message type: " + msg.getClass().getName());
     }
 }
 
@@ -0,0 +1,109 @@
+package org.markeb.gateway.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢客户端保护
+ * <p>
+ * 每个会话的出站缓冲区（已写入未发出的字节，含尚未执行的跨线程写任务）有一个字节预算，
+ * 写入后会超出预算时按策略处理：丢弃这条消息，或直接断开会话。
+ * 没有预算时，一个不读数据的客户端会让网关为它无限堆积响应，直到内存耗尽。
+ * </p>
+ * <p>
+ * 所有会话共享同一个实例，统计使用 LongAdder，可以在任意线程调用。
+ * </p>
+ */
+public class SlowConsumerGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowConsumerGuard.class);
+
+    /**
+     * 不限制出站字节
+     */
+    public static final SlowConsumerGuard UNLIMITED = new SlowConsumerGuard(0, Policy.DROP);
+
+    public enum Policy {
+        /**
+         * 丢弃超出预算的消息，会话保持连接
+         */
+        DROP,
+
+        /**
+         * 断开超出预算的会话
+         */
+        DISCONNECT
+    }
+
+    private final long budgetBytes;
+    private final Policy policy;
+
+    private final LongAdder droppedMessages = new LongAdder();
+    private final LongAdder droppedBytes = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+
+    /**
+     * @param budgetBytes 每个会话的出站字节预算，<= 0 表示不限制
+     * @param policy      超出预算时的处理策略
+     */
+    public SlowConsumerGuard(long budgetBytes, Policy policy) {
+        this.budgetBytes = budgetBytes;
+        this.policy = policy;
+    }
+
+    /**
+     * 判断会话能否再写入 size 字节，不能时按策略丢弃或断开
+     *
+     * @param size 待写入的字节数，未知时传 0
+     * @return 是否允许写入
+     */
+    boolean admit(GatewaySession session, long size) {
+        if (budgetBytes <= 0) {
+            return true;
+        }
+        long queued = session.getQueuedBytes();
+        if (queued + size <= budgetBytes) {
+            return true;
+        }
+        droppedMessages.increment();
+        droppedBytes.add(size);
+        if (policy == Policy.DISCONNECT && session.isActive()) {
+            disconnects.increment();
+            log.warn("Session {} exceeded outbound budget ({} queued, budget {}), disconnecting",
+                    session.getSessionId(), queued, budgetBytes);
+            session.close();
+        }
+        return false;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 获取因超出预算被丢弃的消息数
+     */
+    public long getDroppedMessageCount() {
+        return droppedMessages.sum();
+    }
+
+    /**
+     * 获取因超出预算被丢弃的字节数
+     */
+    public long getDroppedBytes() {
+        return droppedBytes.sum();
+    }
+
+    /**
+     * 获取因超出预算被断开的会话数
+     */
+    public long getDisconnectCount() {
+        return disconnects.sum();
+    }
+}
@@ -0,0 +1,129 @@
+package org.markeb.gateway.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.markeb.net.gateway.GatewayPacket;
+import org.markeb.net.gateway.codec.GatewayDecoder;
+import org.markeb.net.gateway.codec.GatewayEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关转发吞吐与每包分配字节数
+ * <p>
+ * 模拟"客户端帧 -> GatewayDecoder(前端) -> 改写 sessionId -> GatewayEncoder(后端)"的完整转发路径，
+ * 两端都用 EmbeddedChannel，不经过真实网络，只衡量编解码与转发本身：
+ * <ul>
+ *   <li>zeroCopy：当前实现，消息体为帧切片，转发只改写协议头</li>
+ *   <li>copy：原先的做法，消息体拷贝成 byte[] 再构造新包转发</li>
+ * </ul>
+ * 结果中的 {@code gc.alloc.rate.norm} 即每转发一个包在堆上分配的字节数。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GatewayForwardBenchmark {
+
+    private static final int SESSION_ID = 10086;
+
+    @Param({"64", "512", "4096"})
+    public int bodySize;
+
+    @Param({"zeroCopy", "copy"})
+    public String mode;
+
+    private EmbeddedChannel frontend;
+    private EmbeddedChannel backend;
+    private ByteBuf frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new EmbeddedChannel(new GatewayEncoder(false));
+        ChannelHandler forwarder = "copy".equals(mode) ? new CopyForwarder(backend) : new ZeroCopyForwarder(backend);
+        frontend = new EmbeddedChannel(new GatewayDecoder(true), forwarder);
+
+        // 客户端协议：length + msgId + seq + body
+        byte[] body = new byte[bodySize];
+        ThreadLocalRandom.current().nextBytes(body);
+        frame = PooledByteBufAllocator.DEFAULT.directBuffer(12 + bodySize);
+        frame.writeInt(8 + bodySize);
+        frame.writeInt(10001);
+        frame.writeInt(1);
+        frame.writeBytes(body);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        frame.release();
+        frontend.finishAndReleaseAll();
+        backend.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int forward() {
+        frontend.writeInbound(frame.retainedDuplicate());
+        ByteBuf out = backend.readOutbound();
+        int written = out.readableBytes();
+        out.release();
+        return written;
+    }
+
+    /**
+     * 当前转发方式：只改写协议头，消息体共享
+     */
+    private static final class ZeroCopyForwarder extends SimpleChannelInboundHandler<GatewayPacket> {
+
+        private final EmbeddedChannel backend;
+
+        ZeroCopyForwarder(EmbeddedChannel backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, GatewayPacket msg) {
+            backend.writeAndFlush(msg.withSessionId(SESSION_ID).retain());
+        }
+    }
+
+    /**
+     * 原先的转发方式：解码时拷贝消息体，再构造新包
+     */
+    private static final class CopyForwarder extends SimpleChannelInboundHandler<GatewayPacket> {
+
+        private final EmbeddedChannel backend;
+
+        CopyForwarder(EmbeddedChannel backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, GatewayPacket msg) {
+            byte[] body = ByteBufUtil.getBytes(msg.content());
+            backend.writeAndFlush(new GatewayPacket(SESSION_ID, msg.getMsgId(), msg.getSeq(), body));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GatewayForwardBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.markeb.gateway.benchmark;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.markeb.gateway.config.GatewayConfig;
+import org.markeb.gateway.session.GatewaySession;
+import org.markeb.gateway.session.SessionManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 会话表在连接 / 登录 / 断开高频交替时的开销
+ * <p>
+ * 表中预先放入 population 个已登录的常驻会话，每次操作模拟一个短连接的完整生命周期：
+ * 建立会话 -> 绑定玩家 -> 按 Channel 与玩家 ID 各查找一次 -> 读取在线数与已认证数 -> 断开。
+ * <ul>
+ *   <li>primitive：当前的 {@link SessionManager}，Channel 属性 + 原始 long key 表 + O(1) 计数器</li>
+ *   <li>boxed：原先的做法，三张装箱 key 的 ConcurrentHashMap，Channel 以 channelId 长字符串为 key，已认证数遍历统计</li>
+ * </ul>
+ * Channel 预先创建并循环使用，结果中的 {@code gc.alloc.rate.norm} 即每个生命周期在会话表上分配的字节数。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SessionChurnBenchmark {
+
+    private static final int CHURN_CHANNELS = 1024;
+    private static final long CHURN_PLAYER_BASE = 1L << 40;
+
+    @Param({"primitive", "boxed"})
+    public String mode;
+
+    @Param({"1000", "100000"})
+    public int population;
+
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private Churn churn;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        churn = "boxed".equals(mode) ? new BoxedSessionTables() : new PrimitiveSessionTables();
+        for (int i = 0; i < population + CHURN_CHANNELS; i++) {
+            channels.add(new EmbeddedChannel());
+        }
+        for (int i = 0; i < population; i++) {
+            churn.login(channels.get(i), i + 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+        channels.clear();
+    }
+
+    @Benchmark
+    public long connectLoginDisconnect() {
+        int index = cursor++ & (CHURN_CHANNELS - 1);
+        Channel channel = channels.get(population + index);
+        long playerId = CHURN_PLAYER_BASE + index;
+        long result = churn.login(channel, playerId);
+        result += churn.lookup(channel, playerId);
+        churn.disconnect(channel);
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SessionChurnBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+    private interface Churn {
+
+        long login(Channel channel, long playerId);
+
+        long lookup(Channel channel, long playerId);
+
+        void disconnect(Channel channel);
+    }
+
+    private static final class PrimitiveSessionTables implements Churn {
+
+        private final SessionManager sessionManager = new SessionManager(new GatewayConfig());
+
+        @Override
+        public long login(Channel channel, long playerId) {
+            GatewaySession session = sessionManager.createSession(channel);
+            sessionManager.bindPlayer(session.getSessionId(), playerId);
+            return session.getSessionId();
+        }
+
+        @Override
+        public long lookup(Channel channel, long playerId) {
+            long result = sessionManager.getSessionByChannel(channel).map(GatewaySession::getSessionId).orElse(0);
+            result += sessionManager.getSessionByPlayerId(playerId).map(GatewaySession::getSessionId).orElse(0);
+            return result + sessionManager.getSessionCount() + sessionManager.getAuthenticatedCount();
+        }
+
+        @Override
+        public void disconnect(Channel channel) {
+            sessionManager.removeSessionByChannel(channel);
+        }
+    }
+
+    /**
+     * 原先 SessionManager 的会话表结构
+     */
+    private static final class BoxedSessionTables implements Churn {
+
+        private final Map<Integer, GatewaySession> sessions = new ConcurrentHashMap<>();
+        private final Map<Long, Integer> playerSessions = new ConcurrentHashMap<>();
+        private final Map<String, Integer> channelSessions = new ConcurrentHashMap<>();
+        private final AtomicInteger sessionIdGenerator = new AtomicInteger(0);
+
+        @Override
+        public long login(Channel channel, long playerId) {
+            int sessionId = sessionIdGenerator.incrementAndGet();
+            GatewaySession session = new GatewaySession(sessionId, channel);
+            sessions.put(sessionId, session);
+            channelSessions.put(channel.id().asLongText(), sessionId);
+
+            session.setPlayerId(playerId);
+            session.setState(GatewaySession.SessionState.AUTHENTICATED);
+            playerSessions.put(playerId, sessionId);
+            return sessionId;
+        }
+
+        @Override
+        public long lookup(Channel channel, long playerId) {
+            long result = 0;
+            Integer sessionId = channelSessions.get(channel.id().asLongText());
+            GatewaySession session = sessionId != null ? sessions.get(sessionId) : null;
+            if (session != null) {
+                result += session.getSessionId();
+            }
+            sessionId = playerSessions.get(playerId);
+            session = sessionId != null ? sessions.get(sessionId) : null;
+            if (session != null) {
+                result += session.getSessionId();
+            }
+            long authenticated = sessions.values().stream()
+                    .filter(GatewaySession::isAuthenticated)
+                    .count();
+            return result + sessions.size() + authenticated;
+        }
+
+        @Override
+        public void disconnect(Channel channel) {
+            Integer sessionId = channelSessions.get(channel.id().asLongText());
+            if (sessionId == null) {
+                return;
+            }
+            GatewaySession session = sessions.remove(sessionId);
+            if (session != null) {
+                if (session.getPlayerId() != null) {
+                    playerSessions.remove(session.getPlayerId());
+                }
+                channelSessions.remove(channel.id().asLongText());
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.markeb.gateway.route;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 一致性哈希环测试
+ */
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 100_000;
+
+    @Test
+    void emptyRingLocatesNothing() {
+        ConsistentHashRing ring = ConsistentHashRing.build(Map.of(), VIRTUAL_NODES);
+
+        assertTrue(ring.isEmpty());
+        assertNull(ring.locate(1L));
+        assertSame(ConsistentHashRing.empty(), ring);
+    }
+
+    @Test
+    void nonPositiveWeightsAreSkipped() {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("a", 0.0);
+        weights.put("b", -1.0);
+        assertTrue(ConsistentHashRing.build(weights, VIRTUAL_NODES).isEmpty());
+
+        weights.put("c", 1.0);
+        ConsistentHashRing ring = ConsistentHashRing.build(weights, VIRTUAL_NODES);
+        assertEquals(1, ring.size());
+        for (long key = 0; key < 1000; key++) {
+            assertEquals("c", ring.locate(key));
+        }
+    }
+
+    @Test
+    void buildIsDeterministic() {
+        Map<String, Double> weights = Map.of("node-1", 1.0, "node-2", 1.0, "node-3", 2.0);
+        ConsistentHashRing first = ConsistentHashRing.build(weights, VIRTUAL_NODES);
+        ConsistentHashRing second = ConsistentHashRing.build(new HashMap<>(weights), VIRTUAL_NODES);
+
+        assertEquals(first.getVirtualNodeCount(), second.getVirtualNodeCount());
+        for (long key = 0; key < KEYS; key += 7) {
+            assertEquals(first.locate(key), second.locate(key));
+        }
+        assertEquals(0.0, second.movedFraction(first));
+    }
+
+    @Test
+    void keysFollowWeights() {
+        ConsistentHashRing ring = ConsistentHashRing.build(
+                Map.of("light", 1.0, "medium", 1.0, "heavy", 2.0), VIRTUAL_NODES);
+        assertEquals(VIRTUAL_NODES * 4, ring.getVirtualNodeCount());
+
+        Map<String, Integer> counts = countKeys(ring);
+        double heavyShare = counts.get("heavy") / (double) KEYS;
+        double lightShare = counts.get("light") / (double) KEYS;
+        assertEquals(0.5, heavyShare, 0.05, "heavy share " + heavyShare);
+        assertEquals(0.25, lightShare, 0.05, "light share " + lightShare);
+    }
+
+    @Test
+    void removingNodeOnlyMovesItsKeys() {
+        ConsistentHashRing before = ConsistentHashRing.build(
+                Map.of("a", 1.0, "b", 1.0, "c", 1.0, "d", 1.0), VIRTUAL_NODES);
+        ConsistentHashRing after = ConsistentHashRing.build(
+                Map.of("a", 1.0, "b", 1.0, "c", 1.0), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            String previous = before.locate(key);
+            String current = after.locate(key);
+            if ("d".equals(previous)) {
+                assertNotEquals("d", current);
+                moved++;
+            } else {
+                assertEquals(previous, current, "key " + key + " moved off a surviving node");
+            }
+        }
+
+        double observed = moved / (double) KEYS;
+        assertEquals(0.25, observed, 0.05);
+        assertEquals(observed, after.movedFraction(before), 0.01);
+    }
+
+    @Test
+    void addingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing before = ConsistentHashRing.build(Map.of("a", 1.0, "b", 1.0), VIRTUAL_NODES);
+        ConsistentHashRing after = ConsistentHashRing.build(Map.of("a", 1.0, "b", 1.0, "c", 1.0), VIRTUAL_NODES);
+
+        for (long key = 0; key < KEYS; key++) {
+            String previous = before.locate(key);
+            String current = after.locate(key);
+            if (!previous.equals(current)) {
+                assertEquals("c", current);
+            }
+        }
+        assertEquals(1.0 / 3, after.movedFraction(before), 0.05);
+    }
+
+    @Test
+    void movedFractionAgainstEmptyRing() {
+        ConsistentHashRing ring = ConsistentHashRing.build(Map.of("a", 1.0), VIRTUAL_NODES);
+
+        assertEquals(1.0, ring.movedFraction(ConsistentHashRing.empty()));
+        assertEquals(1.0, ConsistentHashRing.empty().movedFraction(ring));
+        assertEquals(0.0, ConsistentHashRing.empty().movedFraction(ConsistentHashRing.empty()));
+    }
+
+    private static Map<String, Integer> countKeys(ConsistentHashRing ring) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 0; key < KEYS; key++) {
+            counts.merge(ring.locate(key), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
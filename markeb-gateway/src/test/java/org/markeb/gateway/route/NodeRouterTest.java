@@ -0,0 +1,30 @@
+package org.markeb.gateway.route;
+
+import org.junit.jupiter.api.Test;
+import org.markeb.service.registry.ServiceInstance;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点路由器测试
+ */
+class NodeRouterTest {
+
+    @Test
+    void nonPositiveInstanceWeightFallsBackToOne() {
+        ServiceInstance zero = ServiceInstance.builder().instanceId("zero").weight(0).build();
+        ServiceInstance negative = ServiceInstance.builder().instanceId("negative")
+                .metadata(Map.of(NodeRouter.WEIGHT_METADATA_KEY, "-3")).build();
+        ServiceInstance invalid = ServiceInstance.builder().instanceId("invalid").weight(2)
+                .metadata(Map.of(NodeRouter.WEIGHT_METADATA_KEY, "abc")).build();
+        ServiceInstance configured = ServiceInstance.builder().instanceId("configured")
+                .metadata(Map.of(NodeRouter.WEIGHT_METADATA_KEY, "3")).build();
+
+        assertEquals(1.0, NodeRouter.weightOf(zero));
+        assertEquals(1.0, NodeRouter.weightOf(negative));
+        assertEquals(2.0, NodeRouter.weightOf(invalid));
+        assertEquals(3.0, NodeRouter.weightOf(configured));
+    }
+}
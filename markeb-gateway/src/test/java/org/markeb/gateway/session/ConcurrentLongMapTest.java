@@ -0,0 +1,196 @@
+package org.markeb.gateway.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * long 键并发表测试
+ */
+class ConcurrentLongMapTest {
+
+    @Test
+    void putReplaceAndRemove() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"), "put returns the replaced value");
+
+        assertEquals("b", map.get(7));
+        assertEquals(1, map.size());
+        assertEquals("b", map.remove(7));
+        assertNull(map.remove(7), "second remove must miss");
+        assertNull(map.get(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void edgeKeysAreOrdinaryKeys() {
+        // key 0 与墓碑条目的 key 相同，必须按引用区分
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        long[] keys = {0, -1, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 32};
+        for (long key : keys) {
+            map.put(key, "v" + key);
+        }
+        for (long key : keys) {
+            assertEquals("v" + key, map.get(key));
+        }
+        map.remove(0);
+        assertNull(map.get(0));
+        assertEquals(keys.length - 1, map.size());
+    }
+
+    @Test
+    void conditionalRemoveMatchesSameObject() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        String current = new String("session");
+        map.put(1, current);
+
+        assertFalse(map.remove(1, new String("session")), "equal but different object must not match");
+        assertEquals(current, map.get(1));
+        assertTrue(map.remove(1, current));
+        assertFalse(map.remove(1, current));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void heavyChurnKeepsEntriesReachable() {
+        // 大量插入删除会留下墓碑并反复扩容、缩容，存活条目必须都还能找到
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        int count = 20_000;
+        for (int round = 0; round < 5; round++) {
+            for (long key = 0; key < count; key++) {
+                map.put(key, key + round);
+            }
+            for (long key = 0; key < count; key++) {
+                if (key % 10 != round) {
+                    assertEquals(Long.valueOf(key + round), map.remove(key));
+                }
+            }
+            assertEquals(count / 10, map.size());
+            for (long key = 0; key < count; key++) {
+                assertEquals(key % 10 == round ? Long.valueOf(key + round) : null, map.get(key), "key " + key);
+            }
+        }
+        for (long key = 4; key < count; key += 10) {
+            map.remove(key);
+        }
+        assertEquals(0, map.size());
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    void valuesVisitEveryEntry() {
+        ConcurrentLongMap<Integer> map = new ConcurrentLongMap<>();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31L, i);
+            expected.add(i);
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        for (Integer value : map.values()) {
+            assertTrue(seen.add(value), "value visited twice: " + value);
+        }
+        assertEquals(expected, seen);
+        assertEquals(1000, map.values().size());
+
+        Iterator<Integer> empty = new ConcurrentLongMap<Integer>().values().iterator();
+        assertFalse(empty.hasNext());
+        assertThrows(NoSuchElementException.class, empty::next);
+    }
+
+    @Test
+    void iterationToleratesConcurrentModification() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        int stable = 500;
+        for (long key = 0; key < stable; key++) {
+            map.put(key, key);
+        }
+
+        // 迭代中途删除、新增并触发重建，不抛异常，迭代开始前就存在且未被删除的条目都能看到
+        Set<Long> seen = new HashSet<>();
+        long added = 1_000_000;
+        for (Long value : map.values()) {
+            seen.add(value);
+            map.remove(added - 1);
+            map.put(added, added);
+            added++;
+        }
+        for (long key = 0; key < stable; key++) {
+            assertTrue(seen.contains(key), "missed stable key " + key);
+        }
+    }
+
+    @Test
+    void concurrentWritersAndReaders() throws Exception {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        int writers = 4;
+        int keysPerWriter = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                long base = (long) w << 40;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // 每个线程只写自己的 key，同一分段内仍会交错
+                    for (int round = 0; round < 3; round++) {
+                        for (long i = 0; i < keysPerWriter; i++) {
+                            map.put(base + i, base + i);
+                        }
+                        for (long i = 0; i < keysPerWriter; i++) {
+                            assertEquals(Long.valueOf(base + i), map.get(base + i));
+                            if (i % 2 == 1) {
+                                assertEquals(Long.valueOf(base + i), map.remove(base + i));
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    for (Long value : map.values()) {
+                        // 值与 key 相同；读到时可能已被并发删除，但不能读到别的值
+                        Long current = map.get(value);
+                        assertTrue(current == null || current.equals(value));
+                    }
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(writers * keysPerWriter / 2, map.size());
+        for (int w = 0; w < writers; w++) {
+            long base = (long) w << 40;
+            for (long i = 0; i < keysPerWriter; i++) {
+                assertEquals(i % 2 == 0 ? Long.valueOf(base + i) : null, map.get(base + i));
+            }
+        }
+    }
+}
@@ -5,11 +5,18 @@ import org.markeb.actor.ActorRef;
 import org.markeb.actor.ActorSystem;
 import org.markeb.actor.message.NetworkMessage;
 import org.markeb.actor.message.SystemMessage;
+import org.markeb.net.broadcast.BroadcastStats;
+import org.markeb.net.broadcast.Broadcaster;
+import org.markeb.net.msg.IMessagePool;
+import com.google.protobuf.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -29,9 +36,12 @@ public class PlayerActorService {
     private final ActorSystem actorSystem;
     private final PlayerActorBehavior playerBehavior;
     private final Map<Long, Channel> playerChannels = new ConcurrentHashMap<>();
+    private final IMessagePool<Message> messagePool;
+    private final Broadcaster broadcaster = new Broadcaster(new BroadcastStats());
 
-    public PlayerActorService(ActorSystem actorSystem) {
+    public PlayerActorService(ActorSystem actorSystem, IMessagePool<Message> messagePool) {
         this.actorSystem = actorSystem;
+        this.messagePool = messagePool;
         this.playerBehavior = new PlayerActorBehavior();
     }
 
@@ -159,6 +169,9 @@ public class PlayerActorService {
 
     /**
      * 向玩家客户端发送消息
+     * <p>
+     * 同一 Actor 回合内的多次发送由 pipeline 中的 FlushCoalescingHandler 合并为一次 flush。
+     * </p>
      *
      * @param playerId 玩家 ID
      * @param message  消息
@@ -172,15 +185,43 @@ public class PlayerActorService {
 
     /**
      * 广播消息给所有在线玩家
+     * <p>
+     * protobuf 消息只序列化一次，按 EventLoop 分片扇出，所有玩家共享同一块内存，见 {@link Broadcaster}。
+     * </p>
      *
-     * @param message 消息
+     * @param message protobuf 消息，或已编码好的帧 {@link ByteBuf}（接管其引用计数）
+     * @return 实际投递的玩家数
      */
-    public void broadcast(Object message) {
-        playerChannels.forEach((playerId, channel) -> {
-            if (channel.isActive()) {
-                channel.writeAndFlush(message);
-            }
-        });
+    public int broadcast(Object message) {
+        return broadcaster.broadcast(encodeFrame(message), playerChannels.values());
+    }
+
+    /**
+     * 广播消息给一组玩家（如同一场景的 AOI 列表、公会成员），不在线的玩家被跳过
+     *
+     * @param message   protobuf 消息，或已编码好的帧 {@link ByteBuf}（接管其引用计数）
+     * @param playerIds 接收者玩家 ID
+     * @return 实际投递的玩家数
+     */
+    public int broadcast(Object message, Collection<Long> playerIds) {
+        return broadcaster.broadcast(encodeFrame(message), playerIds, playerChannels::get);
+    }
+
+    /**
+     * 获取广播扇出统计
+     */
+    public BroadcastStats getBroadcastStats() {
+        return broadcaster.getStats();
+    }
+
+    private ByteBuf encodeFrame(Object message) {
+        if (message instanceof ByteBuf frame) {
+            return frame;
+        }
+        if (message instanceof Message protoMessage) {
+            return messagePool.encode(PooledByteBufAllocator.DEFAULT, protoMessage);
+        }
+        throw new IllegalArgumentException("Unsupported broadcast message type: " + message.getClass().getName());
     }
 
     /**
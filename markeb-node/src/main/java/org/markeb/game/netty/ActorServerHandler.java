@@ -2,6 +2,7 @@ package org.markeb.game.netty;
 
 import org.markeb.actor.ActorRef;
 import org.markeb.actor.message.NetworkMessage;
+import org.markeb.net.msg.DispatchedMessage;
 import com.google.protobuf.Message;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
@@ -18,7 +19,7 @@ import static org.markeb.game.netty.ChannelAttributeKey.PLAYER_ID_KEY;
  * 将网络消息转发给对应的玩家 Actor 处理，实现消息的串行化处理。
  * </p>
  */
-public class ActorServerHandler extends SimpleChannelInboundHandler<Message> {
+public class ActorServerHandler extends SimpleChannelInboundHandler<DispatchedMessage<Message>> {
 
     private static final Logger log = LoggerFactory.getLogger(ActorServerHandler.class);
 
@@ -29,7 +30,8 @@ public class ActorServerHandler extends SimpleChannelInboundHandler<Message> {
     }
 
     @Override
-    public void channelRead0(ChannelHandlerContext ctx, Message msg) {
+    public void channelRead0(ChannelHandlerContext ctx, DispatchedMessage<Message> dispatched) {
+        Message msg = dispatched.getMessage();
         Channel channel = ctx.channel();
         Long playerId = channel.attr(PLAYER_ID_KEY).get();
 
@@ -109,13 +111,24 @@ public class ActorServerHandler extends SimpleChannelInboundHandler<Message> {
         ctx.close();
     }
 
+    /**
+     * 响应写不出去时暂停读取新的请求，恢复可写后继续读取
+     * <p>
+     * 否则对端不读数据时，每个请求产生的响应都堆积在出站缓冲区中。
+     * 暂停读取后压力沿连接传回对端（网关的后端连接随之不可写，进而暂停读取对应的客户端）。
+     * </p>
+     */
     @Override
     public void channelWritabilityChanged(ChannelHandlerContext ctx) {
         Channel channel = ctx.channel();
         if (!channel.isWritable()) {
             Long playerId = channel.attr(PLAYER_ID_KEY).get();
-            log.warn("Channel not writable for player {}", playerId);
+            log.warn("Channel not writable for player {}, pausing reads", playerId);
+            channel.config().setAutoRead(false);
+        } else {
+            channel.config().setAutoRead(true);
         }
+        ctx.fireChannelWritabilityChanged();
     }
 
     @Override
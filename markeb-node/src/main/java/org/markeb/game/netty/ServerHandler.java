@@ -2,6 +2,7 @@ package org.markeb.game.netty;
 
 
 import org.markeb.game.actor.Player;
+import org.markeb.net.msg.DispatchedMessage;
 import org.markeb.net.msg.IMessagePool;
 import org.markeb.net.register.IContextHandle;
 import com.google.protobuf.Message;
@@ -14,7 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import static org.markeb.game.netty.ChannelAttributeKey.PLAYER_KEY;
 
-public class ServerHandler extends SimpleChannelInboundHandler<Message> {
+public class ServerHandler extends SimpleChannelInboundHandler<DispatchedMessage<Message>> {
 
     private static final Logger log = LoggerFactory.getLogger(ServerHandler.class);
 
@@ -25,12 +26,14 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
     }
 
     /**
-     * 接收消息
+     * 接收消息（处理器已由解码器查出）
      */
     @Override
-    public void channelRead0(ChannelHandlerContext ctx, Message msg) {
+    @SuppressWarnings("unchecked")
+    public void channelRead0(ChannelHandlerContext ctx, DispatchedMessage<Message> dispatched) {
         Channel channel = ctx.channel();
-        IContextHandle<Player, Message> handler = (IContextHandle<Player, Message>) messagePool.getHandler(msg);
+        Message msg = dispatched.getMessage();
+        IContextHandle<Player, Message> handler = (IContextHandle<Player, Message>) dispatched.getHandler();
         if (handler != null) {
             Player player = channel.attr(PLAYER_KEY).get();
             try {
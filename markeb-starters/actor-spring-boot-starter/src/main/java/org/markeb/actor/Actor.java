@@ -34,6 +34,24 @@ public interface Actor {
      */
     void tell(Object message);
 
+    /**
+     * 尝试向该 Actor 发送消息，不等待邮箱空间
+     * <p>
+     * 有界邮箱已满或 Actor 已停止时消息不投递并返回 false，调用方可以据此通知等待结果的一方，
+     * 而不是让消息被静默丢弃。
+     * </p>
+     *
+     * @param message 要发送的消息
+     * @return 如果消息已放入邮箱返回 true
+     */
+    default boolean tryTell(Object message) {
+        if (isStopped()) {
+            return false;
+        }
+        tell(message);
+        return true;
+    }
+
     /**
      * 向该 Actor 发送消息并等待响应（Ask Pattern）
      * <p>
@@ -25,6 +25,16 @@ public class ActorConfig {
      */
     private boolean continueOnException = true;
 
+    /**
+     * 邮箱类型
+     */
+    private MailboxType mailboxType = MailboxType.BLOCKING;
+
+    /**
+     * 每次调度最多连续处理的消息数，1 表示每条消息单独提交一次执行器
+     */
+    private int throughput = 1;
+
     private ActorConfig() {
     }
 
@@ -52,6 +62,14 @@ public class ActorConfig {
         return continueOnException;
     }
 
+    public MailboxType getMailboxType() {
+        return mailboxType;
+    }
+
+    public int getThroughput() {
+        return throughput;
+    }
+
     public static class Builder {
         private final ActorConfig config = new ActorConfig();
 
@@ -75,6 +93,16 @@ public class ActorConfig {
             return this;
         }
 
+        public Builder mailboxType(MailboxType mailboxType) {
+            config.mailboxType = mailboxType;
+            return this;
+        }
+
+        public Builder throughput(int throughput) {
+            config.throughput = Math.max(1, throughput);
+            return this;
+        }
+
         public ActorConfig build() {
             return config;
         }
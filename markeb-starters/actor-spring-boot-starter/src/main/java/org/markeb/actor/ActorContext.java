@@ -1,6 +1,7 @@
 package org.markeb.actor;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Actor 上下文
@@ -50,13 +51,30 @@ public interface ActorContext {
      */
     <T> CompletableFuture<T> future();
 
+    /**
+     * 获取投递到当前 Actor 邮箱的执行器
+     * <p>
+     * 提交的任务作为消息进入邮箱，由本 Actor 串行执行。用于接收异步操作的完成回调，例如
+     * {@code DataCenter.findAsync(...).thenAcceptAsync(callback, context.executor())}，
+     * 等待期间执行线程可以处理其他 Actor 的消息。
+     * </p>
+     * <p>
+     * 投递不等待邮箱空间：有界邮箱已满或 Actor 已停止时 execute 抛出 {@link java.util.concurrent.RejectedExecutionException}，
+     * 以此为执行器的 CompletableFuture 阶段随之异常完成，不会一直挂起。
+     * </p>
+     *
+     * @return 邮箱执行器
+     */
+    Executor executor();
+
     /**
      * 调度延迟消息
      *
      * @param message 消息
      * @param delayMs 延迟毫秒数
+     * @return 调度句柄，可用于取消
      */
-    void scheduleOnce(Object message, long delayMs);
+    long scheduleOnce(Object message, long delayMs);
 
     /**
      * 调度周期性消息
@@ -64,16 +82,16 @@ public interface ActorContext {
      * @param message    消息
      * @param initialDelayMs 初始延迟毫秒数
      * @param periodMs   周期毫秒数
-     * @return 调度任务的 ID，可用于取消
+     * @return 调度句柄，可用于取消
      */
-    String schedulePeriodic(Object message, long initialDelayMs, long periodMs);
+    long schedulePeriodic(Object message, long initialDelayMs, long periodMs);
 
     /**
-     * 取消周期性调度
+     * 取消调度（一次性或周期性）
      *
-     * @param scheduleId 调度任务 ID
+     * @param scheduleId 调度句柄
      */
-    void cancelSchedule(String scheduleId);
+    void cancelSchedule(long scheduleId);
 
 }
 
@@ -9,7 +9,7 @@ public enum ExecutorType {
      * 虚拟线程执行器
      * <p>
      * 使用 JDK 21+ 的虚拟线程。
-     * 每个 Actor 的每条消息都在独立的虚拟线程中处理。
+     * 每个活跃 Actor 至多占用一个虚拟线程，持续处理邮箱直到为空后退出。
      * 适合 IO 密集型场景，可以创建大量 Actor。
      * </p>
      */
@@ -23,7 +23,17 @@ public enum ExecutorType {
      * 适合 CPU 密集型场景，线程数量有限。
      * </p>
      */
-    PLATFORM
+    PLATFORM,
+
+    /**
+     * 工作窃取执行器
+     * <p>
+     * 使用固定大小的平台线程池，每个线程维护自己的 Actor 运行队列。
+     * 空闲线程会从繁忙线程窃取整个 Actor（而非单条消息），同一 Actor 的消息仍然串行有序。
+     * 适合存在热点 Actor（如公会 Boss、世界聊天室）的 CPU 密集型场景。
+     * </p>
+     */
+    WORK_STEALING
 
 }
 
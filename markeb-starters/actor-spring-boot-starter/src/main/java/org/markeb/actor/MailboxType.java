@@ -0,0 +1,26 @@
+package org.markeb.actor;
+
+/**
+ * Actor 邮箱类型
+ */
+public enum MailboxType {
+
+    /**
+     * 阻塞队列邮箱
+     * <p>
+     * 无界时使用 LinkedBlockingQueue，有界时使用 ArrayBlockingQueue。
+     * 每次入队/出队都需要加锁，支持有界邮箱的入队超时等待。
+     * </p>
+     */
+    BLOCKING,
+
+    /**
+     * 无锁 MPSC 邮箱
+     * <p>
+     * 基于多生产者单消费者无锁链表队列，入队只有一次原子交换。
+     * 适合大量 Actor、高并发投递的场景。有界时满了直接丢弃，不支持入队超时。
+     * </p>
+     */
+    MPSC
+
+}
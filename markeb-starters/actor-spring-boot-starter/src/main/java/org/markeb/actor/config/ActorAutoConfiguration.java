@@ -49,7 +49,7 @@ public class ActorAutoConfiguration {
         log.info("Creating ActorSystem '{}' [executor={}, parallelism={}]",
                 systemName,
                 properties.getExecutorType(),
-                properties.getExecutorType() == org.markeb.actor.ExecutorType.PLATFORM
+                properties.getExecutorType() != org.markeb.actor.ExecutorType.VIRTUAL
                         ? properties.resolveParallelism()
                         : "N/A");
 
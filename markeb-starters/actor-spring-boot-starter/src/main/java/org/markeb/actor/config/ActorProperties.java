@@ -1,6 +1,7 @@
 package org.markeb.actor.config;
 
 import org.markeb.actor.ExecutorType;
+import org.markeb.actor.MailboxType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -29,6 +30,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *   actor:
  *     executor-type: PLATFORM  # 切换为平台线程
  *     parallelism: 8           # 指定线程数
+ *     default-mailbox-type: MPSC  # 无锁邮箱
+ *     throughput: 32           # 每次调度最多连续处理 32 条消息
  * </pre>
  */
 @ConfigurationProperties(prefix = "markeb.actor")
@@ -52,6 +55,7 @@ public class ActorProperties {
      * <ul>
      *   <li>VIRTUAL - 虚拟线程，轻量级，可支持百万级 Actor</li>
      *   <li>PLATFORM - 平台线程，适合 CPU 密集型场景</li>
+     *   <li>WORK_STEALING - 平台线程 + Actor 级工作窃取，适合存在热点 Actor 的场景</li>
      * </ul>
      */
     private ExecutorType executorType = ExecutorType.VIRTUAL;
@@ -59,7 +63,7 @@ public class ActorProperties {
     /**
      * 平台线程执行器的并行度（线程数）
      * <p>默认：0（自动使用 CPU 核心数）</p>
-     * <p>仅当 executorType = PLATFORM 时生效</p>
+     * <p>仅当 executorType = PLATFORM 或 WORK_STEALING 时生效</p>
      */
     private int parallelism = 0;
 
@@ -77,6 +81,30 @@ public class ActorProperties {
      */
     private long defaultMailboxOfferTimeoutMs = 0;
 
+    /**
+     * 默认邮箱类型
+     * <p>默认：BLOCKING（基于阻塞队列）</p>
+     * <ul>
+     *   <li>BLOCKING - 阻塞队列邮箱，支持入队超时</li>
+     *   <li>MPSC - 无锁多生产者单消费者邮箱，适合大量 Actor 高并发投递</li>
+     * </ul>
+     */
+    private MailboxType defaultMailboxType = MailboxType.BLOCKING;
+
+    /**
+     * 每次调度最多连续处理的消息数
+     * <p>默认：1（每条消息单独提交一次执行器）</p>
+     * <p>调大后 Actor 一次调度会批量处理邮箱中的消息再让出线程，减少执行器提交开销</p>
+     */
+    private int throughput = 1;
+
+    /**
+     * 定时器 tick 间隔（毫秒）
+     * <p>默认：10</p>
+     * <p>即 scheduleOnce/schedulePeriodic 的定时精度，调小会提高精度但增加定时器线程的唤醒次数</p>
+     */
+    private long timerTickMs = 10;
+
     /**
      * 关闭时等待超时（毫秒）
      * <p>默认：30000（30秒）</p>
@@ -133,6 +161,30 @@ public class ActorProperties {
         this.defaultMailboxOfferTimeoutMs = defaultMailboxOfferTimeoutMs;
     }
 
+    public MailboxType getDefaultMailboxType() {
+        return defaultMailboxType;
+    }
+
+    public void setDefaultMailboxType(MailboxType defaultMailboxType) {
+        this.defaultMailboxType = defaultMailboxType;
+    }
+
+    public int getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(int throughput) {
+        this.throughput = throughput;
+    }
+
+    public long getTimerTickMs() {
+        return timerTickMs;
+    }
+
+    public void setTimerTickMs(long timerTickMs) {
+        this.timerTickMs = timerTickMs;
+    }
+
     public long getShutdownTimeoutMs() {
         return shutdownTimeoutMs;
     }
@@ -1,6 +1,7 @@
 package org.markeb.actor.executor;
 
 import org.markeb.actor.mailbox.Envelope;
+import org.markeb.actor.timer.HierarchicalTimingWheel;
 
 /**
  * Actor 执行器接口
@@ -21,30 +22,37 @@ public interface ActorExecutor {
 
     /**
      * 调度延迟任务
+     * <p>
+     * 任务在定时器线程上直接执行，应只做轻量操作（通常是把消息投递到 Actor 邮箱）。
+     * </p>
      *
      * @param actorId Actor 标识
      * @param task    任务
      * @param delayMs 延迟毫秒数
+     * @return 调度句柄，执行器已关闭时返回 {@link HierarchicalTimingWheel#INVALID_HANDLE}
      */
-    void schedule(long actorId, Runnable task, long delayMs);
+    long schedule(long actorId, Runnable task, long delayMs);
 
     /**
      * 调度周期性任务
+     * <p>
+     * 任务在定时器线程上直接执行，应只做轻量操作（通常是把消息投递到 Actor 邮箱）。
+     * </p>
      *
      * @param actorId        Actor 标识
      * @param task           任务
      * @param initialDelayMs 初始延迟毫秒数
      * @param periodMs       周期毫秒数
-     * @return 调度任务 ID
+     * @return 调度句柄，执行器已关闭时返回 {@link HierarchicalTimingWheel#INVALID_HANDLE}
      */
-    String schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs);
+    long schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs);
 
     /**
-     * 取消周期性任务
+     * 取消调度任务
      *
-     * @param scheduleId 调度任务 ID
+     * @param scheduleId 调度句柄
      */
-    void cancelSchedule(String scheduleId);
+    void cancelSchedule(long scheduleId);
 
     /**
      * 关闭执行器
@@ -27,12 +27,17 @@ public class ActorExecutorFactory {
         return switch (type) {
             case VIRTUAL -> {
                 log.debug("Creating VirtualThreadExecutor");
-                yield new VirtualThreadExecutor();
+                yield new VirtualThreadExecutor(properties.getTimerTickMs());
             }
             case PLATFORM -> {
                 int parallelism = properties.resolveParallelism();
                 log.debug("Creating PlatformThreadExecutor with parallelism: {}", parallelism);
-                yield new PlatformThreadExecutor(parallelism);
+                yield new PlatformThreadExecutor(parallelism, properties.getTimerTickMs());
+            }
+            case WORK_STEALING -> {
+                int parallelism = properties.resolveParallelism();
+                log.debug("Creating WorkStealingExecutor with parallelism: {}", parallelism);
+                yield new WorkStealingExecutor(parallelism, properties.getTimerTickMs());
             }
         };
     }
@@ -53,5 +58,13 @@ public class ActorExecutorFactory {
         return new PlatformThreadExecutor(parallelism);
     }
 
-}
+    /**
+     * 创建工作窃取执行器
+     *
+     * @param parallelism 并行度
+     */
+    public static ActorExecutor createWorkStealing(int parallelism) {
+        return new WorkStealingExecutor(parallelism);
+    }
 
+}
@@ -1,11 +1,10 @@
 package org.markeb.actor.executor;
 
 import org.markeb.actor.mailbox.Envelope;
+import org.markeb.actor.timer.HierarchicalTimingWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -23,8 +22,7 @@ public class PlatformThreadExecutor implements ActorExecutor {
 
     private final ExecutorService[] executors;
     private final int parallelism;
-    private final ScheduledExecutorService scheduler;
-    private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel timer;
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
     /**
@@ -33,6 +31,16 @@ public class PlatformThreadExecutor implements ActorExecutor {
      * @param parallelism 并行度（线程数）
      */
     public PlatformThreadExecutor(int parallelism) {
+        this(parallelism, HierarchicalTimingWheel.DEFAULT_TICK_MS);
+    }
+
+    /**
+     * 创建平台线程执行器
+     *
+     * @param parallelism 并行度（线程数）
+     * @param timerTickMs 定时器 tick 间隔（毫秒）
+     */
+    public PlatformThreadExecutor(int parallelism, long timerTickMs) {
         this.parallelism = parallelism;
         this.executors = new ExecutorService[parallelism];
 
@@ -54,11 +62,8 @@ public class PlatformThreadExecutor implements ActorExecutor {
             this.executors[i] = Executors.newSingleThreadExecutor(factory);
         }
 
-        // 调度器
-        this.scheduler = Executors.newScheduledThreadPool(2, Thread.ofPlatform()
-                .name("actor-scheduler-", 0)
-                .daemon(true)
-                .factory());
+        // 定时器：分层时间轮，到期时直接投递到 Actor 邮箱
+        this.timer = new HierarchicalTimingWheel("actor-timer", timerTickMs);
 
         log.info("PlatformThreadExecutor initialized with {} workers", parallelism);
     }
@@ -91,52 +96,24 @@ public class PlatformThreadExecutor implements ActorExecutor {
     }
 
     @Override
-    public void schedule(long actorId, Runnable task, long delayMs) {
+    public long schedule(long actorId, Runnable task, long delayMs) {
         if (shutdown.get()) {
-            return;
+            return HierarchicalTimingWheel.INVALID_HANDLE;
         }
-
-        int shardIndex = getShardIndex(actorId);
-        scheduler.schedule(() -> {
-            executors[shardIndex].execute(() -> {
-                try {
-                    task.run();
-                } catch (Exception e) {
-                    log.error("Error executing scheduled task for actor: {}", actorId, e);
-                }
-            });
-        }, delayMs, TimeUnit.MILLISECONDS);
+        return timer.schedule(actorId, task, delayMs);
     }
 
     @Override
-    public String schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs) {
+    public long schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs) {
         if (shutdown.get()) {
-            return null;
+            return HierarchicalTimingWheel.INVALID_HANDLE;
         }
-
-        String scheduleId = UUID.randomUUID().toString();
-        int shardIndex = getShardIndex(actorId);
-
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-            executors[shardIndex].execute(() -> {
-                try {
-                    task.run();
-                } catch (Exception e) {
-                    log.error("Error executing periodic task for actor: {}", actorId, e);
-                }
-            });
-        }, initialDelayMs, periodMs, TimeUnit.MILLISECONDS);
-
-        scheduledTasks.put(scheduleId, future);
-        return scheduleId;
+        return timer.schedulePeriodic(actorId, task, initialDelayMs, periodMs);
     }
 
     @Override
-    public void cancelSchedule(String scheduleId) {
-        ScheduledFuture<?> future = scheduledTasks.remove(scheduleId);
-        if (future != null) {
-            future.cancel(false);
-        }
+    public void cancelSchedule(long scheduleId) {
+        timer.cancel(scheduleId);
     }
 
     @Override
@@ -144,11 +121,8 @@ public class PlatformThreadExecutor implements ActorExecutor {
         if (shutdown.compareAndSet(false, true)) {
             log.info("Shutting down PlatformThreadExecutor...");
 
-            // 取消所有周期性任务
-            scheduledTasks.values().forEach(f -> f.cancel(false));
-            scheduledTasks.clear();
-
-            scheduler.shutdown();
+            // 停止定时器，未到期的任务不再触发
+            timer.stop();
             for (ExecutorService executor : executors) {
                 executor.shutdown();
             }
@@ -159,7 +133,7 @@ public class PlatformThreadExecutor implements ActorExecutor {
     public boolean awaitTermination(long timeoutMs) throws InterruptedException {
         long deadline = System.currentTimeMillis() + timeoutMs;
 
-        if (!scheduler.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+        if (!timer.awaitTermination(timeoutMs)) {
             return false;
         }
 
@@ -1,39 +1,62 @@
 package org.markeb.actor.executor;
 
 import org.markeb.actor.mailbox.Envelope;
+import org.markeb.actor.timer.HierarchicalTimingWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 虚拟线程执行器
  * <p>
  * 使用 JDK 21+ 的虚拟线程来执行 Actor 任务。
- * 每个 Actor 的消息处理在独立的虚拟线程中执行，但通过锁保证同一 Actor 的消息串行处理。
+ * 每个活跃的 Actor 至多拥有一个虚拟线程：Actor 开始处理消息时创建，
+ * 之后该 Actor 的后续处理轮次都在同一个虚拟线程中接力执行，直到邮箱为空线程才退出（run-to-empty）。
+ * </p>
+ * <p>
+ * 串行化由"线程归属"保证：DefaultActor 同一时刻只会有一个处理任务在途，
+ * 在途任务结束时提交的下一轮任务直接由当前虚拟线程续跑，不需要全局的 Actor 锁表，
+ * 也就不会因 synchronized 钉住载体线程，或因未调用清理方法而泄漏锁对象。
  * </p>
  */
 public class VirtualThreadExecutor implements ActorExecutor {
 
     private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutor.class);
 
+    /**
+     * 连续续跑多少轮后主动让出载体线程，避免繁忙 Actor 长期霸占载体线程
+     */
+    private static final int YIELD_INTERVAL = 32;
+
+    /**
+     * 当前虚拟线程正在驱动的 Actor
+     */
+    private static final ThreadLocal<ActorRunner> CURRENT = new ThreadLocal<>();
+
     private final ExecutorService virtualExecutor;
-    private final ScheduledExecutorService scheduler;
-    private final Map<Long, Object> actorLocks = new ConcurrentHashMap<>();
-    private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel timer;
+    private final AtomicInteger activeActorThreads = new AtomicInteger(0);
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
     public VirtualThreadExecutor() {
+        this(HierarchicalTimingWheel.DEFAULT_TICK_MS);
+    }
+
+    /**
+     * 创建虚拟线程执行器
+     *
+     * @param timerTickMs 定时器 tick 间隔（毫秒）
+     */
+    public VirtualThreadExecutor(long timerTickMs) {
         // 创建虚拟线程执行器
-        this.virtualExecutor = Executors.newVirtualThreadPerTaskExecutor();
-        // 调度器使用少量平台线程
-        this.scheduler = Executors.newScheduledThreadPool(2, Thread.ofPlatform()
-                .name("actor-scheduler-", 0)
-                .daemon(true)
+        this.virtualExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("actor-vt-", 0)
                 .factory());
+        // 定时器：分层时间轮，到期时直接投递到 Actor 邮箱
+        this.timer = new HierarchicalTimingWheel("actor-timer", timerTickMs);
         log.info("VirtualThreadExecutor initialized");
     }
 
@@ -44,71 +67,36 @@ public class VirtualThreadExecutor implements ActorExecutor {
             return;
         }
 
-        virtualExecutor.execute(() -> {
-            // 获取或创建 Actor 的锁
-            Object lock = actorLocks.computeIfAbsent(actorId, k -> new Object());
-            synchronized (lock) {
-                try {
-                    task.run();
-                } catch (Exception e) {
-                    log.error("Error executing task for actor: {}", actorId, e);
-                    envelope.completeExceptionally(e);
-                }
-            }
-        });
+        // 当前虚拟线程正持有该 Actor，交给它续跑，不再创建新线程
+        ActorRunner current = CURRENT.get();
+        if (current != null && current.actorId == actorId && current.nextTask == null) {
+            current.nextTask = task;
+            current.nextEnvelope = envelope;
+            return;
+        }
+
+        virtualExecutor.execute(new ActorRunner(actorId, envelope, task));
     }
 
     @Override
-    public void schedule(long actorId, Runnable task, long delayMs) {
+    public long schedule(long actorId, Runnable task, long delayMs) {
         if (shutdown.get()) {
-            return;
+            return HierarchicalTimingWheel.INVALID_HANDLE;
         }
-
-        scheduler.schedule(() -> {
-            virtualExecutor.execute(() -> {
-                Object lock = actorLocks.computeIfAbsent(actorId, k -> new Object());
-                synchronized (lock) {
-                    try {
-                        task.run();
-                    } catch (Exception e) {
-                        log.error("Error executing scheduled task for actor: {}", actorId, e);
-                    }
-                }
-            });
-        }, delayMs, TimeUnit.MILLISECONDS);
+        return timer.schedule(actorId, task, delayMs);
     }
 
     @Override
-    public String schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs) {
+    public long schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs) {
         if (shutdown.get()) {
-            return null;
+            return HierarchicalTimingWheel.INVALID_HANDLE;
         }
-
-        String scheduleId = UUID.randomUUID().toString();
-
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-            virtualExecutor.execute(() -> {
-                Object lock = actorLocks.computeIfAbsent(actorId, k -> new Object());
-                synchronized (lock) {
-                    try {
-                        task.run();
-                    } catch (Exception e) {
-                        log.error("Error executing periodic task for actor: {}", actorId, e);
-                    }
-                }
-            });
-        }, initialDelayMs, periodMs, TimeUnit.MILLISECONDS);
-
-        scheduledTasks.put(scheduleId, future);
-        return scheduleId;
+        return timer.schedulePeriodic(actorId, task, initialDelayMs, periodMs);
     }
 
     @Override
-    public void cancelSchedule(String scheduleId) {
-        ScheduledFuture<?> future = scheduledTasks.remove(scheduleId);
-        if (future != null) {
-            future.cancel(false);
-        }
+    public void cancelSchedule(long scheduleId) {
+        timer.cancel(scheduleId);
     }
 
     @Override
@@ -116,11 +104,8 @@ public class VirtualThreadExecutor implements ActorExecutor {
         if (shutdown.compareAndSet(false, true)) {
             log.info("Shutting down VirtualThreadExecutor...");
 
-            // 取消所有周期性任务
-            scheduledTasks.values().forEach(f -> f.cancel(false));
-            scheduledTasks.clear();
-
-            scheduler.shutdown();
+            // 停止定时器，未到期的任务不再触发
+            timer.stop();
             virtualExecutor.shutdown();
         }
     }
@@ -129,7 +114,7 @@ public class VirtualThreadExecutor implements ActorExecutor {
     public boolean awaitTermination(long timeoutMs) throws InterruptedException {
         long deadline = System.currentTimeMillis() + timeoutMs;
 
-        if (!scheduler.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+        if (!timer.awaitTermination(timeoutMs)) {
             return false;
         }
 
@@ -142,11 +127,58 @@ public class VirtualThreadExecutor implements ActorExecutor {
     }
 
     /**
-     * 清理已停止 Actor 的锁
+     * 获取当前持有 Actor 的虚拟线程数（即正在处理消息的 Actor 数）
      */
-    public void cleanupActor(long actorId) {
-        actorLocks.remove(actorId);
+    public int getActiveActorThreads() {
+        return activeActorThreads.get();
     }
 
-}
+    /**
+     * Actor 的虚拟线程主体
+     * <p>
+     * 依次执行当前任务以及任务执行期间为同一 Actor 提交的下一轮任务，没有后续任务时线程结束。
+     * </p>
+     */
+    private final class ActorRunner implements Runnable {
+
+        private final long actorId;
+        private Runnable nextTask;
+        private Envelope nextEnvelope;
+
+        ActorRunner(long actorId, Envelope envelope, Runnable task) {
+            this.actorId = actorId;
+            this.nextTask = task;
+            this.nextEnvelope = envelope;
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(this);
+            activeActorThreads.incrementAndGet();
+            try {
+                int turns = 0;
+                while (nextTask != null) {
+                    Runnable task = nextTask;
+                    Envelope envelope = nextEnvelope;
+                    nextTask = null;
+                    nextEnvelope = null;
+
+                    if (++turns % YIELD_INTERVAL == 0) {
+                        Thread.yield();
+                    }
 
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        log.error("Error executing task for actor: {}", actorId, e);
+                        envelope.completeExceptionally(e);
+                    }
+                }
+            } finally {
+                activeActorThreads.decrementAndGet();
+                CURRENT.remove();
+            }
+        }
+    }
+
+}
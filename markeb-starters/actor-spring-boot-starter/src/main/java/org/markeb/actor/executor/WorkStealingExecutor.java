@@ -0,0 +1,336 @@
+package org.markeb.actor.executor;
+
+import org.markeb.actor.mailbox.Envelope;
+import org.markeb.actor.timer.HierarchicalTimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 工作窃取执行器
+ * <p>
+ * 固定数量的平台线程，每个工作线程维护自己的 Actor 运行队列。
+ * 队列中的每一项是某个 Actor 的一次处理轮次，由于 DefaultActor 同一时刻只会有一个轮次在途，
+ * 窃取一项就等于把整个 Actor 迁移到空闲线程上运行，而不会拆散同一 Actor 的消息，消息顺序依然保证。
+ * </p>
+ * <ul>
+ *   <li>外部线程提交时，按 Actor ID 哈希投递到"归属"工作线程</li>
+ *   <li>工作线程内提交时（Actor 续跑下一轮），投递到当前线程队列，保持缓存亲和</li>
+ *   <li>工作线程自己的队列为空时，从其他线程队列尾部窃取 Actor</li>
+ * </ul>
+ * <p>
+ * 相比 {@link PlatformThreadExecutor}，一个热点 Actor 只会占住一个线程，
+ * 同分片的其他 Actor 会被空闲线程窃取走，不会被拖慢。
+ * </p>
+ */
+public class WorkStealingExecutor implements ActorExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkStealingExecutor.class);
+
+    /**
+     * 空闲线程的最长休眠时间，作为丢失唤醒的兜底
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * 当前线程所属的工作线程（非工作线程为 null）
+     */
+    private static final ThreadLocal<Worker> CURRENT = new ThreadLocal<>();
+
+    private final Worker[] workers;
+    private final int parallelism;
+    private final HierarchicalTimingWheel timer;
+    private final AtomicInteger idleWorkers = new AtomicInteger(0);
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    private final CountDownLatch terminated;
+
+    /**
+     * 创建工作窃取执行器
+     *
+     * @param parallelism 并行度（线程数）
+     */
+    public WorkStealingExecutor(int parallelism) {
+        this(parallelism, HierarchicalTimingWheel.DEFAULT_TICK_MS);
+    }
+
+    /**
+     * 创建工作窃取执行器
+     *
+     * @param parallelism 并行度（线程数）
+     * @param timerTickMs 定时器 tick 间隔（毫秒）
+     */
+    public WorkStealingExecutor(int parallelism, long timerTickMs) {
+        this.parallelism = parallelism;
+        this.workers = new Worker[parallelism];
+        this.terminated = new CountDownLatch(parallelism);
+
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            Thread t = new Thread(worker, "actor-ws-worker-" + worker.index);
+            t.setDaemon(true);
+            worker.thread = t;
+            t.start();
+        }
+
+        // 定时器：分层时间轮，到期时直接投递到 Actor 邮箱
+        this.timer = new HierarchicalTimingWheel("actor-timer", timerTickMs);
+
+        log.info("WorkStealingExecutor initialized with {} workers", parallelism);
+    }
+
+    /**
+     * 根据 Actor ID 计算归属工作线程
+     */
+    private int getHomeIndex(long actorId) {
+        int hash = Long.hashCode(actorId);
+        return (hash & 0x7FFFFFFF) % parallelism;
+    }
+
+    /**
+     * 选择投递的工作线程：工作线程内提交时投递到当前线程，否则投递到归属线程
+     */
+    private Worker selectWorker(long actorId) {
+        Worker current = CURRENT.get();
+        if (current != null && current.owner == this) {
+            return current;
+        }
+        return workers[getHomeIndex(actorId)];
+    }
+
+    @Override
+    public void execute(long actorId, Envelope envelope, Runnable task) {
+        if (shutdown.get()) {
+            log.warn("Executor is shutdown, rejecting task for actor: {}", actorId);
+            return;
+        }
+
+        submit(selectWorker(actorId), () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Error executing task for actor: {}", actorId, e);
+                envelope.completeExceptionally(e);
+            }
+        });
+    }
+
+    @Override
+    public long schedule(long actorId, Runnable task, long delayMs) {
+        if (shutdown.get()) {
+            return HierarchicalTimingWheel.INVALID_HANDLE;
+        }
+        return timer.schedule(actorId, task, delayMs);
+    }
+
+    @Override
+    public long schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs) {
+        if (shutdown.get()) {
+            return HierarchicalTimingWheel.INVALID_HANDLE;
+        }
+        return timer.schedulePeriodic(actorId, task, initialDelayMs, periodMs);
+    }
+
+    @Override
+    public void cancelSchedule(long scheduleId) {
+        timer.cancel(scheduleId);
+    }
+
+    /**
+     * 投递任务到指定工作线程，必要时唤醒它或一个空闲线程来窃取
+     */
+    private void submit(Worker worker, Runnable task) {
+        worker.queue.offerLast(task);
+        worker.depth.incrementAndGet();
+
+        if (worker.parked) {
+            LockSupport.unpark(worker.thread);
+        } else if (idleWorkers.get() > 0) {
+            // 目标线程正忙，叫醒一个空闲线程来窃取
+            wakeIdleWorker(worker.index);
+        }
+    }
+
+    private void wakeIdleWorker(int from) {
+        for (int i = 1; i < parallelism; i++) {
+            Worker candidate = workers[(from + i) % parallelism];
+            if (candidate.parked) {
+                LockSupport.unpark(candidate.thread);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (shutdown.compareAndSet(false, true)) {
+            log.info("Shutting down WorkStealingExecutor...");
+
+            // 停止定时器，未到期的任务不再触发
+            timer.stop();
+            for (Worker worker : workers) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        if (!timer.awaitTermination(timeoutMs)) {
+            return false;
+        }
+
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return false;
+        }
+
+        return terminated.await(remaining, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取并行度
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 获取各工作线程的运行队列深度
+     */
+    public int[] getQueueDepths() {
+        int[] depths = new int[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            depths[i] = workers[i].depth.get();
+        }
+        return depths;
+    }
+
+    /**
+     * 获取各工作线程的窃取次数（该线程从其他线程窃取到的 Actor 轮次数）
+     */
+    public long[] getStealCounts() {
+        long[] counts = new long[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            counts[i] = workers[i].steals.get();
+        }
+        return counts;
+    }
+
+    /**
+     * 获取总窃取次数
+     */
+    public long getTotalStealCount() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.steals.get();
+        }
+        return total;
+    }
+
+    /**
+     * 工作线程
+     */
+    private final class Worker implements Runnable {
+
+        private final WorkStealingExecutor owner = WorkStealingExecutor.this;
+        private final int index;
+        private final ConcurrentLinkedDeque<Runnable> queue = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger depth = new AtomicInteger(0);
+        private final AtomicLong steals = new AtomicLong(0);
+        private volatile boolean parked;
+        private Thread thread;
+
+        Worker(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(this);
+            try {
+                while (true) {
+                    Runnable task = poll();
+                    if (task == null) {
+                        task = steal();
+                    }
+                    if (task != null) {
+                        task.run();
+                        continue;
+                    }
+                    if (shutdown.get()) {
+                        // 关闭时处理完剩余任务后退出
+                        if (!hasPendingWork()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    idle();
+                }
+            } finally {
+                CURRENT.remove();
+                terminated.countDown();
+            }
+        }
+
+        private Runnable poll() {
+            Runnable task = queue.pollFirst();
+            if (task != null) {
+                depth.decrementAndGet();
+            }
+            return task;
+        }
+
+        /**
+         * 从其他线程队列尾部窃取一个 Actor 轮次
+         */
+        private Runnable steal() {
+            int start = ThreadLocalRandom.current().nextInt(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                Worker victim = workers[(start + i) % parallelism];
+                if (victim == this) {
+                    continue;
+                }
+                Runnable task = victim.queue.pollLast();
+                if (task != null) {
+                    victim.depth.decrementAndGet();
+                    steals.incrementAndGet();
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private boolean hasPendingWork() {
+            for (Worker worker : workers) {
+                if (!worker.queue.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void idle() {
+            parked = true;
+            idleWorkers.incrementAndGet();
+            try {
+                // 标记空闲后再检查一次，避免与提交方的唤醒交错而丢失任务
+                if (!hasPendingWork() && !shutdown.get()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            } finally {
+                idleWorkers.decrementAndGet();
+                parked = false;
+            }
+        }
+    }
+
+}
@@ -3,9 +3,12 @@ package org.markeb.actor.game;
 import org.markeb.actor.ActorContext;
 import org.markeb.actor.ActorRef;
 import org.markeb.actor.ActorSystem;
+import org.markeb.actor.message.Continuation;
 import io.netty.channel.Channel;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 游戏 Actor 基类
@@ -69,6 +72,19 @@ public abstract class GameActor<S> {
         return actorRef.ask(message);
     }
 
+    /**
+     * 获取投递到本 Actor 邮箱的执行器，用于在 Actor 内接收异步操作的完成回调
+     *
+     * @see ActorContext#executor()
+     */
+    public Executor executor() {
+        return task -> {
+            if (!actorRef.tryTell(new Continuation(task))) {
+                throw new RejectedExecutionException("Actor " + actorId + " is stopped or its mailbox is full");
+            }
+        };
+    }
+
     /**
      * 向客户端发送消息
      */
@@ -6,6 +6,8 @@ import org.markeb.actor.mailbox.BoundedMailbox;
 import org.markeb.actor.mailbox.DefaultMailbox;
 import org.markeb.actor.mailbox.Envelope;
 import org.markeb.actor.mailbox.Mailbox;
+import org.markeb.actor.mailbox.MpscMailbox;
+import org.markeb.actor.message.Continuation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,15 +49,20 @@ public class DefaultActor<T> implements Actor, ActorRef {
         this.system = system;
 
         // 根据配置创建邮箱
-        if (config.getMailboxCapacity() > 0) {
-            this.mailbox = new BoundedMailbox(config.getMailboxCapacity(), config.getMailboxOfferTimeoutMs());
-        } else {
-            this.mailbox = new DefaultMailbox();
-        }
+        this.mailbox = createMailbox(config);
 
         log.debug("Actor created: {}", actorId);
     }
 
+    private static Mailbox createMailbox(ActorConfig config) {
+        return switch (config.getMailboxType()) {
+            case MPSC -> new MpscMailbox(config.getMailboxCapacity());
+            case BLOCKING -> config.getMailboxCapacity() > 0
+                    ? new BoundedMailbox(config.getMailboxCapacity(), config.getMailboxOfferTimeoutMs())
+                    : new DefaultMailbox();
+        };
+    }
+
     @Override
     public long actorId() {
         return actorId;
@@ -74,6 +81,30 @@ public class DefaultActor<T> implements Actor, ActorRef {
         }
     }
 
+    /**
+     * 发送消息（不等待）
+     * <p>
+     * 与 {@link #tell} 相同，但有界邮箱已满时立即返回 false，不按入队超时等待。
+     * 定时器触发和异步回调投递使用，避免一个积压的 Actor 阻塞投递线程。
+     * </p>
+     *
+     * @return 如果成功放入邮箱返回 true
+     */
+    @Override
+    public boolean tryTell(Object message) {
+        if (stopped.get()) {
+            log.warn("Actor {} is stopped, message dropped: {}", actorId, message.getClass().getSimpleName());
+            return false;
+        }
+
+        Envelope envelope = new Envelope(message, null);
+        if (mailbox.tryEnqueue(envelope)) {
+            scheduleProcessing();
+            return true;
+        }
+        return false;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <R> CompletableFuture<R> ask(Object message) {
@@ -141,6 +172,10 @@ public class DefaultActor<T> implements Actor, ActorRef {
         }
 
         // 提交到执行器处理
+        if (config.getThroughput() > 1) {
+            executor.execute(actorId, envelope, () -> drainMessages(envelope));
+            return;
+        }
         executor.execute(actorId, envelope, () -> {
             try {
                 processMessage(envelope);
@@ -151,6 +186,36 @@ public class DefaultActor<T> implements Actor, ActorRef {
         });
     }
 
+    /**
+     * 批量处理消息
+     * <p>
+     * 一次调度内连续处理最多 throughput 条消息，然后让出执行线程，
+     * 邮箱中剩余的消息由下一次调度继续处理，避免单个 Actor 长期霸占线程。
+     * </p>
+     */
+    private void drainMessages(Envelope first) {
+        int limit = config.getThroughput();
+        Envelope envelope = first;
+        try {
+            for (int processed = 0; envelope != null; ) {
+                try {
+                    processMessage(envelope);
+                } catch (RuntimeException e) {
+                    // 执行器只会以异常完成本批次的第一条消息，这里补全当前消息
+                    envelope.completeExceptionally(e);
+                    throw e;
+                }
+                if (++processed >= limit) {
+                    break;
+                }
+                envelope = mailbox.tryDequeue();
+            }
+        } finally {
+            // 本批次结束（处理满或邮箱已空），重新调度剩余消息
+            processNextMessage();
+        }
+    }
+
     /**
      * 处理单条消息
      */
@@ -164,9 +229,14 @@ public class DefaultActor<T> implements Actor, ActorRef {
         ActorContext context = new DefaultActorContext(this, system, envelope);
 
         try {
-            T currentState = state.get();
-            T newState = behavior.onMessage(context, currentState, message);
-            state.set(newState);
+            if (message instanceof Continuation continuation) {
+                // 异步操作的完成回调，在本 Actor 的串行上下文中运行
+                continuation.task().run();
+            } else {
+                T currentState = state.get();
+                T newState = behavior.onMessage(context, currentState, message);
+                state.set(newState);
+            }
 
             // 如果是 ask 模式且没有显式回复，自动完成
             if (envelope.isAsk() && !envelope.getFuture().isDone()) {
@@ -4,8 +4,11 @@ import org.markeb.actor.Actor;
 import org.markeb.actor.ActorContext;
 import org.markeb.actor.ActorSystem;
 import org.markeb.actor.mailbox.Envelope;
+import org.markeb.actor.message.Continuation;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 默认 Actor 上下文实现
@@ -57,17 +60,26 @@ public class DefaultActorContext implements ActorContext {
     }
 
     @Override
-    public void scheduleOnce(Object message, long delayMs) {
-        ((DefaultActorSystem) system).scheduleOnce(self.actorId(), message, delayMs);
+    public Executor executor() {
+        return task -> {
+            if (!self.tryTell(new Continuation(task))) {
+                throw new RejectedExecutionException("Actor " + self.actorId() + " is stopped or its mailbox is full");
+            }
+        };
     }
 
     @Override
-    public String schedulePeriodic(Object message, long initialDelayMs, long periodMs) {
+    public long scheduleOnce(Object message, long delayMs) {
+        return ((DefaultActorSystem) system).scheduleOnce(self.actorId(), message, delayMs);
+    }
+
+    @Override
+    public long schedulePeriodic(Object message, long initialDelayMs, long periodMs) {
         return ((DefaultActorSystem) system).schedulePeriodic(self.actorId(), message, initialDelayMs, periodMs);
     }
 
     @Override
-    public void cancelSchedule(String scheduleId) {
+    public void cancelSchedule(long scheduleId) {
         ((DefaultActorSystem) system).cancelSchedule(scheduleId);
     }
 
@@ -4,7 +4,6 @@ import org.markeb.actor.*;
 import org.markeb.actor.config.ActorProperties;
 import org.markeb.actor.executor.ActorExecutor;
 import org.markeb.actor.executor.ActorExecutorFactory;
-import org.markeb.actor.executor.VirtualThreadExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +23,7 @@ public class DefaultActorSystem implements ActorSystem {
     private final String name;
     private final ActorProperties properties;
     private final ActorExecutor executor;
+    private final ActorConfig defaultConfig;
     private final Map<Long, DefaultActor<?>> actors = new ConcurrentHashMap<>();
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
@@ -31,6 +31,7 @@ public class DefaultActorSystem implements ActorSystem {
         this.name = name;
         this.properties = properties;
         this.executor = ActorExecutorFactory.create(properties);
+        this.defaultConfig = createDefaultConfig(properties);
         log.info("ActorSystem '{}' initialized with executor type: {}", name, properties.getExecutorType());
     }
 
@@ -38,12 +39,25 @@ public class DefaultActorSystem implements ActorSystem {
         this.name = name;
         this.properties = properties;
         this.executor = executor;
+        this.defaultConfig = createDefaultConfig(properties);
         log.info("ActorSystem '{}' initialized with custom executor", name);
     }
 
+    /**
+     * 根据全局配置创建默认 Actor 配置
+     */
+    private static ActorConfig createDefaultConfig(ActorProperties properties) {
+        return ActorConfig.builder()
+                .mailboxCapacity(properties.getDefaultMailboxCapacity())
+                .mailboxOfferTimeoutMs(properties.getDefaultMailboxOfferTimeoutMs())
+                .mailboxType(properties.getDefaultMailboxType())
+                .throughput(properties.getThroughput())
+                .build();
+    }
+
     @Override
     public <T> ActorRef spawn(long actorId, T initialState, ActorBehavior<T> behavior) {
-        return spawn(actorId, initialState, behavior, ActorConfig.defaults());
+        return spawn(actorId, initialState, behavior, defaultConfig);
     }
 
     @Override
@@ -77,7 +91,7 @@ public class DefaultActorSystem implements ActorSystem {
             if (shutdown.get()) {
                 throw new IllegalStateException("ActorSystem is shutdown");
             }
-            return new DefaultActor<>(id, initialState, behavior, ActorConfig.defaults(), executor, this);
+            return new DefaultActor<>(id, initialState, behavior, defaultConfig, executor, this);
         });
     }
 
@@ -149,30 +163,41 @@ public class DefaultActorSystem implements ActorSystem {
      */
     void onActorStopped(long actorId) {
         actors.remove(actorId);
-        if (executor instanceof VirtualThreadExecutor vte) {
-            vte.cleanupActor(actorId);
-        }
         log.debug("Actor removed: {}", actorId);
     }
 
     /**
      * 调度延迟消息
+     * <p>
+     * 定时任务在时间轮唯一的 tick 线程上执行，投递不等待邮箱空位，
+     * 目标邮箱已满时丢弃本次消息，不会拖慢进程内其他定时器。
+     * </p>
      */
-    void scheduleOnce(long actorId, Object message, long delayMs) {
-        executor.schedule(actorId, () -> tell(actorId, message), delayMs);
+    long scheduleOnce(long actorId, Object message, long delayMs) {
+        return executor.schedule(actorId, () -> tryTell(actorId, message), delayMs);
     }
 
     /**
-     * 调度周期性消息
+     * 调度周期性消息（投递方式同 {@link #scheduleOnce}）
      */
-    String schedulePeriodic(long actorId, Object message, long initialDelayMs, long periodMs) {
-        return executor.schedulePeriodic(actorId, () -> tell(actorId, message), initialDelayMs, periodMs);
+    long schedulePeriodic(long actorId, Object message, long initialDelayMs, long periodMs) {
+        return executor.schedulePeriodic(actorId, () -> tryTell(actorId, message), initialDelayMs, periodMs);
+    }
+
+    /**
+     * 不等待地投递消息
+     *
+     * @return 如果成功放入邮箱返回 true
+     */
+    boolean tryTell(long actorId, Object message) {
+        DefaultActor<?> actor = actors.get(actorId);
+        return actor != null && actor.tryTell(message);
     }
 
     /**
      * 取消调度
      */
-    void cancelSchedule(String scheduleId) {
+    void cancelSchedule(long scheduleId) {
         executor.cancelSchedule(scheduleId);
     }
 
@@ -64,6 +64,20 @@ public class BoundedMailbox implements Mailbox {
         }
     }
 
+    @Override
+    public boolean tryEnqueue(Envelope envelope) {
+        if (closed.get()) {
+            return false;
+        }
+
+        boolean success = queue.offer(envelope);
+        if (!success) {
+            log.warn("Mailbox is full (capacity={}), message dropped: {}",
+                    capacity, envelope.getMessage().getClass().getSimpleName());
+        }
+        return success;
+    }
+
     @Override
     public Envelope dequeue() throws InterruptedException {
         if (closed.get() && queue.isEmpty()) {
@@ -16,6 +16,20 @@ public interface Mailbox {
      */
     boolean enqueue(Envelope envelope);
 
+    /**
+     * 将消息放入邮箱（不等待）
+     * <p>
+     * 邮箱已满时立即返回 false，不按入队超时等待空位。
+     * 供定时器 tick 线程等不能被单个 Actor 阻塞的调用方使用。
+     * </p>
+     *
+     * @param envelope 消息信封
+     * @return 如果成功放入返回 true，如果邮箱已满或已关闭返回 false
+     */
+    default boolean tryEnqueue(Envelope envelope) {
+        return enqueue(envelope);
+    }
+
     /**
      * 从邮箱取出消息（阻塞）
      *
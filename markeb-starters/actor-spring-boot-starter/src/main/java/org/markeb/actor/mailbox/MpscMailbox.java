@@ -0,0 +1,166 @@
+package org.markeb.actor.mailbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁多生产者单消费者邮箱
+ * <p>
+ * 基于 Vyukov 风格的侵入式 MPSC 链表队列实现：
+ * <ul>
+ *   <li>入队只有一次 {@code getAndSet(tail)} 原子交换，没有锁，多个发送方互不阻塞</li>
+ *   <li>出队只由 Actor 当前的处理线程执行，读写 head 无需任何同步</li>
+ * </ul>
+ * 由于 Actor 的消息处理本身就是串行的（同一时刻只有一个线程在消费邮箱），
+ * 单消费者的约束天然成立。
+ * </p>
+ * <p>
+ * 容量大于 0 时为有界邮箱，满时直接丢弃新消息（不支持入队等待）。
+ * </p>
+ */
+public class MpscMailbox implements Mailbox {
+
+    private static final Logger log = LoggerFactory.getLogger(MpscMailbox.class);
+
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(MpscMailbox.class, "tail", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 队头哨兵节点，仅消费者线程访问
+     */
+    private Node head;
+
+    /**
+     * 队尾节点，生产者通过 CAS 交换
+     */
+    @SuppressWarnings("unused")
+    private volatile Node tail;
+
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final int capacity;
+
+    /**
+     * 创建无界 MPSC 邮箱
+     */
+    public MpscMailbox() {
+        this(0);
+    }
+
+    /**
+     * 创建 MPSC 邮箱
+     *
+     * @param capacity 容量，0 表示无界
+     */
+    public MpscMailbox(int capacity) {
+        this.capacity = capacity;
+        Node stub = new Node(null);
+        this.head = stub;
+        this.tail = stub;
+    }
+
+    @Override
+    public boolean enqueue(Envelope envelope) {
+        if (closed.get()) {
+            return false;
+        }
+
+        int current = size.getAndIncrement();
+        if (capacity > 0 && current >= capacity) {
+            size.decrementAndGet();
+            log.warn("Mailbox is full (capacity={}), message dropped: {}",
+                    capacity, envelope.getMessage().getClass().getSimpleName());
+            return false;
+        }
+
+        Node node = new Node(envelope);
+        Node prev = (Node) TAIL.getAndSet(this, node);
+        // 链接前驱节点，此前消费者可能短暂地看不到该节点，但入队方随后会触发调度，不会丢消息
+        NEXT.setRelease(prev, node);
+        return true;
+    }
+
+    @Override
+    public Envelope dequeue() throws InterruptedException {
+        for (; ; ) {
+            Envelope envelope = tryDequeue();
+            if (envelope != null) {
+                return envelope;
+            }
+            if (closed.get()) {
+                return null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    @Override
+    public Envelope tryDequeue() {
+        Node next = (Node) NEXT.getAcquire(head);
+        if (next == null) {
+            return null;
+        }
+        Envelope envelope = next.envelope;
+        // 出队节点成为新的哨兵，释放引用便于 GC
+        next.envelope = null;
+        head = next;
+        size.decrementAndGet();
+        return envelope;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return NEXT.getAcquire(head) == null;
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * 链表节点
+     */
+    private static final class Node {
+
+        private Envelope envelope;
+
+        @SuppressWarnings("unused")
+        private volatile Node next;
+
+        Node(Envelope envelope) {
+            this.envelope = envelope;
+        }
+    }
+
+}
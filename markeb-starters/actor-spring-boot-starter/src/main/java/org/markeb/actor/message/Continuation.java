@@ -0,0 +1,14 @@
+package org.markeb.actor.message;
+
+/**
+ * 在 Actor 内执行的回调
+ * <p>
+ * 由 {@link org.markeb.actor.ActorContext#executor()} 投递到邮箱，Actor 处理到该消息时直接运行回调，
+ * 不交给 {@link org.markeb.actor.ActorBehavior}。异步操作（如持久化查询）的完成回调经此回到 Actor 的串行上下文，
+ * 回调中可以安全地读写 Actor 状态，执行线程也不会被异步操作阻塞。
+ * </p>
+ *
+ * @param task 回调
+ */
+public record Continuation(Runnable task) implements ActorMessage {
+}
@@ -0,0 +1,573 @@
+package org.markeb.actor.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 用于 Actor 的延迟/周期调度，替代基于堆的 ScheduledThreadPoolExecutor：
+ * <ul>
+ *   <li>共 {@value #LEVELS} 层，每层 {@value #WHEEL_SIZE} 个槽，添加、取消、到期均为 O(1)</li>
+ *   <li>调度句柄是 long 类型的自增序号，不再为每个定时器生成 UUID 字符串</li>
+ *   <li>时间轮只由一个 tick 线程读写，其他线程通过无锁收件箱提交新定时器和取消请求</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 定时任务直接在 tick 线程上执行，因此任务必须足够轻量且不能阻塞，
+ * 通常只是把消息以不等待的方式投递到目标 Actor 的邮箱，由 Actor 自己的执行器处理后续逻辑。
+ * </p>
+ */
+public class HierarchicalTimingWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(HierarchicalTimingWheel.class);
+
+    /**
+     * 无效句柄，调度失败（例如已关闭）时返回
+     */
+    public static final long INVALID_HANDLE = 0L;
+
+    /**
+     * 默认 tick 间隔（毫秒）
+     */
+    public static final long DEFAULT_TICK_MS = 10;
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+
+    /**
+     * 时间轮可表示的最大 tick 跨度，超出的定时器先放在最高层，逐层下沉时再按真实到期时间放置
+     */
+    private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Entry[][] buckets = new Entry[LEVELS][WHEEL_SIZE];
+    private final HandleTable handles = new HandleTable();
+    private final AtomicReference<Entry> scheduleInbox = new AtomicReference<>();
+    private final AtomicReference<Entry> cancelInbox = new AtomicReference<>();
+    private final AtomicLong sequence = new AtomicLong(INVALID_HANDLE);
+    private final AtomicInteger pending = new AtomicInteger(0);
+    private final AtomicLong firedCount = new AtomicLong(0);
+    private final Thread ticker;
+    private volatile boolean running = true;
+
+    /**
+     * 当前 tick，仅 tick 线程访问
+     */
+    private long currentTick;
+
+    /**
+     * 创建并启动时间轮
+     *
+     * @param name   tick 线程名称
+     * @param tickMs tick 间隔（毫秒），即定时精度
+     */
+    public HierarchicalTimingWheel(String name, long tickMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive: " + tickMs);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.startNanos = System.nanoTime();
+        this.ticker = Thread.ofPlatform()
+                .name(name)
+                .daemon(true)
+                .unstarted(this::run);
+        this.ticker.start();
+    }
+
+    /**
+     * 调度一次性任务
+     *
+     * @param actorId 所属 Actor（用于日志）
+     * @param task    任务，在 tick 线程上执行
+     * @param delayMs 延迟毫秒数
+     * @return 调度句柄
+     */
+    public long schedule(long actorId, Runnable task, long delayMs) {
+        return add(actorId, task, delayMs, 0);
+    }
+
+    /**
+     * 调度周期性任务（固定频率，落后时跳过错过的周期，不会补发）
+     *
+     * @param actorId        所属 Actor（用于日志）
+     * @param task           任务，在 tick 线程上执行
+     * @param initialDelayMs 初始延迟毫秒数
+     * @param periodMs       周期毫秒数
+     * @return 调度句柄
+     */
+    public long schedulePeriodic(long actorId, Runnable task, long initialDelayMs, long periodMs) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("periodMs must be positive: " + periodMs);
+        }
+        return add(actorId, task, initialDelayMs, periodMs);
+    }
+
+    private long add(long actorId, Runnable task, long delayMs, long periodMs) {
+        if (!running) {
+            return INVALID_HANDLE;
+        }
+
+        long handle = sequence.incrementAndGet();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        long periodTicks = periodMs > 0
+                ? Math.max(1, (TimeUnit.MILLISECONDS.toNanos(periodMs) + tickNanos - 1) / tickNanos)
+                : 0;
+        Entry entry = new Entry(handle, actorId, task, toTick(deadline), periodTicks);
+
+        handles.put(handle, entry);
+        pending.incrementAndGet();
+        push(scheduleInbox, entry, false);
+        return handle;
+    }
+
+    /**
+     * 取消定时任务
+     *
+     * @param handle 调度句柄
+     * @return 如果成功取消返回 true；句柄无效、任务已执行或已取消返回 false
+     */
+    public boolean cancel(long handle) {
+        if (handle == INVALID_HANDLE) {
+            return false;
+        }
+        Entry entry = handles.remove(handle);
+        if (entry == null || !entry.compareAndSetState(Entry.PENDING, Entry.CANCELLED)) {
+            return false;
+        }
+        pending.decrementAndGet();
+        // 通知 tick 线程尽快把它从槽中摘除，避免长延迟的已取消定时器占用内存
+        push(cancelInbox, entry, true);
+        return true;
+    }
+
+    /**
+     * 停止时间轮，未到期的任务不再执行
+     */
+    public void stop() {
+        if (running) {
+            running = false;
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    /**
+     * 等待 tick 线程退出
+     *
+     * @param timeoutMs 超时毫秒数
+     * @return 如果在超时前退出返回 true
+     * @throws InterruptedException 如果等待时被中断
+     */
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        ticker.join(Math.max(1, timeoutMs));
+        return !ticker.isAlive();
+    }
+
+    /**
+     * 获取等待中的定时任务数（周期任务在取消前一直计入）
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * 获取累计触发次数
+     */
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    // ==================== tick 线程 ====================
+
+    private void run() {
+        try {
+            while (running) {
+                long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+
+                drainScheduleInbox();
+                drainCancelInbox();
+                while (currentTick < targetTick && running) {
+                    advance(++currentTick);
+                }
+
+                long sleepNanos = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+                if (sleepNanos > 0) {
+                    LockSupport.parkNanos(this, sleepNanos);
+                }
+            }
+        } finally {
+            handles.clear();
+            for (Entry[] level : buckets) {
+                Arrays.fill(level, null);
+            }
+            scheduleInbox.set(null);
+            cancelInbox.set(null);
+            pending.set(0);
+        }
+    }
+
+    private long toTick(long deadlineNanos) {
+        return (deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+    }
+
+    private void drainScheduleInbox() {
+        Entry entry = scheduleInbox.getAndSet(null);
+        while (entry != null) {
+            Entry next = entry.inboxNext;
+            entry.inboxNext = null;
+            if (entry.getState() == Entry.PENDING) {
+                // 已经过期的定时器放到下一个 tick 触发
+                if (entry.expiryTick <= currentTick) {
+                    entry.expiryTick = currentTick + 1;
+                }
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void drainCancelInbox() {
+        Entry entry = cancelInbox.getAndSet(null);
+        while (entry != null) {
+            Entry next = entry.cancelNext;
+            entry.cancelNext = null;
+            if (entry.level >= 0) {
+                unlink(entry);
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * 推进到指定 tick：先把高层到期的槽逐层下沉，再触发第 0 层对应槽中的定时器
+     */
+    private void advance(long tick) {
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            int shift = WHEEL_BITS * level;
+            if ((tick & ((1L << shift) - 1)) == 0) {
+                cascade(level, (int) ((tick >>> shift) & WHEEL_MASK));
+            }
+        }
+        fire(tick, (int) (tick & WHEEL_MASK));
+    }
+
+    private void cascade(int level, int slot) {
+        Entry entry = buckets[level][slot];
+        buckets[level][slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            detach(entry);
+            if (entry.getState() == Entry.PENDING) {
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void fire(long tick, int slot) {
+        Entry entry = buckets[0][slot];
+        buckets[0][slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            detach(entry);
+
+            if (entry.periodTicks > 0) {
+                if (entry.getState() == Entry.PENDING) {
+                    runTask(entry);
+                    if (entry.getState() == Entry.PENDING) {
+                        entry.expiryTick += entry.periodTicks;
+                        if (entry.expiryTick <= tick) {
+                            entry.expiryTick = tick + entry.periodTicks;
+                        }
+                        place(entry);
+                    }
+                }
+            } else if (entry.compareAndSetState(Entry.PENDING, Entry.FIRED)) {
+                handles.remove(entry.handle);
+                pending.decrementAndGet();
+                runTask(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void runTask(Entry entry) {
+        firedCount.incrementAndGet();
+        try {
+            entry.task.run();
+        } catch (Throwable e) {
+            log.error("Error executing timer task for actor: {}", entry.actorId, e);
+        }
+    }
+
+    /**
+     * 按剩余 tick 数选择层级和槽位，剩余为 0 的放入当前 tick 的槽（下沉时出现）
+     */
+    private void place(Entry entry) {
+        long delta = entry.expiryTick - currentTick;
+        long expiry = entry.expiryTick;
+        if (delta > MAX_DELTA) {
+            delta = MAX_DELTA;
+            expiry = currentTick + MAX_DELTA;
+        }
+
+        int level = delta < WHEEL_SIZE ? 0 : (63 - Long.numberOfLeadingZeros(delta)) / WHEEL_BITS;
+        int slot = (int) ((expiry >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+        Entry head = buckets[level][slot];
+        entry.next = head;
+        entry.prev = null;
+        if (head != null) {
+            head.prev = entry;
+        }
+        buckets[level][slot] = entry;
+        entry.level = level;
+        entry.slot = slot;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        detach(entry);
+    }
+
+    private static void detach(Entry entry) {
+        entry.prev = null;
+        entry.next = null;
+        entry.level = -1;
+    }
+
+    /**
+     * 无锁压栈，tick 线程一次性取走整个链表；定时器之间没有顺序要求，后进先出无妨
+     */
+    private void push(AtomicReference<Entry> inbox, Entry entry, boolean cancel) {
+        Entry head;
+        do {
+            head = inbox.get();
+            if (cancel) {
+                entry.cancelNext = head;
+            } else {
+                entry.inboxNext = head;
+            }
+        } while (!inbox.compareAndSet(head, entry));
+    }
+
+    // ==================== 内部结构 ====================
+
+    /**
+     * 定时器条目
+     */
+    private static final class Entry {
+
+        static final int PENDING = 0;
+        static final int FIRED = 1;
+        static final int CANCELLED = 2;
+
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Entry.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final long handle;
+        final long actorId;
+        final Runnable task;
+        final long periodTicks;
+        long expiryTick;
+
+        @SuppressWarnings("unused")
+        private volatile int state = PENDING;
+
+        // 以下字段仅 tick 线程访问
+        Entry prev;
+        Entry next;
+        int level = -1;
+        int slot;
+
+        // 收件箱链接，由压栈的 CAS 发布
+        Entry inboxNext;
+        Entry cancelNext;
+
+        Entry(long handle, long actorId, Runnable task, long expiryTick, long periodTicks) {
+            this.handle = handle;
+            this.actorId = actorId;
+            this.task = task;
+            this.expiryTick = expiryTick;
+            this.periodTicks = periodTicks;
+        }
+
+        int getState() {
+            return state;
+        }
+
+        boolean compareAndSetState(int expect, int update) {
+            return STATE.compareAndSet(this, expect, update);
+        }
+    }
+
+    /**
+     * 句柄到定时器条目的映射
+     * <p>
+     * 分段加锁的开放寻址表，键为原始 long，不装箱；各段独立加锁，并发调度/取消之间几乎没有竞争。
+     * </p>
+     */
+    private static final class HandleTable {
+
+        private static final int SEGMENT_BITS = 6;
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+        HandleTable() {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment();
+            }
+        }
+
+        private static long mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 32);
+        }
+
+        private Segment segmentFor(long hash) {
+            return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        }
+
+        void put(long key, Entry value) {
+            long hash = mix(key);
+            Segment segment = segmentFor(hash);
+            segment.lock();
+            try {
+                segment.put(key, (int) hash, value);
+            } finally {
+                segment.unlock();
+            }
+        }
+
+        Entry remove(long key) {
+            long hash = mix(key);
+            Segment segment = segmentFor(hash);
+            segment.lock();
+            try {
+                return segment.remove(key, (int) hash);
+            } finally {
+                segment.unlock();
+            }
+        }
+
+        void clear() {
+            for (Segment segment : segments) {
+                segment.lock();
+                try {
+                    segment.reset();
+                } finally {
+                    segment.unlock();
+                }
+            }
+        }
+
+        private static final class Segment extends ReentrantLock {
+
+            private long[] keys = new long[INITIAL_CAPACITY];
+            private Entry[] values = new Entry[INITIAL_CAPACITY];
+            private int size;
+
+            void put(long key, int hash, Entry value) {
+                if ((size + 1) * 2 > keys.length) {
+                    resize(keys.length << 1);
+                }
+                int mask = keys.length - 1;
+                int i = hash & mask;
+                while (keys[i] != INVALID_HANDLE && keys[i] != key) {
+                    i = (i + 1) & mask;
+                }
+                if (keys[i] == INVALID_HANDLE) {
+                    size++;
+                }
+                keys[i] = key;
+                values[i] = value;
+            }
+
+            Entry remove(long key, int hash) {
+                int mask = keys.length - 1;
+                int i = hash & mask;
+                while (keys[i] != key) {
+                    if (keys[i] == INVALID_HANDLE) {
+                        return null;
+                    }
+                    i = (i + 1) & mask;
+                }
+                Entry removed = values[i];
+                size--;
+
+                // 向后移位删除，保持线性探测链连续
+                int hole = i;
+                int j = (i + 1) & mask;
+                while (keys[j] != INVALID_HANDLE) {
+                    int ideal = (int) mix(keys[j]) & mask;
+                    if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                        keys[hole] = keys[j];
+                        values[hole] = values[j];
+                        hole = j;
+                    }
+                    j = (j + 1) & mask;
+                }
+                keys[hole] = INVALID_HANDLE;
+                values[hole] = null;
+
+                if (keys.length > INITIAL_CAPACITY && size * 8 < keys.length) {
+                    resize(keys.length >> 1);
+                }
+                return removed;
+            }
+
+            void reset() {
+                keys = new long[INITIAL_CAPACITY];
+                values = new Entry[INITIAL_CAPACITY];
+                size = 0;
+            }
+
+            private void resize(int capacity) {
+                long[] oldKeys = keys;
+                Entry[] oldValues = values;
+                keys = new long[capacity];
+                values = new Entry[capacity];
+                int mask = capacity - 1;
+                for (int k = 0; k < oldKeys.length; k++) {
+                    if (oldKeys[k] != INVALID_HANDLE) {
+                        int i = (int) mix(oldKeys[k]) & mask;
+                        while (keys[i] != INVALID_HANDLE) {
+                            i = (i + 1) & mask;
+                        }
+                        keys[i] = oldKeys[k];
+                        values[i] = oldValues[k];
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.markeb.actor.benchmark;
+
+import org.markeb.actor.ActorConfig;
+import org.markeb.actor.ActorRef;
+import org.markeb.actor.ExecutorType;
+import org.markeb.actor.MailboxType;
+import org.markeb.actor.config.ActorProperties;
+import org.markeb.actor.impl.DefaultActorSystem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actor 端到端吞吐对比（邮箱类型 x 单次调度处理条数）
+ * <p>
+ * 4 个发送线程随机向一组 Actor 投递消息，每批最后一条使用 ask，等待其完成即说明整批已处理。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ActorThroughputBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"BLOCKING", "MPSC"})
+    public MailboxType mailboxType;
+
+    @Param({"1", "64"})
+    public int throughput;
+
+    @Param({"PLATFORM", "VIRTUAL", "WORK_STEALING"})
+    public ExecutorType executorType;
+
+    @Param({"1000"})
+    public int actors;
+
+    private DefaultActorSystem system;
+    private ActorRef[] refs;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ActorProperties properties = new ActorProperties();
+        properties.setExecutorType(executorType);
+        system = new DefaultActorSystem("bench", properties);
+
+        ActorConfig config = ActorConfig.builder()
+                .mailboxType(mailboxType)
+                .throughput(throughput)
+                .build();
+        refs = new ActorRef[actors];
+        for (int i = 0; i < actors; i++) {
+            refs[i] = system.spawn(i, new long[1], (ctx, state, msg) -> {
+                state[0]++;
+                return state;
+            }, config);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        system.shutdown();
+        system.awaitTermination(5000);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Object tellBatch() {
+        ActorRef ref = refs[ThreadLocalRandom.current().nextInt(actors)];
+        for (int i = 0; i < BATCH - 1; i++) {
+            ref.tell(i);
+        }
+        return ref.ask(BATCH).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ActorThroughputBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.markeb.actor.benchmark;
+
+import org.markeb.actor.ActorConfig;
+import org.markeb.actor.ActorRef;
+import org.markeb.actor.ExecutorType;
+import org.markeb.actor.MailboxType;
+import org.markeb.actor.config.ActorProperties;
+import org.markeb.actor.impl.DefaultActorSystem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行器规模对比：虚拟线程 vs 平台线程
+ * <p>
+ * 每次调用向全部 Actor 各投递 {@link #messagesPerActor} 条消息，等待所有消息处理完毕，
+ * 观察 1 万 / 10 万 / 100 万 Actor 下一轮广播的耗时。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ExecutorScaleBenchmark {
+
+    @Param({"VIRTUAL", "PLATFORM", "WORK_STEALING"})
+    public ExecutorType executorType;
+
+    @Param({"10000", "100000", "1000000"})
+    public int actors;
+
+    @Param({"4"})
+    public int messagesPerActor;
+
+    private DefaultActorSystem system;
+    private ActorRef[] refs;
+    private volatile CountDownLatch latch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ActorProperties properties = new ActorProperties();
+        properties.setExecutorType(executorType);
+        system = new DefaultActorSystem("bench", properties);
+
+        ActorConfig config = ActorConfig.builder()
+                .mailboxType(MailboxType.MPSC)
+                .throughput(messagesPerActor)
+                .build();
+        refs = new ActorRef[actors];
+        for (int i = 0; i < actors; i++) {
+            refs[i] = system.spawn(i, Boolean.TRUE, (ctx, state, msg) -> {
+                latch.countDown();
+                return state;
+            }, config);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void resetLatch() {
+        latch = new CountDownLatch(actors * messagesPerActor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        system.shutdown();
+        system.awaitTermination(10000);
+    }
+
+    @Benchmark
+    public void broadcastRound() throws InterruptedException {
+        for (int m = 0; m < messagesPerActor; m++) {
+            for (ActorRef ref : refs) {
+                ref.tell(m);
+            }
+        }
+        latch.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExecutorScaleBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.markeb.actor.benchmark;
+
+import org.markeb.actor.mailbox.BoundedMailbox;
+import org.markeb.actor.mailbox.DefaultMailbox;
+import org.markeb.actor.mailbox.Envelope;
+import org.markeb.actor.mailbox.Mailbox;
+import org.markeb.actor.mailbox.MpscMailbox;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 邮箱入队/出队性能对比
+ * <p>
+ * 3 个生产者线程并发投递，1 个消费者线程出队，模拟多个发送方向同一个 Actor 发消息。
+ * 生产者在积压超过阈值时主动放弃本次投递，避免邮箱被写满后只测到丢弃路径，
+ * 该计数对所有邮箱类型的开销相同。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class MailboxBenchmark {
+
+    private static final int CAPACITY = 1 << 16;
+    private static final int MAX_BACKLOG = CAPACITY / 2;
+
+    @Param({"LINKED", "ARRAY", "MPSC"})
+    public String type;
+
+    private Mailbox mailbox;
+    private Envelope envelope;
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        mailbox = switch (type) {
+            case "LINKED" -> new DefaultMailbox(CAPACITY);
+            case "ARRAY" -> new BoundedMailbox(CAPACITY, 0);
+            case "MPSC" -> new MpscMailbox(CAPACITY);
+            default -> throw new IllegalArgumentException(type);
+        };
+        envelope = new Envelope("tick", null);
+        backlog.set(0);
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(3)
+    public boolean enqueue() {
+        if (backlog.get() >= MAX_BACKLOG) {
+            Thread.onSpinWait();
+            return false;
+        }
+        backlog.incrementAndGet();
+        return mailbox.enqueue(envelope);
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(1)
+    public void dequeue(Blackhole bh) {
+        Envelope e = mailbox.tryDequeue();
+        if (e != null) {
+            backlog.decrementAndGet();
+        }
+        bh.consume(e);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MailboxBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,149 @@
+package org.markeb.actor.benchmark;
+
+import org.markeb.actor.timer.HierarchicalTimingWheel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * 定时器调度/取消性能对比：分层时间轮 vs 原先的 ScheduledThreadPoolExecutor + UUID 映射
+ * <p>
+ * 每个线程维护一个句柄环，每次操作取消环中最老的定时器并调度一个新的，
+ * 稳态下保持约 {@code threads * liveTimersPerThread} 个在途定时器（默认 4 x 256k ≈ 100 万），
+ * 延迟分布在 1~60 秒之间，模拟 buff、冷却、AI 计时器。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(4)
+public class TimerBenchmark {
+
+    private static final Runnable NOOP = () -> {
+    };
+
+    @State(Scope.Benchmark)
+    public static class WheelState {
+
+        HierarchicalTimingWheel wheel;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            wheel = new HierarchicalTimingWheel("bench-timer", HierarchicalTimingWheel.DEFAULT_TICK_MS);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            wheel.stop();
+            wheel.awaitTermination(5000);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LegacyState {
+
+        ScheduledExecutorService scheduler;
+        Map<String, ScheduledFuture<?>> scheduledTasks;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            scheduler = Executors.newScheduledThreadPool(2);
+            scheduledTasks = new ConcurrentHashMap<>();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            scheduler.shutdownNow();
+        }
+
+        String schedule(long delayMs) {
+            String id = UUID.randomUUID().toString();
+            scheduledTasks.put(id, scheduler.schedule(NOOP, delayMs, TimeUnit.MILLISECONDS));
+            return id;
+        }
+
+        void cancel(String id) {
+            ScheduledFuture<?> future = scheduledTasks.remove(id);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WheelHandles {
+
+        @Param({"262144"})
+        public int liveTimersPerThread;
+
+        long[] handles;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup(WheelState state) {
+            handles = new long[liveTimersPerThread];
+            for (int i = 0; i < handles.length; i++) {
+                handles[i] = state.wheel.schedule(i, NOOP, randomDelay());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LegacyHandles {
+
+        @Param({"262144"})
+        public int liveTimersPerThread;
+
+        String[] handles;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup(LegacyState state) {
+            handles = new String[liveTimersPerThread];
+            for (int i = 0; i < handles.length; i++) {
+                handles[i] = state.schedule(randomDelay());
+            }
+        }
+    }
+
+    private static long randomDelay() {
+        return ThreadLocalRandom.current().nextLong(1_000, 60_000);
+    }
+
+    @Benchmark
+    public long timingWheel(WheelState state, WheelHandles ring) {
+        int i = ring.cursor;
+        ring.cursor = (i + 1) % ring.handles.length;
+        state.wheel.cancel(ring.handles[i]);
+        long handle = state.wheel.schedule(i, NOOP, randomDelay());
+        ring.handles[i] = handle;
+        return handle;
+    }
+
+    @Benchmark
+    public String scheduledExecutor(LegacyState state, LegacyHandles ring) {
+        int i = ring.cursor;
+        ring.cursor = (i + 1) % ring.handles.length;
+        state.cancel(ring.handles[i]);
+        String handle = state.schedule(randomDelay());
+        ring.handles[i] = handle;
+        return handle;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TimerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.markeb.actor.mailbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 有界邮箱测试
+ */
+class BoundedMailboxTest {
+
+    @Test
+    void tryEnqueueDoesNotWaitWhenFull() {
+        BoundedMailbox mailbox = new BoundedMailbox(1, 1000);
+        assertTrue(mailbox.tryEnqueue(new Envelope("first", null)));
+
+        long start = System.nanoTime();
+        assertFalse(mailbox.tryEnqueue(new Envelope("second", null)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500,
+                "tryEnqueue must not wait for the offer timeout");
+        assertEquals(1, mailbox.size());
+    }
+
+    @Test
+    void enqueueWaitsForOfferTimeout() {
+        BoundedMailbox mailbox = new BoundedMailbox(1, 100);
+        assertTrue(mailbox.enqueue(new Envelope("first", null)));
+
+        long start = System.nanoTime();
+        assertFalse(mailbox.enqueue(new Envelope("second", null)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90);
+    }
+
+    @Test
+    void closedMailboxRejects() {
+        BoundedMailbox mailbox = new BoundedMailbox(4, 0);
+        mailbox.close();
+
+        assertFalse(mailbox.enqueue(new Envelope("message", null)));
+        assertFalse(mailbox.tryEnqueue(new Envelope("message", null)));
+        assertTrue(mailbox.isEmpty());
+    }
+}
@@ -0,0 +1,158 @@
+package org.markeb.actor.timer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮测试
+ * <p>
+ * tick 为 1ms：第 0 层覆盖 64ms，第 1 层覆盖约 4s，超过的定时器需要从第 2 层逐层下沉。
+ * </p>
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 1;
+
+    private HierarchicalTimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HierarchicalTimingWheel("test-timer", TICK_MS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        wheel.stop();
+        assertTrue(wheel.awaitTermination(1000));
+    }
+
+    @Test
+    void firesAfterDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        long handle = wheel.schedule(1, fired::countDown, 30);
+
+        assertNotEquals(HierarchicalTimingWheel.INVALID_HANDLE, handle);
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 30 - TICK_MS);
+        assertEquals(0, wheel.getPendingCount());
+        assertEquals(1, wheel.getFiredCount());
+    }
+
+    @Test
+    void firesInDeadlineOrderAcrossLevels() throws InterruptedException {
+        List<Long> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(4);
+        // 300ms、150ms 在第 1 层，40ms、10ms 在第 0 层
+        for (long delay : new long[]{300, 40, 150, 10}) {
+            wheel.schedule(delay, () -> {
+                order.add(delay);
+                fired.countDown();
+            }, delay);
+        }
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(10L, 40L, 150L, 300L), order);
+    }
+
+    @Test
+    void cascadesFromSecondLevel() throws InterruptedException {
+        // 超过 64 * 64 个 tick，先放在第 2 层，经第 1 层下沉到第 0 层才触发
+        long delay = 4200;
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(1, fired::countDown, delay);
+
+        assertFalse(fired.await(delay - 200, TimeUnit.MILLISECONDS));
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= delay - TICK_MS);
+    }
+
+    @Test
+    void cancelBeforeFire() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        long handle = wheel.schedule(1, fired::incrementAndGet, 50);
+        long cascaded = wheel.schedule(1, fired::incrementAndGet, 200);
+
+        assertTrue(wheel.cancel(handle));
+        assertTrue(wheel.cancel(cascaded));
+        assertFalse(wheel.cancel(handle), "second cancel must fail");
+        assertEquals(0, wheel.getPendingCount());
+
+        Thread.sleep(300);
+        assertEquals(0, fired.get());
+        assertEquals(0, wheel.getFiredCount());
+    }
+
+    @Test
+    void cancelAfterFireFails() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long handle = wheel.schedule(1, fired::countDown, 5);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        assertFalse(wheel.cancel(handle));
+        assertFalse(wheel.cancel(HierarchicalTimingWheel.INVALID_HANDLE));
+    }
+
+    @Test
+    void periodicWrapsAroundWheelUntilCancelled() throws InterruptedException {
+        // 周期 20ms 运行约 300ms，第 0 层 64 个槽会绕回多次
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch enough = new CountDownLatch(10);
+        long handle = wheel.schedulePeriodic(1, () -> {
+            fired.incrementAndGet();
+            enough.countDown();
+        }, 20, 20);
+
+        assertTrue(enough.await(2, TimeUnit.SECONDS));
+        assertEquals(1, wheel.getPendingCount(), "periodic timer stays pending until cancelled");
+        assertTrue(wheel.cancel(handle));
+        assertEquals(0, wheel.getPendingCount());
+
+        // 取消时可能正好在触发，留一个 tick 的余量
+        Thread.sleep(10);
+        int afterCancel = fired.get();
+        Thread.sleep(100);
+        assertEquals(afterCancel, fired.get());
+    }
+
+    @Test
+    void failingTaskDoesNotStopWheel() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.schedule(1, () -> {
+            throw new IllegalStateException("boom");
+        }, 5);
+        wheel.schedule(2, fired::countDown, 20);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsAfterStop() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(1, fired::incrementAndGet, 100);
+        wheel.stop();
+        assertTrue(wheel.awaitTermination(1000));
+
+        assertEquals(HierarchicalTimingWheel.INVALID_HANDLE, wheel.schedule(1, fired::incrementAndGet, 1));
+        assertEquals(0, wheel.getPendingCount());
+        Thread.sleep(150);
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    void rejectsNonPositivePeriod() {
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedulePeriodic(1, () -> {
+        }, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel("bad", 0));
+    }
+}
@@ -3,6 +3,8 @@ package org.markeb.net;
 import org.markeb.net.config.NetworkProperties;
 import org.markeb.net.handler.ChannelInitializerProvider;
 import org.markeb.net.handler.DefaultChannelInitializer;
+import org.markeb.net.handler.FlushCoalescingConfig;
+import org.markeb.net.handler.FlushCoalescingStats;
 import org.markeb.net.msg.IGameParser;
 import org.markeb.net.msg.IMessagePool;
 import org.markeb.net.msg.ProtoBuffGameMessagePool;
@@ -40,13 +42,23 @@ public class NetworkAutoConfiguration {
         return new MessageHandlerRegistrar(applicationContext);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public FlushCoalescingStats flushCoalescingStats() {
+        return new FlushCoalescingStats();
+    }
+
     @Bean
     @ConditionalOnBean(BusinessHandlerProvider.class)
     @ConditionalOnMissingBean(ChannelInitializerProvider.class)
     public ChannelInitializerProvider channelInitializerProvider(
         IMessagePool<?> iMessagePool,
-        BusinessHandlerProvider handlerProvider) {
-        return new DefaultChannelInitializer(iMessagePool, handlerProvider);
+        BusinessHandlerProvider handlerProvider,
+        NetworkProperties networkProperties,
+        FlushCoalescingStats flushStats) {
+        FlushCoalescingConfig flushConfig = networkProperties.getFlush();
+        return new DefaultChannelInitializer(iMessagePool, handlerProvider,
+            flushConfig.isEnabled() ? () -> flushConfig.newHandler(flushStats) : null);
     }
 
     @ConditionalOnMissingBean(INetworkServer.class)
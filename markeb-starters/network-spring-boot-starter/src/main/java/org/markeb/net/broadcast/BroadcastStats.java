@@ -0,0 +1,69 @@
+package org.markeb.net.broadcast;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 广播扇出统计
+ * <p>
+ * 扇出耗时从开始分片计起，到最后一个 EventLoop 写完自己的分片为止，
+ * 按接收者数量归一化为每 1000 个接收者的耗时，便于不同规模的广播相互比较。
+ * </p>
+ */
+public class BroadcastStats {
+
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder recipients = new LongAdder();
+    private final LongAdder fanoutNanos = new LongAdder();
+
+    private volatile double lastNanosPerThousand;
+
+    /**
+     * 记录一次广播
+     *
+     * @param recipientCount 接收者数量
+     * @param nanos          扇出耗时（纳秒）
+     */
+    void record(int recipientCount, long nanos) {
+        broadcasts.increment();
+        recipients.add(recipientCount);
+        fanoutNanos.add(nanos);
+        lastNanosPerThousand = nanos * 1000.0 / recipientCount;
+    }
+
+    /**
+     * 获取累计广播次数
+     */
+    public long getBroadcastCount() {
+        return broadcasts.sum();
+    }
+
+    /**
+     * 获取累计接收者数量
+     */
+    public long getRecipientCount() {
+        return recipients.sum();
+    }
+
+    /**
+     * 获取平均每次广播的接收者数量
+     */
+    public double getRecipientsPerBroadcast() {
+        long count = broadcasts.sum();
+        return count > 0 ? (double) recipients.sum() / count : 0;
+    }
+
+    /**
+     * 获取平均每 1000 个接收者的扇出耗时（纳秒）
+     */
+    public double getNanosPerThousandRecipients() {
+        long count = recipients.sum();
+        return count > 0 ? fanoutNanos.sum() * 1000.0 / count : 0;
+    }
+
+    /**
+     * 获取最近一次广播每 1000 个接收者的扇出耗时（纳秒）
+     */
+    public double getLastNanosPerThousandRecipients() {
+        return lastNanosPerThousand;
+    }
+}
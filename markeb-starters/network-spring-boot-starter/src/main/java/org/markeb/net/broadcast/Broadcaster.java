@@ -0,0 +1,136 @@
+package org.markeb.net.broadcast;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 一次编码、多路扇出的广播器
+ * <p>
+ * 调用方先把消息编码成完整的帧（池化 ByteBuf），这里按接收者所在的 EventLoop 分片：
+ * 每个 EventLoop 只提交一个任务，在任务中向自己负责的 Channel 依次写出 {@code retainedDuplicate()}，
+ * 所有接收者共享同一块内存，不再为每个接收者重新序列化，也不会为每个接收者各投递一次跨线程任务。
+ * </p>
+ * <p>
+ * 写出的是原始帧，编码器会直接放行 ByteBuf；flush 由 pipeline 中的写合并处理器合并。
+ * 接收者集合由调用方决定（全服、区服、公会、AOI 列表等），这里只做分片与扇出。
+ * </p>
+ */
+public class Broadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(Broadcaster.class);
+
+    private final BroadcastStats stats;
+
+    public Broadcaster(BroadcastStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * 向一组 Channel 广播已编码的帧
+     *
+     * @param frame    完整的帧，接管其引用计数
+     * @param channels 接收者，非活跃的 Channel 会被跳过
+     * @return 实际投递的接收者数量
+     */
+    public int broadcast(ByteBuf frame, Iterable<? extends Channel> channels) {
+        return broadcast(frame, channels, Function.identity());
+    }
+
+    /**
+     * 向一组接收者广播已编码的帧
+     *
+     * @param frame      完整的帧，接管其引用计数
+     * @param recipients 接收者（会话、玩家 ID 等）
+     * @param channelOf  取接收者的 Channel，返回 null 表示跳过
+     * @return 实际投递的接收者数量
+     */
+    public <T> int broadcast(ByteBuf frame, Iterable<T> recipients, Function<? super T, ? extends Channel> channelOf) {
+        long start = System.nanoTime();
+        try {
+            Map<EventLoop, List<Channel>> shards = new IdentityHashMap<>();
+            int count = 0;
+            for (T recipient : recipients) {
+                Channel channel = channelOf.apply(recipient);
+                if (channel != null && channel.isActive()) {
+                    shards.computeIfAbsent(channel.eventLoop(), loop -> new ArrayList<>()).add(channel);
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return 0;
+            }
+
+            Fanout fanout = new Fanout(start, count, shards.size());
+            for (Map.Entry<EventLoop, List<Channel>> entry : shards.entrySet()) {
+                EventLoop loop = entry.getKey();
+                List<Channel> channels = entry.getValue();
+                ByteBuf shard = frame.retainedDuplicate();
+                if (loop.inEventLoop()) {
+                    fanout.write(shard, channels);
+                    continue;
+                }
+                try {
+                    loop.execute(() -> fanout.write(shard, channels));
+                } catch (RejectedExecutionException e) {
+                    // EventLoop 正在关闭，这一片的 Channel 也即将关闭
+                    shard.release();
+                    fanout.shardDone();
+                    log.debug("Broadcast shard rejected by {}", loop, e);
+                }
+            }
+            return count;
+        } finally {
+            frame.release();
+        }
+    }
+
+    public BroadcastStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 一次广播的扇出进度，最后一个分片写完时记录耗时
+     */
+    private final class Fanout {
+
+        private final long startNanos;
+        private final int recipients;
+        private final AtomicInteger remainingShards;
+
+        Fanout(long startNanos, int recipients, int shards) {
+            this.startNanos = startNanos;
+            this.recipients = recipients;
+            this.remainingShards = new AtomicInteger(shards);
+        }
+
+        void write(ByteBuf shard, List<Channel> channels) {
+            try {
+                for (Channel channel : channels) {
+                    if (channel.isActive()) {
+                        channel.writeAndFlush(shard.retainedDuplicate(), channel.voidPromise());
+                    }
+                }
+            } finally {
+                shard.release();
+                shardDone();
+            }
+        }
+
+        void shardDone() {
+            if (remainingShards.decrementAndGet() == 0) {
+                stats.record(recipients, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
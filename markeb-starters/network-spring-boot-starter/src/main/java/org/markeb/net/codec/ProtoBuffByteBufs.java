@@ -0,0 +1,68 @@
+package org.markeb.net.codec;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Protobuf 与 {@link ByteBuf} 之间的直接读写，不经过中间 byte[]
+ * <p>
+ * 解析：堆内存直接包装底层数组，直接内存包装 NIO 视图，交给 {@link CodedInputStream} 解析；
+ * 只有多段组合的缓冲区才退化为拷贝。解析不开启 aliasing，消息中的 bytes 字段不会引用池化内存，
+ * 解析完成后即可释放缓冲区。
+ * </p>
+ * <p>
+ * 写入：调用方先按 {@code getSerializedSize()} 预留空间，再由 {@link CodedOutputStream} 直接写入缓冲区。
+ * </p>
+ */
+public final class ProtoBuffByteBufs {
+
+    private ProtoBuffByteBufs() {
+    }
+
+    /**
+     * 解析缓冲区中全部可读字节，成功后读指针移到末尾
+     */
+    public static <T extends MessageLite> T parse(Parser<T> parser, ByteBuf buf) throws InvalidProtocolBufferException {
+        int length = buf.readableBytes();
+        CodedInputStream input;
+        if (buf.hasArray()) {
+            input = CodedInputStream.newInstance(buf.array(), buf.arrayOffset() + buf.readerIndex(), length);
+        } else if (buf.nioBufferCount() == 1) {
+            input = CodedInputStream.newInstance(buf.nioBuffer(buf.readerIndex(), length));
+        } else {
+            input = CodedInputStream.newInstance(ByteBufUtil.getBytes(buf, buf.readerIndex(), length, false));
+        }
+        T message = parser.parseFrom(input);
+        input.checkLastTagWas(0);
+        buf.skipBytes(length);
+        return message;
+    }
+
+    /**
+     * 把消息写入缓冲区的写指针处，写指针后移 {@code size} 字节
+     *
+     * @param size 消息的 {@code getSerializedSize()}，调用方已计算好时传入以免重复计算
+     */
+    public static void write(MessageLite message, int size, ByteBuf out) throws IOException {
+        out.ensureWritable(size);
+        int index = out.writerIndex();
+        if (out.nioBufferCount() == 1) {
+            ByteBuffer target = out.internalNioBuffer(index, size);
+            CodedOutputStream output = CodedOutputStream.newInstance(target);
+            message.writeTo(output);
+            output.flush();
+            output.checkNoSpaceLeft();
+        } else {
+            out.setBytes(index, message.toByteArray());
+        }
+        out.writerIndex(index + size);
+    }
+}
@@ -0,0 +1,57 @@
+package org.markeb.net.codec;
+
+import org.markeb.net.msg.DispatchedMessage;
+import org.markeb.net.msg.ProtoBuffDispatchTable;
+import org.markeb.net.msg.ProtoBuffGameMessagePool;
+import com.google.protobuf.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+/**
+ * 服务端分发解码器，帧格式与 {@link ProtoBuffGameDecoder} 相同
+ * <p>
+ * 按 msgId 在冻结的分发表中一次查出 Parser 与处理器，输出 {@link DispatchedMessage}，
+ * 下游无需再按消息类型查找处理器。
+ * </p>
+ * <p>
+ * 消息体直接从帧内存解析，不拷贝为 byte[]。
+ * 分发表在所有处理器注册完成后才冻结，此前建立的连接按旧方式解析并查找处理器。
+ * </p>
+ */
+public class ProtoBuffDispatchDecoder extends LengthFieldBasedFrameDecoder {
+
+    private final ProtoBuffGameMessagePool messagePool;
+
+    public ProtoBuffDispatchDecoder(ProtoBuffGameMessagePool messagePool) {
+        super(1024 * 1024, 0,
+                4, -4, 4);
+        this.messagePool = messagePool;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+        if (frame == null) {
+            return null;
+        }
+        try {
+            int msgId = frame.readInt();
+
+            ProtoBuffDispatchTable table = messagePool.getDispatchTable();
+            if (table == null) {
+                Message message = messagePool.messageParser().parseFrom(msgId, frame);
+                return new DispatchedMessage<>(msgId, message, messagePool.getHandler(message));
+            }
+            ProtoBuffDispatchTable.Entry entry = table.get(msgId);
+            if (entry == null) {
+                throw new IllegalArgumentException("Unknown message id: " + msgId);
+            }
+            Message message = ProtoBuffByteBufs.parse(entry.getParser(), frame);
+            return new DispatchedMessage<>(msgId, message, entry.getHandler());
+        } finally {
+            frame.release();
+        }
+    }
+
+}
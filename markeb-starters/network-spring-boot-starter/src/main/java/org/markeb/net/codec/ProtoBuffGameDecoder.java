@@ -29,9 +29,8 @@ public class ProtoBuffGameDecoder extends LengthFieldBasedFrameDecoder {
         }
         try {
             int msgId = frame.readInt();
-            byte[] bodyBytes = new byte[frame.readableBytes()];
-            frame.readBytes(bodyBytes);
-            return parser.parseFrom(msgId, bodyBytes);
+            // 直接解析帧内存，不拷贝消息体
+            return parser.parseFrom(msgId, frame);
         } finally {
             frame.release();
         }
@@ -3,16 +3,25 @@ package org.markeb.net.codec;
 import org.markeb.net.msg.IGameParser;
 import com.google.protobuf.Message;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
 
+import java.io.IOException;
+
 /**
  * 编码
  * 消息结构 +----------+ | 总长度 | +----------+ | 消息ID | +----------+ | 主体数据 |
  * +----------+ 总长度 = 4(长度标示) + 4(消息ID) + 主体数据
+ * <p>
+ * 按 {@code getSerializedSize()} 一次分配恰好大小的缓冲区，消息直接序列化进池化内存，不经过中间 byte[]。
+ * </p>
  */
 public class ProtoBuffGameEncoder extends MessageToByteEncoder<Message> {
 
+    private static final int HEADER_LENGTH = 8;
+
     private final IGameParser<Message> parser;
 
     public ProtoBuffGameEncoder(IGameParser<Message> parser) {
@@ -20,13 +29,43 @@ public class ProtoBuffGameEncoder extends MessageToByteEncoder<Message> {
     }
 
     @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Message msg, boolean preferDirect) {
+        // getSerializedSize 结果由消息缓存，encode 中再次调用不会重复计算
+        int capacity = HEADER_LENGTH + msg.getSerializedSize();
+        return preferDirect ? ctx.alloc().ioBuffer(capacity) : ctx.alloc().heapBuffer(capacity);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Message msg, ByteBuf out) throws Exception {
+        writeFrame(parser, msg, out);
+    }
+
+    /**
+     * 在 pipeline 之外把消息编码为完整的帧，用于广播等一次编码、多次写出的场景
+     *
+     * @return 池化的 direct 缓冲区，由调用方负责释放
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, IGameParser<Message> parser, Message msg) {
+        ByteBuf out = alloc.ioBuffer(HEADER_LENGTH + msg.getSerializedSize());
+        try {
+            writeFrame(parser, msg, out);
+            return out;
+        } catch (IOException e) {
+            out.release();
+            throw new EncoderException(e);
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
     @SuppressWarnings("unchecked")
-    protected void encode(ChannelHandlerContext ctx, Message msg, ByteBuf out) {
+    private static void writeFrame(IGameParser<Message> parser, Message msg, ByteBuf out) throws IOException {
         Class<? extends Message> aClass = msg.getClass();
         int msgId = parser.messageId((Class<Message>) aClass);
-        byte[] bytes = msg.toByteArray();
-        out.writeInt(8 + bytes.length);
+        int size = msg.getSerializedSize();
+        out.writeInt(HEADER_LENGTH + size);
         out.writeInt(msgId);
-        out.writeBytes(bytes);
+        ProtoBuffByteBufs.write(msg, size, out);
     }
-}
\ No newline at end of file
+}
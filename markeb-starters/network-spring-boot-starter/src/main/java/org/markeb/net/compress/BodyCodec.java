@@ -0,0 +1,33 @@
+package org.markeb.net.compress;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 块压缩算法的最小抽象，只在 {@link MessageCompression} 内部使用
+ * <p>
+ * 各实现只在对应算法被配置时才加载，未引入的压缩库不会触发类加载失败。
+ * 读写都从 ByteBuffer 当前 position 开始，不修改其 position。
+ * </p>
+ */
+interface BodyCodec {
+
+    /**
+     * 是否只能处理直接内存
+     */
+    boolean requiresDirect();
+
+    /**
+     * 长度为 length 的数据压缩后的最大长度
+     */
+    int maxCompressedLength(int length);
+
+    /**
+     * @return 压缩后的长度
+     */
+    int compress(ByteBuffer src, ByteBuffer dst);
+
+    /**
+     * 解压到 dst，解压后的长度必须恰好为 originalLength
+     */
+    void decompress(ByteBuffer src, ByteBuffer dst, int originalLength);
+}
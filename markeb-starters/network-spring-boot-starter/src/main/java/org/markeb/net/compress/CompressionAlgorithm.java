@@ -0,0 +1,22 @@
+package org.markeb.net.compress;
+
+/**
+ * 消息体压缩算法
+ */
+public enum CompressionAlgorithm {
+
+    /**
+     * 不压缩
+     */
+    NONE,
+
+    /**
+     * LZ4 块压缩：压缩率一般，压缩与解压都极快，适合高频的中等大小消息
+     */
+    LZ4,
+
+    /**
+     * zstd：压缩率高，配合训练好的字典对小而重复的 protobuf 效果明显，适合背包、邮件、排行榜等大消息
+     */
+    ZSTD
+}
@@ -0,0 +1,53 @@
+package org.markeb.net.compress;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按消息类型压缩的配置
+ */
+@Data
+public class CompressionConfig {
+
+    /**
+     * 是否启用消息体压缩
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认压缩算法
+     */
+    private CompressionAlgorithm algorithm = CompressionAlgorithm.LZ4;
+
+    /**
+     * 消息体达到该长度（字节）才尝试压缩，小包压缩收益抵不过 CPU 开销
+     */
+    private int threshold = 512;
+
+    /**
+     * zstd 压缩级别
+     */
+    private int zstdLevel = 3;
+
+    /**
+     * 训练好的 zstd 字典文件路径，为空时不使用字典；客户端必须使用同一份字典
+     */
+    private String zstdDictionary;
+
+    /**
+     * 按 msgId 指定压缩算法，覆盖默认算法，NONE 表示该消息不压缩
+     */
+    private Map<Integer, CompressionAlgorithm> messages = new HashMap<>();
+
+    /**
+     * 按配置创建压缩器，未启用时返回 null
+     */
+    public MessageCompression newCompression() {
+        if (!enabled) {
+            return null;
+        }
+        return new MessageCompression(this, new CompressionStats());
+    }
+}
@@ -0,0 +1,143 @@
+package org.markeb.net.compress;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 msgId 统计的压缩效果与 CPU 开销
+ * <p>
+ * 各事件循环并发累加，使用 LongAdder 避免争用。压缩率 = 压缩后字节数 / 原始字节数，
+ * 只统计实际压缩写出的消息；压缩后没有变小而按原样写出的消息单独计数，其耗时计入压缩耗时。
+ * </p>
+ */
+public class CompressionStats {
+
+    private final Map<Integer, MessageStats> messages = new ConcurrentHashMap<>();
+
+    private MessageStats of(int msgId) {
+        MessageStats stats = messages.get(msgId);
+        return stats != null ? stats : messages.computeIfAbsent(msgId, id -> new MessageStats());
+    }
+
+    void recordCompress(int msgId, int rawBytes, int compressedBytes, long nanos) {
+        MessageStats stats = of(msgId);
+        stats.compressed.increment();
+        stats.rawBytes.add(rawBytes);
+        stats.compressedBytes.add(compressedBytes);
+        stats.compressNanos.add(nanos);
+    }
+
+    void recordNoGain(int msgId, long nanos) {
+        MessageStats stats = of(msgId);
+        stats.skipped.increment();
+        stats.compressNanos.add(nanos);
+    }
+
+    void recordDecompress(int msgId, long nanos) {
+        MessageStats stats = of(msgId);
+        stats.decompressed.increment();
+        stats.decompressNanos.add(nanos);
+    }
+
+    /**
+     * 获取指定消息的统计，尚未压缩或解压过时返回 null
+     */
+    public MessageStats get(int msgId) {
+        return messages.get(msgId);
+    }
+
+    /**
+     * 获取所有消息的统计（msgId -> 统计）
+     */
+    public Map<Integer, MessageStats> getMessageStats() {
+        return Collections.unmodifiableMap(messages);
+    }
+
+    /**
+     * 获取所有消息合计的压缩率
+     */
+    public double getRatio() {
+        long raw = 0;
+        long compressed = 0;
+        for (MessageStats stats : messages.values()) {
+            raw += stats.rawBytes.sum();
+            compressed += stats.compressedBytes.sum();
+        }
+        return raw > 0 ? (double) compressed / raw : 0;
+    }
+
+    /**
+     * 单个 msgId 的统计
+     */
+    public static class MessageStats {
+
+        private final LongAdder compressed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder rawBytes = new LongAdder();
+        private final LongAdder compressedBytes = new LongAdder();
+        private final LongAdder compressNanos = new LongAdder();
+        private final LongAdder decompressed = new LongAdder();
+        private final LongAdder decompressNanos = new LongAdder();
+
+        /**
+         * 获取压缩写出的消息数
+         */
+        public long getCompressedCount() {
+            return compressed.sum();
+        }
+
+        /**
+         * 获取尝试压缩但没有变小、按原样写出的消息数
+         */
+        public long getSkippedCount() {
+            return skipped.sum();
+        }
+
+        /**
+         * 获取压缩写出的消息的原始字节数
+         */
+        public long getRawBytes() {
+            return rawBytes.sum();
+        }
+
+        /**
+         * 获取压缩写出的消息压缩后的字节数
+         */
+        public long getCompressedBytes() {
+            return compressedBytes.sum();
+        }
+
+        /**
+         * 获取压缩率（压缩后 / 原始），越小越好
+         */
+        public double getRatio() {
+            long raw = rawBytes.sum();
+            return raw > 0 ? (double) compressedBytes.sum() / raw : 0;
+        }
+
+        /**
+         * 获取平均每次压缩的耗时（纳秒）
+         */
+        public double getCompressNanosPerMessage() {
+            long count = compressed.sum() + skipped.sum();
+            return count > 0 ? (double) compressNanos.sum() / count : 0;
+        }
+
+        /**
+         * 获取解压的消息数
+         */
+        public long getDecompressedCount() {
+            return decompressed.sum();
+        }
+
+        /**
+         * 获取平均每次解压的耗时（纳秒）
+         */
+        public double getDecompressNanosPerMessage() {
+            long count = decompressed.sum();
+            return count > 0 ? (double) decompressNanos.sum() / count : 0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.markeb.net.compress;
+
+import io.netty.handler.codec.CorruptedFrameException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LZ4 块压缩（lz4-java），压缩器与解压器都是线程安全的
+ * <p>
+ * 解压使用 safe 解压器，对客户端发来的畸形数据只会抛出异常，不会越界读写。
+ * </p>
+ */
+final class Lz4BodyCodec implements BodyCodec {
+
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    Lz4BodyCodec() {
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public boolean requiresDirect() {
+        return false;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    public int compress(ByteBuffer src, ByteBuffer dst) {
+        return compressor.compress(src, src.position(), src.remaining(), dst, dst.position(), dst.remaining());
+    }
+
+    @Override
+    public void decompress(ByteBuffer src, ByteBuffer dst, int originalLength) {
+        int length;
+        try {
+            length = decompressor.decompress(src, src.position(), src.remaining(), dst, dst.position(), originalLength);
+        } catch (LZ4Exception e) {
+            throw new CorruptedFrameException("Malformed LZ4 body", e);
+        }
+        if (length != originalLength) {
+            throw new CorruptedFrameException("LZ4 body length mismatch: " + length + " != " + originalLength);
+        }
+    }
+}
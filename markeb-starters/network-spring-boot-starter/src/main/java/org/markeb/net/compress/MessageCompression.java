@@ -0,0 +1,258 @@
+package org.markeb.net.compress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 按消息类型压缩消息体
+ * <p>
+ * 协议头中的 msgId 最高两位作为压缩标记，msgId 本身只使用低 30 位：
+ * </p>
+ * <ul>
+ *   <li>0：未压缩</li>
+ *   <li>1：LZ4</li>
+ *   <li>2：zstd</li>
+ *   <li>3：zstd + 预训练字典</li>
+ * </ul>
+ * <p>
+ * 压缩后的消息体为 originalLength(4) + 压缩数据，解压时据此一次分配目标缓冲区并校验长度。
+ * 消息体小于阈值、该 msgId 配置为 NONE、或压缩后没有变小时按原样写出，不设置标记。
+ * 线程安全，同一个实例由所有连接的编解码器共享。
+ * </p>
+ */
+public class MessageCompression {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageCompression.class);
+
+    /**
+     * 压缩标记在 msgId 中的起始位
+     */
+    public static final int FLAG_SHIFT = 30;
+
+    /**
+     * msgId 的有效位
+     */
+    public static final int MSG_ID_MASK = (1 << FLAG_SHIFT) - 1;
+
+    static final int FLAG_LZ4 = 1;
+    static final int FLAG_ZSTD = 2;
+    static final int FLAG_ZSTD_DICT = 3;
+
+    /**
+     * 压缩后消息体的原始长度前缀
+     */
+    private static final int LENGTH_PREFIX = 4;
+
+    private final CompressionAlgorithm defaultAlgorithm;
+    private final IntObjectMap<CompressionAlgorithm> algorithms = new IntObjectHashMap<>();
+    private final int threshold;
+
+    private final BodyCodec lz4;
+    private final BodyCodec zstd;
+    private final BodyCodec zstdDict;
+
+    private final CompressionStats stats;
+
+    public MessageCompression(CompressionConfig config, CompressionStats stats) {
+        this.defaultAlgorithm = config.getAlgorithm();
+        this.threshold = Math.max(1, config.getThreshold());
+        this.stats = stats;
+
+        boolean useLz4 = defaultAlgorithm == CompressionAlgorithm.LZ4;
+        boolean useZstd = defaultAlgorithm == CompressionAlgorithm.ZSTD;
+        for (Map.Entry<Integer, CompressionAlgorithm> entry : config.getMessages().entrySet()) {
+            CompressionAlgorithm algorithm = entry.getValue();
+            algorithms.put(entry.getKey(), algorithm);
+            useLz4 |= algorithm == CompressionAlgorithm.LZ4;
+            useZstd |= algorithm == CompressionAlgorithm.ZSTD;
+        }
+
+        this.lz4 = useLz4 ? new Lz4BodyCodec() : null;
+        if (useZstd) {
+            this.zstd = new ZstdBodyCodec(config.getZstdLevel(), null);
+            this.zstdDict = StringUtils.hasText(config.getZstdDictionary())
+                    ? new ZstdBodyCodec(config.getZstdLevel(), loadDictionary(config.getZstdDictionary()))
+                    : null;
+        } else {
+            this.zstd = null;
+            this.zstdDict = null;
+        }
+        log.info("Message compression enabled: default {}, threshold {} bytes, {} per-message override(s){}",
+                defaultAlgorithm, threshold, algorithms.size(), zstdDict != null ? ", zstd dictionary loaded" : "");
+    }
+
+    private static byte[] loadDictionary(String path) {
+        try {
+            return Files.readAllBytes(Path.of(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load zstd dictionary: " + path, e);
+        }
+    }
+
+    /**
+     * 用样本消息体训练 zstd 字典，写入文件后通过 zstd-dictionary 配置加载，客户端需使用同一份字典
+     *
+     * @param samples        典型的消息体样本（越多越好，通常数千条）
+     * @param dictionarySize 字典大小（字节），一般 16KB ~ 110KB
+     */
+    public static byte[] trainZstdDictionary(Iterable<byte[]> samples, int dictionarySize) {
+        return ZstdBodyCodec.train(samples, dictionarySize);
+    }
+
+    /**
+     * 协议头中的 msgId 是否带压缩标记
+     */
+    public static boolean isCompressed(int wireMsgId) {
+        return (wireMsgId >>> FLAG_SHIFT) != 0;
+    }
+
+    /**
+     * 去掉压缩标记后的 msgId
+     */
+    public static int msgIdOf(int wireMsgId) {
+        return wireMsgId & MSG_ID_MASK;
+    }
+
+    private CompressionAlgorithm algorithmOf(int msgId) {
+        CompressionAlgorithm algorithm = algorithms.get(msgId);
+        return algorithm != null ? algorithm : defaultAlgorithm;
+    }
+
+    private int flagOf(CompressionAlgorithm algorithm) {
+        return switch (algorithm) {
+            case LZ4 -> FLAG_LZ4;
+            case ZSTD -> zstdDict != null ? FLAG_ZSTD_DICT : FLAG_ZSTD;
+            case NONE -> 0;
+        };
+    }
+
+    /**
+     * 压缩写出时协议头中的 msgId（带压缩标记），仅在 {@link #compress} 返回非 null 时使用
+     */
+    public int wireMsgId(int msgId) {
+        return msgId | (flagOf(algorithmOf(msgId)) << FLAG_SHIFT);
+    }
+
+    /**
+     * 按 msgId 的配置压缩消息体，不改变 body 的引用计数
+     *
+     * @return 压缩后的消息体（由调用方负责释放），不压缩时返回 null
+     */
+    public ByteBuf compress(ByteBufAllocator alloc, int msgId, ByteBuf body) {
+        int length = body.readableBytes();
+        if (length < threshold) {
+            return null;
+        }
+        CompressionAlgorithm algorithm = algorithmOf(msgId);
+        if (algorithm == CompressionAlgorithm.NONE) {
+            return null;
+        }
+        BodyCodec codec = algorithm == CompressionAlgorithm.LZ4 ? lz4 : (zstdDict != null ? zstdDict : zstd);
+
+        long start = System.nanoTime();
+        ByteBuf src = codec.requiresDirect() ? directView(alloc, body) : body;
+        int maxLength = codec.maxCompressedLength(length);
+        ByteBuf out = codec.requiresDirect()
+                ? alloc.directBuffer(LENGTH_PREFIX + maxLength)
+                : alloc.buffer(LENGTH_PREFIX + maxLength);
+        boolean success = false;
+        try {
+            int compressed = codec.compress(src.nioBuffer(src.readerIndex(), length),
+                    out.nioBuffer(LENGTH_PREFIX, maxLength));
+            if (LENGTH_PREFIX + compressed >= length) {
+                stats.recordNoGain(msgId, System.nanoTime() - start);
+                return null;
+            }
+            out.writeInt(length);
+            out.writerIndex(LENGTH_PREFIX + compressed);
+            stats.recordCompress(msgId, length, LENGTH_PREFIX + compressed, System.nanoTime() - start);
+            success = true;
+            return out;
+        } finally {
+            if (src != body) {
+                src.release();
+            }
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * 解压带压缩标记的消息体，不改变 body 的引用计数
+     *
+     * @param maxLength 解压后允许的最大长度，防止解压炸弹
+     * @return 解压后的消息体，由调用方负责释放
+     */
+    public ByteBuf decompress(ByteBufAllocator alloc, int wireMsgId, ByteBuf body, int maxLength) {
+        int flag = wireMsgId >>> FLAG_SHIFT;
+        BodyCodec codec = switch (flag) {
+            case FLAG_LZ4 -> lz4;
+            case FLAG_ZSTD -> zstd;
+            case FLAG_ZSTD_DICT -> zstdDict;
+            default -> null;
+        };
+        int msgId = msgIdOf(wireMsgId);
+        if (codec == null) {
+            throw new CorruptedFrameException("Unsupported compression flag " + flag + " for msgId " + msgId);
+        }
+        if (body.readableBytes() < LENGTH_PREFIX) {
+            throw new CorruptedFrameException("Compressed body too short for msgId " + msgId);
+        }
+        int length = body.getInt(body.readerIndex());
+        if (length < 0 || length > maxLength) {
+            throw new TooLongFrameException("Decompressed body of msgId " + msgId + " exceeds " + maxLength + ": " + length);
+        }
+
+        long start = System.nanoTime();
+        ByteBuf src = codec.requiresDirect() ? directView(alloc, body) : body;
+        ByteBuf out = codec.requiresDirect() ? alloc.directBuffer(length) : alloc.buffer(length);
+        boolean success = false;
+        try {
+            int srcIndex = src.readerIndex() + LENGTH_PREFIX;
+            ByteBuffer in = src.nioBuffer(srcIndex, src.writerIndex() - srcIndex);
+            codec.decompress(in, out.nioBuffer(0, length), length);
+            out.writerIndex(length);
+            stats.recordDecompress(msgId, System.nanoTime() - start);
+            success = true;
+            return out;
+        } finally {
+            if (src != body) {
+                src.release();
+            }
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * 直接内存且只有一段时原样返回，否则拷贝为一段池化直接内存（由调用方释放）
+     */
+    private static ByteBuf directView(ByteBufAllocator alloc, ByteBuf body) {
+        if (body.isDirect() && body.nioBufferCount() == 1) {
+            return body;
+        }
+        ByteBuf copy = alloc.directBuffer(body.readableBytes());
+        copy.writeBytes(body, body.readerIndex(), body.readableBytes());
+        return copy;
+    }
+
+    public CompressionStats getStats() {
+        return stats;
+    }
+}
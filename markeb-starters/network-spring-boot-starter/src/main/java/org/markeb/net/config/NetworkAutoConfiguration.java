@@ -1,6 +1,9 @@
 package org.markeb.net.config;
 
 import org.markeb.net.INetworkServer;
+import org.markeb.net.compress.MessageCompression;
+import org.markeb.net.handler.FlushCoalescingConfig;
+import org.markeb.net.handler.FlushCoalescingStats;
 import org.markeb.net.handler.MessageDispatcher;
 import org.markeb.net.handler.PacketHandler;
 import org.markeb.net.protocol.ProtocolType;
@@ -14,10 +17,12 @@ import org.markeb.net.serialization.protobuf.ProtobufCodec;
 import org.markeb.net.serialization.protostuff.ProtostuffCodec;
 import org.markeb.net.transport.TransportServer;
 import org.markeb.net.transport.TransportType;
+import org.markeb.net.transport.kcp.KcpChannelInitializer;
 import org.markeb.net.transport.kcp.KcpTransportServer;
 import org.markeb.net.transport.tcp.TcpTransportServer;
 import org.markeb.net.transport.websocket.WebSocketServerInitializer;
 import org.markeb.net.transport.websocket.WebSocketTransportServer;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.ssl.SslContext;
@@ -25,6 +30,7 @@ import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -34,6 +40,7 @@ import org.springframework.util.StringUtils;
 
 import java.io.File;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 网络模块自动配置
@@ -79,6 +86,25 @@ public class NetworkAutoConfiguration {
         return new MessageDispatcher(messageCodec);
     }
 
+    /**
+     * 出站写合并统计
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public FlushCoalescingStats flushCoalescingStats() {
+        return new FlushCoalescingStats();
+    }
+
+    /**
+     * 消息体压缩，所有连接的编解码器共享
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "markeb.network.compression", name = "enabled", havingValue = "true")
+    public MessageCompression messageCompression(NetworkProperties properties) {
+        return properties.getCompression().newCompression();
+    }
+
     /**
      * Channel 初始化器
      */
@@ -86,10 +112,14 @@ public class NetworkAutoConfiguration {
     @ConditionalOnMissingBean
     public ChannelInitializer<SocketChannel> channelInitializer(
             NetworkProperties properties,
-            MessageDispatcher messageDispatcher) {
+            MessageDispatcher messageDispatcher,
+            FlushCoalescingStats flushStats,
+            ObjectProvider<MessageCompression> compressionProvider) {
 
         ProtocolType protocolType = properties.getProtocol();
         NetworkProperties.NettyConfig nettyConfig = properties.getNetty();
+        Supplier<ChannelHandler> flushHandler = flushHandler(properties, flushStats);
+        MessageCompression compression = compressionProvider.getIfAvailable();
 
         log.info("Creating ChannelInitializer with protocol: {}, codec: {}",
                 protocolType, properties.getCodec());
@@ -105,10 +135,15 @@ public class NetworkAutoConfiguration {
                                 nettyConfig.getAllIdleTime(),
                                 TimeUnit.SECONDS));
 
+                // 出站写合并（位于编码器靠 socket 一侧，按编码后的字节计数）
+                if (flushHandler != null) {
+                    ch.pipeline().addLast("flushCoalescing", flushHandler.get());
+                }
+
                 // 协议编解码
                 ch.pipeline().addLast("decoder",
-                        new PacketDecoder(protocolType, properties.getMaxFrameLength()));
-                ch.pipeline().addLast("encoder", new PacketEncoder());
+                        new PacketDecoder(protocolType, properties.getMaxFrameLength(), compression));
+                ch.pipeline().addLast("encoder", new PacketEncoder(compression));
 
                 // 消息处理
                 ch.pipeline().addLast("handler", new PacketHandler(messageDispatcher));
@@ -125,11 +160,14 @@ public class NetworkAutoConfiguration {
     public TransportServer transportServer(
             NetworkProperties properties,
             ChannelInitializer<SocketChannel> channelInitializer,
-            MessageDispatcher messageDispatcher) {
+            MessageDispatcher messageDispatcher,
+            FlushCoalescingStats flushStats,
+            ObjectProvider<MessageCompression> compressionProvider) {
 
         TransportType transportType = properties.getTransport();
         int port = properties.getPort();
         NetworkProperties.NettyConfig nettyConfig = properties.getNetty();
+        MessageCompression compression = compressionProvider.getIfAvailable();
 
         log.info("Creating TransportServer with type: {}, port: {}", transportType, port);
 
@@ -138,19 +176,31 @@ public class NetworkAutoConfiguration {
                     port,
                     nettyConfig.getBossThreads(),
                     nettyConfig.getWorkerThreads(),
-                    channelInitializer);
+                    channelInitializer,
+                    nettyConfig.transport());
             case KCP -> new KcpTransportServer(
                     port,
                     nettyConfig.getWorkerThreads(),
-                    channelInitializer);
-            case WEBSOCKET -> createWebSocketServer(properties, messageDispatcher);
+                    new KcpChannelInitializer(
+                            nettyConfig.getReaderIdleTime(),
+                            nettyConfig.getWriterIdleTime(),
+                            nettyConfig.getAllIdleTime(),
+                            properties.getProtocol(),
+                            properties.getMaxFrameLength(),
+                            messageDispatcher,
+                            flushHandler(properties, flushStats),
+                            compression),
+                    nettyConfig.transport(),
+                    properties.getKcp());
+            case WEBSOCKET -> createWebSocketServer(properties, messageDispatcher, flushStats, compression);
         };
     }
 
     /**
      * 创建 WebSocket 服务器
      */
-    private TransportServer createWebSocketServer(NetworkProperties properties, MessageDispatcher messageDispatcher) {
+    private TransportServer createWebSocketServer(NetworkProperties properties, MessageDispatcher messageDispatcher,
+                                                  FlushCoalescingStats flushStats, MessageCompression compression) {
         NetworkProperties.WebSocketConfig wsConfig = properties.getWebsocket();
         NetworkProperties.NettyConfig nettyConfig = properties.getNetty();
 
@@ -165,20 +215,35 @@ public class NetworkAutoConfiguration {
                 .sslContext(sslContext)
                 .websocketPath(wsConfig.getPath())
                 .maxFrameSize(wsConfig.getMaxFrameSize())
-                .enableCompression(wsConfig.isEnableCompression())
+                // 已按消息压缩时不再叠加 permessage-deflate，避免对压缩数据重复压缩
+                .enableCompression(wsConfig.isEnableCompression() && compression == null)
                 .readerIdleTime(nettyConfig.getReaderIdleTime())
                 .writerIdleTime(nettyConfig.getWriterIdleTime())
                 .allIdleTime(nettyConfig.getAllIdleTime())
                 .protocolType(properties.getProtocol())
                 .maxFrameLength(properties.getMaxFrameLength())
                 .messageDispatcher(messageDispatcher)
+                .flushHandler(flushHandler(properties, flushStats))
+                .compression(compression)
                 .build();
 
         return new WebSocketTransportServer(
                 properties.getPort(),
                 nettyConfig.getBossThreads(),
                 nettyConfig.getWorkerThreads(),
-                initializer);
+                initializer,
+                nettyConfig.transport());
+    }
+
+    /**
+     * 出站写合并处理器工厂，未启用时返回 null
+     */
+    private Supplier<ChannelHandler> flushHandler(NetworkProperties properties, FlushCoalescingStats flushStats) {
+        FlushCoalescingConfig flushConfig = properties.getFlush();
+        if (!flushConfig.isEnabled()) {
+            return null;
+        }
+        return () -> flushConfig.newHandler(flushStats);
     }
 
     /**
@@ -1,7 +1,11 @@
 package org.markeb.net.config;
 
+import org.markeb.net.compress.CompressionConfig;
+import org.markeb.net.handler.FlushCoalescingConfig;
 import org.markeb.net.protocol.ProtocolType;
 import org.markeb.net.serialization.CodecType;
+import org.markeb.net.transport.IoMode;
+import org.markeb.net.transport.NettyTransport;
 import org.markeb.net.transport.TransportType;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -48,6 +52,16 @@ public class NetworkProperties {
      */
     private NettyConfig netty = new NettyConfig();
 
+    /**
+     * 出站写合并配置
+     */
+    private FlushCoalescingConfig flush = new FlushCoalescingConfig();
+
+    /**
+     * 消息体压缩配置
+     */
+    private CompressionConfig compression = new CompressionConfig();
+
     /**
      * 网关特定配置
      */
@@ -84,6 +98,28 @@ public class NetworkProperties {
          * 读写空闲时间（秒）
          */
         private long allIdleTime = 0;
+
+        /**
+         * I/O 模型，原生传输不可用时自动回退到 NIO
+         */
+        private IoMode ioMode = IoMode.AUTO;
+
+        /**
+         * 是否开启 SO_REUSEPORT：每个 boss 线程各绑定一个监听 Channel（仅原生传输生效）
+         */
+        private boolean reusePort = false;
+
+        /**
+         * epoll 下是否使用边缘触发，关闭时使用水平触发
+         */
+        private boolean edgeTriggered = true;
+
+        /**
+         * 按配置创建传输层
+         */
+        public NettyTransport transport() {
+            return NettyTransport.create(ioMode, reusePort, edgeTriggered);
+        }
     }
 
     @Data
@@ -112,6 +148,79 @@ public class NetworkProperties {
         private boolean enabled = false;
     }
 
+    /**
+     * KCP 特定配置
+     */
+    private KcpConfig kcp = new KcpConfig();
+
+    @Data
+    public static class KcpConfig {
+        /**
+         * 极速模式：0 关闭，1 开启（最小 RTO 30ms，超时重传 RTO 按 1.5 倍增长），2 更激进的退避
+         */
+        private int nodelay = 1;
+
+        /**
+         * 内部 flush 间隔（毫秒），也是共享定时器的 tick 间隔
+         */
+        private int interval = 10;
+
+        /**
+         * 快速重传阈值：分片被后续 ACK 跨越多少次后立即重传，0 关闭
+         */
+        private int resend = 2;
+
+        /**
+         * 是否关闭拥塞控制
+         */
+        private boolean noCongestionWindow = false;
+
+        /**
+         * 发送窗口（分片数）
+         */
+        private int sndWnd = 128;
+
+        /**
+         * 接收窗口（分片数，不小于 128）
+         */
+        private int rcvWnd = 128;
+
+        /**
+         * MTU（字节），单个 UDP 报文的最大长度
+         */
+        private int mtu = 1400;
+
+        /**
+         * 流模式：不保留消息边界，由 PacketDecoder 按长度字段分帧，消息大小不受接收窗口限制
+         */
+        private boolean stream = true;
+
+        /**
+         * 收到数据后立即回 ACK，而不是等下一个 tick
+         */
+        private boolean ackNoDelay = true;
+
+        /**
+         * 写出后立即 flush，而不是等下一个 tick
+         */
+        private boolean fastFlush = true;
+
+        /**
+         * 单个分片重传达到该次数后断开会话
+         */
+        private int deadLink = 20;
+
+        /**
+         * 会话超时（毫秒），超过该时间未收到任何数据则关闭
+         */
+        private long sessionTimeout = 30_000;
+
+        /**
+         * 每个 UDP socket 的最大会话数，超过后丢弃新会话的报文
+         */
+        private int maxSessions = 100_000;
+    }
+
     /**
      * WebSocket 特定配置
      */
@@ -1,5 +1,10 @@
 package org.markeb.net.gateway;
 
+import org.markeb.net.gateway.backend.PendingRequestTable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
+
 /**
  * 网关内部统一的包格式，已解析出协议头。
  * <p>
@@ -8,19 +13,27 @@ package org.markeb.net.gateway;
  * <p>
  * sessionId: 网关为每个前端连接分配的唯一标识，游戏服回包时原样返回，网关据此路由回正确的玩家连接。
  * seq: 客户端请求序号，用于请求-响应关联。
+ * <p>
+ * 消息体直接持有解码帧的 {@link ByteBuf} 切片（引用计数），网关从不解析消息体，
+ * 转发时只改写协议头，消息体原样写出，不做任何拷贝。
+ * 使用方需遵循 Netty 的引用计数约定：入站包由 {@code SimpleChannelInboundHandler} 自动释放，
+ * 需要异步写出时先 {@link #retain()}。
  */
-public class GatewayPacket {
+public class GatewayPacket extends DefaultByteBufHolder {
 
     private final int sessionId;  // 网关分配的连接标识
     private final int msgId;
     private final int seq;
-    private final byte[] body;
 
-    public GatewayPacket(int sessionId, int msgId, int seq, byte[] body) {
+    public GatewayPacket(int sessionId, int msgId, int seq, ByteBuf body) {
+        super(body != null ? body : Unpooled.EMPTY_BUFFER);
         this.sessionId = sessionId;
         this.msgId = msgId;
         this.seq = seq;
-        this.body = body;
+    }
+
+    public GatewayPacket(int sessionId, int msgId, int seq, byte[] body) {
+        this(sessionId, msgId, seq, body != null ? Unpooled.wrappedBuffer(body) : Unpooled.EMPTY_BUFFER);
     }
 
     public int getSessionId() {
@@ -35,15 +48,66 @@ public class GatewayPacket {
         return seq;
     }
 
-    public byte[] getBody() {
-        return body;
+    /**
+     * 消息体（与 {@link #content()} 相同）
+     */
+    public ByteBuf getBody() {
+        return content();
     }
 
     /**
-     * 生成用于 pending 映射的唯一 key
+     * 生成用于 pending 映射的唯一 key：{@code (sessionId << 32) | seq}
      */
-    public String getPendingKey() {
-        return sessionId + ":" + seq;
+    public long getPendingKey() {
+        return PendingRequestTable.key(sessionId, seq);
+    }
+
+    /**
+     * 只改写 sessionId 的新包，消息体与当前包共享同一块内存。
+     * <p>
+     * 不增加引用计数，返回的包与当前包共用同一个计数，写出前需要 {@link #retain()}。
+     * </p>
+     */
+    public GatewayPacket withSessionId(int sessionId) {
+        return new GatewayPacket(sessionId, msgId, seq, content());
     }
-}
 
+    @Override
+    public GatewayPacket replace(ByteBuf content) {
+        return new GatewayPacket(sessionId, msgId, seq, content);
+    }
+
+    @Override
+    public GatewayPacket retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public GatewayPacket retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public GatewayPacket touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public GatewayPacket touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "GatewayPacket{" +
+                "sessionId=" + sessionId +
+                ", msgId=" + msgId +
+                ", seq=" + seq +
+                ", bodyLength=" + content().readableBytes() +
+                '}';
+    }
+}
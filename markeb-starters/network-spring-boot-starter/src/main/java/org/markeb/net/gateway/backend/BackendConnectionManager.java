@@ -4,33 +4,39 @@ import org.markeb.net.gateway.GatewayPacket;
 import org.markeb.net.gateway.config.GatewayBackendProperties;
 import org.markeb.net.gateway.codec.GatewayDecoder;
 import org.markeb.net.gateway.codec.GatewayEncoder;
+import org.markeb.net.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
 
 import java.net.InetSocketAddress;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 维护网关到各区服后端的长连接。
  * <p>
- * 使用 (sessionId:seq) 作为 pending 映射的 key，确保不同连接的请求不会冲突。
+ * 使用 (sessionId, seq) 打包成的 long 作为 pending 映射的 key，确保不同连接的请求不会冲突。
+ * 超时未响应的 pending 请求由后台定时清理。
  */
 public class BackendConnectionManager {
 
     private static final Logger log = LoggerFactory.getLogger(BackendConnectionManager.class);
 
+    /**
+     * pending 超时清理间隔（毫秒）
+     */
+    private static final long EXPIRE_INTERVAL_MS = 1000;
+
     private final GatewayBackendProperties backendProperties;
-    private final EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private final NettyTransport transport;
+    private final EventLoopGroup workerGroup;
 
     /**
      * zoneId -> Channel（到后端游戏服的连接）
@@ -38,13 +44,18 @@ public class BackendConnectionManager {
     private final Map<String, Channel> backendChannels = new ConcurrentHashMap<>();
 
     /**
-     * pendingKey (sessionId:seq) -> 前端 Channel
-     * 游戏服回包时，用 sessionId:seq 找到对应的前端连接
+     * (sessionId, seq) -> 前端 Channel
+     * 游戏服回包时，用 sessionId + seq 找到对应的前端连接
      */
-    private final ConcurrentHashMap<String, Channel> pendingRequests = new ConcurrentHashMap<>();
+    private final PendingRequestTable<Channel> pendingRequests;
 
     public BackendConnectionManager(GatewayBackendProperties backendProperties) {
         this.backendProperties = backendProperties;
+        this.transport = NettyTransport.create(backendProperties.getIoMode(), false, true);
+        this.workerGroup = transport.newEventLoopGroup(0);
+        this.pendingRequests = new PendingRequestTable<>(backendProperties.getPendingTimeoutMs());
+        workerGroup.scheduleAtFixedRate(this::expirePending,
+            EXPIRE_INTERVAL_MS, EXPIRE_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
     public void shutdown() {
@@ -60,6 +71,10 @@ public class BackendConnectionManager {
 
     /**
      * 转发请求到后端游戏服
+     * <p>
+     * 不接管 packet 的引用计数：写出时自行 retain 一份，消息体随写出完成由编码器释放，
+     * 调用方持有的引用仍由调用方（通常是 SimpleChannelInboundHandler）释放。
+     * </p>
      *
      * @param zoneId       区服ID
      * @param packet       内部协议包（已包含 sessionId）
@@ -72,17 +87,18 @@ public class BackendConnectionManager {
             return CompletableFuture.failedFuture(new IllegalStateException("backend not available for zone " + zoneId));
         }
 
-        // 用 sessionId:seq 作为 key，确保不同连接的请求不会冲突
-        String pendingKey = packet.getPendingKey();
-        pendingRequests.put(pendingKey, frontChannel);
+        // 用 (sessionId, seq) 作为 key，确保不同连接的请求不会冲突
+        int sessionId = packet.getSessionId();
+        int seq = packet.getSeq();
+        pendingRequests.put(sessionId, seq, frontChannel);
 
         CompletableFuture<Void> future = new CompletableFuture<>();
-        backend.writeAndFlush(packet).addListener(f -> {
+        backend.writeAndFlush(packet.retain()).addListener(f -> {
             if (f.isSuccess()) {
                 future.complete(null);
             } else {
                 future.completeExceptionally(f.cause());
-                pendingRequests.remove(pendingKey);
+                pendingRequests.remove(sessionId, seq);
             }
         });
         return future;
@@ -104,7 +120,7 @@ public class BackendConnectionManager {
 
         Bootstrap bootstrap = new Bootstrap();
         bootstrap.group(workerGroup)
-            .channel(NioSocketChannel.class)
+            .channel(transport.socketChannelClass())
             .option(ChannelOption.SO_KEEPALIVE, true)
             .option(ChannelOption.TCP_NODELAY, true)
             .handler(new ChannelInitializer<SocketChannel>() {
@@ -130,34 +146,46 @@ public class BackendConnectionManager {
      * 处理后端游戏服的响应，路由回对应的前端连接
      */
     void handleResponse(String zoneId, GatewayPacket packet) {
-        String pendingKey = packet.getPendingKey();
-        Channel front = pendingRequests.remove(pendingKey);
+        Channel front = pendingRequests.remove(packet.getSessionId(), packet.getSeq());
         if (front == null || !front.isActive()) {
-            log.warn("Front channel missing/closed for pendingKey {} zone {}", pendingKey, zoneId);
+            log.warn("Front channel missing/closed for sessionId {} seq {} zone {}",
+                packet.getSessionId(), packet.getSeq(), zoneId);
             return;
         }
         // 回给客户端时，转换为客户端协议（不含 sessionId）
-        // 注意：这里直接写 packet，由 GatewayEncoder(forFrontend=true) 处理
-        front.writeAndFlush(packet);
+        // 注意：这里直接写 packet，由 GatewayEncoder(forFrontend=true) 处理；
+        // packet 在 handler 返回后会被释放，写出的这份需要额外 retain
+        front.writeAndFlush(packet.retain());
     }
 
     /**
      * 清理指定 sessionId 相关的所有 pending 请求（连接断开时调用）
      */
     public void cleanupSession(int sessionId) {
-        String prefix = sessionId + ":";
-        Iterator<Map.Entry<String, Channel>> it = pendingRequests.entrySet().iterator();
-        int count = 0;
-        while (it.hasNext()) {
-            Map.Entry<String, Channel> entry = it.next();
-            if (entry.getKey().startsWith(prefix)) {
-                it.remove();
-                count++;
-            }
-        }
+        int count = pendingRequests.removeSession(sessionId);
         if (count > 0) {
             log.info("Cleaned up {} pending requests for sessionId {}", count, sessionId);
         }
     }
-}
 
+    private void expirePending() {
+        int expired = pendingRequests.expire();
+        if (expired > 0) {
+            log.warn("Expired {} pending requests without backend response", expired);
+        }
+    }
+
+    /**
+     * 获取当前 pending 请求数
+     */
+    public int getPendingCount() {
+        return pendingRequests.getPendingCount();
+    }
+
+    /**
+     * 获取累计超时过期的 pending 请求数
+     */
+    public long getExpiredCount() {
+        return pendingRequests.getExpiredCount();
+    }
+}
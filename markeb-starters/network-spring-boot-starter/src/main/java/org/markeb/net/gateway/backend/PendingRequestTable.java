@@ -0,0 +1,461 @@
+package org.markeb.net.gateway.backend;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 网关 pending 请求表
+ * <p>
+ * 记录已转发到后端、尚未收到响应的请求，key 为 {@code (sessionId << 32) | seq} 打包成的 long，
+ * 不再为每个请求/响应拼接和哈希字符串。
+ * </p>
+ * <ul>
+ *   <li>按 sessionId 分段加锁，同一会话的请求总落在同一分段</li>
+ *   <li>分段内为线性探测开放寻址表，条目对象复用，稳态下不产生垃圾</li>
+ *   <li>每个会话的请求串成链表（会话二级索引），连接断开时清理只需 O(该会话的 pending 数)</li>
+ *   <li>超时时间固定，条目按插入顺序串成时间链表，过期清理只需从链表头部摘除 O(过期数)</li>
+ * </ul>
+ *
+ * @param <V> 关联值类型（如前端 Channel 或会话）
+ */
+public class PendingRequestTable<V> {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 每个分段缓存的空闲条目上限
+     */
+    private static final int MAX_FREE_ENTRIES = 256;
+
+    private final Segment<V>[] segments;
+    private final long timeoutNanos;
+    private final AtomicLong expiredCount = new AtomicLong(0);
+
+    /**
+     * 创建 pending 请求表
+     *
+     * @param timeoutMs 请求超时时间（毫秒），超时未响应的请求由 {@link #expire()} 清理
+     */
+    @SuppressWarnings("unchecked")
+    public PendingRequestTable(long timeoutMs) {
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("timeoutMs must be positive: " + timeoutMs);
+        }
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.segments = new Segment[1 << SEGMENT_BITS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    /**
+     * 打包 pending key：高 32 位为 sessionId，低 32 位为 seq
+     */
+    public static long key(int sessionId, int seq) {
+        return ((long) sessionId << 32) | (seq & 0xFFFFFFFFL);
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private Segment<V> segmentFor(int sessionId) {
+        return segments[(int) (mix(sessionId) >>> (64 - SEGMENT_BITS))];
+    }
+
+    /**
+     * 记录一个 pending 请求，同一 (sessionId, seq) 已存在时覆盖并重新计时
+     */
+    public void put(int sessionId, int seq, V value) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        Segment<V> segment = segmentFor(sessionId);
+        segment.lock();
+        try {
+            segment.put(key(sessionId, seq), sessionId, value, deadline);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 移除并返回 pending 请求，不存在（已响应、已超时或会话已清理）时返回 null
+     */
+    public V remove(int sessionId, int seq) {
+        Segment<V> segment = segmentFor(sessionId);
+        segment.lock();
+        try {
+            return segment.remove(key(sessionId, seq));
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 移除指定会话的所有 pending 请求
+     *
+     * @return 移除的数量
+     */
+    public int removeSession(int sessionId) {
+        Segment<V> segment = segmentFor(sessionId);
+        segment.lock();
+        try {
+            return segment.removeSession(sessionId);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 清理所有已超时的 pending 请求
+     *
+     * @return 本次清理的数量
+     */
+    public int expire() {
+        long now = System.nanoTime();
+        int expired = 0;
+        for (Segment<V> segment : segments) {
+            if (segment.size == 0) {
+                continue;
+            }
+            segment.lock();
+            try {
+                expired += segment.expire(now);
+            } finally {
+                segment.unlock();
+            }
+        }
+        if (expired > 0) {
+            expiredCount.addAndGet(expired);
+        }
+        return expired;
+    }
+
+    /**
+     * 清空所有 pending 请求
+     */
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.lock();
+            try {
+                segment.reset();
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * 获取当前 pending 请求数
+     */
+    public int getPendingCount() {
+        int total = 0;
+        for (Segment<V> segment : segments) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+    /**
+     * 获取累计超时过期的请求数
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * pending 条目，同时挂在三处：key 表、会话链表、时间链表
+     */
+    private static final class Entry<V> {
+
+        long key;
+        int sessionId;
+        V value;
+        long deadline;
+
+        Entry<V> sessionPrev;
+        Entry<V> sessionNext;
+        Entry<V> older;
+        Entry<V> newer;
+    }
+
+    private static final class Segment<V> extends ReentrantLock {
+
+        /**
+         * key -> 条目
+         */
+        private Entry<V>[] table = newArray(INITIAL_CAPACITY);
+
+        /**
+         * sessionId -> 该会话链表的头条目
+         */
+        private Entry<V>[] sessions = newArray(INITIAL_CAPACITY);
+
+        private volatile int size;
+        private int sessionCount;
+
+        private Entry<V> oldest;
+        private Entry<V> newest;
+
+        private Entry<V> free;
+        private int freeCount;
+
+        @SuppressWarnings("unchecked")
+        private static <V> Entry<V>[] newArray(int capacity) {
+            return (Entry<V>[]) new Entry[capacity];
+        }
+
+        void put(long key, int sessionId, V value, long deadline) {
+            Entry<V> existing = table[indexOfKey(key)];
+            if (existing != null) {
+                existing.value = value;
+                existing.deadline = deadline;
+                unlinkAge(existing);
+                linkAge(existing);
+                return;
+            }
+
+            if ((size + 1) * 2 > table.length) {
+                table = rehash(table, table.length << 1, false);
+            }
+            Entry<V> entry = allocate();
+            entry.key = key;
+            entry.sessionId = sessionId;
+            entry.value = value;
+            entry.deadline = deadline;
+            insert(table, entry, false);
+            size++;
+            linkAge(entry);
+
+            // 挂到会话链表：已有头条目时插在头条目之后，避免改写会话索引
+            int si = indexOfSession(sessionId);
+            Entry<V> head = sessions[si];
+            if (head == null) {
+                if ((sessionCount + 1) * 2 > sessions.length) {
+                    sessions = rehash(sessions, sessions.length << 1, true);
+                    si = indexOfSession(sessionId);
+                }
+                sessions[si] = entry;
+                sessionCount++;
+            } else {
+                entry.sessionPrev = head;
+                entry.sessionNext = head.sessionNext;
+                if (head.sessionNext != null) {
+                    head.sessionNext.sessionPrev = entry;
+                }
+                head.sessionNext = entry;
+            }
+        }
+
+        V remove(long key) {
+            int i = indexOfKey(key);
+            Entry<V> entry = table[i];
+            if (entry == null) {
+                return null;
+            }
+            V value = entry.value;
+            unlink(entry, i);
+            return value;
+        }
+
+        int removeSession(int sessionId) {
+            int si = indexOfSession(sessionId);
+            Entry<V> entry = sessions[si];
+            if (entry == null) {
+                return 0;
+            }
+            removeAt(sessions, si, true);
+            sessionCount--;
+
+            int count = 0;
+            while (entry != null) {
+                Entry<V> next = entry.sessionNext;
+                removeAt(table, indexOfKey(entry.key), false);
+                size--;
+                unlinkAge(entry);
+                recycle(entry);
+                entry = next;
+                count++;
+            }
+            shrinkIfSparse();
+            return count;
+        }
+
+        int expire(long now) {
+            int count = 0;
+            while (oldest != null && oldest.deadline - now <= 0) {
+                unlink(oldest, indexOfKey(oldest.key));
+                count++;
+            }
+            return count;
+        }
+
+        void reset() {
+            table = newArray(INITIAL_CAPACITY);
+            sessions = newArray(INITIAL_CAPACITY);
+            size = 0;
+            sessionCount = 0;
+            oldest = null;
+            newest = null;
+            free = null;
+            freeCount = 0;
+        }
+
+        /**
+         * 从 key 表、会话链表、时间链表中摘除条目
+         */
+        private void unlink(Entry<V> entry, int tableIndex) {
+            removeAt(table, tableIndex, false);
+            size--;
+            unlinkAge(entry);
+
+            Entry<V> prev = entry.sessionPrev;
+            Entry<V> next = entry.sessionNext;
+            if (prev == null) {
+                // 头条目：由后继接任，没有后继时删除会话索引
+                int si = indexOfSession(entry.sessionId);
+                if (next == null) {
+                    removeAt(sessions, si, true);
+                    sessionCount--;
+                } else {
+                    next.sessionPrev = null;
+                    sessions[si] = next;
+                }
+            } else {
+                prev.sessionNext = next;
+                if (next != null) {
+                    next.sessionPrev = prev;
+                }
+            }
+            recycle(entry);
+            shrinkIfSparse();
+        }
+
+        private void linkAge(Entry<V> entry) {
+            entry.older = newest;
+            entry.newer = null;
+            if (newest != null) {
+                newest.newer = entry;
+            } else {
+                oldest = entry;
+            }
+            newest = entry;
+        }
+
+        private void unlinkAge(Entry<V> entry) {
+            if (entry.older != null) {
+                entry.older.newer = entry.newer;
+            } else {
+                oldest = entry.newer;
+            }
+            if (entry.newer != null) {
+                entry.newer.older = entry.older;
+            } else {
+                newest = entry.older;
+            }
+            entry.older = null;
+            entry.newer = null;
+        }
+
+        private Entry<V> allocate() {
+            Entry<V> entry = free;
+            if (entry == null) {
+                return new Entry<>();
+            }
+            free = entry.sessionNext;
+            freeCount--;
+            entry.sessionNext = null;
+            return entry;
+        }
+
+        private void recycle(Entry<V> entry) {
+            entry.value = null;
+            entry.sessionPrev = null;
+            entry.older = null;
+            entry.newer = null;
+            if (freeCount < MAX_FREE_ENTRIES) {
+                entry.sessionNext = free;
+                free = entry;
+                freeCount++;
+            } else {
+                entry.sessionNext = null;
+            }
+        }
+
+        private void shrinkIfSparse() {
+            if (table.length > INITIAL_CAPACITY && size * 8 < table.length) {
+                table = rehash(table, table.length >> 1, false);
+            }
+            if (sessions.length > INITIAL_CAPACITY && sessionCount * 8 < sessions.length) {
+                sessions = rehash(sessions, sessions.length >> 1, true);
+            }
+        }
+
+        private static int hashOf(Entry<?> entry, boolean bySession) {
+            return (int) mix(bySession ? entry.sessionId : entry.key);
+        }
+
+        /**
+         * 查找 key 所在槽位，不存在时返回探测链末尾的空槽
+         */
+        private int indexOfKey(long key) {
+            int mask = table.length - 1;
+            int i = (int) mix(key) & mask;
+            Entry<V> e;
+            while ((e = table[i]) != null && e.key != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private int indexOfSession(int sessionId) {
+            int mask = sessions.length - 1;
+            int i = (int) mix(sessionId) & mask;
+            Entry<V> e;
+            while ((e = sessions[i]) != null && e.sessionId != sessionId) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private static <V> void insert(Entry<V>[] array, Entry<V> entry, boolean bySession) {
+            int mask = array.length - 1;
+            int i = hashOf(entry, bySession) & mask;
+            while (array[i] != null) {
+                i = (i + 1) & mask;
+            }
+            array[i] = entry;
+        }
+
+        /**
+         * 向后移位删除，保持线性探测链连续
+         */
+        private static <V> void removeAt(Entry<V>[] array, int i, boolean bySession) {
+            int mask = array.length - 1;
+            int hole = i;
+            int j = (i + 1) & mask;
+            while (array[j] != null) {
+                int ideal = hashOf(array[j], bySession) & mask;
+                if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                    array[hole] = array[j];
+                    hole = j;
+                }
+                j = (j + 1) & mask;
+            }
+            array[hole] = null;
+        }
+
+        private static <V> Entry<V>[] rehash(Entry<V>[] old, int capacity, boolean bySession) {
+            Entry<V>[] array = newArray(capacity);
+            for (Entry<V> entry : old) {
+                if (entry != null) {
+                    insert(array, entry, bySession);
+                }
+            }
+            return array;
+        }
+    }
+
+}
@@ -1,8 +1,10 @@
 package org.markeb.net.gateway.codec;
 
+import org.markeb.net.compress.MessageCompression;
 import org.markeb.net.gateway.GatewayPacket;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 
 /**
@@ -14,12 +16,16 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
  * 通过 forFrontend 参数区分：
  * - forFrontend=true: 解析客户端协议（无 sessionId），sessionId 由外部填充
  * - forFrontend=false: 解析内部协议（有 sessionId）
+ * <p>
+ * 消息体不拷贝：解码出的 {@link GatewayPacket} 持有帧切片，由下游 handler 负责释放。
+ * 带压缩标记的消息体解压为新的缓冲区交给 GatewayPacket，帧随即释放。
  */
 public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
 
     private static final int MAX_FRAME_LENGTH = 1024 * 1024;
 
     private final boolean forFrontend;
+    private final MessageCompression compression;
 
     /**
      * 默认用于前端连接（客户端协议）
@@ -32,12 +38,21 @@ public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
      * @param forFrontend true=解析客户端协议（无sessionId），false=解析内部协议（有sessionId）
      */
     public GatewayDecoder(boolean forFrontend) {
+        this(forFrontend, null);
+    }
+
+    /**
+     * @param forFrontend true=解析客户端协议（无sessionId），false=解析内部协议（有sessionId）
+     * @param compression 消息体压缩，为 null 时收到带压缩标记的包按畸形帧处理
+     */
+    public GatewayDecoder(boolean forFrontend, MessageCompression compression) {
         super(MAX_FRAME_LENGTH,
             0,      // lengthFieldOffset
             4,      // lengthFieldLength
             0,      // lengthAdjustment
             4);     // initialBytesToStrip (strip length field)
         this.forFrontend = forFrontend;
+        this.compression = compression;
     }
 
     @Override
@@ -46,6 +61,7 @@ public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
         if (frame == null) {
             return null;
         }
+        boolean success = false;
         try {
             int sessionId;
             if (forFrontend) {
@@ -57,11 +73,24 @@ public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
             }
             int msgId = frame.readInt();
             int seq = frame.readInt();
-            byte[] body = new byte[frame.readableBytes()];
-            frame.readBytes(body);
-            return new GatewayPacket(sessionId, msgId, seq, body);
+            if (MessageCompression.isCompressed(msgId)) {
+                if (compression == null) {
+                    throw new CorruptedFrameException("Compressed body received but compression is disabled, msgId "
+                            + MessageCompression.msgIdOf(msgId));
+                }
+                ByteBuf body = compression.decompress(ctx.alloc(), msgId, frame, MAX_FRAME_LENGTH);
+                frame.release();
+                success = true;
+                return new GatewayPacket(sessionId, MessageCompression.msgIdOf(msgId), seq, body);
+            }
+            // 帧本身就是累积缓冲区的引用计数切片，读完协议头后剩余部分即消息体，直接交给 GatewayPacket 持有
+            GatewayPacket packet = new GatewayPacket(sessionId, msgId, seq, frame);
+            success = true;
+            return packet;
         } finally {
-            frame.release();
+            if (!success) {
+                frame.release();
+            }
         }
     }
 }
@@ -1,9 +1,14 @@
 package org.markeb.net.gateway.codec;
 
+import org.markeb.net.compress.MessageCompression;
 import org.markeb.net.gateway.GatewayPacket;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
 
 /**
  * 网关协议编码器。
@@ -14,10 +19,22 @@ import io.netty.handler.codec.MessageToByteEncoder;
  * 通过 forFrontend 参数区分：
  * - forFrontend=true: 编码客户端协议（不写 sessionId）
  * - forFrontend=false: 编码内部协议（写 sessionId）
+ * <p>
+ * 只写协议头，消息体是解码时保留下来的 {@link ByteBuf} 切片：
+ * 较大的消息体与协议头组合成 {@link CompositeByteBuf} 直接写出，不拷贝；
+ * 较小的消息体拷贝进协议头所在的池化缓冲区，比额外创建一个组合缓冲区更划算。
+ * <p>
+ * 配置了 {@link MessageCompression} 时按 msgId 压缩消息体，并在 msgId 中设置压缩标记。
  */
-public class GatewayEncoder extends MessageToByteEncoder<GatewayPacket> {
+public class GatewayEncoder extends MessageToMessageEncoder<GatewayPacket> {
+
+    /**
+     * 消息体达到该长度时以组合缓冲区零拷贝写出，否则拷贝到协议头缓冲区
+     */
+    static final int COMPOSITE_THRESHOLD = 1024;
 
     private final boolean forFrontend;
+    private final MessageCompression compression;
 
     /**
      * 默认用于前端连接（客户端协议）
@@ -30,30 +47,67 @@ public class GatewayEncoder extends MessageToByteEncoder<GatewayPacket> {
      * @param forFrontend true=编码客户端协议（无sessionId），false=编码内部协议（有sessionId）
      */
     public GatewayEncoder(boolean forFrontend) {
+        this(forFrontend, null);
+    }
+
+    /**
+     * @param forFrontend true=编码客户端协议（无sessionId），false=编码内部协议（有sessionId）
+     * @param compression 消息体压缩，为 null 时不压缩
+     */
+    public GatewayEncoder(boolean forFrontend, MessageCompression compression) {
         this.forFrontend = forFrontend;
+        this.compression = compression;
     }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, GatewayPacket packet, ByteBuf out) {
-        byte[] body = packet.getBody();
-        int bodyLen = body == null ? 0 : body.length;
+    protected void encode(ChannelHandlerContext ctx, GatewayPacket packet, List<Object> out) {
+        out.add(encode(ctx.alloc(), packet));
+    }
 
+    /**
+     * 把网关包编码为完整的帧，不改变 packet 的引用计数
+     * <p>
+     * 也用于在 pipeline 之外一次编码、多次写出的广播。
+     * </p>
+     *
+     * @return 编码后的帧，由调用方负责释放
+     */
+    public ByteBuf encode(ByteBufAllocator alloc, GatewayPacket packet) {
+        ByteBuf compressed = compression != null
+                ? compression.compress(alloc, packet.getMsgId(), packet.content())
+                : null;
+        ByteBuf body = compressed != null ? compressed : packet.content();
+        int msgId = compressed != null ? compression.wireMsgId(packet.getMsgId()) : packet.getMsgId();
+        int bodyLen = body.readableBytes();
+        int headerLen = forFrontend ? 12 : 16;
+        boolean composite = bodyLen >= COMPOSITE_THRESHOLD;
+
+        ByteBuf header = alloc.ioBuffer(composite ? headerLen : headerLen + bodyLen);
         if (forFrontend) {
             // 客户端协议：length + msgId + seq + body
-            out.writeInt(8 + bodyLen);
-            out.writeInt(packet.getMsgId());
-            out.writeInt(packet.getSeq());
+            header.writeInt(8 + bodyLen);
+            header.writeInt(msgId);
+            header.writeInt(packet.getSeq());
         } else {
             // 内部协议：length + sessionId + msgId + seq + body
-            out.writeInt(12 + bodyLen);
-            out.writeInt(packet.getSessionId());
-            out.writeInt(packet.getMsgId());
-            out.writeInt(packet.getSeq());
+            header.writeInt(12 + bodyLen);
+            header.writeInt(packet.getSessionId());
+            header.writeInt(msgId);
+            header.writeInt(packet.getSeq());
         }
 
+        if (composite) {
+            // packet 会在编码后被释放，消息体需要额外保留一份引用交给组合缓冲区；压缩结果本身归编码器所有，直接转交
+            CompositeByteBuf buf = alloc.compositeBuffer(2);
+            buf.addComponents(true, header, compressed != null ? compressed : body.retainedSlice());
+            return buf;
+        }
         if (bodyLen > 0) {
-            out.writeBytes(body);
+            header.writeBytes(body, body.readerIndex(), bodyLen);
         }
+        if (compressed != null) {
+            compressed.release();
+        }
+        return header;
     }
 }
-
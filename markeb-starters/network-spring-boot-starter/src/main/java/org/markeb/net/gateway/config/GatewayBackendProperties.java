@@ -1,5 +1,6 @@
 package org.markeb.net.gateway.config;
 
+import org.markeb.net.transport.IoMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.util.HashMap;
@@ -18,6 +19,16 @@ public class GatewayBackendProperties {
         put("zone1", "127.0.0.1:9000");
     }};
 
+    /**
+     * pending 请求超时时间（毫秒），超时未收到后端响应的请求会被清理
+     */
+    private long pendingTimeoutMs = 30_000;
+
+    /**
+     * 后端连接的 I/O 模型，原生传输不可用时自动回退到 NIO
+     */
+    private IoMode ioMode = IoMode.AUTO;
+
     public Map<String, String> getZones() {
         return zones;
     }
@@ -25,5 +36,20 @@ public class GatewayBackendProperties {
     public void setZones(Map<String, String> zones) {
         this.zones = zones;
     }
-}
 
+    public long getPendingTimeoutMs() {
+        return pendingTimeoutMs;
+    }
+
+    public void setPendingTimeoutMs(long pendingTimeoutMs) {
+        this.pendingTimeoutMs = pendingTimeoutMs;
+    }
+
+    public IoMode getIoMode() {
+        return ioMode;
+    }
+
+    public void setIoMode(IoMode ioMode) {
+        this.ioMode = ioMode;
+    }
+}
@@ -22,11 +22,23 @@ public class DefaultChannelInitializer implements ChannelInitializerProvider {
 
     private final BusinessHandlerProvider handlerProvider;
 
+    private final Supplier<ChannelHandler> flushHandler;
+
     public DefaultChannelInitializer(IMessagePool<?> messagePool,
                                      BusinessHandlerProvider handlerProvider) {
+        this(messagePool, handlerProvider, null);
+    }
+
+    /**
+     * @param flushHandler 出站写合并处理器工厂，为 null 时不合并
+     */
+    public DefaultChannelInitializer(IMessagePool<?> messagePool,
+                                     BusinessHandlerProvider handlerProvider,
+                                     Supplier<ChannelHandler> flushHandler) {
         Objects.requireNonNull(messagePool, "Null messagePool not permitted");
         this.messagePool = messagePool;
         this.handlerProvider = handlerProvider;
+        this.flushHandler = flushHandler;
     }
 
     @Override
@@ -38,7 +50,12 @@ public class DefaultChannelInitializer implements ChannelInitializerProvider {
                         new IdleStateHandler(properties.getReaderIdleTime(), properties.getWriterIdleTime(),
                                 properties.getAllIdleTime(), TimeUnit.SECONDS));
 
-                ch.pipeline().addLast(messagePool().decoder());
+                // 出站写合并（位于编码器靠 socket 一侧，按编码后的字节计数）
+                if (flushHandler != null) {
+                    ch.pipeline().addLast("flushCoalescing", flushHandler.get());
+                }
+
+                ch.pipeline().addLast(messagePool().dispatchDecoder());
                 ch.pipeline().addLast(messagePool().encoder());
 
                 // 调用业务自定义 handlers
@@ -0,0 +1,32 @@
+package org.markeb.net.handler;
+
+import lombok.Data;
+
+/**
+ * 出站写合并配置
+ */
+@Data
+public class FlushCoalescingConfig {
+
+    /**
+     * 是否合并 flush
+     */
+    private boolean enabled = true;
+
+    /**
+     * 连续合并该次数的 flush 后立即刷出，避免出站缓冲区无限堆积
+     */
+    private int explicitFlushAfterFlushes = 256;
+
+    /**
+     * 待刷出字节数达到该值时立即刷出，应低于 WriteBufferWaterMark 的低水位
+     */
+    private int maxPendingBytes = 16 * 1024;
+
+    /**
+     * 按配置创建写合并处理器
+     */
+    public FlushCoalescingHandler newHandler(FlushCoalescingStats stats) {
+        return new FlushCoalescingHandler(explicitFlushAfterFlushes, maxPendingBytes, stats);
+    }
+}
@@ -0,0 +1,122 @@
+package org.markeb.net.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+/**
+ * 出站写合并处理器
+ * <p>
+ * 业务代码（Actor 回包、广播、通知、网关转发）每条消息都调用 writeAndFlush，一次战斗 tick 给同一连接推 20 条消息就是 20 次系统调用。
+ * 合并本身交给 Netty 的 {@link FlushConsolidationHandler}：
+ * <ul>
+ *   <li>读取进行中的 flush 推迟到 channelReadComplete，同一轮读触发的写入一次刷出</li>
+ *   <li>没有读取时，第一次 flush 向事件循环投递刷出任务，任务执行前的 flush 都被合并（同一批 Actor 投递、同一轮转发）</li>
+ *   <li>连续合并 explicitFlushAfterFlushes 次后立即刷出</li>
+ *   <li>Channel 变为不可写、关闭或处理器移除时刷出已合并的写入</li>
+ * </ul>
+ * 在此之上只补充两点：待刷出字节数达到 maxPendingBytes 或 Channel 已不可写时 flush 立即执行；
+ * 真正发出的每次 flush 记入 {@link FlushCoalescingStats}。
+ * </p>
+ * <p>
+ * 需要放在编码器靠 socket 的一侧（pipeline 中编解码器之前），此时写入的都是编码后的 ByteBuf，可以按字节计数。
+ * 添加到 pipeline 时会在自身靠 socket 的一侧插入一个计数处理器，统计真正到达 socket 的写入与 flush。
+ * 所有状态只在 Channel 所属的事件循环中读写，无需同步。
+ * </p>
+ */
+public class FlushCoalescingHandler extends FlushConsolidationHandler {
+
+    private final int maxPendingBytes;
+    private final FlushCoalescingStats stats;
+    private final FlushRecorder recorder = new FlushRecorder();
+
+    /**
+     * @param explicitFlushAfterFlushes 连续合并该次数的 flush 后立即刷出
+     * @param maxPendingBytes           待刷出字节数达到该值时立即刷出
+     * @param stats                     合并统计，可在多个 Channel 间共享
+     */
+    public FlushCoalescingHandler(int explicitFlushAfterFlushes, int maxPendingBytes, FlushCoalescingStats stats) {
+        super(Math.max(1, explicitFlushAfterFlushes), true);
+        this.maxPendingBytes = Math.max(1, maxPendingBytes);
+        this.stats = stats;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        ctx.pipeline().addBefore(ctx.name(), null, recorder);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        // Channel 关闭时 pipeline 会自行拆除计数处理器，只有运行中被单独移除时才需要带走它
+        if (ctx.channel().isOpen() && ctx.pipeline().context(recorder) != null) {
+            ctx.pipeline().remove(recorder);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (recorder.pendingWrites == 0) {
+            // 没有经过本处理器的写入（如 SSL 握手数据），直接透传
+            ctx.flush();
+        } else if (recorder.pendingBytes >= maxPendingBytes) {
+            stats.recordThresholdFlush();
+            ctx.flush();
+        } else if (!ctx.channel().isWritable()) {
+            stats.recordUnwritableFlush();
+            ctx.flush();
+        } else {
+            super.flush(ctx);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // 越过高水位时父类立即刷出已合并的写入，这里只补记统计
+        if (!ctx.channel().isWritable() && recorder.pendingWrites > 0) {
+            stats.recordUnwritableFlush();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    /**
+     * 计数处理器：位于合并处理器靠 socket 的一侧，累计两次 flush 之间的写入，flush 经过时记入统计
+     */
+    private final class FlushRecorder extends ChannelOutboundHandlerAdapter {
+
+        private int pendingWrites;
+        private long pendingBytes;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            pendingWrites++;
+            pendingBytes += sizeOf(msg);
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            if (pendingWrites > 0) {
+                stats.record(pendingWrites, pendingBytes);
+                pendingWrites = 0;
+                pendingBytes = 0;
+            }
+            ctx.flush();
+        }
+    }
+
+    private static long sizeOf(Object msg) {
+        if (msg instanceof ByteBuf buf) {
+            return buf.readableBytes();
+        }
+        if (msg instanceof ByteBufHolder holder) {
+            return holder.content().readableBytes();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,90 @@
+package org.markeb.net.handler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 出站写合并统计
+ * <p>
+ * 由所有玩家连接的 {@link FlushCoalescingHandler} 共享，各事件循环并发累加，使用 LongAdder 避免争用。
+ * 平均每次 flush 的消息数（{@link #getMessagesPerFlush()}）即合并效果，接近 1 说明几乎没有合并。
+ * </p>
+ */
+public class FlushCoalescingStats {
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder thresholdFlushes = new LongAdder();
+    private final LongAdder unwritableFlushes = new LongAdder();
+
+    /**
+     * 记录一次 flush
+     *
+     * @param messageCount 本次刷出的消息数
+     * @param byteCount    本次刷出的字节数
+     */
+    void record(int messageCount, long byteCount) {
+        flushes.increment();
+        messages.add(messageCount);
+        bytes.add(byteCount);
+    }
+
+    void recordThresholdFlush() {
+        thresholdFlushes.increment();
+    }
+
+    void recordUnwritableFlush() {
+        unwritableFlushes.increment();
+    }
+
+    /**
+     * 获取累计 flush 次数
+     */
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    /**
+     * 获取累计刷出的消息数
+     */
+    public long getMessageCount() {
+        return messages.sum();
+    }
+
+    /**
+     * 获取累计刷出的字节数
+     */
+    public long getByteCount() {
+        return bytes.sum();
+    }
+
+    /**
+     * 获取因达到字节阈值而提前刷出的次数
+     */
+    public long getThresholdFlushCount() {
+        return thresholdFlushes.sum();
+    }
+
+    /**
+     * 获取因 Channel 不可写而提前刷出的次数
+     */
+    public long getUnwritableFlushCount() {
+        return unwritableFlushes.sum();
+    }
+
+    /**
+     * 获取平均每次 flush 的消息数
+     */
+    public double getMessagesPerFlush() {
+        long flushCount = flushes.sum();
+        return flushCount > 0 ? (double) messages.sum() / flushCount : 0;
+    }
+
+    /**
+     * 获取平均每次 flush 的字节数
+     */
+    public double getBytesPerFlush() {
+        long flushCount = flushes.sum();
+        return flushCount > 0 ? (double) bytes.sum() / flushCount : 0;
+    }
+}
@@ -4,6 +4,8 @@ import org.markeb.net.protocol.GameServerPacket;
 import org.markeb.net.protocol.GatewayPacket;
 import org.markeb.net.protocol.Packet;
 import org.markeb.net.serialization.MessageCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,7 +45,9 @@ public class MessageDispatcher {
     @SuppressWarnings("unchecked")
     public void dispatch(ChannelHandlerContext ctx, Packet packet) {
         int messageId = packet.getMessageId();
-        byte[] body = packet.getBody();
+        // 堆内存且恰好覆盖整个数组时直接复用底层数组，否则才拷贝
+        ByteBuf content = packet.getBody();
+        byte[] body = ByteBufUtil.getBytes(content, content.readerIndex(), content.readableBytes(), false);
 
         // 解码消息体
         Object message = messageCodec.decode(messageId, body);
@@ -0,0 +1,49 @@
+package org.markeb.net.msg;
+
+import org.markeb.net.register.GameActorContext;
+import org.markeb.net.register.IContextHandle;
+
+/**
+ * 解码并完成分发查找的入站消息
+ * <p>
+ * 解码器在解析消息体的同一步里查出处理器，业务 handler 直接调用，无需再按消息类型查表。
+ * </p>
+ *
+ * @param <M> 消息类型
+ */
+public final class DispatchedMessage<M> {
+
+    private final int msgId;
+    private final M message;
+    private final IContextHandle<? extends GameActorContext, M> handler;
+
+    public DispatchedMessage(int msgId, M message, IContextHandle<? extends GameActorContext, M> handler) {
+        this.msgId = msgId;
+        this.message = message;
+        this.handler = handler;
+    }
+
+    public int getMsgId() {
+        return msgId;
+    }
+
+    public M getMessage() {
+        return message;
+    }
+
+    /**
+     * 消息处理器，未注册处理器时为 null
+     */
+    public IContextHandle<? extends GameActorContext, M> getHandler() {
+        return handler;
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchedMessage{" +
+                "msgId=" + msgId +
+                ", message=" + message.getClass().getSimpleName() +
+                ", handler=" + (handler != null) +
+                '}';
+    }
+}
@@ -1,5 +1,8 @@
 package org.markeb.net.msg;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
 public interface IGameParser<M> {
 
     int messageId(Class<M> message);
@@ -8,6 +11,16 @@ public interface IGameParser<M> {
 
     M parseFrom(int id, byte[] bodyBytes);
 
+    /**
+     * 直接从缓冲区解析消息体，读完全部可读字节
+     * <p>
+     * 默认拷贝为 byte[] 后解析，实现类可覆盖为零拷贝解析。
+     * </p>
+     */
+    default M parseFrom(int id, ByteBuf body) {
+        return parseFrom(id, ByteBufUtil.getBytes(body, body.readerIndex(), body.readableBytes(), false));
+    }
+
     void register(Class<M> message);
 
 }
@@ -2,6 +2,8 @@ package org.markeb.net.msg;
 
 import org.markeb.net.register.GameActorContext;
 import org.markeb.net.register.IContextHandle;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToByteEncoder;
 
@@ -13,8 +15,32 @@ public interface IMessagePool<M> {
 
     ByteToMessageDecoder decoder();
 
+    /**
+     * 服务端入站解码器：在解码的同一步查出处理器，输出 {@link DispatchedMessage}。
+     * <p>
+     * 服务端 handler 只接收 {@link DispatchedMessage}，实现必须输出该类型；
+     * 不支持分发表的实现在解码后通过 {@link #getHandler(Object)} 查找处理器并包装。
+     * </p>
+     */
+    ByteToMessageDecoder dispatchDecoder();
+
+    /**
+     * 在 pipeline 之外把消息编码为与 {@link #encoder()} 输出相同的完整帧，用于一次编码、多次写出的广播。
+     *
+     * @return 编码后的帧，由调用方负责释放
+     */
+    default ByteBuf encode(ByteBufAllocator alloc, M message) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support pre-encoding");
+    }
+
     void register(int msgId, IContextHandle<? extends GameActorContext, M> contextHandle);
 
     IContextHandle<? extends GameActorContext, M> getHandler(M message);
 
+    /**
+     * 所有消息与处理器注册完成后调用，冻结分发表，之后不再接受注册
+     */
+    default void freeze() {
+    }
+
 }
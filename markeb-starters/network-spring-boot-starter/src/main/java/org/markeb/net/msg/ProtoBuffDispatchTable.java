@@ -0,0 +1,266 @@
+package org.markeb.net.msg;
+
+import org.markeb.net.register.GameActorContext;
+import org.markeb.net.register.IContextHandle;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 冻结的 Protobuf 消息分发表
+ * <p>
+ * 启动时所有消息与处理器注册完成后一次性构建，之后只读：msgId 到 {@link Entry}（消息类、Parser、处理器）
+ * 的查找不装箱、不查 HashMap。
+ * </p>
+ * <p>
+ * 索引方式按 msgId 的分布选择：
+ * <ul>
+ *     <li>id 跨度较小时使用以最小 id 为基址的稠密数组，直接下标访问</li>
+ *     <li>id 稀疏时搜索一个无冲突的乘法哈希 {@code (id * multiplier) >>> shift}（完美哈希），命中后校验 key</li>
+ *     <li>极端情况下找不到完美哈希时退化为有序数组二分查找</li>
+ * </ul>
+ * 消息类到 {@link Entry} 的反向查找（编码时使用）由 {@link ClassValue} 缓存在类上。
+ * </p>
+ */
+public final class ProtoBuffDispatchTable {
+
+    /**
+     * 稠密数组允许的最小跨度，跨度不超过 max(该值, 16 * 消息数) 时使用稠密数组
+     */
+    static final int MIN_DENSE_SPAN = 1024;
+
+    /**
+     * 完美哈希表最多扩大到 2^MAX_EXTRA_BITS 倍的最小容量
+     */
+    private static final int MAX_EXTRA_BITS = 6;
+
+    /**
+     * 每种容量尝试的乘数个数
+     */
+    private static final int MULTIPLIER_ATTEMPTS = 1024;
+
+    private static final int MODE_DENSE = 0;
+    private static final int MODE_PERFECT_HASH = 1;
+    private static final int MODE_SORTED = 2;
+
+    private final int mode;
+    private final int base;
+    private final int multiplier;
+    private final int shift;
+    private final int[] keys;
+    private final Entry[] entries;
+    private final int size;
+    private final ClassValue<Entry> byClass;
+
+    private ProtoBuffDispatchTable(int mode, int base, int multiplier, int shift, int[] keys, Entry[] entries,
+                                   Map<Class<?>, Entry> classEntries) {
+        this.mode = mode;
+        this.base = base;
+        this.multiplier = multiplier;
+        this.shift = shift;
+        this.keys = keys;
+        this.entries = entries;
+        this.size = classEntries.size();
+        Map<Class<?>, Entry> frozen = Map.copyOf(classEntries);
+        this.byClass = new ClassValue<>() {
+            @Override
+            protected Entry computeValue(Class<?> type) {
+                return frozen.get(type);
+            }
+        };
+    }
+
+    /**
+     * 按 msgId 查找
+     *
+     * @return 分发项，未注册时返回 null
+     */
+    public Entry get(int msgId) {
+        switch (mode) {
+            case MODE_DENSE -> {
+                int index = msgId - base;
+                return index >= 0 && index < entries.length ? entries[index] : null;
+            }
+            case MODE_PERFECT_HASH -> {
+                int index = (msgId * multiplier) >>> shift;
+                Entry entry = entries[index];
+                return entry != null && keys[index] == msgId ? entry : null;
+            }
+            default -> {
+                int index = Arrays.binarySearch(keys, msgId);
+                return index >= 0 ? entries[index] : null;
+            }
+        }
+    }
+
+    /**
+     * 按消息类查找
+     *
+     * @return 分发项，未注册时返回 null
+     */
+    public Entry get(Class<?> messageClass) {
+        return byClass.get(messageClass);
+    }
+
+    /**
+     * 获取已注册的消息数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取索引方式（用于日志）
+     */
+    public String getIndexMode() {
+        return switch (mode) {
+            case MODE_DENSE -> "dense[" + entries.length + "]";
+            case MODE_PERFECT_HASH -> "perfect-hash[" + entries.length + "]";
+            default -> "sorted[" + entries.length + "]";
+        };
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 分发项：一个 msgId 对应的消息类、Parser 与处理器
+     */
+    public static final class Entry {
+
+        private final int msgId;
+        private final Class<? extends Message> messageClass;
+        private final Parser<? extends Message> parser;
+        private final IContextHandle<? extends GameActorContext, Message> handler;
+
+        Entry(int msgId, Class<? extends Message> messageClass, Parser<? extends Message> parser,
+              IContextHandle<? extends GameActorContext, Message> handler) {
+            this.msgId = msgId;
+            this.messageClass = messageClass;
+            this.parser = parser;
+            this.handler = handler;
+        }
+
+        public int getMsgId() {
+            return msgId;
+        }
+
+        public Class<? extends Message> getMessageClass() {
+            return messageClass;
+        }
+
+        public Parser<? extends Message> getParser() {
+            return parser;
+        }
+
+        /**
+         * 消息处理器，未注册处理器（如只下行的通知消息）时为 null
+         */
+        public IContextHandle<? extends GameActorContext, Message> getHandler() {
+            return handler;
+        }
+    }
+
+    /**
+     * 分发表构建器
+     */
+    public static final class Builder {
+
+        private final Map<Integer, Class<? extends Message>> messages = new HashMap<>();
+        private final Map<Integer, Parser<? extends Message>> parsers = new HashMap<>();
+        private final Map<Integer, IContextHandle<? extends GameActorContext, Message>> handlers = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 注册消息
+         */
+        public Builder message(int msgId, Class<? extends Message> messageClass, Parser<? extends Message> parser) {
+            if (messages.putIfAbsent(msgId, messageClass) != null) {
+                throw new IllegalArgumentException("Message ID already registered: " + msgId);
+            }
+            parsers.put(msgId, parser);
+            return this;
+        }
+
+        /**
+         * 注册处理器，对应的消息必须已注册
+         */
+        public Builder handler(int msgId, IContextHandle<? extends GameActorContext, Message> handler) {
+            if (handlers.putIfAbsent(msgId, handler) != null) {
+                throw new IllegalArgumentException("Handler already registered for message ID: " + msgId);
+            }
+            return this;
+        }
+
+        public ProtoBuffDispatchTable build() {
+            for (Integer msgId : handlers.keySet()) {
+                if (!messages.containsKey(msgId)) {
+                    throw new IllegalStateException("Handler registered for unknown message ID: " + msgId);
+                }
+            }
+
+            int n = messages.size();
+            int[] ids = messages.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            Map<Class<?>, Entry> classEntries = new HashMap<>();
+            Entry[] sorted = new Entry[n];
+            for (int i = 0; i < n; i++) {
+                int msgId = ids[i];
+                Entry entry = new Entry(msgId, messages.get(msgId), parsers.get(msgId), handlers.get(msgId));
+                sorted[i] = entry;
+                classEntries.put(entry.getMessageClass(), entry);
+            }
+            if (n == 0) {
+                return new ProtoBuffDispatchTable(MODE_DENSE, 0, 0, 0, ids, sorted, classEntries);
+            }
+
+            // 跨度较小：稠密数组
+            long span = (long) ids[n - 1] - ids[0] + 1;
+            if (span <= Math.max(MIN_DENSE_SPAN, 16L * n)) {
+                Entry[] dense = new Entry[(int) span];
+                for (Entry entry : sorted) {
+                    dense[entry.getMsgId() - ids[0]] = entry;
+                }
+                return new ProtoBuffDispatchTable(MODE_DENSE, ids[0], 0, 0, null, dense, classEntries);
+            }
+
+            // 稀疏：搜索无冲突的乘法哈希
+            int minBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(n - 1) + 1);
+            SplittableRandom random = new SplittableRandom(0x9E3779B97F4A7C15L);
+            for (int bits = minBits; bits <= Math.min(30, minBits + MAX_EXTRA_BITS); bits++) {
+                int shift = 32 - bits;
+                int[] keys = new int[1 << bits];
+                Entry[] slots = new Entry[1 << bits];
+                for (int attempt = 0; attempt < MULTIPLIER_ATTEMPTS; attempt++) {
+                    int multiplier = random.nextInt() | 1;
+                    if (fill(sorted, multiplier, shift, keys, slots)) {
+                        return new ProtoBuffDispatchTable(MODE_PERFECT_HASH, 0, multiplier, shift, keys, slots,
+                                classEntries);
+                    }
+                    Arrays.fill(slots, null);
+                }
+            }
+
+            // 退化：有序数组二分查找
+            return new ProtoBuffDispatchTable(MODE_SORTED, 0, 0, 0, ids, sorted, classEntries);
+        }
+
+        private static boolean fill(Entry[] sorted, int multiplier, int shift, int[] keys, Entry[] slots) {
+            for (Entry entry : sorted) {
+                int index = (entry.getMsgId() * multiplier) >>> shift;
+                if (slots[index] != null) {
+                    return false;
+                }
+                slots[index] = entry;
+                keys[index] = entry.getMsgId();
+            }
+            return true;
+        }
+    }
+}
@@ -1,21 +1,33 @@
 package org.markeb.net.msg;
 
+import org.markeb.net.codec.ProtoBuffDispatchDecoder;
 import org.markeb.net.codec.ProtoBuffGameDecoder;
 import org.markeb.net.codec.ProtoBuffGameEncoder;
 import org.markeb.net.register.GameActorContext;
 import org.markeb.net.register.IContextHandle;
 import com.google.protobuf.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToByteEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
 
 public class ProtoBuffGameMessagePool implements IMessagePool<Message> {
 
+    private static final Logger log = LoggerFactory.getLogger(ProtoBuffGameMessagePool.class);
+
     private final IGameParser<?> protoBuffParser;
 
-    private static final Map<Integer, IContextHandle<? extends GameActorContext, Message>> handlerPool = new HashMap<>();
+    /**
+     * 注册阶段的处理器，冻结后由分发表取代
+     */
+    private final Map<Integer, IContextHandle<? extends GameActorContext, Message>> handlerPool = new HashMap<>();
+
+    private volatile ProtoBuffDispatchTable dispatchTable;
 
     public ProtoBuffGameMessagePool(IGameParser<?> protoBuffParser) {
         this.protoBuffParser = protoBuffParser;
@@ -32,13 +44,26 @@ public class ProtoBuffGameMessagePool implements IMessagePool<Message> {
         return new ProtoBuffGameEncoder(messageParser());
     }
 
+    @Override
+    public ByteBuf encode(ByteBufAllocator alloc, Message message) {
+        return ProtoBuffGameEncoder.encode(alloc, messageParser(), message);
+    }
+
     @Override
     public ByteToMessageDecoder decoder() {
         return new ProtoBuffGameDecoder(messageParser());
     }
 
     @Override
-    public void register(int msgId, IContextHandle<? extends GameActorContext, Message> contextHandle) {
+    public ByteToMessageDecoder dispatchDecoder() {
+        return new ProtoBuffDispatchDecoder(this);
+    }
+
+    @Override
+    public synchronized void register(int msgId, IContextHandle<? extends GameActorContext, Message> contextHandle) {
+        if (dispatchTable != null) {
+            throw new IllegalStateException("Message pool is frozen, cannot register handler for message ID: " + msgId);
+        }
         if (handlerPool.containsKey(msgId)) {
             throw new IllegalArgumentException("Handler already registered for message ID: " + msgId);
         }
@@ -46,12 +71,44 @@ public class ProtoBuffGameMessagePool implements IMessagePool<Message> {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public IContextHandle<? extends GameActorContext, Message> getHandler(Message message) {
-        IGameParser<Message> parser = messageParser();
-        Class<Message> clazz = (Class<Message>) message.getClass();
-        int messageId = parser.messageId(clazz);
+        ProtoBuffDispatchTable table = dispatchTable;
+        if (table != null) {
+            ProtoBuffDispatchTable.Entry entry = table.get(message.getClass());
+            return entry != null ? entry.getHandler() : null;
+        }
+        return lookupHandler(message);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized IContextHandle<? extends GameActorContext, Message> lookupHandler(Message message) {
+        int messageId = messageParser().messageId((Class<Message>) message.getClass());
         return handlerPool.get(messageId);
     }
 
+    @Override
+    public synchronized void freeze() {
+        if (dispatchTable != null) {
+            return;
+        }
+        if (!(protoBuffParser instanceof ProtoBuffParser parser)) {
+            log.warn("Dispatch table requires ProtoBuffParser, got {}", protoBuffParser.getClass().getName());
+            return;
+        }
+        ProtoBuffDispatchTable.Builder builder = parser.dispatchTableBuilder();
+        handlerPool.forEach(builder::handler);
+        ProtoBuffDispatchTable table = builder.build();
+        parser.freeze(table);
+        dispatchTable = table;
+        log.info("Dispatch table frozen: {} messages, {} handlers, index: {}",
+                table.size(), handlerPool.size(), table.getIndexMode());
+    }
+
+    /**
+     * 获取冻结后的分发表，未冻结时返回 null
+     */
+    public ProtoBuffDispatchTable getDispatchTable() {
+        return dispatchTable;
+    }
+
 }
@@ -1,10 +1,12 @@
 package org.markeb.net.msg;
 
 
+import org.markeb.net.codec.ProtoBuffByteBufs;
 import com.google.protobuf.DescriptorProtos;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
+import io.netty.buffer.ByteBuf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,9 +24,17 @@ public class ProtoBuffParser implements IGameParser<Message> {
 
     private final Map<Integer, Parser<? extends Message>> parserMap = new HashMap<>();
 
-    private static final Map<Class<? extends Message>, Integer> messageToMsgId = new HashMap<>();
+    private final Map<Class<? extends Message>, Integer> messageToMsgId = new HashMap<>();
+
+    /**
+     * 冻结后的分发表，冻结后查找只走分发表
+     */
+    private volatile ProtoBuffDispatchTable dispatchTable;
 
     public void register(int id, Class<? extends Message> messageClazz, Parser<? extends Message> parser) {
+        if (dispatchTable != null) {
+            throw new IllegalStateException("Parser is frozen, cannot register message: " + messageClazz.getName());
+        }
         if (parserMap.containsKey(id)) {
             throw new IllegalArgumentException("Message ID already registered: " + id);
         }
@@ -33,8 +43,32 @@ public class ProtoBuffParser implements IGameParser<Message> {
         log.info("Registered message: {} with msgId: {}", messageClazz.getName(), id);
     }
 
+    /**
+     * 以已注册的消息创建分发表构建器
+     */
+    public ProtoBuffDispatchTable.Builder dispatchTableBuilder() {
+        ProtoBuffDispatchTable.Builder builder = ProtoBuffDispatchTable.builder();
+        messageToMsgId.forEach((clazz, id) -> builder.message(id, clazz, parserMap.get(id)));
+        return builder;
+    }
+
+    /**
+     * 冻结：之后不再接受注册，msgId 与消息类的查找改用分发表
+     */
+    public void freeze(ProtoBuffDispatchTable table) {
+        this.dispatchTable = table;
+    }
+
     @Override
     public int messageId(Class<Message> message) {
+        ProtoBuffDispatchTable table = dispatchTable;
+        if (table != null) {
+            ProtoBuffDispatchTable.Entry entry = table.get(message);
+            if (entry == null) {
+                throw new IllegalArgumentException("Message class not registered: " + message.getName());
+            }
+            return entry.getMsgId();
+        }
         Integer msgId = messageToMsgId.get(message);
         if (msgId == null) {
             throw new IllegalArgumentException("Message class not registered: " + message.getName());
@@ -49,10 +83,7 @@ public class ProtoBuffParser implements IGameParser<Message> {
 
     @Override
     public Message parseFrom(int id, byte[] bodyBytes) {
-        Parser<? extends Message> parser = parserMap.get(id);
-        if (parser == null) {
-            throw new IllegalArgumentException("Unknown message id: " + id);
-        }
+        Parser<? extends Message> parser = parserOf(id);
         try {
             return parser.parseFrom(bodyBytes);
         } catch (Exception e) {
@@ -60,6 +91,31 @@ public class ProtoBuffParser implements IGameParser<Message> {
         }
     }
 
+    @Override
+    public Message parseFrom(int id, ByteBuf body) {
+        Parser<? extends Message> parser = parserOf(id);
+        try {
+            return ProtoBuffByteBufs.parse(parser, body);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse message with id " + id, e);
+        }
+    }
+
+    private Parser<? extends Message> parserOf(int id) {
+        ProtoBuffDispatchTable table = dispatchTable;
+        Parser<? extends Message> parser;
+        if (table != null) {
+            ProtoBuffDispatchTable.Entry entry = table.get(id);
+            parser = entry != null ? entry.getParser() : null;
+        } else {
+            parser = parserMap.get(id);
+        }
+        if (parser == null) {
+            throw new IllegalArgumentException("Unknown message id: " + id);
+        }
+        return parser;
+    }
+
     @Override
     public void register(Class<Message> clazz) {
         int msgId = findMsgIdFromClass(clazz);
@@ -1,5 +1,7 @@
 package org.markeb.net.netty;
 
+import org.markeb.net.transport.IoMode;
+import org.markeb.net.transport.NettyTransport;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "network.netty")
@@ -17,6 +19,21 @@ public class NettyProperties {
 
     private long allIdleTime;
 
+    /**
+     * I/O 模型，原生传输不可用时自动回退到 NIO
+     */
+    private IoMode ioMode = IoMode.AUTO;
+
+    /**
+     * 是否开启 SO_REUSEPORT：每个 boss 线程各绑定一个监听 Channel（仅原生传输生效）
+     */
+    private boolean reusePort;
+
+    /**
+     * epoll 下是否使用边缘触发，关闭时使用水平触发
+     */
+    private boolean edgeTriggered = true;
+
     public int getBossThreads() {
         return bossThreads;
     }
@@ -57,4 +74,35 @@ public class NettyProperties {
         this.allIdleTime = allIdleTime;
     }
 
+    public IoMode getIoMode() {
+        return ioMode;
+    }
+
+    public void setIoMode(IoMode ioMode) {
+        this.ioMode = ioMode;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    public void setEdgeTriggered(boolean edgeTriggered) {
+        this.edgeTriggered = edgeTriggered;
+    }
+
+    /**
+     * 按配置创建传输层
+     */
+    public NettyTransport transport() {
+        return NettyTransport.create(ioMode, reusePort, edgeTriggered);
+    }
+
 }
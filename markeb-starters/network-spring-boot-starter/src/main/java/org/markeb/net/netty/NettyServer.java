@@ -4,16 +4,18 @@ import org.markeb.common.event.NetworkStartedEvent;
 import org.markeb.net.INetworkServer;
 import org.markeb.net.config.NetworkProperties;
 import org.markeb.net.handler.ChannelInitializerProvider;
+import org.markeb.net.transport.NettyTransport;
 import org.springframework.context.ApplicationEventPublisher;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class NettyServer implements INetworkServer {
 
     private static final Logger log = LoggerFactory.getLogger(NettyServer.class);
@@ -26,7 +28,10 @@ public class NettyServer implements INetworkServer {
 
     private final ApplicationEventPublisher publisher;
 
-    private Channel serverChannel;
+    /**
+     * 监听 Channel，开启 SO_REUSEPORT 时每个 boss 线程一个
+     */
+    private final List<Channel> serverChannels = new ArrayList<>();
 
     private EventLoopGroup bossGroup;
 
@@ -47,24 +52,29 @@ public class NettyServer implements INetworkServer {
     }
 
     public void start() throws InterruptedException {
-        bossGroup = new NioEventLoopGroup(nettyProperties.getBossThreads());
-        workerGroup = new NioEventLoopGroup(nettyProperties.getWorkerThreads());
+        NettyTransport transport = nettyProperties.transport();
+        bossGroup = transport.newEventLoopGroup(nettyProperties.getBossThreads());
+        workerGroup = transport.newEventLoopGroup(nettyProperties.getWorkerThreads());
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transport.serverChannelClass())
                     .option(ChannelOption.SO_REUSEADDR, true)
                     .childOption(ChannelOption.TCP_NODELAY, true)
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                     .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark());
+            transport.configure(bootstrap);
 
             ChannelInitializer<SocketChannel> initializer = initializerProvider.buildInitializer(nettyProperties);
             bootstrap.childHandler(initializer);
 
-            ChannelFuture channelFuture = bootstrap.bind(networkProperties.getPort()).sync();
-            this.serverChannel = channelFuture.channel();
-            log.info("Netty started at port {}", networkProperties.getPort());
+            int binds = transport.bindCount(nettyProperties.getBossThreads());
+            for (int i = 0; i < binds; i++) {
+                ChannelFuture channelFuture = bootstrap.bind(networkProperties.getPort()).sync();
+                serverChannels.add(channelFuture.channel());
+            }
+            log.info("Netty started at port {} ({}, {} acceptor(s))", networkProperties.getPort(), transport, binds);
             publisher.publishEvent(new NetworkStartedEvent(this));
         } catch (Exception e) {
             log.error("Netty server start failed on port {}", networkProperties.getPort(), e);
@@ -76,8 +86,11 @@ public class NettyServer implements INetworkServer {
     public void stop() {
         log.info("Shutting down Netty server...");
         try {
-            if (serverChannel != null) {
+            for (Channel serverChannel : serverChannels) {
                 serverChannel.close().sync();
+            }
+            if (!serverChannels.isEmpty()) {
+                serverChannels.clear();
                 log.info("Server channel closed");
             }
         } catch (InterruptedException e) {
@@ -1,5 +1,8 @@
 package org.markeb.net.protocol;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,7 +12,7 @@ import lombok.Setter;
  */
 @Getter
 @Setter
-public class GameServerPacket implements Packet {
+public class GameServerPacket extends DefaultByteBufHolder implements Packet {
 
     /**
      * 消息ID
@@ -36,21 +39,27 @@ public class GameServerPacket implements Packet {
      */
     private long conId;
 
-    /**
-     * 消息体
-     */
-    private byte[] body;
-
     public GameServerPacket() {
+        super(Unpooled.EMPTY_BUFFER);
     }
 
-    public GameServerPacket(int messageId, short seq, short gateId, long roleId, long conId, byte[] body) {
+    public GameServerPacket(int messageId, short seq, short gateId, long roleId, long conId, ByteBuf body) {
+        super(body != null ? body : Unpooled.EMPTY_BUFFER);
         this.messageId = messageId;
         this.seq = seq;
         this.gateId = gateId;
         this.roleId = roleId;
         this.conId = conId;
-        this.body = body;
+    }
+
+    public GameServerPacket(int messageId, short seq, short gateId, long roleId, long conId, byte[] body) {
+        this(messageId, seq, gateId, roleId, conId,
+                body != null ? Unpooled.wrappedBuffer(body) : Unpooled.EMPTY_BUFFER);
+    }
+
+    @Override
+    public ByteBuf getBody() {
+        return content();
     }
 
     @Override
@@ -62,11 +71,14 @@ public class GameServerPacket implements Packet {
      * 计算总长度（包含长度字段本身）
      */
     public int getTotalLength() {
-        return 28 + (body != null ? body.length : 0);
+        return 28 + content().readableBytes();
     }
 
     /**
      * 从网关包转换（网关转发到游戏服时使用）
+     * <p>
+     * 只改写协议头，消息体与网关包共享且不增加引用计数，写出前需要 {@link #retain()}。
+     * </p>
      */
     public static GameServerPacket fromGatewayPacket(GatewayPacket gatewayPacket, 
                                                       short gateId, long roleId, long conId) {
@@ -76,15 +88,46 @@ public class GameServerPacket implements Packet {
                 gateId,
                 roleId,
                 conId,
-                gatewayPacket.getBody()
+                gatewayPacket.content()
         );
     }
 
     /**
      * 转换为网关包（游戏服回包到网关时使用）
+     * <p>
+     * 只改写协议头，消息体共享且不增加引用计数，写出前需要 {@link #retain()}。
+     * </p>
      */
     public GatewayPacket toGatewayPacket() {
-        return new GatewayPacket(messageId, seq, body);
+        return new GatewayPacket(messageId, seq, content());
+    }
+
+    @Override
+    public GameServerPacket replace(ByteBuf content) {
+        return new GameServerPacket(messageId, seq, gateId, roleId, conId, content);
+    }
+
+    @Override
+    public GameServerPacket retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public GameServerPacket retain(int increment) {
+        super.retain(increment);
+        return this;
     }
-}
 
+    @Override
+    public GameServerPacket touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public GameServerPacket touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+}
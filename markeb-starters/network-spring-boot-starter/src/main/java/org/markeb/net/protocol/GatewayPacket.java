@@ -1,5 +1,8 @@
 package org.markeb.net.protocol;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,7 +12,7 @@ import lombok.Setter;
  */
 @Getter
 @Setter
-public class GatewayPacket implements Packet {
+public class GatewayPacket extends DefaultByteBufHolder implements Packet {
 
     public static final short DEFAULT_MAGIC = (short) 0xABCD;
 
@@ -28,27 +31,33 @@ public class GatewayPacket implements Packet {
      */
     private short magicNum;
 
-    /**
-     * 消息体
-     */
-    private byte[] body;
-
     public GatewayPacket() {
+        super(Unpooled.EMPTY_BUFFER);
         this.magicNum = DEFAULT_MAGIC;
     }
 
-    public GatewayPacket(int messageId, short seq, byte[] body) {
-        this.messageId = messageId;
-        this.seq = seq;
-        this.magicNum = DEFAULT_MAGIC;
-        this.body = body;
+    public GatewayPacket(int messageId, short seq, ByteBuf body) {
+        this(messageId, seq, DEFAULT_MAGIC, body);
     }
 
-    public GatewayPacket(int messageId, short seq, short magicNum, byte[] body) {
+    public GatewayPacket(int messageId, short seq, short magicNum, ByteBuf body) {
+        super(body != null ? body : Unpooled.EMPTY_BUFFER);
         this.messageId = messageId;
         this.seq = seq;
         this.magicNum = magicNum;
-        this.body = body;
+    }
+
+    public GatewayPacket(int messageId, short seq, byte[] body) {
+        this(messageId, seq, DEFAULT_MAGIC, body);
+    }
+
+    public GatewayPacket(int messageId, short seq, short magicNum, byte[] body) {
+        this(messageId, seq, magicNum, body != null ? Unpooled.wrappedBuffer(body) : Unpooled.EMPTY_BUFFER);
+    }
+
+    @Override
+    public ByteBuf getBody() {
+        return content();
     }
 
     @Override
@@ -60,7 +69,35 @@ public class GatewayPacket implements Packet {
      * 计算总长度（包含长度字段本身）
      */
     public int getTotalLength() {
-        return 12 + (body != null ? body.length : 0);
+        return 12 + content().readableBytes();
+    }
+
+    @Override
+    public GatewayPacket replace(ByteBuf content) {
+        return new GatewayPacket(messageId, seq, magicNum, content);
+    }
+
+    @Override
+    public GatewayPacket retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public GatewayPacket retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public GatewayPacket touch() {
+        super.touch();
+        return this;
     }
-}
 
+    @Override
+    public GatewayPacket touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+}
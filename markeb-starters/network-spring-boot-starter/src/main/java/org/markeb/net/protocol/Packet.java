@@ -1,10 +1,15 @@
 package org.markeb.net.protocol;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+
 /**
  * 通用数据包接口
  * 支持网关协议和游戏服协议
+ * <p>
+ * 消息体为解码帧的 {@link ByteBuf} 切片（引用计数），遵循 Netty 的引用计数约定。
  */
-public interface Packet {
+public interface Packet extends ByteBufHolder {
 
     /**
      * 获取消息ID
@@ -17,9 +22,9 @@ public interface Packet {
     short getSeq();
 
     /**
-     * 获取消息体字节数组
+     * 获取消息体（与 {@link #content()} 相同）
      */
-    byte[] getBody();
+    ByteBuf getBody();
 
     /**
      * 获取协议类型
@@ -1,31 +1,47 @@
 package org.markeb.net.protocol.codec;
 
+import org.markeb.net.compress.MessageCompression;
 import org.markeb.net.protocol.GameServerPacket;
 import org.markeb.net.protocol.GatewayPacket;
 import org.markeb.net.protocol.Packet;
 import org.markeb.net.protocol.ProtocolType;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 
 /**
  * 协议解码器
  * 根据协议类型解码为对应的 Packet
+ * <p>
+ * 消息体不拷贝：Packet 直接持有帧切片（引用计数），由下游 handler 负责释放。
+ * 带压缩标记的消息体解压为新的缓冲区交给 Packet，帧随即释放。
  */
 public class PacketDecoder extends LengthFieldBasedFrameDecoder {
 
     private final ProtocolType protocolType;
+    private final int maxFrameLength;
+    private final MessageCompression compression;
 
     public PacketDecoder(ProtocolType protocolType) {
         this(protocolType, 1024 * 1024); // 默认最大 1MB
     }
 
     public PacketDecoder(ProtocolType protocolType, int maxFrameLength) {
+        this(protocolType, maxFrameLength, null);
+    }
+
+    /**
+     * @param compression 消息体压缩，为 null 时收到带压缩标记的包按畸形帧处理
+     */
+    public PacketDecoder(ProtocolType protocolType, int maxFrameLength, MessageCompression compression) {
         // length 字段在偏移量 0，长度 4 字节
         // lengthAdjustment = -4 表示 length 包含自身
         // initialBytesToStrip = 4 表示跳过 length 字段
         super(maxFrameLength, 0, 4, -4, 4);
         this.protocolType = protocolType;
+        this.maxFrameLength = maxFrameLength;
+        this.compression = compression;
     }
 
     @Override
@@ -35,13 +51,19 @@ public class PacketDecoder extends LengthFieldBasedFrameDecoder {
             return null;
         }
 
+        boolean success = false;
         try {
-            return switch (protocolType) {
-                case GATEWAY -> decodeGatewayPacket(frame);
-                case GAME_SERVER -> decodeGameServerPacket(frame);
+            Packet packet = switch (protocolType) {
+                case GATEWAY -> decodeGatewayPacket(ctx, frame);
+                case GAME_SERVER -> decodeGameServerPacket(ctx, frame);
             };
+            success = true;
+            return packet;
         } finally {
-            frame.release();
+            // 解码成功后帧的所有权交给 Packet，只有失败时才在这里释放
+            if (!success) {
+                frame.release();
+            }
         }
     }
 
@@ -49,32 +71,44 @@ public class PacketDecoder extends LengthFieldBasedFrameDecoder {
      * 解码网关协议
      * 4 messageId + 2 seq + 2 magicNum + body
      */
-    private Packet decodeGatewayPacket(ByteBuf frame) {
+    private Packet decodeGatewayPacket(ChannelHandlerContext ctx, ByteBuf frame) {
         int messageId = frame.readInt();
         short seq = frame.readShort();
         short magicNum = frame.readShort();
 
-        byte[] body = new byte[frame.readableBytes()];
-        frame.readBytes(body);
-
-        return new GatewayPacket(messageId, seq, magicNum, body);
+        // 读完协议头后剩余部分即消息体，直接持有帧切片，不拷贝
+        return new GatewayPacket(MessageCompression.msgIdOf(messageId), seq, magicNum, body(ctx, messageId, frame));
     }
 
     /**
      * 解码游戏服协议
      * 4 messageId + 2 seq + 2 gateId + 8 roleId + 8 conId + body
      */
-    private Packet decodeGameServerPacket(ByteBuf frame) {
+    private Packet decodeGameServerPacket(ChannelHandlerContext ctx, ByteBuf frame) {
         int messageId = frame.readInt();
         short seq = frame.readShort();
         short gateId = frame.readShort();
         long roleId = frame.readLong();
         long conId = frame.readLong();
 
-        byte[] body = new byte[frame.readableBytes()];
-        frame.readBytes(body);
+        return new GameServerPacket(MessageCompression.msgIdOf(messageId), seq, gateId, roleId, conId,
+                body(ctx, messageId, frame));
+    }
 
-        return new GameServerPacket(messageId, seq, gateId, roleId, conId, body);
+    /**
+     * 未压缩时消息体就是帧本身；压缩时解压到新缓冲区并释放帧
+     */
+    private ByteBuf body(ChannelHandlerContext ctx, int messageId, ByteBuf frame) {
+        if (!MessageCompression.isCompressed(messageId)) {
+            return frame;
+        }
+        if (compression == null) {
+            throw new CorruptedFrameException("Compressed body received but compression is disabled, msgId "
+                    + MessageCompression.msgIdOf(messageId));
+        }
+        ByteBuf body = compression.decompress(ctx.alloc(), messageId, frame, maxFrameLength);
+        frame.release();
+        return body;
     }
 }
 
@@ -1,23 +1,51 @@
 package org.markeb.net.protocol.codec;
 
+import org.markeb.net.compress.MessageCompression;
 import org.markeb.net.protocol.GameServerPacket;
 import org.markeb.net.protocol.GatewayPacket;
 import org.markeb.net.protocol.Packet;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
 
 /**
  * 协议编码器
  * 根据 Packet 类型编码为对应的字节流
+ * <p>
+ * 只写协议头，消息体为 {@link ByteBuf}：较大的消息体与协议头组合成 {@link CompositeByteBuf} 零拷贝写出，
+ * 较小的消息体直接拷贝到协议头所在的池化缓冲区。每个 Packet 只产出一个 ByteBuf，
+ * 后续的 WebSocket 帧编码器不会把一个包拆成多帧。
+ * <p>
+ * 配置了 {@link MessageCompression} 时按 msgId 压缩消息体，并在协议头的 messageId 中设置压缩标记。
  */
-public class PacketEncoder extends MessageToByteEncoder<Packet> {
+public class PacketEncoder extends MessageToMessageEncoder<Packet> {
+
+    /**
+     * 消息体达到该长度时以组合缓冲区零拷贝写出，否则拷贝到协议头缓冲区
+     */
+    static final int COMPOSITE_THRESHOLD = 1024;
+
+    private final MessageCompression compression;
+
+    public PacketEncoder() {
+        this(null);
+    }
+
+    /**
+     * @param compression 消息体压缩，为 null 时不压缩
+     */
+    public PacketEncoder(MessageCompression compression) {
+        this.compression = compression;
+    }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, Packet msg, ByteBuf out) {
+    protected void encode(ChannelHandlerContext ctx, Packet msg, List<Object> out) {
         switch (msg) {
-            case GatewayPacket gp -> encodeGatewayPacket(gp, out);
-            case GameServerPacket gsp -> encodeGameServerPacket(gsp, out);
+            case GatewayPacket gp -> out.add(encodeGatewayPacket(ctx, gp));
+            case GameServerPacket gsp -> out.add(encodeGameServerPacket(ctx, gsp));
             default -> throw new IllegalArgumentException("Unknown packet type: " + msg.getClass());
         }
     }
@@ -26,38 +54,68 @@ public class PacketEncoder extends MessageToByteEncoder<Packet> {
      * 编码网关协议
      * 4 length + 4 messageId + 2 seq + 2 magicNum + body
      */
-    private void encodeGatewayPacket(GatewayPacket packet, ByteBuf out) {
-        byte[] body = packet.getBody();
-        int bodyLength = body != null ? body.length : 0;
+    private ByteBuf encodeGatewayPacket(ChannelHandlerContext ctx, GatewayPacket packet) {
+        ByteBuf compressed = compress(ctx, packet);
+        ByteBuf body = compressed != null ? compressed : packet.content();
+        int bodyLength = body.readableBytes();
         int totalLength = 12 + bodyLength; // 4 + 4 + 2 + 2 + body
 
-        out.writeInt(totalLength);
-        out.writeInt(packet.getMessageId());
-        out.writeShort(packet.getSeq());
-        out.writeShort(packet.getMagicNum());
-        if (body != null && bodyLength > 0) {
-            out.writeBytes(body);
-        }
+        ByteBuf header = allocateHeader(ctx, 12, bodyLength);
+        header.writeInt(totalLength);
+        header.writeInt(compressed != null ? compression.wireMsgId(packet.getMessageId()) : packet.getMessageId());
+        header.writeShort(packet.getSeq());
+        header.writeShort(packet.getMagicNum());
+        return appendBody(ctx, header, body, compressed != null);
     }
 
     /**
      * 编码游戏服协议
      * 4 length + 4 messageId + 2 seq + 2 gateId + 8 roleId + 8 conId + body
      */
-    private void encodeGameServerPacket(GameServerPacket packet, ByteBuf out) {
-        byte[] body = packet.getBody();
-        int bodyLength = body != null ? body.length : 0;
+    private ByteBuf encodeGameServerPacket(ChannelHandlerContext ctx, GameServerPacket packet) {
+        ByteBuf compressed = compress(ctx, packet);
+        ByteBuf body = compressed != null ? compressed : packet.content();
+        int bodyLength = body.readableBytes();
         int totalLength = 28 + bodyLength; // 4 + 4 + 2 + 2 + 8 + 8 + body
 
-        out.writeInt(totalLength);
-        out.writeInt(packet.getMessageId());
-        out.writeShort(packet.getSeq());
-        out.writeShort(packet.getGateId());
-        out.writeLong(packet.getRoleId());
-        out.writeLong(packet.getConId());
-        if (body != null && bodyLength > 0) {
-            out.writeBytes(body);
+        ByteBuf header = allocateHeader(ctx, 28, bodyLength);
+        header.writeInt(totalLength);
+        header.writeInt(compressed != null ? compression.wireMsgId(packet.getMessageId()) : packet.getMessageId());
+        header.writeShort(packet.getSeq());
+        header.writeShort(packet.getGateId());
+        header.writeLong(packet.getRoleId());
+        header.writeLong(packet.getConId());
+        return appendBody(ctx, header, body, compressed != null);
+    }
+
+    /**
+     * 按配置压缩消息体，不压缩时返回 null
+     */
+    private ByteBuf compress(ChannelHandlerContext ctx, Packet packet) {
+        return compression != null ? compression.compress(ctx.alloc(), packet.getMessageId(), packet.content()) : null;
+    }
+
+    private ByteBuf allocateHeader(ChannelHandlerContext ctx, int headerLength, int bodyLength) {
+        return ctx.alloc().ioBuffer(bodyLength >= COMPOSITE_THRESHOLD ? headerLength : headerLength + bodyLength);
+    }
+
+    /**
+     * @param owned body 是否为编码器自己创建的缓冲区（压缩结果），是则直接转交或拷贝后释放
+     */
+    private ByteBuf appendBody(ChannelHandlerContext ctx, ByteBuf header, ByteBuf body, boolean owned) {
+        int bodyLength = body.readableBytes();
+        if (bodyLength >= COMPOSITE_THRESHOLD) {
+            // Packet 会在编码后被释放，消息体需要额外保留一份引用交给组合缓冲区
+            CompositeByteBuf buf = ctx.alloc().compositeBuffer(2);
+            buf.addComponents(true, header, owned ? body : body.retainedSlice());
+            return buf;
         }
+        if (bodyLength > 0) {
+            header.writeBytes(body, body.readerIndex(), bodyLength);
+        }
+        if (owned) {
+            body.release();
+        }
+        return header;
     }
 }
-
@@ -78,6 +78,9 @@ public class MessageHandlerRegistrar implements SmartInitializingSingleton {
                 log.info("Registering handler, msgId: {}, className : {}, Method: {}", msgId, handlerClazz.getName(), method.getName());
             }
         }
+
+        // 注册完成，冻结分发表
+        messagePool.freeze();
     }
 
     @Nullable
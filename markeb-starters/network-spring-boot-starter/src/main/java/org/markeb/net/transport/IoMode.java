@@ -0,0 +1,27 @@
+package org.markeb.net.transport;
+
+/**
+ * Netty I/O 模型
+ */
+public enum IoMode {
+
+    /**
+     * 自动选择：Linux 上可用时使用 epoll，否则使用 NIO
+     */
+    AUTO,
+
+    /**
+     * Linux epoll，不可用时回退到 NIO
+     */
+    EPOLL,
+
+    /**
+     * Linux io_uring（需引入 netty-incubator-transport-native-io_uring），不可用时依次回退到 epoll、NIO
+     */
+    IO_URING,
+
+    /**
+     * JDK NIO，所有平台可用
+     */
+    NIO
+}
@@ -0,0 +1,209 @@
+package org.markeb.net.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Netty 传输层选择
+ * <p>
+ * 按配置的 {@link IoMode} 选择事件循环与 Channel 实现，原生传输不可用（非 Linux、缺少依赖或内核不支持）时自动回退到 NIO，
+ * 各服务器与客户端统一经由这里创建 EventLoopGroup 和 Channel，不再直接依赖 Nio* 类。
+ * </p>
+ * <p>
+ * 原生传输下额外支持：
+ * <ul>
+ *   <li>SO_REUSEPORT：同一端口绑定多个监听 Channel，每个 boss 线程各自 accept，由内核在它们之间分配新连接</li>
+ *   <li>epoll 边缘触发（ET）：减少就绪事件的重复通知，默认开启；关闭时使用水平触发（LT）</li>
+ * </ul>
+ * </p>
+ */
+public final class NettyTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(NettyTransport.class);
+
+    private static final boolean EPOLL_PRESENT = isPresent("io.netty.channel.epoll.Epoll");
+    private static final boolean IO_URING_PRESENT = isPresent("io.netty.incubator.channel.uring.IOUring");
+
+    private final IoMode mode;
+    private final boolean reusePort;
+    private final boolean edgeTriggered;
+
+    private NettyTransport(IoMode mode, boolean reusePort, boolean edgeTriggered) {
+        this.mode = mode;
+        this.reusePort = reusePort;
+        this.edgeTriggered = edgeTriggered;
+    }
+
+    /**
+     * 按偏好选择传输层
+     *
+     * @param preferred     期望的 I/O 模型，不可用时回退
+     * @param reusePort     是否开启 SO_REUSEPORT（仅原生传输生效）
+     * @param edgeTriggered epoll 下是否使用边缘触发
+     */
+    public static NettyTransport create(IoMode preferred, boolean reusePort, boolean edgeTriggered) {
+        IoMode resolved = resolve(preferred != null ? preferred : IoMode.AUTO);
+        if (resolved != preferred && preferred != IoMode.AUTO) {
+            log.warn("{} transport is not available, falling back to {}", preferred, resolved);
+        }
+        if (reusePort && resolved == IoMode.NIO) {
+            log.warn("SO_REUSEPORT requires a native transport, ignored on NIO");
+        }
+        return new NettyTransport(resolved, reusePort && resolved != IoMode.NIO, edgeTriggered);
+    }
+
+    /**
+     * 自动选择，不开启 SO_REUSEPORT，适用于客户端连接
+     */
+    public static NettyTransport auto() {
+        return create(IoMode.AUTO, false, true);
+    }
+
+    private static IoMode resolve(IoMode preferred) {
+        if (preferred == IoMode.IO_URING && ioUringAvailable()) {
+            return IoMode.IO_URING;
+        }
+        if (preferred != IoMode.NIO && epollAvailable()) {
+            return IoMode.EPOLL;
+        }
+        return IoMode.NIO;
+    }
+
+    private static boolean epollAvailable() {
+        return EPOLL_PRESENT && Epoll.isAvailable();
+    }
+
+    private static boolean ioUringAvailable() {
+        return IO_URING_PRESENT && IOUring.isAvailable();
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, NettyTransport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建事件循环组
+     *
+     * @param threads 线程数，0 表示 Netty 默认值（CPU 核数 * 2）
+     */
+    public EventLoopGroup newEventLoopGroup(int threads) {
+        return switch (mode) {
+            case IO_URING -> new IOUringEventLoopGroup(threads);
+            case EPOLL -> new EpollEventLoopGroup(threads);
+            default -> new NioEventLoopGroup(threads);
+        };
+    }
+
+    public Class<? extends ServerSocketChannel> serverChannelClass() {
+        return switch (mode) {
+            case IO_URING -> IOUringServerSocketChannel.class;
+            case EPOLL -> EpollServerSocketChannel.class;
+            default -> NioServerSocketChannel.class;
+        };
+    }
+
+    public Class<? extends SocketChannel> socketChannelClass() {
+        return switch (mode) {
+            case IO_URING -> IOUringSocketChannel.class;
+            case EPOLL -> EpollSocketChannel.class;
+            default -> NioSocketChannel.class;
+        };
+    }
+
+    public Class<? extends DatagramChannel> datagramChannelClass() {
+        return switch (mode) {
+            case IO_URING -> IOUringDatagramChannel.class;
+            case EPOLL -> EpollDatagramChannel.class;
+            default -> NioDatagramChannel.class;
+        };
+    }
+
+    /**
+     * 为监听端设置原生传输选项：SO_REUSEPORT 与 epoll 触发模式（监听 Channel 与子 Channel 都生效）
+     */
+    public void configure(ServerBootstrap bootstrap) {
+        if (mode == IoMode.EPOLL) {
+            EpollMode epollMode = edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, reusePort)
+                    .option(EpollChannelOption.EPOLL_MODE, epollMode)
+                    .childOption(EpollChannelOption.EPOLL_MODE, epollMode);
+        } else if (mode == IoMode.IO_URING) {
+            bootstrap.option(IOUringChannelOption.SO_REUSEPORT, reusePort);
+        }
+    }
+
+    /**
+     * 为 UDP 监听设置原生传输选项
+     */
+    public void configure(Bootstrap bootstrap) {
+        if (mode == IoMode.EPOLL) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, reusePort)
+                    .option(EpollChannelOption.EPOLL_MODE,
+                            edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+        } else if (mode == IoMode.IO_URING) {
+            bootstrap.option(IOUringChannelOption.SO_REUSEPORT, reusePort);
+        }
+    }
+
+    /**
+     * 同一端口需要绑定的监听 Channel 数
+     * <p>
+     * 开启 SO_REUSEPORT 时每个 acceptor 线程绑定一个监听 Channel，否则只绑定一个。
+     * ServerBootstrap 按轮询把每次 bind 的 Channel 注册到 boss 组中的下一个事件循环。
+     * </p>
+     *
+     * @param acceptors acceptor 线程数
+     */
+    public int bindCount(int acceptors) {
+        return reusePort ? Math.max(1, acceptors) : 1;
+    }
+
+    public IoMode getMode() {
+        return mode;
+    }
+
+    public boolean isNative() {
+        return mode != IoMode.NIO;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    @Override
+    public String toString() {
+        return mode + (reusePort ? "+SO_REUSEPORT" : "") + (mode == IoMode.EPOLL ? (edgeTriggered ? "/ET" : "/LT") : "");
+    }
+}
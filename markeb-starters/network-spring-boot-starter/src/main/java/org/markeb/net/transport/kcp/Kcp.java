@@ -0,0 +1,895 @@
+package org.markeb.net.transport.kcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * KCP 协议引擎（按 ikcp.c 移植）
+ * <p>
+ * 基于 ARQ 的可靠传输：按序号重传、选择确认、快速重传、拥塞窗口与接收窗口流控。
+ * 引擎本身不做 I/O，也不持有定时器：
+ * <ul>
+ *   <li>收到的 UDP 数据交给 {@link #input(ByteBuf)}，组装好的消息由 {@link #recv(ByteBufAllocator)} 取出</li>
+ *   <li>待发送的消息交给 {@link #send(ByteBuf)}，由 {@link #flush()} / {@link #update(int)} 通过 {@link Output} 写出</li>
+ *   <li>调用方按 {@link #check(int)} 返回的时间驱动 {@link #update(int)}</li>
+ * </ul>
+ * 非线程安全，同一个实例只能在一个线程（Channel 所属的事件循环）中使用。
+ * </p>
+ * <p>
+ * 序号与时间戳都是 32 位无符号数，按差值比较，回绕后仍然正确。报文头为小端序：
+ * conv(4) + cmd(1) + frg(1) + wnd(2) + ts(4) + sn(4) + una(4) + len(4)
+ * </p>
+ */
+public class Kcp {
+
+    public static final int OVERHEAD = 24;
+
+    public static final int CMD_PUSH = 81;
+    public static final int CMD_ACK = 82;
+    public static final int CMD_WASK = 83;
+    public static final int CMD_WINS = 84;
+
+    private static final int RTO_NDL = 30;
+    private static final int RTO_MIN = 100;
+    private static final int RTO_DEF = 200;
+    private static final int RTO_MAX = 60000;
+    private static final int ASK_SEND = 1;
+    private static final int ASK_TELL = 2;
+    private static final int WND_SND = 32;
+    private static final int WND_RCV = 128;
+    private static final int MTU_DEF = 1400;
+    private static final int INTERVAL = 100;
+    private static final int DEADLINK = 20;
+    private static final int THRESH_INIT = 2;
+    private static final int THRESH_MIN = 2;
+    private static final int PROBE_INIT = 7000;
+    private static final int PROBE_LIMIT = 120000;
+    private static final int FASTACK_LIMIT = 5;
+
+    /**
+     * 报文输出
+     */
+    @FunctionalInterface
+    public interface Output {
+
+        /**
+         * 写出一个 UDP 报文，data 的所有权交给实现方
+         */
+        void output(ByteBuf data, Kcp kcp);
+    }
+
+    private final int conv;
+    private final Output output;
+    private final ByteBufAllocator allocator;
+
+    private int mtu = MTU_DEF;
+    private int mss = MTU_DEF - OVERHEAD;
+    private boolean dead;
+
+    private int sndUna;
+    private int sndNxt;
+    private int rcvNxt;
+    private int ssthresh = THRESH_INIT;
+    private int rxRttval;
+    private int rxSrtt;
+    private int rxRto = RTO_DEF;
+    private int rxMinrto = RTO_MIN;
+    private int sndWnd = WND_SND;
+    private int rcvWnd = WND_RCV;
+    private int rmtWnd = WND_RCV;
+    private int cwnd;
+    private int incr;
+    private int probe;
+    private int current;
+    private int interval = INTERVAL;
+    private int tsFlush = INTERVAL;
+    private long xmit;
+    private int nodelay;
+    private boolean updated;
+    private int tsProbe;
+    private int probeWait;
+    private int deadLink = DEADLINK;
+    private int fastresend;
+    private int fastlimit = FASTACK_LIMIT;
+    private boolean nocwnd;
+    private boolean stream;
+
+    private final ArrayDeque<Segment> sndQueue = new ArrayDeque<>();
+    private final ArrayDeque<Segment> rcvQueue = new ArrayDeque<>();
+    private final ArrayDeque<Segment> sndBuf = new ArrayDeque<>();
+    private final ArrayList<Segment> rcvBuf = new ArrayList<>();
+
+    /**
+     * 待确认列表：sn 与 ts 交替存放
+     */
+    private int[] ackList = new int[16];
+    private int ackCount;
+
+    public Kcp(int conv, Output output, ByteBufAllocator allocator) {
+        this.conv = conv;
+        this.output = output;
+        this.allocator = allocator;
+    }
+
+    // ---------------------------------------------------------------- 配置
+
+    /**
+     * 设置 MTU，MSS = MTU - 24
+     */
+    public void setMtu(int mtu) {
+        if (mtu < 50) {
+            throw new IllegalArgumentException("mtu too small: " + mtu);
+        }
+        this.mtu = mtu;
+        this.mss = mtu - OVERHEAD;
+    }
+
+    /**
+     * 极速模式配置
+     *
+     * @param nodelay  0 关闭，1 开启（最小 RTO 30ms，超时重传 RTO 按 1.5 倍增长），2 更激进的退避
+     * @param interval 内部 flush 间隔（毫秒），限制在 10 ~ 5000
+     * @param resend   快速重传阈值：被跨越多少次 ACK 后立即重传，0 关闭
+     * @param nc       是否关闭拥塞控制
+     */
+    public void nodelay(int nodelay, int interval, int resend, boolean nc) {
+        if (nodelay >= 0) {
+            this.nodelay = nodelay;
+            this.rxMinrto = nodelay != 0 ? RTO_NDL : RTO_MIN;
+        }
+        if (interval >= 0) {
+            this.interval = Math.min(5000, Math.max(10, interval));
+        }
+        if (resend >= 0) {
+            this.fastresend = resend;
+        }
+        this.nocwnd = nc;
+    }
+
+    /**
+     * 设置发送窗口与接收窗口（接收窗口不小于 128）
+     */
+    public void wndsize(int sndWnd, int rcvWnd) {
+        if (sndWnd > 0) {
+            this.sndWnd = sndWnd;
+        }
+        if (rcvWnd > 0) {
+            this.rcvWnd = Math.max(rcvWnd, WND_RCV);
+        }
+    }
+
+    /**
+     * 流模式：不保留消息边界，小消息合并进同一个分片，消息大小不受接收窗口限制
+     */
+    public void setStream(boolean stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * 快速重传的最大次数，超过后只按超时重传，<= 0 不限制
+     */
+    public void setFastlimit(int fastlimit) {
+        this.fastlimit = fastlimit;
+    }
+
+    /**
+     * 单个分片重传达到该次数后认为链路已断开
+     */
+    public void setDeadLink(int deadLink) {
+        this.deadLink = deadLink;
+    }
+
+    public int getConv() {
+        return conv;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getMss() {
+        return mss;
+    }
+
+    /**
+     * 链路是否已断开（某个分片重传次数达到 deadLink）
+     */
+    public boolean isDead() {
+        return dead;
+    }
+
+    /**
+     * 等待发送的分片数（未确认 + 未进入发送窗口）
+     */
+    public int waitSnd() {
+        return sndBuf.size() + sndQueue.size();
+    }
+
+    /**
+     * 累计重传次数（不含快速重传）
+     */
+    public long getRetransmits() {
+        return xmit;
+    }
+
+    public int getRtt() {
+        return rxSrtt;
+    }
+
+    public int getRto() {
+        return rxRto;
+    }
+
+    // ---------------------------------------------------------------- 上层接口
+
+    /**
+     * 读取下一条完整消息的长度，没有时返回 -1
+     */
+    public int peekSize() {
+        Segment seg = rcvQueue.peekFirst();
+        if (seg == null) {
+            return -1;
+        }
+        if (seg.frg == 0) {
+            return seg.data.readableBytes();
+        }
+        if (rcvQueue.size() < seg.frg + 1) {
+            return -1;
+        }
+        int length = 0;
+        for (Segment s : rcvQueue) {
+            length += s.data.readableBytes();
+            if (s.frg == 0) {
+                break;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 是否有完整消息可读
+     */
+    public boolean canRecv() {
+        return peekSize() >= 0;
+    }
+
+    /**
+     * 取出一条完整消息
+     *
+     * @return 消息（调用方负责释放），没有完整消息时返回 null
+     */
+    public ByteBuf recv(ByteBufAllocator alloc) {
+        int size = peekSize();
+        if (size < 0) {
+            return null;
+        }
+        boolean recover = rcvQueue.size() >= rcvWnd;
+
+        ByteBuf message;
+        Segment first = rcvQueue.pollFirst();
+        if (first.frg == 0) {
+            // 单分片消息直接交出分片数据，不拷贝
+            message = first.data;
+            first.data = null;
+        } else {
+            message = alloc.buffer(size);
+            Segment seg = first;
+            while (true) {
+                message.writeBytes(seg.data);
+                int frg = seg.frg;
+                seg.release();
+                if (frg == 0) {
+                    break;
+                }
+                seg = rcvQueue.pollFirst();
+            }
+        }
+
+        moveReceived();
+
+        // 接收窗口从满变为有空闲，主动告知对端
+        if (rcvQueue.size() < rcvWnd && recover) {
+            probe |= ASK_TELL;
+        }
+        return message;
+    }
+
+    /**
+     * 提交一条待发送的消息，消息按 MSS 切片后进入发送队列，实际发送发生在下一次 flush
+     * <p>
+     * 接管 buf 的引用计数：切片各自持有一份引用，返回前释放调用方的这份。
+     * </p>
+     *
+     * @throws IllegalArgumentException 消息模式下分片数超过接收窗口
+     */
+    public void send(ByteBuf buf) {
+        try {
+            int len = buf.readableBytes();
+            if (stream) {
+                Segment last = sndQueue.peekLast();
+                if (last != null && last.data.readableBytes() < mss) {
+                    // 流模式下先填满上一个未满的分片
+                    int extend = Math.min(len, mss - last.data.readableBytes());
+                    ByteBuf merged = allocator.buffer(last.data.readableBytes() + extend);
+                    merged.writeBytes(last.data).writeBytes(buf, extend);
+                    last.data.release();
+                    last.data = merged;
+                    len -= extend;
+                }
+                if (len <= 0) {
+                    return;
+                }
+            }
+
+            int count = len <= mss ? 1 : (len + mss - 1) / mss;
+            if (!stream && count >= WND_RCV) {
+                throw new IllegalArgumentException("Message too large for KCP message mode: " + len + " bytes");
+            }
+            for (int i = 0; i < count; i++) {
+                int size = Math.min(len, mss);
+                Segment seg = new Segment(buf.readRetainedSlice(size));
+                seg.frg = stream ? 0 : count - i - 1;
+                sndQueue.addLast(seg);
+                len -= size;
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    // ---------------------------------------------------------------- 输入
+
+    /**
+     * 处理收到的 UDP 报文（一个报文可包含多个 KCP 分片）
+     * <p>
+     * 不接管 data 的引用计数；数据分片以 retainedSlice 的形式保存，不拷贝。
+     * </p>
+     *
+     * @return 0 成功，-1 conv 不匹配或长度不足，-2 数据长度错误，-3 未知命令
+     */
+    public int input(ByteBuf data) {
+        int prevUna = sndUna;
+        int maxack = 0;
+        boolean flag = false;
+
+        if (data.readableBytes() < OVERHEAD) {
+            return -1;
+        }
+
+        while (data.readableBytes() >= OVERHEAD) {
+            int segConv = data.readIntLE();
+            if (segConv != conv) {
+                return -1;
+            }
+            int cmd = data.readUnsignedByte();
+            int frg = data.readUnsignedByte();
+            int wnd = data.readUnsignedShortLE();
+            int ts = data.readIntLE();
+            int sn = data.readIntLE();
+            int una = data.readIntLE();
+            int len = data.readIntLE();
+
+            if (len < 0 || data.readableBytes() < len) {
+                return -2;
+            }
+            if (cmd != CMD_PUSH && cmd != CMD_ACK && cmd != CMD_WASK && cmd != CMD_WINS) {
+                return -3;
+            }
+
+            rmtWnd = wnd;
+            parseUna(una);
+            shrinkBuf();
+
+            if (cmd == CMD_ACK) {
+                if (current - ts >= 0) {
+                    updateAck(current - ts);
+                }
+                parseAck(sn);
+                shrinkBuf();
+                if (!flag) {
+                    flag = true;
+                    maxack = sn;
+                } else if (sn - maxack > 0) {
+                    maxack = sn;
+                }
+            } else if (cmd == CMD_PUSH) {
+                if (sn - (rcvNxt + rcvWnd) < 0) {
+                    ackPush(sn, ts);
+                    if (sn - rcvNxt >= 0) {
+                        Segment seg = new Segment(data.retainedSlice(data.readerIndex(), len));
+                        seg.frg = frg;
+                        seg.sn = sn;
+                        parseData(seg);
+                    }
+                }
+            } else if (cmd == CMD_WASK) {
+                // 对端探测窗口，下次 flush 时告知
+                probe |= ASK_TELL;
+            }
+            data.skipBytes(len);
+        }
+
+        if (flag) {
+            parseFastack(maxack);
+        }
+
+        // 有新数据被确认，扩大拥塞窗口
+        if (sndUna - prevUna > 0 && cwnd < rmtWnd) {
+            if (cwnd < ssthresh) {
+                cwnd++;
+                incr += mss;
+            } else {
+                if (incr < mss) {
+                    incr = mss;
+                }
+                incr += (mss * mss) / incr + (mss / 16);
+                if ((cwnd + 1) * mss <= incr) {
+                    cwnd = (incr + mss - 1) / mss;
+                }
+            }
+            if (cwnd > rmtWnd) {
+                cwnd = rmtWnd;
+                incr = rmtWnd * mss;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 检查报文是否属于当前连接：格式完整，且每个分片的 una 与序号都落在当前收发窗口内
+     * <p>
+     * 不修改任何状态，也不移动 data 的读索引。来源地址变化时据此决定是否迁移会话，
+     * 伪造报文除了猜中 conv，还要猜中 32 位序号空间中的窗口。
+     * </p>
+     * <ul>
+     *   <li>una：对端的接收进度，只能在 [sndUna, sndNxt] 之间</li>
+     *   <li>PUSH 的 sn：在接收窗口内，或是最近一个窗口内已收到分片的重传</li>
+     *   <li>ACK 的 sn：已发出的分片，或最近一个发送窗口内已确认分片的重复确认</li>
+     * </ul>
+     */
+    public boolean inWindow(ByteBuf data) {
+        int index = data.readerIndex();
+        int end = data.writerIndex();
+        if (end - index < OVERHEAD) {
+            return false;
+        }
+        while (end - index >= OVERHEAD) {
+            if (data.getIntLE(index) != conv) {
+                return false;
+            }
+            int cmd = data.getUnsignedByte(index + 4);
+            int sn = data.getIntLE(index + 12);
+            int una = data.getIntLE(index + 16);
+            int len = data.getIntLE(index + 20);
+            index += OVERHEAD;
+            if (len < 0 || end - index < len) {
+                return false;
+            }
+            if (!between(una, sndUna, sndNxt)) {
+                return false;
+            }
+            boolean valid = switch (cmd) {
+                case CMD_PUSH -> between(sn, rcvNxt - rcvWnd, rcvNxt + rcvWnd - 1);
+                case CMD_ACK -> between(sn, sndUna - sndWnd, sndNxt - 1);
+                case CMD_WASK, CMD_WINS -> true;
+                default -> false;
+            };
+            if (!valid) {
+                return false;
+            }
+            index += len;
+        }
+        return true;
+    }
+
+    /**
+     * 按回绕差值判断 low <= value <= high
+     */
+    private static boolean between(int value, int low, int high) {
+        return value - low >= 0 && high - value >= 0;
+    }
+
+    private void updateAck(int rtt) {
+        if (rxSrtt == 0) {
+            rxSrtt = rtt;
+            rxRttval = rtt / 2;
+        } else {
+            int delta = Math.abs(rtt - rxSrtt);
+            rxRttval = (3 * rxRttval + delta) / 4;
+            rxSrtt = Math.max(1, (7 * rxSrtt + rtt) / 8);
+        }
+        int rto = rxSrtt + Math.max(interval, 4 * rxRttval);
+        rxRto = Math.min(RTO_MAX, Math.max(rxMinrto, rto));
+    }
+
+    private void shrinkBuf() {
+        Segment seg = sndBuf.peekFirst();
+        sndUna = seg != null ? seg.sn : sndNxt;
+    }
+
+    private void parseAck(int sn) {
+        if (sn - sndUna < 0 || sn - sndNxt >= 0) {
+            return;
+        }
+        for (Iterator<Segment> it = sndBuf.iterator(); it.hasNext(); ) {
+            Segment seg = it.next();
+            if (sn == seg.sn) {
+                it.remove();
+                seg.release();
+                break;
+            }
+            if (sn - seg.sn < 0) {
+                break;
+            }
+        }
+    }
+
+    private void parseUna(int una) {
+        Segment seg;
+        while ((seg = sndBuf.peekFirst()) != null && una - seg.sn > 0) {
+            sndBuf.pollFirst();
+            seg.release();
+        }
+    }
+
+    private void parseFastack(int sn) {
+        if (sn - sndUna < 0 || sn - sndNxt >= 0) {
+            return;
+        }
+        for (Segment seg : sndBuf) {
+            if (sn - seg.sn < 0) {
+                break;
+            }
+            if (sn != seg.sn) {
+                seg.fastack++;
+            }
+        }
+    }
+
+    private void ackPush(int sn, int ts) {
+        int need = (ackCount + 1) * 2;
+        if (need > ackList.length) {
+            int[] grown = new int[ackList.length * 2];
+            System.arraycopy(ackList, 0, grown, 0, ackCount * 2);
+            ackList = grown;
+        }
+        ackList[ackCount * 2] = sn;
+        ackList[ackCount * 2 + 1] = ts;
+        ackCount++;
+    }
+
+    private void parseData(Segment newseg) {
+        int sn = newseg.sn;
+        if (sn - (rcvNxt + rcvWnd) >= 0 || sn - rcvNxt < 0) {
+            newseg.release();
+            return;
+        }
+
+        // 从尾部向前找插入位置，乱序到达的分片通常在尾部附近
+        int i = rcvBuf.size() - 1;
+        boolean repeat = false;
+        for (; i >= 0; i--) {
+            Segment seg = rcvBuf.get(i);
+            if (seg.sn == sn) {
+                repeat = true;
+                break;
+            }
+            if (sn - seg.sn > 0) {
+                break;
+            }
+        }
+        if (repeat) {
+            newseg.release();
+        } else {
+            rcvBuf.add(i + 1, newseg);
+        }
+
+        moveReceived();
+    }
+
+    /**
+     * 把 rcvBuf 中已连续的分片移入 rcvQueue
+     */
+    private void moveReceived() {
+        int count = 0;
+        while (count < rcvBuf.size()) {
+            Segment seg = rcvBuf.get(count);
+            if (seg.sn != rcvNxt || rcvQueue.size() >= rcvWnd) {
+                break;
+            }
+            rcvQueue.addLast(seg);
+            rcvNxt++;
+            count++;
+        }
+        if (count > 0) {
+            rcvBuf.subList(0, count).clear();
+        }
+    }
+
+    // ---------------------------------------------------------------- 输出
+
+    private int wndUnused() {
+        return Math.max(0, rcvWnd - rcvQueue.size());
+    }
+
+    /**
+     * 立即写出 ACK、窗口探测与可发送的数据分片
+     * <p>
+     * 需要先调用过一次 {@link #update(int)}。
+     * </p>
+     */
+    public void flush() {
+        if (!updated) {
+            return;
+        }
+        int now = current;
+        int wnd = wndUnused();
+        ByteBuf buffer = null;
+
+        // ACK
+        for (int i = 0; i < ackCount; i++) {
+            buffer = reserve(buffer, OVERHEAD);
+            encode(buffer, CMD_ACK, 0, wnd, ackList[i * 2 + 1], ackList[i * 2], rcvNxt, 0);
+        }
+        ackCount = 0;
+
+        // 对端窗口为 0 时按指数退避探测
+        if (rmtWnd == 0) {
+            if (probeWait == 0) {
+                probeWait = PROBE_INIT;
+                tsProbe = now + probeWait;
+            } else if (now - tsProbe >= 0) {
+                if (probeWait < PROBE_INIT) {
+                    probeWait = PROBE_INIT;
+                }
+                probeWait += probeWait / 2;
+                if (probeWait > PROBE_LIMIT) {
+                    probeWait = PROBE_LIMIT;
+                }
+                tsProbe = now + probeWait;
+                probe |= ASK_SEND;
+            }
+        } else {
+            tsProbe = 0;
+            probeWait = 0;
+        }
+        if ((probe & ASK_SEND) != 0) {
+            buffer = reserve(buffer, OVERHEAD);
+            encode(buffer, CMD_WASK, 0, wnd, 0, 0, rcvNxt, 0);
+        }
+        if ((probe & ASK_TELL) != 0) {
+            buffer = reserve(buffer, OVERHEAD);
+            encode(buffer, CMD_WINS, 0, wnd, 0, 0, rcvNxt, 0);
+        }
+        probe = 0;
+
+        // 发送窗口 = min(本端发送窗口, 对端接收窗口, 拥塞窗口)
+        int window = Math.min(sndWnd, rmtWnd);
+        if (!nocwnd) {
+            window = Math.min(cwnd, window);
+        }
+        while (sndNxt - (sndUna + window) < 0) {
+            Segment seg = sndQueue.pollFirst();
+            if (seg == null) {
+                break;
+            }
+            seg.ts = now;
+            seg.sn = sndNxt++;
+            seg.resendts = now;
+            seg.rto = rxRto;
+            seg.fastack = 0;
+            seg.xmit = 0;
+            sndBuf.addLast(seg);
+        }
+
+        int resent = fastresend > 0 ? fastresend : Integer.MAX_VALUE;
+        int rtomin = nodelay == 0 ? (rxRto >> 3) : 0;
+        boolean lost = false;
+        boolean change = false;
+
+        for (Segment seg : sndBuf) {
+            boolean needsend = false;
+            if (seg.xmit == 0) {
+                needsend = true;
+                seg.xmit++;
+                seg.rto = rxRto;
+                seg.resendts = now + seg.rto + rtomin;
+            } else if (now - seg.resendts >= 0) {
+                // 超时重传
+                needsend = true;
+                seg.xmit++;
+                xmit++;
+                if (nodelay == 0) {
+                    seg.rto += Math.max(seg.rto, rxRto);
+                } else {
+                    int step = nodelay < 2 ? seg.rto : rxRto;
+                    seg.rto += step / 2;
+                }
+                seg.resendts = now + seg.rto;
+                lost = true;
+            } else if (seg.fastack >= resent) {
+                // 快速重传：被后续分片的 ACK 跨越 resent 次
+                if (seg.xmit <= fastlimit || fastlimit <= 0) {
+                    needsend = true;
+                    seg.xmit++;
+                    seg.fastack = 0;
+                    seg.resendts = now + seg.rto;
+                    change = true;
+                }
+            }
+
+            if (needsend) {
+                seg.ts = now;
+                int len = seg.data.readableBytes();
+                buffer = reserve(buffer, OVERHEAD + len);
+                encode(buffer, CMD_PUSH, seg.frg, wnd, now, seg.sn, rcvNxt, len);
+                buffer.writeBytes(seg.data, seg.data.readerIndex(), len);
+                if (seg.xmit >= deadLink) {
+                    dead = true;
+                }
+            }
+        }
+
+        if (buffer != null) {
+            if (buffer.isReadable()) {
+                output.output(buffer, this);
+            } else {
+                buffer.release();
+            }
+        }
+
+        if (change) {
+            int inflight = sndNxt - sndUna;
+            ssthresh = Math.max(THRESH_MIN, inflight / 2);
+            cwnd = ssthresh + resent;
+            incr = cwnd * mss;
+        }
+        if (lost) {
+            ssthresh = Math.max(THRESH_MIN, window / 2);
+            cwnd = 1;
+            incr = mss;
+        }
+        if (cwnd < 1) {
+            cwnd = 1;
+            incr = mss;
+        }
+    }
+
+    /**
+     * 确保当前报文还能容纳 need 字节，放不下时先写出当前报文
+     */
+    private ByteBuf reserve(ByteBuf buffer, int need) {
+        if (buffer != null && buffer.readableBytes() + need > mtu) {
+            output.output(buffer, this);
+            buffer = null;
+        }
+        if (buffer == null) {
+            buffer = allocator.ioBuffer(mtu);
+        }
+        return buffer;
+    }
+
+    private void encode(ByteBuf buf, int cmd, int frg, int wnd, int ts, int sn, int una, int len) {
+        buf.writeIntLE(conv);
+        buf.writeByte(cmd);
+        buf.writeByte(frg);
+        buf.writeShortLE(wnd);
+        buf.writeIntLE(ts);
+        buf.writeIntLE(sn);
+        buf.writeIntLE(una);
+        buf.writeIntLE(len);
+    }
+
+    // ---------------------------------------------------------------- 时钟
+
+    /**
+     * 推进时钟，到达 flush 间隔时执行 flush
+     *
+     * @param current 当前时间（毫秒，可回绕）
+     */
+    public void update(int current) {
+        this.current = current;
+        if (!updated) {
+            updated = true;
+            tsFlush = current;
+        }
+        int slap = current - tsFlush;
+        if (slap >= 10000 || slap < -10000) {
+            tsFlush = current;
+            slap = 0;
+        }
+        if (slap >= 0) {
+            tsFlush += interval;
+            if (current - tsFlush >= 0) {
+                tsFlush = current + interval;
+            }
+            flush();
+        }
+    }
+
+    /**
+     * 下一次需要调用 {@link #update(int)} 的时间，期间没有输入或发送时可以跳过 update
+     */
+    public int check(int current) {
+        if (!updated) {
+            return current;
+        }
+        int tsFlushLocal = tsFlush;
+        if (current - tsFlushLocal >= 10000 || current - tsFlushLocal < -10000) {
+            tsFlushLocal = current;
+        }
+        if (current - tsFlushLocal >= 0) {
+            return current;
+        }
+        int tmFlush = tsFlushLocal - current;
+        int tmPacket = Integer.MAX_VALUE;
+        for (Segment seg : sndBuf) {
+            int diff = seg.resendts - current;
+            if (diff <= 0) {
+                return current;
+            }
+            if (diff < tmPacket) {
+                tmPacket = diff;
+            }
+        }
+        int minimal = Math.min(Math.min(tmPacket, tmFlush), interval);
+        return current + minimal;
+    }
+
+    /**
+     * 更新当前时间而不触发 flush，供输入或发送后立即 flush 使用
+     */
+    public void setCurrent(int current) {
+        this.current = current;
+    }
+
+    /**
+     * 释放所有缓冲中的分片
+     */
+    public void release() {
+        releaseAll(sndQueue);
+        releaseAll(rcvQueue);
+        releaseAll(sndBuf);
+        releaseAll(rcvBuf);
+        rcvBuf.clear();
+    }
+
+    private static void releaseAll(Iterable<Segment> segments) {
+        for (Segment seg : segments) {
+            seg.release();
+        }
+        if (segments instanceof ArrayDeque<Segment> deque) {
+            deque.clear();
+        }
+    }
+
+    /**
+     * 分片，data 为引用计数的切片
+     */
+    private static final class Segment {
+
+        ByteBuf data;
+        int frg;
+        int ts;
+        int sn;
+        int resendts;
+        int rto;
+        int fastack;
+        int xmit;
+
+        Segment(ByteBuf data) {
+            this.data = data;
+        }
+
+        void release() {
+            if (data != null) {
+                data.release();
+                data = null;
+            }
+        }
+    }
+}
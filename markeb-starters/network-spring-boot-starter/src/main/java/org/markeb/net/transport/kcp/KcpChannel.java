@@ -0,0 +1,263 @@
+package org.markeb.net.transport.kcp;
+
+import org.markeb.net.config.NetworkProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.EventLoop;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * 一个 KCP 会话对应的子 Channel
+ * <p>
+ * 父 Channel 是服务端的 UDP socket，子 Channel 注册在父 Channel 的事件循环上，所有状态只在该线程中读写。
+ * 对上层与 TCP 连接一样：入站是 KCP 组装好的 {@link ByteBuf}，出站写入 {@link ByteBuf}，
+ * 因此可以直接挂上与 TCP 相同的 PacketDecoder / PacketEncoder / PacketHandler。
+ * </p>
+ * <p>
+ * 时钟由 {@link KcpServerHandler} 的共享定时器统一驱动，会话本身不持有定时任务。
+ * </p>
+ */
+public class KcpChannel extends AbstractChannel {
+
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    private final KcpServerHandler owner;
+    private final DefaultChannelConfig config;
+    private final Kcp kcp;
+    private final boolean ackNoDelay;
+    private final boolean fastFlush;
+
+    private volatile InetSocketAddress remoteAddress;
+    private volatile boolean open = true;
+
+    private int lastReceiveTime;
+    private int nextUpdate;
+
+    KcpChannel(Channel parent, KcpServerHandler owner, int conv, InetSocketAddress remoteAddress,
+               NetworkProperties.KcpConfig kcpConfig, int now) {
+        super(parent);
+        this.owner = owner;
+        this.remoteAddress = remoteAddress;
+        this.config = new DefaultChannelConfig(this);
+        this.config.setAllocator(parent.config().getAllocator());
+        this.ackNoDelay = kcpConfig.isAckNoDelay();
+        this.fastFlush = kcpConfig.isFastFlush();
+
+        this.kcp = new Kcp(conv, (data, k) -> owner.output(this, data), config.getAllocator());
+        kcp.nodelay(kcpConfig.getNodelay(), kcpConfig.getInterval(), kcpConfig.getResend(),
+                kcpConfig.isNoCongestionWindow());
+        kcp.wndsize(kcpConfig.getSndWnd(), kcpConfig.getRcvWnd());
+        kcp.setMtu(kcpConfig.getMtu());
+        kcp.setStream(kcpConfig.isStream());
+        kcp.setDeadLink(kcpConfig.getDeadLink());
+        kcp.update(now);
+        this.lastReceiveTime = now;
+        this.nextUpdate = kcp.check(now);
+    }
+
+    /**
+     * 处理一个属于本会话的 UDP 报文，组装出的完整消息依次传给 pipeline
+     * <p>
+     * 报文成功输入后，若来源地址与当前地址不同则迁移到来源地址，之后的 ACK 与数据发往新地址。
+     * 调用方负责在地址不同时先用 {@link #inWindow(ByteBuf)} 校验。
+     * </p>
+     *
+     * @param sender 报文来源地址
+     * @return {@link Kcp#input(ByteBuf)} 的返回值
+     */
+    int input(ByteBuf data, InetSocketAddress sender, int now) {
+        lastReceiveTime = now;
+        kcp.setCurrent(now);
+        int rc = kcp.input(data);
+        if (rc < 0) {
+            return rc;
+        }
+        if (!sender.equals(remoteAddress)) {
+            remoteAddress = sender;
+        }
+
+        boolean read = false;
+        ByteBuf message;
+        while (open && (message = kcp.recv(alloc())) != null) {
+            read = true;
+            pipeline().fireChannelRead(message);
+        }
+        if (read) {
+            pipeline().fireChannelReadComplete();
+        }
+
+        if (ackNoDelay && open) {
+            kcp.flush();
+            nextUpdate = kcp.check(now);
+        }
+        return rc;
+    }
+
+    /**
+     * 共享定时器的 tick，只在 {@link Kcp#check(int)} 给出的时间到达后才真正 update
+     */
+    void update(int now) {
+        if (now - nextUpdate >= 0) {
+            kcp.update(now);
+            nextUpdate = kcp.check(now);
+        }
+    }
+
+    /**
+     * 是否已超时：超过 timeout 毫秒未收到数据，或链路已断开
+     */
+    boolean isExpired(int now, int timeout) {
+        return now - lastReceiveTime > timeout || kcp.isDead();
+    }
+
+    int conv() {
+        return kcp.getConv();
+    }
+
+    /**
+     * 报文的序号是否落在当前收发窗口内，见 {@link Kcp#inWindow(ByteBuf)}；
+     * 对端地址变化（NAT 重绑定、网络切换）时，只有通过校验的报文才能把会话迁移到新地址
+     */
+    boolean inWindow(ByteBuf data) {
+        return kcp.inWindow(data);
+    }
+
+    /**
+     * 等待发送与等待确认的分片数
+     */
+    public int waitSnd() {
+        return kcp.waitSnd();
+    }
+
+    /**
+     * 平滑 RTT（毫秒）
+     */
+    public int getRtt() {
+        return kcp.getRtt();
+    }
+
+    /**
+     * 累计超时重传次数
+     */
+    public long getRetransmits() {
+        return kcp.getRetransmits();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) {
+        boolean wrote = false;
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                break;
+            }
+            if (msg instanceof ByteBuf buf) {
+                try {
+                    // send 接管一份引用，outbound buffer remove 时释放自己的那份
+                    kcp.send(buf.retain());
+                    in.remove();
+                    wrote = true;
+                } catch (IllegalArgumentException e) {
+                    in.remove(e);
+                }
+            } else {
+                in.remove(new UnsupportedOperationException(
+                        "Unsupported message type: " + msg.getClass().getName()));
+            }
+        }
+        if (wrote && fastFlush) {
+            int now = owner.now();
+            kcp.setCurrent(now);
+            kcp.flush();
+            nextUpdate = kcp.check(now);
+        }
+        owner.flushIfNeeded();
+    }
+
+    @Override
+    protected void doClose() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        kcp.release();
+        owner.remove(this);
+    }
+
+    @Override
+    protected void doDisconnect() {
+        doClose();
+    }
+
+    @Override
+    protected void doBeginRead() {
+        // 数据由父 Channel 推送，不需要主动读
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        // 只会注册到父 Channel 的事件循环，父 Channel 可能是 NIO、epoll 或 io_uring
+        return true;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return parent().localAddress();
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remoteAddress;
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    protected AbstractUnsafe newUnsafe() {
+        return new KcpUnsafe();
+    }
+
+    @Override
+    public ChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isActive() {
+        return open;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    private final class KcpUnsafe extends AbstractUnsafe {
+
+        @Override
+        public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+            promise.setFailure(new UnsupportedOperationException());
+        }
+    }
+}
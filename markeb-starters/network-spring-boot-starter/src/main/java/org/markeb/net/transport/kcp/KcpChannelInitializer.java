@@ -0,0 +1,85 @@
+package org.markeb.net.transport.kcp;
+
+import org.markeb.net.compress.MessageCompression;
+import org.markeb.net.handler.MessageDispatcher;
+import org.markeb.net.handler.PacketHandler;
+import org.markeb.net.protocol.ProtocolType;
+import org.markeb.net.protocol.codec.PacketDecoder;
+import org.markeb.net.protocol.codec.PacketEncoder;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.timeout.IdleStateHandler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * KCP 会话 Channel 初始化器，pipeline 与 TCP 相同
+ */
+public class KcpChannelInitializer extends ChannelInitializer<KcpChannel> {
+
+    private final long readerIdleTime;
+    private final long writerIdleTime;
+    private final long allIdleTime;
+    private final ProtocolType protocolType;
+    private final int maxFrameLength;
+    private final MessageDispatcher messageDispatcher;
+    private final Supplier<ChannelHandler> flushHandler;
+    private final MessageCompression compression;
+
+    public KcpChannelInitializer(long readerIdleTime, long writerIdleTime, long allIdleTime,
+                                 ProtocolType protocolType, int maxFrameLength,
+                                 MessageDispatcher messageDispatcher) {
+        this(readerIdleTime, writerIdleTime, allIdleTime, protocolType, maxFrameLength, messageDispatcher, null);
+    }
+
+    /**
+     * @param flushHandler 出站写合并处理器工厂，为 null 时不合并
+     */
+    public KcpChannelInitializer(long readerIdleTime, long writerIdleTime, long allIdleTime,
+                                 ProtocolType protocolType, int maxFrameLength,
+                                 MessageDispatcher messageDispatcher, Supplier<ChannelHandler> flushHandler) {
+        this(readerIdleTime, writerIdleTime, allIdleTime, protocolType, maxFrameLength, messageDispatcher,
+                flushHandler, null);
+    }
+
+    /**
+     * @param flushHandler 出站写合并处理器工厂，为 null 时不合并
+     * @param compression  消息体压缩，为 null 时不压缩
+     */
+    public KcpChannelInitializer(long readerIdleTime, long writerIdleTime, long allIdleTime,
+                                 ProtocolType protocolType, int maxFrameLength,
+                                 MessageDispatcher messageDispatcher, Supplier<ChannelHandler> flushHandler,
+                                 MessageCompression compression) {
+        this.readerIdleTime = readerIdleTime;
+        this.writerIdleTime = writerIdleTime;
+        this.allIdleTime = allIdleTime;
+        this.protocolType = protocolType;
+        this.maxFrameLength = maxFrameLength;
+        this.messageDispatcher = messageDispatcher;
+        this.flushHandler = flushHandler;
+        this.compression = compression;
+    }
+
+    @Override
+    protected void initChannel(KcpChannel ch) {
+        ChannelPipeline pipeline = ch.pipeline();
+
+        // 空闲检测
+        pipeline.addLast("idleStateHandler",
+                new IdleStateHandler(readerIdleTime, writerIdleTime, allIdleTime, TimeUnit.SECONDS));
+
+        // 出站写合并（位于编码器靠 socket 一侧，按编码后的字节计数）
+        if (flushHandler != null) {
+            pipeline.addLast("flushCoalescing", flushHandler.get());
+        }
+
+        // 协议编解码（KCP 流模式下与 TCP 一样按长度字段分帧）
+        pipeline.addLast("decoder", new PacketDecoder(protocolType, maxFrameLength, compression));
+        pipeline.addLast("encoder", new PacketEncoder(compression));
+
+        // 消息处理
+        pipeline.addLast("handler", new PacketHandler(messageDispatcher));
+    }
+}
@@ -0,0 +1,199 @@
+package org.markeb.net.transport.kcp;
+
+import org.markeb.net.config.NetworkProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KCP 服务端会话表，挂在 UDP socket 的 pipeline 上
+ * <p>
+ * 按报文头中的 conv 查找会话，首个 PUSH 报文创建会话（{@link KcpChannel}）并挂上子 Channel 的 handler。
+ * 所有会话由一个固定间隔的定时任务统一驱动，而不是每个会话一个定时任务；
+ * 会话只在 {@link Kcp#check(int)} 给出的时间到达后才 update，空闲会话的开销只是一次比较。
+ * </p>
+ * <p>
+ * 一个 UDP socket 一个实例，会话表与定时任务都只在该 socket 的事件循环中访问，无需同步。
+ * 同一次读或 tick 中产生的报文只 flush 一次。
+ * </p>
+ * <p>
+ * 来源地址与会话当前地址不同的报文，只有序号落在会话收发窗口内（{@link Kcp#inWindow}）才交给会话，
+ * 并在成功输入后把会话迁移到新地址；否则直接丢弃，猜中 conv 的伪造报文无法劫持会话。
+ * </p>
+ */
+public class KcpServerHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(KcpServerHandler.class);
+
+    private final NetworkProperties.KcpConfig kcpConfig;
+    private final ChannelHandler childHandler;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * conv -> 会话
+     */
+    private final IntObjectMap<KcpChannel> sessions = new IntObjectHashMap<>();
+
+    private ChannelHandlerContext ctx;
+    private ScheduledFuture<?> tickFuture;
+    private boolean flushPending;
+
+    /**
+     * @param kcpConfig    KCP 参数
+     * @param childHandler 每个会话的 handler，通常是 ChannelInitializer
+     */
+    public KcpServerHandler(NetworkProperties.KcpConfig kcpConfig, ChannelHandler childHandler) {
+        this.kcpConfig = kcpConfig;
+        this.childHandler = childHandler;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+        int interval = Math.max(1, kcpConfig.getInterval());
+        tickFuture = ctx.executor().scheduleAtFixedRate(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof DatagramPacket packet)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        try {
+            onPacket(packet.content(), packet.sender());
+        } finally {
+            packet.release();
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        flushIfNeeded();
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        if (tickFuture != null) {
+            tickFuture.cancel(false);
+        }
+        new ArrayList<>(sessions.values()).forEach(KcpChannel::close);
+        ctx.fireChannelInactive();
+    }
+
+    private void onPacket(ByteBuf content, InetSocketAddress sender) {
+        if (content.readableBytes() < Kcp.OVERHEAD) {
+            return;
+        }
+        int conv = content.getIntLE(content.readerIndex());
+        int now = now();
+        KcpChannel session = sessions.get(conv);
+        if (session == null) {
+            // 只有 PUSH 报文能创建会话，迟到的 ACK 等报文直接丢弃
+            if (conv == 0 || content.getUnsignedByte(content.readerIndex() + 4) != Kcp.CMD_PUSH) {
+                return;
+            }
+            if (sessions.size() >= kcpConfig.getMaxSessions()) {
+                log.warn("KCP session limit reached ({}), dropping packet from {}", sessions.size(), sender);
+                return;
+            }
+            session = new KcpChannel(ctx.channel(), this, conv, sender, kcpConfig, now);
+            session.pipeline().addLast(childHandler);
+            sessions.put(conv, session);
+            // 当前就在父 Channel 的事件循环中，注册同步完成，handler 与 channelActive 随之触发
+            ctx.channel().eventLoop().register(session);
+            log.debug("KCP session created: conv={} from {}", conv, sender);
+        }
+
+        InetSocketAddress previous = session.remoteAddress();
+        boolean migrating = !sender.equals(previous);
+        if (migrating && !session.inWindow(content)) {
+            log.debug("KCP packet out of window from new address: conv={} from {}, bound to {}",
+                    conv, sender, previous);
+            return;
+        }
+
+        // 成功输入后会话才迁移到新地址
+        int rc = session.input(content, sender, now);
+        if (rc < 0) {
+            log.debug("KCP input rejected: conv={} from {} rc={}", conv, sender, rc);
+        } else if (migrating) {
+            log.debug("KCP session migrated: conv={} {} -> {}", conv, previous, sender);
+        }
+    }
+
+    /**
+     * 共享定时器：推进所有会话的时钟并清理超时会话
+     */
+    private void tick() {
+        int now = now();
+        int timeout = (int) Math.min(Integer.MAX_VALUE, kcpConfig.getSessionTimeout());
+        List<KcpChannel> expired = null;
+        for (KcpChannel session : sessions.values()) {
+            if (session.isExpired(now, timeout)) {
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(session);
+            } else {
+                session.update(now);
+            }
+        }
+        if (expired != null) {
+            for (KcpChannel session : expired) {
+                log.debug("KCP session expired: conv={} {}", session.conv(), session.remoteAddress());
+                session.close();
+            }
+        }
+        flushIfNeeded();
+    }
+
+    /**
+     * 写出会话产生的报文，flush 推迟到本次读或 tick 结束
+     */
+    void output(KcpChannel session, ByteBuf data) {
+        ctx.write(new DatagramPacket(data, session.remoteAddress()), ctx.voidPromise());
+        flushPending = true;
+    }
+
+    void flushIfNeeded() {
+        if (flushPending) {
+            flushPending = false;
+            ctx.flush();
+        }
+    }
+
+    void remove(KcpChannel session) {
+        if (sessions.get(session.conv()) == session) {
+            sessions.remove(session.conv());
+        }
+    }
+
+    /**
+     * KCP 时钟（毫秒，32 位回绕）
+     */
+    int now() {
+        return (int) ((System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * 获取当前会话数
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+}
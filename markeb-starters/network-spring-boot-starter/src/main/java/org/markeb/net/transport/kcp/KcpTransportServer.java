@@ -1,23 +1,27 @@
 package org.markeb.net.transport.kcp;
 
+import org.markeb.net.config.NetworkProperties;
+import org.markeb.net.transport.NettyTransport;
 import org.markeb.net.transport.TransportServer;
 import org.markeb.net.transport.TransportType;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.DatagramChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * KCP 传输服务器实现
  * 基于 UDP + KCP 协议实现可靠传输
- * 
- * 注意：完整的 KCP 实现需要引入 kcp-netty 依赖
- * 这里提供基础的 UDP 框架，KCP 协议层需要额外集成
+ * <p>
+ * UDP socket 上挂 {@link KcpServerHandler}，按 conv 维护会话表，每个会话是一个 {@link KcpChannel}，
+ * 挂上传入的子 Channel handler（通常是 {@link KcpChannelInitializer}，与 TCP 使用相同的编解码与消息处理）。
+ * </p>
  */
 public class KcpTransportServer implements TransportServer {
 
@@ -26,15 +30,27 @@ public class KcpTransportServer implements TransportServer {
     private final int port;
     private final int workerThreads;
     private final ChannelHandler channelHandler;
+    private final NettyTransport transport;
+    private final NetworkProperties.KcpConfig kcpConfig;
 
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final List<Channel> serverChannels = new ArrayList<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
 
     public KcpTransportServer(int port, int workerThreads, ChannelHandler channelHandler) {
+        this(port, workerThreads, channelHandler, NettyTransport.auto(), new NetworkProperties.KcpConfig());
+    }
+
+    /**
+     * @param channelHandler 每个 KCP 会话的 handler，需可共享（如 ChannelInitializer）
+     */
+    public KcpTransportServer(int port, int workerThreads, ChannelHandler channelHandler, NettyTransport transport,
+                              NetworkProperties.KcpConfig kcpConfig) {
         this.port = port;
         this.workerThreads = workerThreads;
         this.channelHandler = channelHandler;
+        this.transport = transport;
+        this.kcpConfig = kcpConfig;
     }
 
     @Override
@@ -44,21 +60,32 @@ public class KcpTransportServer implements TransportServer {
             return;
         }
 
-        workerGroup = new NioEventLoopGroup(workerThreads);
+        workerGroup = transport.newEventLoopGroup(workerThreads);
 
         try {
             Bootstrap bootstrap = new Bootstrap();
             bootstrap.group(workerGroup)
-                    .channel(NioDatagramChannel.class)
+                    .channel(transport.datagramChannelClass())
                     .option(ChannelOption.SO_BROADCAST, false)
                     .option(ChannelOption.SO_REUSEADDR, true)
                     .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
-                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(2048))
-                    .handler(channelHandler);
-
-            ChannelFuture future = bootstrap.bind(port).sync();
-            serverChannel = future.channel();
-            log.info("KCP server started on port {} (UDP)", port);
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(Math.max(2048, kcpConfig.getMtu())))
+                    .handler(new ChannelInitializer<DatagramChannel>() {
+                        @Override
+                        protected void initChannel(DatagramChannel ch) {
+                            // 每个 UDP socket 一张会话表与一个共享定时器
+                            ch.pipeline().addLast("kcp", new KcpServerHandler(kcpConfig, channelHandler));
+                        }
+                    });
+            transport.configure(bootstrap);
+
+            // UDP 没有 accept，开启 SO_REUSEPORT 时每个 worker 线程绑定一个 socket，由内核按四元组分流
+            int binds = transport.bindCount(workerThreads);
+            for (int i = 0; i < binds; i++) {
+                ChannelFuture future = bootstrap.bind(port).sync();
+                serverChannels.add(future.channel());
+            }
+            log.info("KCP server started on port {} (UDP, {}, {} socket(s))", port, transport, binds);
         } catch (Exception e) {
             running.set(false);
             stop();
@@ -72,9 +99,10 @@ public class KcpTransportServer implements TransportServer {
         running.set(false);
 
         try {
-            if (serverChannel != null) {
+            for (Channel serverChannel : serverChannels) {
                 serverChannel.close().sync();
             }
+            serverChannels.clear();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
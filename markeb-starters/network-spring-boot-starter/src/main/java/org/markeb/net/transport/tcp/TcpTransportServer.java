@@ -1,16 +1,17 @@
 package org.markeb.net.transport.tcp;
 
+import org.markeb.net.transport.NettyTransport;
 import org.markeb.net.transport.TransportServer;
 import org.markeb.net.transport.TransportType;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -24,18 +25,25 @@ public class TcpTransportServer implements TransportServer {
     private final int bossThreads;
     private final int workerThreads;
     private final ChannelInitializer<SocketChannel> channelInitializer;
+    private final NettyTransport transport;
 
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final List<Channel> serverChannels = new ArrayList<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
 
     public TcpTransportServer(int port, int bossThreads, int workerThreads,
                                ChannelInitializer<SocketChannel> channelInitializer) {
+        this(port, bossThreads, workerThreads, channelInitializer, NettyTransport.auto());
+    }
+
+    public TcpTransportServer(int port, int bossThreads, int workerThreads,
+                               ChannelInitializer<SocketChannel> channelInitializer, NettyTransport transport) {
         this.port = port;
         this.bossThreads = bossThreads;
         this.workerThreads = workerThreads;
         this.channelInitializer = channelInitializer;
+        this.transport = transport;
     }
 
     @Override
@@ -45,13 +53,13 @@ public class TcpTransportServer implements TransportServer {
             return;
         }
 
-        bossGroup = new NioEventLoopGroup(bossThreads);
-        workerGroup = new NioEventLoopGroup(workerThreads);
+        bossGroup = transport.newEventLoopGroup(bossThreads);
+        workerGroup = transport.newEventLoopGroup(workerThreads);
 
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transport.serverChannelClass())
                     .option(ChannelOption.SO_REUSEADDR, true)
                     .option(ChannelOption.SO_BACKLOG, 1024)
                     .childOption(ChannelOption.TCP_NODELAY, true)
@@ -60,10 +68,14 @@ public class TcpTransportServer implements TransportServer {
                     .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
                             new WriteBufferWaterMark(256 * 1024, 512 * 1024))
                     .childHandler(channelInitializer);
+            transport.configure(bootstrap);
 
-            ChannelFuture future = bootstrap.bind(port).sync();
-            serverChannel = future.channel();
-            log.info("TCP server started on port {}", port);
+            int binds = transport.bindCount(bossThreads);
+            for (int i = 0; i < binds; i++) {
+                ChannelFuture future = bootstrap.bind(port).sync();
+                serverChannels.add(future.channel());
+            }
+            log.info("TCP server started on port {} ({}, {} acceptor(s))", port, transport, binds);
         } catch (Exception e) {
             running.set(false);
             stop();
@@ -77,9 +89,10 @@ public class TcpTransportServer implements TransportServer {
         running.set(false);
 
         try {
-            if (serverChannel != null) {
+            for (Channel serverChannel : serverChannels) {
                 serverChannel.close().sync();
             }
+            serverChannels.clear();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
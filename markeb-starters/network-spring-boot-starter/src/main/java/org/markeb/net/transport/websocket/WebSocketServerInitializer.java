@@ -1,10 +1,12 @@
 package org.markeb.net.transport.websocket;
 
+import org.markeb.net.compress.MessageCompression;
 import org.markeb.net.handler.MessageDispatcher;
 import org.markeb.net.handler.PacketHandler;
 import org.markeb.net.protocol.ProtocolType;
 import org.markeb.net.protocol.codec.PacketDecoder;
 import org.markeb.net.protocol.codec.PacketEncoder;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
@@ -17,6 +19,7 @@ import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * WebSocket 服务器 Channel 初始化器
@@ -33,6 +36,8 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
     private final ProtocolType protocolType;
     private final int maxFrameLength;
     private final MessageDispatcher messageDispatcher;
+    private final Supplier<ChannelHandler> flushHandler;
+    private final MessageCompression compression;
 
     public WebSocketServerInitializer(
             SslContext sslContext,
@@ -45,6 +50,46 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
             ProtocolType protocolType,
             int maxFrameLength,
             MessageDispatcher messageDispatcher) {
+        this(sslContext, websocketPath, maxFrameSize, enableCompression, readerIdleTime, writerIdleTime,
+                allIdleTime, protocolType, maxFrameLength, messageDispatcher, null);
+    }
+
+    /**
+     * @param flushHandler 出站写合并处理器工厂，为 null 时不合并
+     */
+    public WebSocketServerInitializer(
+            SslContext sslContext,
+            String websocketPath,
+            int maxFrameSize,
+            boolean enableCompression,
+            long readerIdleTime,
+            long writerIdleTime,
+            long allIdleTime,
+            ProtocolType protocolType,
+            int maxFrameLength,
+            MessageDispatcher messageDispatcher,
+            Supplier<ChannelHandler> flushHandler) {
+        this(sslContext, websocketPath, maxFrameSize, enableCompression, readerIdleTime, writerIdleTime,
+                allIdleTime, protocolType, maxFrameLength, messageDispatcher, flushHandler, null);
+    }
+
+    /**
+     * @param flushHandler 出站写合并处理器工厂，为 null 时不合并
+     * @param compression  消息体压缩，为 null 时不压缩
+     */
+    public WebSocketServerInitializer(
+            SslContext sslContext,
+            String websocketPath,
+            int maxFrameSize,
+            boolean enableCompression,
+            long readerIdleTime,
+            long writerIdleTime,
+            long allIdleTime,
+            ProtocolType protocolType,
+            int maxFrameLength,
+            MessageDispatcher messageDispatcher,
+            Supplier<ChannelHandler> flushHandler,
+            MessageCompression compression) {
         this.sslContext = sslContext;
         this.websocketPath = websocketPath;
         this.maxFrameSize = maxFrameSize;
@@ -55,6 +100,8 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
         this.protocolType = protocolType;
         this.maxFrameLength = maxFrameLength;
         this.messageDispatcher = messageDispatcher;
+        this.flushHandler = flushHandler;
+        this.compression = compression;
     }
 
     @Override
@@ -70,6 +117,11 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
         pipeline.addLast("idleStateHandler",
                 new IdleStateHandler(readerIdleTime, writerIdleTime, allIdleTime, TimeUnit.SECONDS));
 
+        // 出站写合并（位于 HTTP 编解码器靠 socket 一侧，按编码后的字节计数）
+        if (flushHandler != null) {
+            pipeline.addLast("flushCoalescing", flushHandler.get());
+        }
+
         // HTTP 编解码
         pipeline.addLast("httpServerCodec", new HttpServerCodec());
         pipeline.addLast("httpObjectAggregator", new HttpObjectAggregator(65536));
@@ -93,8 +145,8 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
         pipeline.addLast("webSocketPacketEncoder", new WebSocketPacketEncoder());
 
         // 协议编解码（复用现有的 PacketDecoder/PacketEncoder）
-        pipeline.addLast("decoder", new PacketDecoder(protocolType, maxFrameLength));
-        pipeline.addLast("encoder", new PacketEncoder());
+        pipeline.addLast("decoder", new PacketDecoder(protocolType, maxFrameLength, compression));
+        pipeline.addLast("encoder", new PacketEncoder(compression));
 
         // 消息处理
         pipeline.addLast("handler", new PacketHandler(messageDispatcher));
@@ -118,6 +170,8 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
         private ProtocolType protocolType = ProtocolType.GATEWAY;
         private int maxFrameLength = 1024 * 1024;
         private MessageDispatcher messageDispatcher;
+        private Supplier<ChannelHandler> flushHandler;
+        private MessageCompression compression;
 
         public Builder sslContext(SslContext sslContext) {
             this.sslContext = sslContext;
@@ -169,6 +223,16 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
             return this;
         }
 
+        public Builder flushHandler(Supplier<ChannelHandler> flushHandler) {
+            this.flushHandler = flushHandler;
+            return this;
+        }
+
+        public Builder compression(MessageCompression compression) {
+            this.compression = compression;
+            return this;
+        }
+
         public WebSocketServerInitializer build() {
             return new WebSocketServerInitializer(
                     sslContext,
@@ -180,7 +244,9 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
                     allIdleTime,
                     protocolType,
                     maxFrameLength,
-                    messageDispatcher
+                    messageDispatcher,
+                    flushHandler,
+                    compression
             );
         }
     }
@@ -0,0 +1,106 @@
+package org.markeb.net.benchmark;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.StringValue;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.markeb.net.broadcast.BroadcastStats;
+import org.markeb.net.broadcast.Broadcaster;
+import org.markeb.net.codec.ProtoBuffGameEncoder;
+import org.markeb.net.msg.ProtoBuffGameMessagePool;
+import org.markeb.net.msg.ProtoBuffParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向 N 个玩家广播同一条 protobuf 消息的开销
+ * <p>
+ * 每个接收者是一个带 {@link ProtoBuffGameEncoder} 的 EmbeddedChannel，对比：
+ * <ul>
+ *   <li>perChannel：原先的做法，对每个 Channel 调用 writeAndFlush(message)，编码器为每个接收者重新序列化</li>
+ *   <li>encodeOnce：{@link Broadcaster} 先编码为一个池化 ByteBuf，再以 retainedDuplicate 扇出</li>
+ * </ul>
+ * 结果按每次广播计，除以 recipients/1000 即每 1000 个接收者的扇出耗时；配合 gc profiler 查看每次广播的分配字节数。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastBenchmark {
+
+    private static final int MSG_ID = 20001;
+
+    @Param({"perChannel", "encodeOnce"})
+    public String mode;
+
+    @Param({"1000"})
+    public int recipients;
+
+    @Param({"64", "1024"})
+    public int bodySize;
+
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private ProtoBuffGameMessagePool messagePool;
+    private Broadcaster broadcaster;
+    private Message message;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ProtoBuffParser parser = new ProtoBuffParser();
+        parser.register(MSG_ID, StringValue.class, StringValue.parser());
+        messagePool = new ProtoBuffGameMessagePool(parser);
+        broadcaster = new Broadcaster(new BroadcastStats());
+        message = StringValue.of("x".repeat(bodySize));
+
+        for (int i = 0; i < recipients; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel(messagePool.encoder());
+            channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+            channels.add(channel);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+        channels.clear();
+    }
+
+    @Benchmark
+    public int broadcast() {
+        int count;
+        if ("perChannel".equals(mode)) {
+            count = 0;
+            for (EmbeddedChannel channel : channels) {
+                if (channel.isActive()) {
+                    channel.writeAndFlush(message);
+                    count++;
+                }
+            }
+        } else {
+            count = broadcaster.broadcast(messagePool.encode(PooledByteBufAllocator.DEFAULT, message), channels);
+        }
+        for (EmbeddedChannel channel : channels) {
+            channel.releaseOutbound();
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BroadcastBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,376 @@
+package org.markeb.net.benchmark;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.markeb.net.config.NetworkProperties;
+import org.markeb.net.transport.IoMode;
+import org.markeb.net.transport.NettyTransport;
+import org.markeb.net.transport.TransportServer;
+import org.markeb.net.transport.kcp.Kcp;
+import org.markeb.net.transport.kcp.KcpChannel;
+import org.markeb.net.transport.kcp.KcpTransportServer;
+import org.markeb.net.transport.tcp.TcpTransportServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回环丢包下的请求-响应延迟：KCP vs TCP
+ * <p>
+ * 客户端发送 64 字节请求，服务端原样回显，SampleTime 模式下 JMH 直接给出 p99 / p99.9。
+ * 丢包在客户端模拟，请求与响应两个方向独立按 lossPercent 丢弃：
+ * <ul>
+ *   <li>kcp：直接丢弃 UDP 报文，由 KCP 的快速重传 / 超时重传恢复</li>
+ *   <li>tcp：用户态无法丢弃 TCP 段，按 Linux 的最小 RTO（200ms）延迟被"丢弃"的包，
+ *   并阻塞其后的所有包，模拟一次重传加队头阻塞。需要真实内核行为时，
+ *   可在 lossPercent=0 下配合 {@code tc qdisc add dev lo root netem loss 5%} 运行</li>
+ * </ul>
+ * 服务端使用 {@link KcpTransportServer} / {@link TcpTransportServer}，KCP 参数为默认的极速模式。
+ * </p>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KcpLatencyBenchmark {
+
+    private static final int MESSAGE_SIZE = 64;
+    private static final long TCP_MIN_RTO_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final int CONV = 0x4B4350;
+
+    @Param({"tcp", "kcp"})
+    public String transport;
+
+    @Param({"0", "5", "10"})
+    public int lossPercent;
+
+    private TransportServer server;
+    private EventLoopGroup clientGroup;
+    private EchoClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        NettyTransport nio = NettyTransport.create(IoMode.NIO, false, true);
+        double loss = lossPercent / 100.0;
+        clientGroup = new NioEventLoopGroup(1);
+        if ("kcp".equals(transport)) {
+            int port = freeUdpPort();
+            NetworkProperties.KcpConfig kcpConfig = new NetworkProperties.KcpConfig();
+            server = new KcpTransportServer(port, 1, new ChannelInitializer<KcpChannel>() {
+                @Override
+                protected void initChannel(KcpChannel ch) {
+                    ch.pipeline().addLast(new EchoHandler());
+                }
+            }, nio, kcpConfig);
+            server.start();
+            client = KcpClient.connect(clientGroup, new InetSocketAddress("127.0.0.1", port), kcpConfig, loss);
+        } else {
+            int port = freeTcpPort();
+            server = new TcpTransportServer(port, 1, 1, new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ch.pipeline().addLast(new EchoHandler());
+                }
+            }, nio);
+            server.start();
+            client = TcpClient.connect(clientGroup, new InetSocketAddress("127.0.0.1", port), loss);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        clientGroup.shutdownGracefully().syncUninterruptibly();
+        server.stop();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        return client.request().get(10, TimeUnit.SECONDS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(KcpLatencyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+    private static int freeTcpPort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static int freeUdpPort() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ByteBuf newRequest(Channel channel) {
+        ByteBuf buf = channel.alloc().buffer(MESSAGE_SIZE);
+        buf.writeZero(MESSAGE_SIZE);
+        return buf;
+    }
+
+    @ChannelHandler.Sharable
+    private static final class EchoHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.writeAndFlush(msg);
+        }
+    }
+
+    private interface EchoClient {
+
+        CompletableFuture<Integer> request();
+
+        void close();
+    }
+
+    /**
+     * 收满一条响应后完成当前请求，同一时间只有一个请求在途
+     */
+    private static final class ResponseCollector {
+
+        private CompletableFuture<Integer> pending;
+        private int received;
+
+        void expect(CompletableFuture<Integer> future) {
+            pending = future;
+            received = 0;
+        }
+
+        void onBytes(ByteBuf buf) {
+            received += buf.readableBytes();
+            buf.release();
+            if (received >= MESSAGE_SIZE && pending != null) {
+                CompletableFuture<Integer> future = pending;
+                pending = null;
+                future.complete(received);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- TCP
+
+    private static final class TcpClient extends ChannelInboundHandlerAdapter implements EchoClient {
+
+        private final ResponseCollector collector = new ResponseCollector();
+        private Channel channel;
+
+        static TcpClient connect(EventLoopGroup group, InetSocketAddress address, double loss) throws Exception {
+            TcpClient client = new TcpClient();
+            client.channel = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new TcpLossEmulator(loss), client);
+                        }
+                    })
+                    .connect(address).sync().channel();
+            return client;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            collector.onBytes((ByteBuf) msg);
+        }
+
+        @Override
+        public CompletableFuture<Integer> request() {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            channel.eventLoop().execute(() -> {
+                collector.expect(future);
+                channel.writeAndFlush(newRequest(channel));
+            });
+            return future;
+        }
+
+        @Override
+        public void close() {
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    /**
+     * TCP 丢包模拟：被"丢弃"的包延迟一个最小 RTO 后送达，其后的包不能越过它（队头阻塞）
+     */
+    private static final class TcpLossEmulator extends ChannelDuplexHandler {
+
+        private final double loss;
+        private long readReleaseAt;
+        private long writeReleaseAt;
+
+        TcpLossEmulator(double loss) {
+            this.loss = loss;
+        }
+
+        private long releaseAt(long previous) {
+            long now = System.nanoTime();
+            long at = ThreadLocalRandom.current().nextDouble() < loss ? now + TCP_MIN_RTO_NANOS : now;
+            return Math.max(at, previous);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            readReleaseAt = releaseAt(readReleaseAt);
+            long delay = readReleaseAt - System.nanoTime();
+            if (delay <= 0) {
+                ctx.fireChannelRead(msg);
+            } else {
+                ctx.executor().schedule(() -> {
+                    ctx.fireChannelRead(msg);
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            writeReleaseAt = releaseAt(writeReleaseAt);
+            long delay = writeReleaseAt - System.nanoTime();
+            if (delay <= 0) {
+                ctx.write(msg, promise);
+            } else {
+                ctx.executor().schedule(() -> {
+                    ctx.writeAndFlush(msg, promise);
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- KCP
+
+    private static final class KcpClient extends ChannelInboundHandlerAdapter implements EchoClient {
+
+        private final ResponseCollector collector = new ResponseCollector();
+        private final InetSocketAddress server;
+        private final NetworkProperties.KcpConfig kcpConfig;
+        private final double loss;
+        private final long startNanos = System.nanoTime();
+
+        private ChannelHandlerContext ctx;
+        private Kcp kcp;
+
+        private KcpClient(InetSocketAddress server, NetworkProperties.KcpConfig kcpConfig, double loss) {
+            this.server = server;
+            this.kcpConfig = kcpConfig;
+            this.loss = loss;
+        }
+
+        static KcpClient connect(EventLoopGroup group, InetSocketAddress server,
+                                 NetworkProperties.KcpConfig kcpConfig, double loss) throws Exception {
+            KcpClient client = new KcpClient(server, kcpConfig, loss);
+            new Bootstrap()
+                    .group(group)
+                    .channel(NioDatagramChannel.class)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .handler(client)
+                    .bind(0).sync();
+            return client;
+        }
+
+        private int now() {
+            return (int) ((System.nanoTime() - startNanos) / 1_000_000);
+        }
+
+        private boolean drop() {
+            return ThreadLocalRandom.current().nextDouble() < loss;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+            kcp = new Kcp(CONV, (data, k) -> {
+                if (drop()) {
+                    data.release();
+                } else {
+                    ctx.write(new DatagramPacket(data, server));
+                }
+            }, ctx.alloc());
+            kcp.nodelay(kcpConfig.getNodelay(), kcpConfig.getInterval(), kcpConfig.getResend(),
+                    kcpConfig.isNoCongestionWindow());
+            kcp.wndsize(kcpConfig.getSndWnd(), kcpConfig.getRcvWnd());
+            kcp.setMtu(kcpConfig.getMtu());
+            kcp.setStream(kcpConfig.isStream());
+            kcp.update(now());
+            ctx.executor().scheduleAtFixedRate(() -> {
+                kcp.update(now());
+                ctx.flush();
+            }, kcpConfig.getInterval(), kcpConfig.getInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            try {
+                if (drop()) {
+                    return;
+                }
+                kcp.setCurrent(now());
+                kcp.input(packet.content());
+            } finally {
+                packet.release();
+            }
+            ByteBuf message;
+            while ((message = kcp.recv(ctx.alloc())) != null) {
+                collector.onBytes(message);
+            }
+            kcp.flush();
+            ctx.flush();
+        }
+
+        @Override
+        public CompletableFuture<Integer> request() {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            ctx.executor().execute(() -> {
+                collector.expect(future);
+                kcp.setCurrent(now());
+                kcp.send(newRequest(ctx.channel()));
+                kcp.flush();
+                ctx.flush();
+            });
+            return future;
+        }
+
+        @Override
+        public void close() {
+            ctx.executor().submit(() -> kcp.release()).syncUninterruptibly();
+            ctx.close().syncUninterruptibly();
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.markeb.net.benchmark;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.Duration;
+import com.google.protobuf.Empty;
+import com.google.protobuf.FieldMask;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Int32Value;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.UInt32Value;
+import com.google.protobuf.UInt64Value;
+import com.google.protobuf.Value;
+import org.markeb.net.msg.ProtoBuffDispatchTable;
+import org.markeb.net.register.GameActorContext;
+import org.markeb.net.register.IContextHandle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每条入站消息的分发开销
+ * <p>
+ * 用 protobuf 自带的 17 种 well-known 消息模拟业务消息，对比：
+ * <ul>
+ *   <li>legacy：原先的做法，{@code HashMap<Class, Integer>} 查 msgId，再 {@code HashMap<Integer, handler>} 查处理器</li>
+ *   <li>table：冻结分发表，解码器已知 msgId，直接按 msgId 一次查出处理器</li>
+ * </ul>
+ * 带 {@code Decode} 后缀的基准包含按 msgId 查 Parser 并解析消息体的完整解码路径。
+ * ids 为 dense 时分发表使用稠密数组，sparse 时使用完美哈希。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageDispatchBenchmark {
+
+    private static final List<Message> MESSAGES = List.of(
+            Any.getDefaultInstance(), BoolValue.of(true), BytesValue.getDefaultInstance(), DoubleValue.of(1.5),
+            Duration.newBuilder().setSeconds(60).build(), Empty.getDefaultInstance(),
+            FieldMask.newBuilder().addPaths("a.b").build(), FloatValue.of(2.5f), Int32Value.of(10086),
+            Int64Value.of(1L << 40), ListValue.getDefaultInstance(), StringValue.of("markeb"),
+            Struct.getDefaultInstance(), Timestamp.newBuilder().setSeconds(1_700_000_000L).build(),
+            UInt32Value.of(7), UInt64Value.of(9), Value.newBuilder().setStringValue("v").build());
+
+    @Param({"dense", "sparse"})
+    public String ids;
+
+    private Message[] messages;
+    private int[] msgIds;
+    private byte[][] bodies;
+    private int cursor;
+
+    private Map<Class<?>, Integer> classToId;
+    private Map<Integer, Parser<? extends Message>> legacyParsers;
+    private Map<Integer, IContextHandle<? extends GameActorContext, Message>> legacyHandlers;
+    private ProtoBuffDispatchTable table;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int n = MESSAGES.size();
+        messages = new Message[n];
+        msgIds = new int[n];
+        bodies = new byte[n][];
+        classToId = new HashMap<>();
+        legacyParsers = new HashMap<>();
+        legacyHandlers = new HashMap<>();
+        ProtoBuffDispatchTable.Builder builder = ProtoBuffDispatchTable.builder();
+
+        IContextHandle<? extends GameActorContext, Message> handler = (ctx, req) -> req;
+        for (int i = 0; i < n; i++) {
+            Message message = MESSAGES.get(i);
+            // 与业务协议相近的 id 分布：dense 连续，sparse 按模块分段
+            int msgId = "dense".equals(ids) ? 10001 + i : 10000 * (1 + i % 4) + 101 * i;
+            messages[i] = message;
+            msgIds[i] = msgId;
+            bodies[i] = message.toByteArray();
+
+            classToId.put(message.getClass(), msgId);
+            legacyParsers.put(msgId, message.getParserForType());
+            legacyHandlers.put(msgId, handler);
+            builder.message(msgId, message.getClass(), message.getParserForType()).handler(msgId, handler);
+        }
+        table = builder.build();
+    }
+
+    private int next() {
+        int i = cursor + 1;
+        if (i == messages.length) {
+            i = 0;
+        }
+        cursor = i;
+        return i;
+    }
+
+    @Benchmark
+    public Object legacy() {
+        Message message = messages[next()];
+        Integer msgId = classToId.get(message.getClass());
+        return legacyHandlers.get(msgId);
+    }
+
+    @Benchmark
+    public Object table() {
+        return table.get(msgIds[next()]).getHandler();
+    }
+
+    @Benchmark
+    public Object legacyDecode() throws Exception {
+        int i = next();
+        Message message = legacyParsers.get(msgIds[i]).parseFrom(bodies[i]);
+        Integer msgId = classToId.get(message.getClass());
+        return legacyHandlers.get(msgId);
+    }
+
+    @Benchmark
+    public Object tableDecode() throws Exception {
+        int i = next();
+        ProtoBuffDispatchTable.Entry entry = table.get(msgIds[i]);
+        Message message = entry.getParser().parseFrom(bodies[i]);
+        return entry.getHandler() != null ? message : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MessageDispatchBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+}
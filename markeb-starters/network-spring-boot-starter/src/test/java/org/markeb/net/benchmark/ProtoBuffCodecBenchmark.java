@@ -0,0 +1,181 @@
+package org.markeb.net.benchmark;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.StringValue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.MessageToByteEncoder;
+import org.markeb.net.codec.ProtoBuffDispatchDecoder;
+import org.markeb.net.codec.ProtoBuffGameEncoder;
+import org.markeb.net.msg.DispatchedMessage;
+import org.markeb.net.msg.IGameParser;
+import org.markeb.net.msg.ProtoBuffDispatchTable;
+import org.markeb.net.msg.ProtoBuffGameMessagePool;
+import org.markeb.net.msg.ProtoBuffParser;
+import org.markeb.net.register.GameActorContext;
+import org.markeb.net.register.IContextHandle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点 ServerHandler 路径上一次请求-响应的编解码开销
+ * <p>
+ * EmbeddedChannel 上依次经过解码器、与 ServerHandler 相同的分发处理器（原样回包）和编码器，对比：
+ * <ul>
+ *   <li>copy：原先的做法，解码时把消息体拷贝为 byte[] 再解析，编码时 {@code toByteArray()} 后再写入缓冲区</li>
+ *   <li>direct：解码直接从帧内存解析，编码按 {@code getSerializedSize()} 分配并直接序列化进缓冲区</li>
+ * </ul>
+ * 配合 gc profiler 查看 {@code gc.alloc.rate.norm}，即每次请求的分配字节数。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtoBuffCodecBenchmark {
+
+    private static final int MSG_ID = 10001;
+
+    @Param({"copy", "direct"})
+    public String codec;
+
+    @Param({"64", "1024", "8192"})
+    public int bodySize;
+
+    private EmbeddedChannel channel;
+    private ByteBuf frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ProtoBuffParser parser = new ProtoBuffParser();
+        parser.register(MSG_ID, StringValue.class, StringValue.parser());
+        ProtoBuffGameMessagePool messagePool = new ProtoBuffGameMessagePool(parser);
+        IContextHandle<? extends GameActorContext, Message> echo = (ctx, req) -> req;
+        messagePool.register(MSG_ID, echo);
+        messagePool.freeze();
+
+        if ("copy".equals(codec)) {
+            channel = new EmbeddedChannel(new CopyDecoder(messagePool), new CopyEncoder(messagePool.messageParser()),
+                    new DispatchHandler());
+        } else {
+            channel = new EmbeddedChannel(new ProtoBuffDispatchDecoder(messagePool),
+                    new ProtoBuffGameEncoder(messagePool.messageParser()), new DispatchHandler());
+        }
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+
+        byte[] body = StringValue.of("x".repeat(bodySize)).toByteArray();
+        frame = PooledByteBufAllocator.DEFAULT.directBuffer(8 + body.length);
+        frame.writeInt(8 + body.length);
+        frame.writeInt(MSG_ID);
+        frame.writeBytes(body);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        frame.release();
+    }
+
+    @Benchmark
+    public int requestResponse() {
+        channel.writeInbound(frame.retainedDuplicate());
+        ByteBuf out = channel.readOutbound();
+        int length = out.readableBytes();
+        out.release();
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ProtoBuffCodecBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * 与节点 ServerHandler 相同：调用解码器查出的处理器，有返回值时写回
+     */
+    private static final class DispatchHandler extends SimpleChannelInboundHandler<DispatchedMessage<Message>> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void channelRead0(ChannelHandlerContext ctx, DispatchedMessage<Message> dispatched) throws Exception {
+            IContextHandle<GameActorContext, Message> handler =
+                    (IContextHandle<GameActorContext, Message>) dispatched.getHandler();
+            try {
+                Message rep = handler.invoke(null, dispatched.getMessage());
+                if (rep != null) {
+                    ctx.writeAndFlush(rep);
+                }
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * 原先的解码方式：消息体拷贝为 byte[] 后解析
+     */
+    private static final class CopyDecoder extends LengthFieldBasedFrameDecoder {
+
+        private final ProtoBuffGameMessagePool messagePool;
+
+        CopyDecoder(ProtoBuffGameMessagePool messagePool) {
+            super(1024 * 1024, 0, 4, -4, 4);
+            this.messagePool = messagePool;
+        }
+
+        @Override
+        protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+            ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+            if (frame == null) {
+                return null;
+            }
+            try {
+                int msgId = frame.readInt();
+                byte[] bodyBytes = new byte[frame.readableBytes()];
+                frame.readBytes(bodyBytes);
+                ProtoBuffDispatchTable.Entry entry = messagePool.getDispatchTable().get(msgId);
+                Message message = entry.getParser().parseFrom(bodyBytes);
+                return new DispatchedMessage<>(msgId, message, entry.getHandler());
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * 原先的编码方式：toByteArray 后再拷贝进缓冲区
+     */
+    private static final class CopyEncoder extends MessageToByteEncoder<Message> {
+
+        private final IGameParser<Message> parser;
+
+        CopyEncoder(IGameParser<Message> parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void encode(ChannelHandlerContext ctx, Message msg, ByteBuf out) {
+            int msgId = parser.messageId((Class<Message>) msg.getClass());
+            byte[] bytes = msg.toByteArray();
+            out.writeInt(8 + bytes.length);
+            out.writeInt(msgId);
+            out.writeBytes(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.markeb.net.gateway.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * pending 请求表测试
+ */
+class PendingRequestTableTest {
+
+    private static final long LONG_TIMEOUT_MS = 60_000;
+
+    @Test
+    void keyPacksSessionAndSeq() {
+        assertEquals(0x0000_0001_FFFF_FFFFL, PendingRequestTable.key(1, -1));
+        assertEquals(0xFFFF_FFFF_0000_0002L, PendingRequestTable.key(-1, 2));
+        assertNotEquals(PendingRequestTable.key(1, 2), PendingRequestTable.key(2, 1));
+    }
+
+    @Test
+    void putRemoveAndOverwrite() {
+        PendingRequestTable<String> table = new PendingRequestTable<>(LONG_TIMEOUT_MS);
+        table.put(7, 1, "a");
+        table.put(7, 1, "b");
+
+        assertEquals(1, table.getPendingCount());
+        assertEquals("b", table.remove(7, 1));
+        assertNull(table.remove(7, 1), "second remove must miss");
+        assertEquals(0, table.getPendingCount());
+    }
+
+    @Test
+    void backwardShiftKeepsProbeChainsReachable() {
+        // 同一会话的请求落在同一分段，数量足够多时探测链互相挤占，并经历扩容与缩容
+        PendingRequestTable<Integer> table = new PendingRequestTable<>(LONG_TIMEOUT_MS);
+        int count = 2000;
+        for (int seq = 0; seq < count; seq++) {
+            table.put(42, seq, seq);
+        }
+        // 先删偶数，剩余的奇数必须都还能找到
+        for (int seq = 0; seq < count; seq += 2) {
+            assertEquals(Integer.valueOf(seq), table.remove(42, seq));
+        }
+        for (int seq = 1; seq < count; seq += 2) {
+            assertEquals(Integer.valueOf(seq), table.remove(42, seq), "lost seq " + seq);
+        }
+        assertEquals(0, table.getPendingCount());
+    }
+
+    @Test
+    void removeSessionDropsOnlyThatSession() {
+        PendingRequestTable<String> table = new PendingRequestTable<>(LONG_TIMEOUT_MS);
+        for (int seq = 0; seq < 10; seq++) {
+            table.put(1, seq, "s1-" + seq);
+            table.put(2, seq, "s2-" + seq);
+        }
+
+        assertEquals(10, table.removeSession(1));
+        assertEquals(0, table.removeSession(1));
+        assertEquals(10, table.getPendingCount());
+        for (int seq = 0; seq < 10; seq++) {
+            assertNull(table.remove(1, seq));
+            assertEquals("s2-" + seq, table.remove(2, seq));
+        }
+    }
+
+    @Test
+    void removeHeadMiddleAndTailOfSessionChain() {
+        PendingRequestTable<String> table = new PendingRequestTable<>(LONG_TIMEOUT_MS);
+        for (int seq = 0; seq < 5; seq++) {
+            table.put(9, seq, "v" + seq);
+        }
+
+        // seq 0 是会话链表的头条目，之后的条目依次插在头条目之后
+        assertEquals("v0", table.remove(9, 0));
+        assertEquals("v2", table.remove(9, 2));
+        assertEquals("v1", table.remove(9, 1));
+
+        // 剩余条目仍能通过会话索引整体移除
+        assertEquals(2, table.removeSession(9));
+        assertEquals(0, table.getPendingCount());
+
+        // 会话索引已删除，同一会话可以重新使用
+        table.put(9, 0, "again");
+        assertEquals(1, table.removeSession(9));
+    }
+
+    @Test
+    void expireRemovesTimedOutRequests() throws InterruptedException {
+        PendingRequestTable<String> table = new PendingRequestTable<>(50);
+        table.put(1, 1, "old");
+        table.put(2, 1, "old");
+        Thread.sleep(80);
+        table.put(1, 2, "new");
+
+        assertEquals(2, table.expire());
+        assertEquals(2, table.getExpiredCount());
+        assertNull(table.remove(1, 1));
+        assertEquals("new", table.remove(1, 2));
+        assertEquals(0, table.removeSession(2), "expired entries leave the session index");
+    }
+
+    @Test
+    void overwriteRestartsTimeout() throws InterruptedException {
+        PendingRequestTable<String> table = new PendingRequestTable<>(200);
+        table.put(1, 1, "first");
+        Thread.sleep(150);
+        table.put(1, 1, "second");
+        Thread.sleep(100);
+
+        assertEquals(0, table.expire());
+        assertEquals("second", table.remove(1, 1));
+    }
+
+    @Test
+    void matchesMapUnderRandomOperations() {
+        PendingRequestTable<Long> table = new PendingRequestTable<>(LONG_TIMEOUT_MS);
+        Map<Long, Long> model = new HashMap<>();
+        Random random = new Random(20240601L);
+
+        for (int i = 0; i < 200_000; i++) {
+            int sessionId = random.nextInt(64);
+            int seq = random.nextInt(256);
+            long key = PendingRequestTable.key(sessionId, seq);
+            int op = random.nextInt(10);
+            if (op < 5) {
+                table.put(sessionId, seq, key);
+                model.put(key, key);
+            } else if (op < 9) {
+                assertEquals(model.remove(key), table.remove(sessionId, seq));
+            } else {
+                int removed = table.removeSession(sessionId);
+                int expected = 0;
+                for (var it = model.keySet().iterator(); it.hasNext(); ) {
+                    if ((int) (it.next() >> 32) == sessionId) {
+                        it.remove();
+                        expected++;
+                    }
+                }
+                assertEquals(expected, removed);
+            }
+            assertEquals(model.size(), table.getPendingCount());
+        }
+    }
+
+    @Test
+    void clearDropsEverything() {
+        PendingRequestTable<String> table = new PendingRequestTable<>(LONG_TIMEOUT_MS);
+        table.put(1, 1, "a");
+        table.put(2, 2, "b");
+        table.clear();
+
+        assertEquals(0, table.getPendingCount());
+        assertNull(table.remove(1, 1));
+        assertEquals(0, table.removeSession(2));
+    }
+
+    @Test
+    void rejectsNonPositiveTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> new PendingRequestTable<>(0));
+    }
+}
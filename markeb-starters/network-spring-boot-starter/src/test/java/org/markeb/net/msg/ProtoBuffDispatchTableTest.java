@@ -0,0 +1,147 @@
+package org.markeb.net.msg;
+
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.Int32Value;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.Message;
+import com.google.protobuf.StringValue;
+import org.junit.jupiter.api.Test;
+import org.markeb.net.register.GameActorContext;
+import org.markeb.net.register.IContextHandle;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 消息分发表测试：三种索引方式的命中与未注册 id 的查找
+ */
+class ProtoBuffDispatchTableTest {
+
+    private static final IContextHandle<GameActorContext, Message> ECHO = (ctx, req) -> req;
+
+    @Test
+    void narrowIdsUseDenseArray() {
+        ProtoBuffDispatchTable table = ProtoBuffDispatchTable.builder()
+                .message(1001, StringValue.class, StringValue.parser())
+                .message(1002, Int32Value.class, Int32Value.parser())
+                .message(1010, Int64Value.class, Int64Value.parser())
+                .handler(1001, ECHO)
+                .build();
+
+        assertTrue(table.getIndexMode().startsWith("dense"), table.getIndexMode());
+        assertEquals(3, table.size());
+        assertEntry(table.get(1001), 1001, StringValue.class);
+        assertSame(ECHO, table.get(1001).getHandler());
+        assertEntry(table.get(1002), 1002, Int32Value.class);
+        assertNull(table.get(1002).getHandler(), "message without handler keeps a null handler");
+        assertEntry(table.get(1010), 1010, Int64Value.class);
+
+        // 基址之前、数组之后与数组内部的空位
+        for (int msgId : new int[]{0, 1000, 1003, 1009, 1011, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            assertNull(table.get(msgId), "unknown id " + msgId);
+        }
+    }
+
+    @Test
+    void sparseIdsUsePerfectHash() {
+        int[] ids = {-7, 1, 100_000, 2_000_000, Integer.MAX_VALUE};
+        List<Class<? extends Message>> classes = List.of(
+                StringValue.class, Int32Value.class, Int64Value.class, BoolValue.class, BytesValue.class);
+        Set<Integer> known = new HashSet<>();
+        ProtoBuffDispatchTable.Builder builder = ProtoBuffDispatchTable.builder();
+        for (int i = 0; i < ids.length; i++) {
+            builder.message(ids[i], classes.get(i), StringValue.parser()).handler(ids[i], ECHO);
+            known.add(ids[i]);
+        }
+        ProtoBuffDispatchTable table = builder.build();
+
+        assertTrue(table.getIndexMode().startsWith("perfect-hash"), table.getIndexMode());
+        for (int i = 0; i < ids.length; i++) {
+            assertEntry(table.get(ids[i]), ids[i], classes.get(i));
+        }
+        // 未注册的 id 会落到已占用的槽位，必须靠 key 校验拒绝
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            int msgId = random.nextInt();
+            if (!known.contains(msgId)) {
+                assertNull(table.get(msgId), "unknown id " + msgId);
+            }
+        }
+        assertNull(table.get(0));
+    }
+
+    @Test
+    void tooManySparseIdsFallBackToSortedArray() {
+        // 随机分布的 4096 个 id 在最大容量内几乎不可能有无冲突的乘法哈希
+        Set<Integer> ids = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(7);
+        while (ids.size() < 4096) {
+            ids.add(random.nextInt());
+        }
+        ProtoBuffDispatchTable.Builder builder = ProtoBuffDispatchTable.builder();
+        for (int msgId : ids) {
+            builder.message(msgId, StringValue.class, StringValue.parser());
+        }
+        ProtoBuffDispatchTable table = builder.build();
+
+        assertTrue(table.getIndexMode().startsWith("sorted"), table.getIndexMode());
+        for (int msgId : ids) {
+            assertEntry(table.get(msgId), msgId, StringValue.class);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            int msgId = random.nextInt();
+            if (!ids.contains(msgId)) {
+                assertNull(table.get(msgId), "unknown id " + msgId);
+            }
+        }
+    }
+
+    @Test
+    void lookupByMessageClass() {
+        ProtoBuffDispatchTable table = ProtoBuffDispatchTable.builder()
+                .message(1, StringValue.class, StringValue.parser())
+                .message(2, Int32Value.class, Int32Value.parser())
+                .handler(2, ECHO)
+                .build();
+
+        assertEquals(1, table.get(StringValue.class).getMsgId());
+        assertSame(ECHO, table.get(Int32Value.class).getHandler());
+        assertNull(table.get(Int64Value.class), "unregistered class");
+    }
+
+    @Test
+    void emptyTableFindsNothing() {
+        ProtoBuffDispatchTable table = ProtoBuffDispatchTable.builder().build();
+
+        assertEquals(0, table.size());
+        assertNull(table.get(0));
+        assertNull(table.get(StringValue.class));
+    }
+
+    @Test
+    void builderRejectsInvalidRegistrations() {
+        ProtoBuffDispatchTable.Builder builder = ProtoBuffDispatchTable.builder()
+                .message(1, StringValue.class, StringValue.parser())
+                .handler(1, ECHO);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.message(1, Int32Value.class, Int32Value.parser()));
+        assertThrows(IllegalArgumentException.class, () -> builder.handler(1, ECHO));
+
+        builder.handler(99, ECHO);
+        assertThrows(IllegalStateException.class, builder::build, "handler without message");
+    }
+
+    private static void assertEntry(ProtoBuffDispatchTable.Entry entry, int msgId,
+                                    Class<? extends Message> messageClass) {
+        assertNotNull(entry, "missing id " + msgId);
+        assertEquals(msgId, entry.getMsgId());
+        assertSame(messageClass, entry.getMessageClass());
+        assertNotNull(entry.getParser());
+    }
+}
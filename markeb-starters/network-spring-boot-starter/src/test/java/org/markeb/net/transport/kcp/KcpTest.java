@@ -0,0 +1,325 @@
+package org.markeb.net.transport.kcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KCP 协议引擎测试
+ * <p>
+ * 两个引擎之间用内存队列相连，时钟由测试推进；链路可以按规则丢包、乱序或重复投递。
+ * </p>
+ */
+class KcpTest {
+
+    private static final int CONV = 0x11223344;
+    private static final int STEP_MS = 10;
+
+    private final ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+    private final ArrayDeque<ByteBuf> toServer = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuf> toClient = new ArrayDeque<>();
+    private final List<ByteBuf> received = new ArrayList<>();
+
+    private final Kcp client = newKcp(toServer);
+    private final Kcp server = newKcp(toClient);
+    private int now;
+
+    private Kcp newKcp(ArrayDeque<ByteBuf> link) {
+        Kcp kcp = new Kcp(CONV, (data, k) -> link.addLast(data), alloc);
+        kcp.nodelay(1, STEP_MS, 2, true);
+        kcp.wndsize(128, 128);
+        return kcp;
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseAll(toServer);
+        releaseAll(toClient);
+        received.forEach(ByteBuf::release);
+        client.release();
+        server.release();
+    }
+
+    @Test
+    void deliversSingleMessage() {
+        client.send(bytes(message(0, 64)));
+        run(20, i -> false, i -> false);
+
+        assertReceived(1, 64);
+        assertEquals(0, client.waitSnd(), "message acknowledged");
+    }
+
+    @Test
+    void reassemblesFragments() {
+        // 5000 字节超过 MSS（1376），切成 4 个分片
+        byte[] payload = message(7, 5000);
+        client.send(bytes(payload));
+        run(20, i -> false, i -> false);
+
+        assertEquals(1, received.size());
+        assertArrayEquals(payload, toArray(received.get(0)));
+    }
+
+    @Test
+    void reordersOutOfOrderSegments() {
+        byte[] payload = message(3, 5000);
+        client.update(now);
+        server.update(now);
+        client.send(bytes(payload));
+        client.flush();
+
+        // 一个分片一个报文时才能乱序，逐个拆开后倒序投递
+        List<ByteBuf> datagrams = new ArrayList<>(toServer);
+        toServer.clear();
+        assertTrue(datagrams.size() >= 1);
+        List<ByteBuf> segments = new ArrayList<>();
+        for (ByteBuf datagram : datagrams) {
+            splitSegments(datagram, segments);
+            datagram.release();
+        }
+        assertEquals(4, segments.size());
+        Collections.reverse(segments);
+        for (ByteBuf segment : segments) {
+            assertEquals(0, server.input(segment));
+            segment.release();
+            if (segment != segments.get(segments.size() - 1)) {
+                assertFalse(server.canRecv(), "message must wait for the first fragment");
+            }
+        }
+        drain(server);
+
+        assertEquals(1, received.size());
+        assertArrayEquals(payload, toArray(received.get(0)));
+    }
+
+    @Test
+    void ignoresDuplicateSegments() {
+        client.update(now);
+        server.update(now);
+        client.send(bytes(message(1, 100)));
+        client.flush();
+
+        ByteBuf datagram = toServer.pollFirst();
+        assertNotNull(datagram);
+        assertEquals(0, server.input(datagram.duplicate()));
+        assertEquals(0, server.input(datagram.duplicate()));
+        datagram.release();
+        drain(server);
+
+        assertReceived(1, 100);
+    }
+
+    @Test
+    void recoversFromLossInBothDirections() {
+        int messages = 50;
+        for (int i = 0; i < messages; i++) {
+            client.send(bytes(message(i, 200 + i * 37)));
+        }
+        // 客户端每 3 个报文丢 1 个，服务端（ACK）每 4 个丢 1 个
+        run(2000, i -> i % 3 == 1, i -> i % 4 == 2);
+
+        assertEquals(messages, received.size());
+        for (int i = 0; i < messages; i++) {
+            assertArrayEquals(message(i, 200 + i * 37), toArray(received.get(i)), "message " + i);
+        }
+        assertEquals(0, client.waitSnd());
+        assertTrue(client.getRetransmits() > 0, "lost segments must be retransmitted");
+    }
+
+    @Test
+    void recoversFromRandomLossAndReorder() {
+        Random random = new Random(42);
+        int[] sizes = new int[100];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = 1 + random.nextInt(3000);
+            client.send(bytes(message(i, sizes[i])));
+        }
+
+        // 每一步内两个方向各自打乱，并丢弃 10% 的报文
+        for (int step = 0; step < 5000 && received.size() < sizes.length; step++) {
+            tick();
+            shuffleAndDrop(toServer, random, 0.1);
+            shuffleAndDrop(toClient, random, 0.1);
+            deliver(toServer, server, i -> false, 0);
+            deliver(toClient, client, i -> false, 0);
+            drain(server);
+        }
+
+        assertEquals(sizes.length, received.size());
+        for (int i = 0; i < sizes.length; i++) {
+            assertArrayEquals(message(i, sizes[i]), toArray(received.get(i)), "message " + i);
+        }
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        ByteBuf wrongConv = segment(CONV + 1, Kcp.CMD_PUSH, 0, 0, 0);
+        assertEquals(-1, server.input(wrongConv));
+        wrongConv.release();
+
+        ByteBuf truncated = segment(CONV, Kcp.CMD_PUSH, 0, 0, 100);
+        assertEquals(-2, server.input(truncated));
+        truncated.release();
+
+        ByteBuf unknown = segment(CONV, 99, 0, 0, 0);
+        assertEquals(-3, server.input(unknown));
+        unknown.release();
+    }
+
+    @Test
+    void inWindowAcceptsPeerTrafficOnly() {
+        client.update(now);
+        server.update(now);
+        client.send(bytes(message(0, 10)));
+        client.flush();
+        ByteBuf genuine = toServer.pollFirst();
+        assertNotNull(genuine);
+        int readerIndex = genuine.readerIndex();
+
+        assertTrue(server.inWindow(genuine));
+        assertEquals(readerIndex, genuine.readerIndex(), "inWindow must not consume the packet");
+        genuine.release();
+
+        ByteBuf wrongConv = segment(CONV + 1, Kcp.CMD_PUSH, 0, 0, 0);
+        ByteBuf farSn = segment(CONV, Kcp.CMD_PUSH, 0x40000000, 0, 0);
+        ByteBuf farUna = segment(CONV, Kcp.CMD_WASK, 0, 0x40000000, 0);
+        ByteBuf unknownAck = segment(CONV, Kcp.CMD_ACK, 5, 0, 0);
+        ByteBuf truncated = segment(CONV, Kcp.CMD_PUSH, 0, 0, 100);
+        assertFalse(server.inWindow(wrongConv));
+        assertFalse(server.inWindow(farSn));
+        assertFalse(server.inWindow(farUna));
+        assertFalse(server.inWindow(unknownAck), "server has not sent anything to acknowledge");
+        assertFalse(server.inWindow(truncated));
+        for (ByteBuf buf : List.of(wrongConv, farSn, farUna, unknownAck, truncated)) {
+            buf.release();
+        }
+    }
+
+    @Test
+    void messageModeRejectsOversizedMessage() {
+        // 消息模式下分片数不能达到接收窗口（128）
+        ByteBuf huge = bytes(new byte[client.getMss() * 128]);
+        assertThrows(IllegalArgumentException.class, () -> client.send(huge));
+        assertEquals(0, huge.refCnt(), "send releases the buffer even when it rejects it");
+    }
+
+    // ---------------------------------------------------------------- 链路模拟
+
+    /**
+     * 推进时钟并在两端之间投递报文，dropToServer / dropToClient 按报文序号决定是否丢弃
+     */
+    private void run(int steps, IntPredicate dropToServer, IntPredicate dropToClient) {
+        int[] counters = new int[2];
+        for (int step = 0; step < steps; step++) {
+            tick();
+            counters[0] = deliver(toServer, server, dropToServer, counters[0]);
+            counters[1] = deliver(toClient, client, dropToClient, counters[1]);
+            drain(server);
+        }
+    }
+
+    private void tick() {
+        now += STEP_MS;
+        client.update(now);
+        server.update(now);
+    }
+
+    private int deliver(ArrayDeque<ByteBuf> link, Kcp target, IntPredicate drop, int counter) {
+        ByteBuf datagram;
+        while ((datagram = link.pollFirst()) != null) {
+            if (!drop.test(counter++)) {
+                assertEquals(0, target.input(datagram));
+            }
+            datagram.release();
+        }
+        return counter;
+    }
+
+    private static void shuffleAndDrop(ArrayDeque<ByteBuf> link, Random random, double lossRate) {
+        List<ByteBuf> datagrams = new ArrayList<>(link);
+        link.clear();
+        Collections.shuffle(datagrams, random);
+        for (ByteBuf datagram : datagrams) {
+            if (random.nextDouble() < lossRate) {
+                datagram.release();
+            } else {
+                link.addLast(datagram);
+            }
+        }
+    }
+
+    private void drain(Kcp kcp) {
+        ByteBuf message;
+        while ((message = kcp.recv(alloc)) != null) {
+            received.add(message);
+        }
+    }
+
+    /**
+     * 把一个报文拆成每个分片一个报文
+     */
+    private static void splitSegments(ByteBuf datagram, List<ByteBuf> out) {
+        int index = datagram.readerIndex();
+        while (datagram.writerIndex() - index >= Kcp.OVERHEAD) {
+            int len = datagram.getIntLE(index + 20);
+            out.add(datagram.retainedSlice(index, Kcp.OVERHEAD + len));
+            index += Kcp.OVERHEAD + len;
+        }
+    }
+
+    private static ByteBuf segment(int conv, int cmd, int sn, int una, int len) {
+        ByteBuf buf = Unpooled.buffer(Kcp.OVERHEAD);
+        buf.writeIntLE(conv);
+        buf.writeByte(cmd);
+        buf.writeByte(0);
+        buf.writeShortLE(128);
+        buf.writeIntLE(0);
+        buf.writeIntLE(sn);
+        buf.writeIntLE(una);
+        buf.writeIntLE(len);
+        return buf;
+    }
+
+    private void assertReceived(int count, int size) {
+        assertEquals(count, received.size());
+        for (ByteBuf message : received) {
+            assertEquals(size, message.readableBytes());
+        }
+    }
+
+    private static byte[] message(int seed, int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (seed * 31 + i);
+        }
+        return data;
+    }
+
+    private static ByteBuf bytes(byte[] data) {
+        return Unpooled.wrappedBuffer(data);
+    }
+
+    private static byte[] toArray(ByteBuf buf) {
+        byte[] data = new byte[buf.readableBytes()];
+        buf.getBytes(buf.readerIndex(), data);
+        return data;
+    }
+
+    private static void releaseAll(ArrayDeque<ByteBuf> link) {
+        ByteBuf buf;
+        while ((buf = link.pollFirst()) != null) {
+            buf.release();
+        }
+    }
+}
@@ -5,8 +5,13 @@ import org.markeb.persistent.service.PersistentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 数据中心门面类
@@ -37,6 +42,48 @@ public class DataCenter {
         return service.find(clazz, id);
     }
 
+    /**
+     * 根据ID异步查找实体（在 I/O 线程完成）
+     */
+    public static <T extends Identifiable<ID>, ID> CompletableFuture<Optional<T>> findAsync(Class<T> clazz, ID id) {
+        return service.findAsync(clazz, id);
+    }
+
+    /**
+     * 根据ID异步查找实体，在 executor 上完成（如 {@code ActorContext.executor()}，回调回到 Actor 邮箱）
+     * <p>
+     * executor 拒绝投递（邮箱已满或 Actor 已停止）时以 {@link RejectedExecutionException} 异常完成。
+     * </p>
+     */
+    public static <T extends Identifiable<ID>, ID> CompletableFuture<Optional<T>> findAsync(Class<T> clazz, ID id,
+                                                                                          Executor executor) {
+        return completeOn(service.findAsync(clazz, id), executor);
+    }
+
+    /**
+     * 根据ID批量查找实体
+     */
+    public static <T extends Identifiable<ID>, ID> Map<ID, T> findMany(Class<T> clazz, Collection<ID> ids) {
+        return service.findMany(clazz, ids);
+    }
+
+    /**
+     * 根据ID异步批量查找实体（在 I/O 线程完成）
+     */
+    public static <T extends Identifiable<ID>, ID> CompletableFuture<Map<ID, T>> findManyAsync(Class<T> clazz,
+                                                                                              Collection<ID> ids) {
+        return service.findManyAsync(clazz, ids);
+    }
+
+    /**
+     * 根据ID异步批量查找实体，在 executor 上完成
+     */
+    public static <T extends Identifiable<ID>, ID> CompletableFuture<Map<ID, T>> findManyAsync(Class<T> clazz,
+                                                                                              Collection<ID> ids,
+                                                                                              Executor executor) {
+        return completeOn(service.findManyAsync(clazz, ids), executor);
+    }
+
     /**
      * 保存实体（同步）
      */
@@ -45,10 +92,17 @@ public class DataCenter {
     }
 
     /**
-     * 保存实体（异步）
+     * 保存实体（异步），返回发送确认
+     */
+    public static <T extends Identifiable<ID>, ID> CompletableFuture<Void> saveAsync(T entity) {
+        return service.saveAsync(entity);
+    }
+
+    /**
+     * 保存实体（异步），发送确认在 executor 上完成
      */
-    public static <T extends Identifiable<ID>, ID> void saveAsync(T entity) {
-        service.saveAsync(entity);
+    public static <T extends Identifiable<ID>, ID> CompletableFuture<Void> saveAsync(T entity, Executor executor) {
+        return completeOn(service.saveAsync(entity), executor);
     }
 
     /**
@@ -93,4 +147,32 @@ public class DataCenter {
         service.evictCache(clazz, id);
     }
 
+    /**
+     * 返回在 executor 上完成的 future：成功和失败都经 executor 转交，之后挂上的非 Async 回调也在 executor 上执行
+     * <p>
+     * executor 拒绝任务时（如 Actor 邮箱已满或 Actor 已停止）future 在当前线程以 {@link RejectedExecutionException}
+     * 异常完成，原结果的异常附为 suppressed。此时挂上的回调不在 Actor 内执行，不能读写 Actor 状态。
+     * </p>
+     */
+    private static <V> CompletableFuture<V> completeOn(CompletableFuture<V> future, Executor executor) {
+        CompletableFuture<V> completion = new CompletableFuture<>();
+        future.whenComplete((result, ex) -> {
+            try {
+                executor.execute(() -> {
+                    if (ex != null) {
+                        completion.completeExceptionally(ex);
+                    } else {
+                        completion.complete(result);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                if (ex != null) {
+                    e.addSuppressed(ex);
+                }
+                completion.completeExceptionally(e);
+            }
+        });
+        return completion;
+    }
+
 }
@@ -0,0 +1,100 @@
+package org.markeb.persistent.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 异步持久化 API 使用的有界 I/O 线程池
+ * <p>
+ * 阻塞的缓存与数据库调用在这里执行，调用方（如 Actor 执行线程）提交后立即返回。
+ * 队列有界，满时不在调用线程执行（否则会阻塞调用方），而是返回以 {@link RejectedExecutionException} 失败的 future。
+ * 空闲线程超时回收。
+ * </p>
+ */
+public class IoWorkerPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IoWorkerPool.class);
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param threads       线程数
+     * @param queueCapacity 等待队列容量
+     */
+    public IoWorkerPool(int threads, int queueCapacity) {
+        int size = Math.max(1, threads);
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "persistent-io-" + index.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 在 I/O 线程执行任务
+     * <p>
+     * 返回的 future 在 I/O 线程完成，需要在其他线程处理结果时使用 {@code thenXxxAsync(..., executor)}。
+     * </p>
+     */
+    public <V> CompletableFuture<V> submit(Supplier<V> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 获取等待执行的任务数
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 获取正在执行的任务数
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 获取因队列已满被拒绝的任务数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 停止接收新任务，等待已提交的任务完成
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Persistent I/O pool closed with {} queued tasks", executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
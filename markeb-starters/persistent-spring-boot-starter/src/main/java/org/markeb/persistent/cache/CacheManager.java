@@ -1,6 +1,9 @@
 package org.markeb.persistent.cache;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,6 +25,55 @@ public interface CacheManager {
      */
     <T> Optional<T> get(String key, Class<T> type);
 
+    /**
+     * 批量获取缓存值
+     *
+     * @param keys 缓存键
+     * @param type 值类型
+     * @return 命中的 key -> 值，未命中的 key 不在结果中
+     */
+    default <T> Map<String, T> getAll(Collection<String> keys, Class<T> type) {
+        Map<String, T> result = new HashMap<>();
+        for (String key : keys) {
+            get(key, type).ifPresent(value -> result.put(key, value));
+        }
+        return result;
+    }
+
+    /**
+     * 获取类型为 type 或 alternative 的缓存值
+     * <p>
+     * 用于同一个键可能缓存两种值的场景（如实体与不存在标记）。默认实现按两种类型各读取一次，
+     * 远程缓存的实现应只读取一次再按类型区分。
+     * </p>
+     *
+     * @param key         缓存键
+     * @param type        值类型
+     * @param alternative 另一种值类型
+     * @return 缓存值（可能为空）
+     */
+    default Optional<Object> getEither(String key, Class<?> type, Class<?> alternative) {
+        Optional<?> value = get(key, type);
+        return value.isPresent() ? Optional.of(value.get()) : Optional.ofNullable(get(key, alternative).orElse(null));
+    }
+
+    /**
+     * 批量获取类型为 type 或 alternative 的缓存值
+     *
+     * @param keys        缓存键
+     * @param type        值类型
+     * @param alternative 另一种值类型
+     * @return 命中的 key -> 值，未命中的 key 不在结果中
+     * @see #getEither(String, Class, Class)
+     */
+    default Map<String, Object> getAllEither(Collection<String> keys, Class<?> type, Class<?> alternative) {
+        Map<String, Object> result = new HashMap<>();
+        for (String key : keys) {
+            getEither(key, type, alternative).ifPresent(value -> result.put(key, value));
+        }
+        return result;
+    }
+
     /**
      * 设置缓存值（使用默认 TTL）
      *
@@ -39,6 +91,60 @@ public interface CacheManager {
      */
     <T> void put(String key, T value, Duration ttl);
 
+    /**
+     * 设置缓存值（本地缓存与远程缓存分别指定 TTL）
+     * <p>
+     * 单级缓存只使用与自身对应的 TTL，为 null 时使用该级缓存的默认 TTL。
+     * </p>
+     *
+     * @param key       缓存键
+     * @param value     缓存值
+     * @param localTtl  本地缓存过期时间
+     * @param remoteTtl 远程缓存过期时间
+     */
+    default <T> void put(String key, T value, Duration localTtl, Duration remoteTtl) {
+        if (remoteTtl == null) {
+            put(key, value);
+        } else {
+            put(key, value, remoteTtl);
+        }
+    }
+
+    /**
+     * 批量设置缓存值（使用默认 TTL）
+     *
+     * @param entries 缓存键 -> 缓存值
+     */
+    default void putAll(Map<String, ?> entries) {
+        entries.forEach(this::put);
+    }
+
+    /**
+     * 批量设置缓存值（指定 TTL）
+     *
+     * @param entries 缓存键 -> 缓存值
+     * @param ttl     过期时间
+     */
+    default void putAll(Map<String, ?> entries, Duration ttl) {
+        entries.forEach((key, value) -> put(key, value, ttl));
+    }
+
+    /**
+     * 批量设置缓存值（本地缓存与远程缓存分别指定 TTL）
+     *
+     * @param entries   缓存键 -> 缓存值
+     * @param localTtl  本地缓存过期时间
+     * @param remoteTtl 远程缓存过期时间
+     * @see #put(String, Object, Duration, Duration)
+     */
+    default void putAll(Map<String, ?> entries, Duration localTtl, Duration remoteTtl) {
+        if (remoteTtl == null) {
+            putAll(entries);
+        } else {
+            putAll(entries, remoteTtl);
+        }
+    }
+
     /**
      * 删除缓存
      *
@@ -46,6 +152,15 @@ public interface CacheManager {
      */
     void evict(String key);
 
+    /**
+     * 批量删除缓存
+     *
+     * @param keys 缓存键
+     */
+    default void evictAll(Collection<String> keys) {
+        keys.forEach(this::evict);
+    }
+
     /**
      * 判断缓存是否存在
      *
@@ -2,37 +2,114 @@ package org.markeb.persistent.cache.caffeine;
 
 import org.markeb.persistent.cache.CacheManager;
 import org.markeb.persistent.cache.CacheType;
+import org.markeb.persistent.serialization.EntitySerializer;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * Caffeine 本地缓存管理器实现
+ * <p>
+ * 过期使用可变过期策略：{@link #put(String, Object, Duration)} 的 TTL 对单个 key 生效（0 或负数表示不过期），
+ * 未指定 TTL 的写入使用默认 TTL，读取不延长过期时间。
+ * 容量默认按条目数限制；配置了权重上限时改为按序列化后的字节数限制，大对象占用更多额度。
+ * 命中率、容量淘汰与过期按集合前缀统计，见 {@link #getPrefixStats()} 与 {@link #getWeightByPrefix()}。
+ * </p>
  */
 public class CaffeineCacheManager implements CacheManager {
 
     private static final Logger log = LoggerFactory.getLogger(CaffeineCacheManager.class);
 
+    /**
+     * 序列化失败时的估算权重（字节）
+     */
+    private static final int FALLBACK_WEIGHT = 1024;
+
     private final Cache<String, Object> cache;
     private final Duration defaultTtl;
+    private final EntitySerializer serializer;
+    private final PrefixCacheStats prefixStats = new PrefixCacheStats();
+
+    /**
+     * 单个 key 指定 TTL 的入口，外部传入的缓存未配置可变过期时为 null
+     */
+    private final Policy.VarExpiration<String, Object> varExpiration;
 
     public CaffeineCacheManager(long maxSize, Duration expireAfterWrite) {
-        this.defaultTtl = expireAfterWrite;
-        this.cache = Caffeine.newBuilder()
-                .maximumSize(maxSize)
-                .expireAfterWrite(expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
-                .recordStats()
-                .build();
+        this(maxSize, 0, expireAfterWrite, null);
+    }
+
+    /**
+     * @param maxSize        最大条目数，maxWeightBytes 大于 0 时不生效
+     * @param maxWeightBytes 按序列化大小限制的总权重（字节），0 表示按条目数限制
+     * @param defaultTtl     未指定 TTL 时的过期时间
+     * @param serializer     计算权重用的序列化器，maxWeightBytes 大于 0 时必须提供
+     */
+    public CaffeineCacheManager(long maxSize, long maxWeightBytes, Duration defaultTtl, EntitySerializer serializer) {
+        if (maxWeightBytes > 0 && serializer == null) {
+            throw new IllegalArgumentException("EntitySerializer is required for weight-based eviction");
+        }
+        this.defaultTtl = defaultTtl;
+        this.serializer = serializer;
+
+        Caffeine<String, Object> builder = Caffeine.newBuilder()
+                .expireAfter(new TtlExpiry(toNanos(defaultTtl)))
+                .removalListener((String key, Object value, RemovalCause cause) -> {
+                    if (key != null) {
+                        prefixStats.recordRemoval(key, cause);
+                    }
+                })
+                .recordStats();
+        if (maxWeightBytes > 0) {
+            builder.maximumWeight(maxWeightBytes).weigher(this::weigh);
+        } else {
+            builder.maximumSize(maxSize);
+        }
+        this.cache = builder.build();
+        this.varExpiration = cache.policy().expireVariably().orElse(null);
     }
 
+    /**
+     * 使用外部构建的缓存，只有配置了 {@code expireAfter(Expiry)} 时才支持单个 key 的 TTL，
+     * 未注册移除监听时不统计淘汰
+     */
     public CaffeineCacheManager(Cache<String, Object> cache, Duration defaultTtl) {
         this.cache = cache;
         this.defaultTtl = defaultTtl;
+        this.serializer = null;
+        this.varExpiration = cache.policy().expireVariably().orElse(null);
+    }
+
+    /**
+     * 0 或负数表示不过期
+     */
+    private static long toNanos(Duration ttl) {
+        return ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : ttl.toNanos();
+    }
+
+    /**
+     * 条目权重 = 键长度 + 序列化后的字节数
+     */
+    private int weigh(String key, Object value) {
+        try {
+            return key.length() + serializer.serialize(value).length;
+        } catch (RuntimeException e) {
+            log.debug("Failed to weigh cache value: {}, using {} bytes", key, FALLBACK_WEIGHT, e);
+            return FALLBACK_WEIGHT;
+        }
     }
 
     @Override
@@ -43,11 +120,36 @@ public class CaffeineCacheManager implements CacheManager {
     @Override
     @SuppressWarnings("unchecked")
     public <T> Optional<T> get(String key, Class<T> type) {
+        return (Optional<T>) lookup(key, type::isInstance);
+    }
+
+    @Override
+    public Optional<Object> getEither(String key, Class<?> type, Class<?> alternative) {
+        return lookup(key, value -> type.isInstance(value) || alternative.isInstance(value));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(Collection<String> keys, Class<T> type) {
+        return (Map<String, T>) lookupAll(keys, type::isInstance);
+    }
+
+    @Override
+    public Map<String, Object> getAllEither(Collection<String> keys, Class<?> type, Class<?> alternative) {
+        return lookupAll(keys, value -> type.isInstance(value) || alternative.isInstance(value));
+    }
+
+    /**
+     * 读取缓存值，值不满足 accepted 时按未命中处理
+     */
+    private Optional<Object> lookup(String key, Predicate<Object> accepted) {
         try {
             Object value = cache.getIfPresent(key);
-            if (value != null && type.isInstance(value)) {
-                return Optional.of((T) value);
+            if (value != null && accepted.test(value)) {
+                prefixStats.recordHit(key);
+                return Optional.of(value);
             }
+            prefixStats.recordMiss(key);
             return Optional.empty();
         } catch (Exception e) {
             log.error("Failed to get cache: {}", key, e);
@@ -55,22 +157,79 @@ public class CaffeineCacheManager implements CacheManager {
         }
     }
 
+    /**
+     * 批量读取缓存值，值不满足 accepted 的 key 按未命中处理
+     */
+    private Map<String, Object> lookupAll(Collection<String> keys, Predicate<Object> accepted) {
+        try {
+            Map<String, Object> result = new HashMap<>();
+            cache.getAllPresent(keys).forEach((key, value) -> {
+                if (accepted.test(value)) {
+                    result.put(key, value);
+                }
+            });
+            for (String key : keys) {
+                if (result.containsKey(key)) {
+                    prefixStats.recordHit(key);
+                } else {
+                    prefixStats.recordMiss(key);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to get cache: {} keys", keys.size(), e);
+            return Map.of();
+        }
+    }
+
     @Override
     public <T> void put(String key, T value) {
-        put(key, value, defaultTtl);
+        try {
+            cache.put(key, value);
+        } catch (Exception e) {
+            log.error("Failed to put cache: {}", key, e);
+        }
     }
 
+    /**
+     * 设置缓存值，TTL 只对该 key 生效；为 null 时使用默认 TTL
+     */
     @Override
     public <T> void put(String key, T value, Duration ttl) {
+        if (ttl == null || varExpiration == null) {
+            put(key, value);
+            return;
+        }
         try {
-            // Caffeine 不支持单个 key 设置不同的 TTL
-            // 如果需要不同 TTL，建议使用 Redis 或两级缓存
-            cache.put(key, value);
+            varExpiration.put(key, value, toNanos(ttl), TimeUnit.NANOSECONDS);
         } catch (Exception e) {
             log.error("Failed to put cache: {}", key, e);
         }
     }
 
+    @Override
+    public <T> void put(String key, T value, Duration localTtl, Duration remoteTtl) {
+        put(key, value, localTtl);
+    }
+
+    @Override
+    public void putAll(Map<String, ?> entries) {
+        try {
+            cache.putAll(entries);
+        } catch (Exception e) {
+            log.error("Failed to put cache: {} keys", entries.size(), e);
+        }
+    }
+
+    @Override
+    public void putAll(Map<String, ?> entries, Duration localTtl, Duration remoteTtl) {
+        if (localTtl == null) {
+            putAll(entries);
+        } else {
+            putAll(entries, localTtl);
+        }
+    }
+
     @Override
     public void evict(String key) {
         try {
@@ -80,6 +239,15 @@ public class CaffeineCacheManager implements CacheManager {
         }
     }
 
+    @Override
+    public void evictAll(Collection<String> keys) {
+        try {
+            cache.invalidateAll(keys);
+        } catch (Exception e) {
+            log.error("Failed to evict cache: {} keys", keys.size(), e);
+        }
+    }
+
     @Override
     public boolean exists(String key) {
         return cache.getIfPresent(key) != null;
@@ -93,4 +261,66 @@ public class CaffeineCacheManager implements CacheManager {
     public Cache<String, Object> getCache() {
         return cache;
     }
+
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    /**
+     * 获取按集合前缀统计的命中、淘汰与过期
+     */
+    public PrefixCacheStats getPrefixStats() {
+        return prefixStats;
+    }
+
+    /**
+     * 按集合前缀汇总当前占用的权重（字节），未按权重限制时为条目数
+     * <p>
+     * 遍历全部条目，只用于指标采集，不要在热路径调用。
+     * </p>
+     */
+    public Map<String, Long> getWeightByPrefix() {
+        Optional<Policy.Eviction<String, Object>> eviction = cache.policy().eviction();
+        boolean weighted = eviction.map(Policy.Eviction::isWeighted).orElse(false);
+        Map<String, Long> result = new HashMap<>();
+        for (String key : cache.asMap().keySet()) {
+            long weight = 1;
+            if (weighted) {
+                OptionalInt weightOf = eviction.get().weightOf(key);
+                if (weightOf.isEmpty()) {
+                    continue;
+                }
+                weight = weightOf.getAsInt();
+            }
+            result.merge(PrefixCacheStats.prefixOf(key), weight, Long::sum);
+        }
+        return result;
+    }
+
+    /**
+     * 按 key 的 TTL 过期：创建与覆盖写时使用默认 TTL（指定了 TTL 的写入由 VarExpiration 直接设置），读取不改变过期时间
+     */
+    private static final class TtlExpiry implements Expiry<String, Object> {
+
+        private final long defaultNanos;
+
+        TtlExpiry(long defaultNanos) {
+            this.defaultNanos = defaultNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Object value, long currentTime) {
+            return defaultNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+            return defaultNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package org.markeb.persistent.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按集合前缀统计的本地缓存命中与淘汰
+ * <p>
+ * 缓存键形如 {@code collection:id}，前缀为第一个 ':' 之前的部分，没有 ':' 的键统计在空前缀下。
+ * 淘汰区分容量（条目数或权重）淘汰与过期，显式删除和覆盖写不计入。
+ * </p>
+ */
+public class PrefixCacheStats {
+
+    private final Map<String, PrefixStats> prefixes = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存键的集合前缀
+     */
+    static String prefixOf(String key) {
+        int index = key.indexOf(':');
+        return index > 0 ? key.substring(0, index) : "";
+    }
+
+    private PrefixStats of(String key) {
+        String prefix = prefixOf(key);
+        PrefixStats stats = prefixes.get(prefix);
+        return stats != null ? stats : prefixes.computeIfAbsent(prefix, p -> new PrefixStats());
+    }
+
+    void recordHit(String key) {
+        of(key).hits.increment();
+    }
+
+    void recordMiss(String key) {
+        of(key).misses.increment();
+    }
+
+    void recordRemoval(String key, RemovalCause cause) {
+        if (cause == RemovalCause.SIZE) {
+            of(key).evictions.increment();
+        } else if (cause == RemovalCause.EXPIRED) {
+            of(key).expirations.increment();
+        }
+    }
+
+    /**
+     * 获取指定前缀的统计，尚未访问过时返回 null
+     */
+    public PrefixStats get(String prefix) {
+        return prefixes.get(prefix);
+    }
+
+    /**
+     * 获取所有前缀的统计（前缀 -> 统计）
+     */
+    public Map<String, PrefixStats> getPrefixStats() {
+        return Collections.unmodifiableMap(prefixes);
+    }
+
+    /**
+     * 单个集合前缀的统计
+     */
+    public static class PrefixStats {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+
+        /**
+         * 获取命中次数
+         */
+        public long getHitCount() {
+            return hits.sum();
+        }
+
+        /**
+         * 获取未命中次数
+         */
+        public long getMissCount() {
+            return misses.sum();
+        }
+
+        /**
+         * 获取命中率
+         */
+        public double getHitRate() {
+            long hitCount = hits.sum();
+            long total = hitCount + misses.sum();
+            return total > 0 ? (double) hitCount / total : 0;
+        }
+
+        /**
+         * 获取因超出容量（条目数或权重）被淘汰的条目数
+         */
+        public long getEvictionCount() {
+            return evictions.sum();
+        }
+
+        /**
+         * 获取过期的条目数
+         */
+        public long getExpirationCount() {
+            return expirations.sum();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.markeb.persistent.cache.redis;
+
+import org.markeb.persistent.serialization.EntitySerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * protostuff 二进制缓存值
+ * <p>
+ * 格式：magic(1) + typeTag(4) + protostuff 字节。typeTag 为类名的 32 位哈希，只用于校验读出的数据是否为期望类型，
+ * 反序列化使用调用方传入的类型，不在值中保存类名。magic 用于识别切换格式前写入的 JSON 值，这类值按未命中处理，
+ * 随后从数据库加载并以新格式回填。
+ * </p>
+ */
+public class ProtostuffRedisValueCodec implements RedisValueCodec {
+
+    private static final byte MAGIC = 0x01;
+    private static final int HEADER_LENGTH = 5;
+
+    private final EntitySerializer serializer;
+    private final Map<Class<?>, Integer> typeTags = new ConcurrentHashMap<>();
+
+    public ProtostuffRedisValueCodec(EntitySerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    private int typeTag(Class<?> type) {
+        Integer tag = typeTags.get(type);
+        return tag != null ? tag : typeTags.computeIfAbsent(type, ProtostuffRedisValueCodec::hash);
+    }
+
+    /**
+     * 类名 UTF-8 字节的 FNV-1a 哈希，不依赖 String.hashCode 的实现
+     */
+    private static int hash(Class<?> type) {
+        int hash = 0x811C9DC5;
+        for (byte b : type.getName().getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        byte[] body = serializer.serialize(value);
+        int tag = typeTag(value.getClass());
+        byte[] data = new byte[HEADER_LENGTH + body.length];
+        data[0] = MAGIC;
+        data[1] = (byte) (tag >>> 24);
+        data[2] = (byte) (tag >>> 16);
+        data[3] = (byte) (tag >>> 8);
+        data[4] = (byte) tag;
+        System.arraycopy(body, 0, data, HEADER_LENGTH, body.length);
+        return data;
+    }
+
+    @Override
+    public <T> T decode(byte[] data, Class<T> type) {
+        if (data.length < HEADER_LENGTH || data[0] != MAGIC) {
+            return null;
+        }
+        int tag = (data[1] & 0xFF) << 24 | (data[2] & 0xFF) << 16 | (data[3] & 0xFF) << 8 | (data[4] & 0xFF);
+        if (tag != typeTag(type)) {
+            return null;
+        }
+        return serializer.deserialize(data, HEADER_LENGTH, data.length - HEADER_LENGTH, type);
+    }
+}
@@ -4,27 +4,58 @@ import org.markeb.persistent.cache.CacheManager;
 import org.markeb.persistent.cache.CacheType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Redis 缓存管理器实现
+ * <p>
+ * 直接在连接上读写字节，值由 {@link RedisValueCodec} 编解码（JSON 或 protostuff 二进制）。
+ * 批量读取使用一次 MGET，批量写入与删除使用管线（pipeline）一次往返；清空使用增量 SCAN + UNLINK，不阻塞 Redis。
+ * </p>
  */
 public class RedisCacheManager implements CacheManager {
 
     private static final Logger log = LoggerFactory.getLogger(RedisCacheManager.class);
 
+    /**
+     * 清空时每轮 SCAN 的 COUNT 以及每次 UNLINK 的键数
+     */
+    private static final int SCAN_BATCH_SIZE = 1000;
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisValueCodec valueCodec;
     private final String keyPrefix;
     private final Duration defaultTtl;
 
     public RedisCacheManager(RedisTemplate<String, Object> redisTemplate,
                               String keyPrefix,
                               Duration defaultTtl) {
+        this(redisTemplate, new TemplateRedisValueCodec(redisTemplate), keyPrefix, defaultTtl);
+    }
+
+    /**
+     * @param valueCodec 值编解码，决定 Redis 中值的格式
+     */
+    public RedisCacheManager(RedisTemplate<String, Object> redisTemplate,
+                              RedisValueCodec valueCodec,
+                              String keyPrefix,
+                              Duration defaultTtl) {
         this.redisTemplate = redisTemplate;
+        this.valueCodec = valueCodec;
         this.keyPrefix = keyPrefix != null ? keyPrefix : "";
         this.defaultTtl = defaultTtl != null ? defaultTtl : Duration.ofMinutes(30);
     }
@@ -35,18 +66,75 @@ public class RedisCacheManager implements CacheManager {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> Optional<T> get(String key, Class<T> type) {
+        return Optional.ofNullable(read(key, data -> valueCodec.decode(data, type)));
+    }
+
+    /**
+     * 一次 GET，先按 type 解码，不符时再按 alternative 解码
+     */
+    @Override
+    public Optional<Object> getEither(String key, Class<?> type, Class<?> alternative) {
+        return Optional.ofNullable(read(key, data -> decodeEither(data, type, alternative)));
+    }
+
+    /**
+     * 一次 MGET 取回所有键
+     */
+    @Override
+    public <T> Map<String, T> getAll(Collection<String> keys, Class<T> type) {
+        return readAll(keys, data -> valueCodec.decode(data, type));
+    }
+
+    @Override
+    public Map<String, Object> getAllEither(Collection<String> keys, Class<?> type, Class<?> alternative) {
+        return readAll(keys, data -> decodeEither(data, type, alternative));
+    }
+
+    private Object decodeEither(byte[] data, Class<?> type, Class<?> alternative) {
+        Object value = valueCodec.decode(data, type);
+        return value != null ? value : valueCodec.decode(data, alternative);
+    }
+
+    private <T> T read(String key, Function<byte[], T> decoder) {
         try {
-            String fullKey = buildKey(key);
-            Object value = redisTemplate.opsForValue().get(fullKey);
-            if (value != null && type.isInstance(value)) {
-                return Optional.of((T) value);
-            }
-            return Optional.empty();
+            byte[] fullKey = buildKey(key);
+            byte[] data = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(fullKey));
+            return data != null ? decoder.apply(data) : null;
         } catch (Exception e) {
             log.error("Failed to get cache: {}", key, e);
-            return Optional.empty();
+            return null;
+        }
+    }
+
+    private <T> Map<String, T> readAll(Collection<String> keys, Function<byte[], T> decoder) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            List<String> keyList = new ArrayList<>(keys);
+            byte[][] fullKeys = new byte[keyList.size()][];
+            for (int i = 0; i < fullKeys.length; i++) {
+                fullKeys[i] = buildKey(keyList.get(i));
+            }
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(fullKeys));
+            if (values == null) {
+                return Map.of();
+            }
+            Map<String, T> result = new HashMap<>();
+            for (int i = 0; i < keyList.size(); i++) {
+                byte[] data = values.get(i);
+                T value = data != null ? decoder.apply(data) : null;
+                if (value != null) {
+                    result.put(keyList.get(i), value);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to get cache: {} keys", keys.size(), e);
+            return Map.of();
         }
     }
 
@@ -58,52 +146,144 @@ public class RedisCacheManager implements CacheManager {
     @Override
     public <T> void put(String key, T value, Duration ttl) {
         try {
-            String fullKey = buildKey(key);
-            if (ttl == null || ttl.isZero() || ttl.isNegative()) {
-                redisTemplate.opsForValue().set(fullKey, value);
-            } else {
-                redisTemplate.opsForValue().set(fullKey, value, ttl);
-            }
+            byte[] fullKey = buildKey(key);
+            byte[] data = valueCodec.encode(value);
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                set(connection, fullKey, data, ttl);
+                return null;
+            });
         } catch (Exception e) {
             log.error("Failed to put cache: {}", key, e);
         }
     }
 
+    /**
+     * 管线批量写入，一次往返
+     */
+    @Override
+    public void putAll(Map<String, ?> entries) {
+        putAll(entries, defaultTtl);
+    }
+
+    /**
+     * 管线批量写入，一次往返
+     */
+    @Override
+    public void putAll(Map<String, ?> entries, Duration ttl) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            List<byte[]> keys = new ArrayList<>(entries.size());
+            List<byte[]> values = new ArrayList<>(entries.size());
+            entries.forEach((key, value) -> {
+                keys.add(buildKey(key));
+                values.add(valueCodec.encode(value));
+            });
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    set(connection, keys.get(i), values.get(i), ttl);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to put cache: {} keys", entries.size(), e);
+        }
+    }
+
+    /**
+     * TTL 为 null、0 或负数时不过期
+     */
+    private static void set(RedisConnection connection, byte[] key, byte[] value, Duration ttl) {
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            connection.stringCommands().set(key, value);
+        } else {
+            connection.stringCommands().pSetEx(key, ttl.toMillis(), value);
+        }
+    }
+
     @Override
     public void evict(String key) {
         try {
-            String fullKey = buildKey(key);
-            redisTemplate.delete(fullKey);
+            byte[] fullKey = buildKey(key);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().del(fullKey));
         } catch (Exception e) {
             log.error("Failed to evict cache: {}", key, e);
         }
     }
 
+    /**
+     * 一次 UNLINK 删除所有键，内存由 Redis 后台线程回收
+     */
+    @Override
+    public void evictAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            byte[][] fullKeys = new byte[keys.size()][];
+            int i = 0;
+            for (String key : keys) {
+                fullKeys[i++] = buildKey(key);
+            }
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().unlink(fullKeys));
+        } catch (Exception e) {
+            log.error("Failed to evict cache: {} keys", keys.size(), e);
+        }
+    }
+
     @Override
     public boolean exists(String key) {
         try {
-            String fullKey = buildKey(key);
-            return Boolean.TRUE.equals(redisTemplate.hasKey(fullKey));
+            byte[] fullKey = buildKey(key);
+            return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.keyCommands().exists(fullKey)));
         } catch (Exception e) {
             log.error("Failed to check cache existence: {}", key, e);
             return false;
         }
     }
 
+    /**
+     * 增量 SCAN 前缀下的键，每批 UNLINK 一次；不使用 KEYS，不会长时间阻塞 Redis
+     */
     @Override
     public void clear() {
         try {
-            Set<String> keys = redisTemplate.keys(keyPrefix + "*");
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-            }
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(keyPrefix + "*")
+                    .count(SCAN_BATCH_SIZE)
+                    .build();
+            Long cleared = redisTemplate.execute((RedisCallback<Long>) connection -> {
+                long count = 0;
+                List<byte[]> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+                try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                    while (cursor.hasNext()) {
+                        batch.add(cursor.next());
+                        if (batch.size() >= SCAN_BATCH_SIZE) {
+                            count += unlink(connection, batch);
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    count += unlink(connection, batch);
+                }
+                return count;
+            });
+            log.info("Cleared {} cache keys with prefix: {}", cleared, keyPrefix);
         } catch (Exception e) {
             log.error("Failed to clear cache", e);
         }
     }
 
-    private String buildKey(String key) {
-        return keyPrefix + key;
+    private static long unlink(RedisConnection connection, List<byte[]> keys) {
+        Long count = connection.keyCommands().unlink(keys.toArray(new byte[0][]));
+        keys.clear();
+        return count != null ? count : 0;
+    }
+
+    private byte[] buildKey(String key) {
+        return (keyPrefix + key).getBytes(StandardCharsets.UTF_8);
     }
 
     public RedisTemplate<String, Object> getRedisTemplate() {
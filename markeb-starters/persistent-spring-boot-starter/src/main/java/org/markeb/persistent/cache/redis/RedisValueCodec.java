@@ -0,0 +1,21 @@
+package org.markeb.persistent.cache.redis;
+
+/**
+ * Redis 缓存值的编解码
+ */
+public interface RedisValueCodec {
+
+    /**
+     * 编码缓存值
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码缓存值
+     *
+     * @param data 原始字节
+     * @param type 期望的值类型
+     * @return 缓存值，数据不是该类型（或格式不符）时返回 null，按未命中处理
+     */
+    <T> T decode(byte[] data, Class<T> type);
+}
@@ -0,0 +1,17 @@
+package org.markeb.persistent.cache.redis;
+
+/**
+ * Redis 缓存值格式
+ */
+public enum RedisValueFormat {
+
+    /**
+     * RedisTemplate 的值序列化器（默认 JSON，带类名）
+     */
+    JSON,
+
+    /**
+     * protostuff 二进制 + 4 字节类型标记
+     */
+    PROTOSTUFF
+}
@@ -0,0 +1,29 @@
+package org.markeb.persistent.cache.redis;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 使用 RedisTemplate 上配置的值序列化器（默认 JSON，值中带完整类名）
+ */
+public class TemplateRedisValueCodec implements RedisValueCodec {
+
+    private final RedisSerializer<Object> serializer;
+
+    @SuppressWarnings("unchecked")
+    public TemplateRedisValueCodec(RedisTemplate<String, Object> redisTemplate) {
+        this.serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return serializer.serialize(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T decode(byte[] data, Class<T> type) {
+        Object value = serializer.deserialize(data);
+        return type.isInstance(value) ? (T) value : null;
+    }
+}
@@ -0,0 +1,115 @@
+package org.markeb.persistent.cache.twolevel;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 跨节点 L1 失效统计
+ * <p>
+ * 发送与接收都按 key 计数；接收到的 key 中同一条失效的重复投递（发布节点与版本都相同）会被忽略，
+ * 其余的从 L1 删除并计入已应用。本节点发布的批次经 Redis 回送给自己时直接丢弃，单独计数。
+ * </p>
+ */
+public class InvalidationStats {
+
+    private final LongAdder sentKeys = new LongAdder();
+    private final LongAdder sentBatches = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+    private final LongAdder receivedKeys = new LongAdder();
+    private final LongAdder appliedKeys = new LongAdder();
+    private final LongAdder duplicateKeys = new LongAdder();
+    private final LongAdder ownBatches = new LongAdder();
+
+    void recordSent(int keys) {
+        sentBatches.increment();
+        sentKeys.add(keys);
+    }
+
+    void recordPublishFailure() {
+        publishFailures.increment();
+    }
+
+    void recordReceived(int keys) {
+        receivedKeys.add(keys);
+    }
+
+    void recordApplied() {
+        appliedKeys.increment();
+    }
+
+    void recordDuplicate() {
+        duplicateKeys.increment();
+    }
+
+    void recordOwnBatch() {
+        ownBatches.increment();
+    }
+
+    /**
+     * 获取发送的失效 key 数
+     */
+    public long getSentCount() {
+        return sentKeys.sum();
+    }
+
+    /**
+     * 获取发送的批次数
+     */
+    public long getSentBatchCount() {
+        return sentBatches.sum();
+    }
+
+    /**
+     * 获取平均每批的 key 数
+     */
+    public double getKeysPerBatch() {
+        long batches = sentBatches.sum();
+        return batches > 0 ? (double) sentKeys.sum() / batches : 0;
+    }
+
+    /**
+     * 获取发布失败的批次数（失败的 key 重新排队，下一批重试）
+     */
+    public long getPublishFailureCount() {
+        return publishFailures.sum();
+    }
+
+    /**
+     * 获取收到的其他节点的失效 key 数
+     */
+    public long getReceivedCount() {
+        return receivedKeys.sum();
+    }
+
+    /**
+     * 获取实际从 L1 删除的 key 数
+     */
+    public long getAppliedCount() {
+        return appliedKeys.sum();
+    }
+
+    /**
+     * 获取因重复投递而忽略的 key 数
+     */
+    public long getDuplicateCount() {
+        return duplicateKeys.sum();
+    }
+
+    /**
+     * 获取丢弃的本节点自己发布的批次数
+     */
+    public long getOwnBatchCount() {
+        return ownBatches.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "InvalidationStats{" +
+                "sent=" + getSentCount() +
+                ", keysPerBatch=" + String.format("%.2f", getKeysPerBatch()) +
+                ", received=" + getReceivedCount() +
+                ", applied=" + getAppliedCount() +
+                ", duplicates=" + getDuplicateCount() +
+                ", publishFailures=" + getPublishFailureCount() +
+                '}';
+    }
+}
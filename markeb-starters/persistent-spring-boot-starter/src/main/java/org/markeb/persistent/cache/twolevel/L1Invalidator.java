@@ -0,0 +1,280 @@
+package org.markeb.persistent.cache.twolevel;
+
+import org.markeb.persistent.cache.caffeine.CaffeineCacheManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通过 Redis pub/sub 在节点间同步 L1 失效
+ * <p>
+ * 本节点写入或删除 L2 之后登记失效 key，后台线程每个窗口把待发送的 key 合并为一条消息发布，
+ * 同一 key 在窗口内多次变更只发送一次。收到其他节点的消息后从本节点 L1 删除对应 key。
+ * </p>
+ * <p>
+ * 收到其他节点的失效总是删除 L1：各节点的版本号只在本节点内递增，不能给不同节点的写入排序，
+ * 按版本比较会把时钟偏慢的节点随后发出的失效当作旧消息丢掉，L1 留下旧值直到 TTL 过期。
+ * 删除是幂等的，最坏只多一次未命中。每个 key 带发布节点内递增的版本号，
+ * 按 key 保留最近一次收到的（节点 ID，版本）一段时间，只用于识别同一条失效的重复投递。
+ * 消息带发布节点 ID，Redis 回送给发布者自己的消息直接丢弃。
+ * </p>
+ * <p>
+ * 消息格式：nodeId(8) + count(4) + count * [version(8) + keyLength(2) + key(UTF-8)]，count 为 -1 表示清空 L1。
+ * 发布失败的 key 重新排队；失效只影响 L1 命中率，最坏情况下由 L1 TTL 兜底。
+ * </p>
+ */
+public class L1Invalidator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(L1Invalidator.class);
+
+    private static final int CLEAR_ALL = -1;
+
+    private final CaffeineCacheManager l1Cache;
+    private final RedisConnectionFactory connectionFactory;
+    private final String channel;
+    private final byte[] channelBytes;
+    private final int batchSize;
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean pendingClear = new AtomicBoolean();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Delivery> lastDelivered;
+    private final InvalidationStats stats = new InvalidationStats();
+
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * @param l1Cache          本节点 L1
+     * @param connectionFactory Redis 连接
+     * @param channel          pub/sub 频道
+     * @param flushIntervalMs  合并窗口（毫秒）
+     * @param batchSize        每条消息最多携带的 key 数
+     * @param versionRetention 按 key 保留最近收到的（节点 ID，版本）的时间，用于识别重复投递
+     * @param maxVersions      最多保留的 key 数
+     */
+    public L1Invalidator(CaffeineCacheManager l1Cache,
+                         RedisConnectionFactory connectionFactory,
+                         String channel,
+                         long flushIntervalMs,
+                         int batchSize,
+                         Duration versionRetention,
+                         long maxVersions) {
+        this.l1Cache = l1Cache;
+        this.connectionFactory = connectionFactory;
+        this.channel = channel;
+        this.channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        this.batchSize = Math.max(1, batchSize);
+        this.lastDelivered = Caffeine.newBuilder()
+                .maximumSize(maxVersions)
+                .expireAfterWrite(versionRetention)
+                .build();
+
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(connectionFactory);
+        this.listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(channel));
+        this.listenerContainer.afterPropertiesSet();
+        this.listenerContainer.start();
+
+        long interval = Math.max(1, flushIntervalMs);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "persistent-l1-invalidation");
+            t.setDaemon(true);
+            return t;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::scheduledFlush, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("L1 invalidation started on channel {}, node {}", channel, Long.toHexString(nodeId));
+    }
+
+    /**
+     * 记录从其他节点收到的失效，返回是否为同一条失效的重复投递
+     */
+    private boolean isDuplicate(String key, long sender, long version) {
+        Delivery delivery = new Delivery(sender, version);
+        return delivery.equals(lastDelivered.asMap().put(key, delivery));
+    }
+
+    /**
+     * 登记本节点对 key 的变更，在下一个窗口通知其他节点
+     */
+    public void invalidate(String key) {
+        long version = sequence.incrementAndGet();
+        pending.merge(key, version, Math::max);
+        if (pending.size() >= batchSize && !closed && flushRequested.compareAndSet(false, true)) {
+            // 攒满一批提前发送，不等窗口结束
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                scheduledFlush();
+            });
+        }
+    }
+
+    /**
+     * 通知其他节点清空 L1
+     */
+    public void invalidateAll() {
+        pendingClear.set(true);
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            log.error("L1 invalidation flush failed", e);
+        }
+    }
+
+    /**
+     * 发布全部待发送的失效
+     */
+    public void flush() {
+        if (pendingClear.compareAndSet(true, false)) {
+            if (!publish(encodeClear())) {
+                pendingClear.set(true);
+                return;
+            }
+        }
+        while (!pending.isEmpty()) {
+            List<String> keys = new ArrayList<>(Math.min(batchSize, pending.size()));
+            List<Long> versions = new ArrayList<>(keys.size());
+            Iterator<Map.Entry<String, Long>> it = pending.entrySet().iterator();
+            while (it.hasNext() && keys.size() < batchSize) {
+                Map.Entry<String, Long> entry = it.next();
+                // 期间有更新的版本登记时不移除，留给下一批
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    keys.add(entry.getKey());
+                    versions.add(entry.getValue());
+                }
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            if (!publish(encode(keys, versions))) {
+                for (int i = 0; i < keys.size(); i++) {
+                    pending.merge(keys.get(i), versions.get(i), Math::max);
+                }
+                return;
+            }
+            stats.recordSent(keys.size());
+        }
+    }
+
+    private boolean publish(byte[] payload) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.publish(channelBytes, payload);
+            return true;
+        } catch (Exception e) {
+            stats.recordPublishFailure();
+            log.warn("Failed to publish L1 invalidation to {}", channel, e);
+            return false;
+        }
+    }
+
+    private byte[] encode(List<String> keys, List<Long> versions) {
+        List<byte[]> encodedKeys = new ArrayList<>(keys.size());
+        int size = 12;
+        for (String key : keys) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            encodedKeys.add(bytes);
+            size += 10 + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(nodeId);
+        buffer.putInt(keys.size());
+        for (int i = 0; i < encodedKeys.size(); i++) {
+            byte[] bytes = encodedKeys.get(i);
+            buffer.putLong(versions.get(i));
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+        return buffer.array();
+    }
+
+    private byte[] encodeClear() {
+        return ByteBuffer.allocate(12).putLong(nodeId).putInt(CLEAR_ALL).array();
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(message.getBody());
+            long sender = buffer.getLong();
+            if (sender == nodeId) {
+                stats.recordOwnBatch();
+                return;
+            }
+            int count = buffer.getInt();
+            if (count == CLEAR_ALL) {
+                l1Cache.clear();
+                log.info("L1 cleared by remote node");
+                return;
+            }
+            stats.recordReceived(count);
+            for (int i = 0; i < count; i++) {
+                long version = buffer.getLong();
+                byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(bytes);
+                String key = new String(bytes, StandardCharsets.UTF_8);
+                if (isDuplicate(key, sender, version)) {
+                    stats.recordDuplicate();
+                } else {
+                    l1Cache.evict(key);
+                    stats.recordApplied();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to apply L1 invalidation from {}", channel, e);
+        }
+    }
+
+    public InvalidationStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            listenerContainer.destroy();
+        } catch (Exception e) {
+            log.warn("Failed to stop L1 invalidation listener", e);
+        }
+    }
+
+    /**
+     * 一条失效的来源：发布节点 ID 与该节点内的版本号
+     */
+    private record Delivery(long nodeId, long version) {
+    }
+}
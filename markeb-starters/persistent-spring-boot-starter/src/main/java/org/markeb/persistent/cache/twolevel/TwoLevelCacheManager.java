@@ -8,23 +8,42 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * 两级缓存管理器实现
  * L1: Caffeine 本地缓存（快速访问）
  * L2: Redis 分布式缓存（数据共享）
+ * <p>
+ * 配置了 {@link L1Invalidator} 时，写入和删除在更新 L2 之后通知其他节点删除各自的 L1，
+ * L1 可以使用较长的 TTL；从 L2 回填 L1 不发送通知。
+ * </p>
  */
-public class TwoLevelCacheManager implements CacheManager {
+public class TwoLevelCacheManager implements CacheManager, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
 
     private final CaffeineCacheManager l1Cache;
     private final RedisCacheManager l2Cache;
 
+    /**
+     * 跨节点 L1 失效，为 null 时只更新本节点 L1
+     */
+    private final L1Invalidator invalidator;
+
     public TwoLevelCacheManager(CaffeineCacheManager l1Cache, RedisCacheManager l2Cache) {
+        this(l1Cache, l2Cache, null);
+    }
+
+    public TwoLevelCacheManager(CaffeineCacheManager l1Cache, RedisCacheManager l2Cache, L1Invalidator invalidator) {
         this.l1Cache = l1Cache;
         this.l2Cache = l2Cache;
+        this.invalidator = invalidator;
     }
 
     @Override
@@ -54,22 +73,138 @@ public class TwoLevelCacheManager implements CacheManager {
         return Optional.empty();
     }
 
+    @Override
+    public <T> Map<String, T> getAll(Collection<String> keys, Class<T> type) {
+        // 先查 L1
+        Map<String, T> l1Values = l1Cache.getAll(keys, type);
+        if (l1Values.size() == keys.size()) {
+            return l1Values;
+        }
+
+        // L1 未命中的键一次查 L2
+        List<String> misses = new ArrayList<>(keys.size() - l1Values.size());
+        for (String key : keys) {
+            if (!l1Values.containsKey(key)) {
+                misses.add(key);
+            }
+        }
+        Map<String, T> l2Values = l2Cache.getAll(misses, type);
+        if (l2Values.isEmpty()) {
+            return l1Values;
+        }
+
+        // 回填 L1
+        l1Cache.putAll(l2Values);
+        Map<String, T> result = new HashMap<>(l1Values);
+        result.putAll(l2Values);
+        return result;
+    }
+
+    @Override
+    public Optional<Object> getEither(String key, Class<?> type, Class<?> alternative) {
+        Optional<Object> l1Value = l1Cache.getEither(key, type, alternative);
+        if (l1Value.isPresent()) {
+            log.debug("Cache hit L1: {}", key);
+            return l1Value;
+        }
+
+        Optional<Object> l2Value = l2Cache.getEither(key, type, alternative);
+        if (l2Value.isPresent()) {
+            log.debug("Cache hit L2: {}", key);
+            l1Cache.put(key, l2Value.get());
+            return l2Value;
+        }
+
+        log.debug("Cache miss: {}", key);
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, Object> getAllEither(Collection<String> keys, Class<?> type, Class<?> alternative) {
+        Map<String, Object> l1Values = l1Cache.getAllEither(keys, type, alternative);
+        if (l1Values.size() == keys.size()) {
+            return l1Values;
+        }
+
+        List<String> misses = new ArrayList<>(keys.size() - l1Values.size());
+        for (String key : keys) {
+            if (!l1Values.containsKey(key)) {
+                misses.add(key);
+            }
+        }
+        Map<String, Object> l2Values = l2Cache.getAllEither(misses, type, alternative);
+        if (l2Values.isEmpty()) {
+            return l1Values;
+        }
+
+        l1Cache.putAll(l2Values);
+        Map<String, Object> result = new HashMap<>(l1Values);
+        result.putAll(l2Values);
+        return result;
+    }
+
     @Override
     public <T> void put(String key, T value) {
         l1Cache.put(key, value);
         l2Cache.put(key, value);
+        invalidateRemote(key);
     }
 
     @Override
     public <T> void put(String key, T value, Duration ttl) {
         l1Cache.put(key, value, ttl);
         l2Cache.put(key, value, ttl);
+        invalidateRemote(key);
+    }
+
+    @Override
+    public <T> void put(String key, T value, Duration localTtl, Duration remoteTtl) {
+        l1Cache.put(key, value, localTtl);
+        if (remoteTtl == null) {
+            l2Cache.put(key, value);
+        } else {
+            l2Cache.put(key, value, remoteTtl);
+        }
+        invalidateRemote(key);
+    }
+
+    @Override
+    public void putAll(Map<String, ?> entries) {
+        l1Cache.putAll(entries);
+        l2Cache.putAll(entries);
+        entries.keySet().forEach(this::invalidateRemote);
+    }
+
+    @Override
+    public void putAll(Map<String, ?> entries, Duration ttl) {
+        l1Cache.putAll(entries, ttl);
+        l2Cache.putAll(entries, ttl);
+        entries.keySet().forEach(this::invalidateRemote);
+    }
+
+    @Override
+    public void putAll(Map<String, ?> entries, Duration localTtl, Duration remoteTtl) {
+        l1Cache.putAll(entries, localTtl, null);
+        if (remoteTtl == null) {
+            l2Cache.putAll(entries);
+        } else {
+            l2Cache.putAll(entries, remoteTtl);
+        }
+        entries.keySet().forEach(this::invalidateRemote);
     }
 
     @Override
     public void evict(String key) {
         l1Cache.evict(key);
         l2Cache.evict(key);
+        invalidateRemote(key);
+    }
+
+    @Override
+    public void evictAll(Collection<String> keys) {
+        l1Cache.evictAll(keys);
+        l2Cache.evictAll(keys);
+        keys.forEach(this::invalidateRemote);
     }
 
     @Override
@@ -81,6 +216,18 @@ public class TwoLevelCacheManager implements CacheManager {
     public void clear() {
         l1Cache.clear();
         l2Cache.clear();
+        if (invalidator != null) {
+            invalidator.invalidateAll();
+        }
+    }
+
+    /**
+     * 通知其他节点删除 L1 中的 key（必须在 L2 更新之后调用）
+     */
+    private void invalidateRemote(String key) {
+        if (invalidator != null) {
+            invalidator.invalidate(key);
+        }
     }
 
     /**
@@ -104,4 +251,18 @@ public class TwoLevelCacheManager implements CacheManager {
     public RedisCacheManager getL2Cache() {
         return l2Cache;
     }
+
+    /**
+     * 获取跨节点 L1 失效（含统计），未启用时返回 null
+     */
+    public L1Invalidator getInvalidator() {
+        return invalidator;
+    }
+
+    @Override
+    public void close() {
+        if (invalidator != null) {
+            invalidator.close();
+        }
+    }
 }
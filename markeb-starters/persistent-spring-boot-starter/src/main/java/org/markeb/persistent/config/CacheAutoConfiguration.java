@@ -3,8 +3,14 @@ package org.markeb.persistent.config;
 import org.markeb.persistent.cache.CacheManager;
 import org.markeb.persistent.cache.NoneCacheManager;
 import org.markeb.persistent.cache.caffeine.CaffeineCacheManager;
+import org.markeb.persistent.cache.redis.ProtostuffRedisValueCodec;
 import org.markeb.persistent.cache.redis.RedisCacheManager;
+import org.markeb.persistent.cache.redis.RedisValueCodec;
+import org.markeb.persistent.cache.redis.RedisValueFormat;
+import org.markeb.persistent.cache.redis.TemplateRedisValueCodec;
+import org.markeb.persistent.cache.twolevel.L1Invalidator;
 import org.markeb.persistent.cache.twolevel.TwoLevelCacheManager;
+import org.markeb.persistent.serialization.EntitySerializer;
 import com.github.benmanes.caffeine.cache.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,12 +56,12 @@ public class CacheAutoConfiguration {
         @Bean
         @ConditionalOnMissingBean(CacheManager.class)
         public CacheManager redisCacheManager(RedisTemplate<String, Object> persistentRedisTemplate,
-                                               PersistentProperties properties) {
+                                               PersistentProperties properties,
+                                               EntitySerializer entitySerializer) {
             PersistentProperties.RedisConfig redisConfig = properties.getCache().getRedis();
-            log.info("Creating Redis CacheManager with prefix: {}", redisConfig.getKeyPrefix());
-            return new RedisCacheManager(persistentRedisTemplate,
-                    redisConfig.getKeyPrefix(),
-                    redisConfig.getDefaultTtl());
+            log.info("Creating Redis CacheManager with prefix: {}, value format: {}",
+                    redisConfig.getKeyPrefix(), redisConfig.getValueFormat());
+            return newRedisCacheManager(persistentRedisTemplate, redisConfig, entitySerializer);
         }
     }
 
@@ -69,10 +75,11 @@ public class CacheAutoConfiguration {
 
         @Bean
         @ConditionalOnMissingBean(CacheManager.class)
-        public CacheManager caffeineCacheManager(PersistentProperties properties) {
+        public CacheManager caffeineCacheManager(PersistentProperties properties, EntitySerializer entitySerializer) {
             PersistentProperties.CaffeineConfig caffeineConfig = properties.getCache().getCaffeine();
-            log.info("Creating Caffeine CacheManager with maxSize: {}", caffeineConfig.getMaxSize());
-            return new CaffeineCacheManager(caffeineConfig.getMaxSize(), caffeineConfig.getExpireAfterWrite());
+            log.info("Creating Caffeine CacheManager with maxSize: {}, maxWeightBytes: {}",
+                    caffeineConfig.getMaxSize(), caffeineConfig.getMaxWeightBytes());
+            return newCaffeineCacheManager(caffeineConfig, entitySerializer);
         }
     }
 
@@ -100,23 +107,56 @@ public class CacheAutoConfiguration {
         @Bean
         @ConditionalOnMissingBean(CacheManager.class)
         public CacheManager twoLevelCacheManager(RedisTemplate<String, Object> persistentRedisTemplate,
-                                                  PersistentProperties properties) {
+                                                  RedisConnectionFactory connectionFactory,
+                                                  PersistentProperties properties,
+                                                  EntitySerializer entitySerializer) {
             PersistentProperties.RedisConfig redisConfig = properties.getCache().getRedis();
             PersistentProperties.CaffeineConfig caffeineConfig = properties.getCache().getCaffeine();
 
             log.info("Creating Two-Level CacheManager (L1: Caffeine, L2: Redis)");
 
-            CaffeineCacheManager l1 = new CaffeineCacheManager(
-                    caffeineConfig.getMaxSize(),
-                    caffeineConfig.getExpireAfterWrite());
+            CaffeineCacheManager l1 = newCaffeineCacheManager(caffeineConfig, entitySerializer);
+
+            RedisCacheManager l2 = newRedisCacheManager(persistentRedisTemplate, redisConfig, entitySerializer);
+
+            PersistentProperties.InvalidationConfig invalidationConfig = properties.getCache().getInvalidation();
+            L1Invalidator invalidator = null;
+            if (invalidationConfig.isEnabled()) {
+                log.info("L1 invalidation enabled on channel: {}", invalidationConfig.getChannel());
+                invalidator = new L1Invalidator(
+                        l1,
+                        connectionFactory,
+                        invalidationConfig.getChannel(),
+                        invalidationConfig.getFlushInterval().toMillis(),
+                        invalidationConfig.getBatchSize(),
+                        invalidationConfig.getVersionRetention(),
+                        Math.max(caffeineConfig.getMaxSize(), 10_000));
+            }
+
+            return new TwoLevelCacheManager(l1, l2, invalidator);
+        }
+    }
 
-            RedisCacheManager l2 = new RedisCacheManager(
-                    persistentRedisTemplate,
-                    redisConfig.getKeyPrefix(),
-                    redisConfig.getDefaultTtl());
+    private static RedisCacheManager newRedisCacheManager(RedisTemplate<String, Object> redisTemplate,
+                                                          PersistentProperties.RedisConfig redisConfig,
+                                                          EntitySerializer entitySerializer) {
+        RedisValueCodec valueCodec = redisConfig.getValueFormat() == RedisValueFormat.PROTOSTUFF
+                ? new ProtostuffRedisValueCodec(entitySerializer)
+                : new TemplateRedisValueCodec(redisTemplate);
+        return new RedisCacheManager(
+                redisTemplate,
+                valueCodec,
+                redisConfig.getKeyPrefix(),
+                redisConfig.getDefaultTtl());
+    }
 
-            return new TwoLevelCacheManager(l1, l2);
-        }
+    private static CaffeineCacheManager newCaffeineCacheManager(PersistentProperties.CaffeineConfig caffeineConfig,
+                                                                EntitySerializer entitySerializer) {
+        return new CaffeineCacheManager(
+                caffeineConfig.getMaxSize(),
+                caffeineConfig.getMaxWeightBytes(),
+                caffeineConfig.getExpireAfterWrite(),
+                entitySerializer);
     }
 
     /**
@@ -1,7 +1,9 @@
 package org.markeb.persistent.config;
 
+import org.markeb.persistent.async.IoWorkerPool;
 import org.markeb.persistent.cache.CacheManager;
 import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.loading.SingleFlightLoader;
 import org.markeb.persistent.queue.PersistentQueue;
 import org.markeb.persistent.repository.Repository;
 import org.markeb.persistent.serialization.EntitySerializer;
@@ -9,9 +11,11 @@ import org.markeb.persistent.serialization.ProtostuffEntitySerializer;
 import org.markeb.persistent.service.DefaultPersistentService;
 import org.markeb.persistent.service.PersistentMessageConsumer;
 import org.markeb.persistent.service.PersistentService;
+import org.markeb.persistent.writebehind.WriteBehindBuffer;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -54,19 +58,66 @@ public class PersistentAutoConfiguration {
         return new ProtostuffEntitySerializer();
     }
 
-    @Bean
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "markeb.persistent.write-behind", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public WriteBehindBuffer writeBehindBuffer(PersistentQueue persistentQueue,
+                                               EntitySerializer entitySerializer) {
+        PersistentProperties.WriteBehindConfig config = properties.getWriteBehind();
+        log.info("Creating WriteBehindBuffer: flushInterval={}, batchSize={}, maxPending={}, maxBuffered={}",
+                config.getFlushInterval(), config.getBatchSize(), config.getMaxPending(), config.getMaxBuffered());
+        return new WriteBehindBuffer(
+                persistentQueue,
+                entitySerializer,
+                config.getFlushInterval().toMillis(),
+                config.getBatchSize(),
+                config.getMaxPending(),
+                config.getMaxBuffered(),
+                config.getSendTimeout().toMillis()
+        );
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public SingleFlightLoader singleFlightLoader() {
+        PersistentProperties.LoadingConfig config = properties.getCache().getLoading();
+        log.info("Creating SingleFlightLoader: earlyRefreshBeta={}, refreshThreads={}, maxTrackedKeys={}",
+                config.getEarlyRefreshBeta(), config.getRefreshThreads(), config.getMaxTrackedKeys());
+        return new SingleFlightLoader(
+                config.getEarlyRefreshBeta(),
+                config.getMaxTrackedKeys(),
+                config.getRefreshThreads());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public IoWorkerPool persistentIoPool() {
+        PersistentProperties.AsyncConfig config = properties.getAsync();
+        log.info("Creating persistent I/O pool: ioThreads={}, queueCapacity={}",
+                config.getIoThreads(), config.getQueueCapacity());
+        return new IoWorkerPool(config.getIoThreads(), config.getQueueCapacity());
+    }
+
+    @Bean(destroyMethod = "close")
     @ConditionalOnMissingBean
     public PersistentService persistentService(Repository<Identifiable<Object>, Object> repository,
                                                 CacheManager cacheManager,
                                                 PersistentQueue persistentQueue,
-                                                EntitySerializer entitySerializer) {
+                                                EntitySerializer entitySerializer,
+                                                ObjectProvider<WriteBehindBuffer> writeBehindBuffer,
+                                                SingleFlightLoader singleFlightLoader,
+                                                IoWorkerPool persistentIoPool) {
         log.info("Creating PersistentService");
         return new DefaultPersistentService(
                 repository,
                 cacheManager,
                 persistentQueue,
                 entitySerializer,
-                properties.getCache().getRedis().getDefaultTtl()
+                properties.getCache().getRedis().getDefaultTtl(),
+                writeBehindBuffer.getIfAvailable(),
+                singleFlightLoader,
+                properties.getCache().getLoading().getNegativeTtl(),
+                persistentIoPool
         );
     }
 
@@ -1,6 +1,7 @@
 package org.markeb.persistent.config;
 
 import org.markeb.persistent.cache.CacheType;
+import org.markeb.persistent.cache.redis.RedisValueFormat;
 import org.markeb.persistent.queue.QueueType;
 import org.markeb.persistent.repository.RepositoryType;
 import lombok.Data;
@@ -35,12 +36,27 @@ public class PersistentProperties {
      */
     private QueueConfig queue = new QueueConfig();
 
+    /**
+     * 写后合并配置
+     */
+    private WriteBehindConfig writeBehind = new WriteBehindConfig();
+
+    /**
+     * 异步 API 配置
+     */
+    private AsyncConfig async = new AsyncConfig();
+
     @Data
     public static class StorageConfig {
         /**
          * 存储类型
          */
         private RepositoryType type = RepositoryType.MONGO;
+
+        /**
+         * 批量操作的批大小（JPA 每批 flush 一次，应与 hibernate.jdbc.batch_size 一致）
+         */
+        private int batchSize = 100;
     }
 
     @Data
@@ -59,6 +75,67 @@ public class PersistentProperties {
          * Caffeine 配置
          */
         private CaffeineConfig caffeine = new CaffeineConfig();
+
+        /**
+         * 两级缓存的跨节点 L1 失效配置
+         */
+        private InvalidationConfig invalidation = new InvalidationConfig();
+
+        /**
+         * 未命中加载配置
+         */
+        private LoadingConfig loading = new LoadingConfig();
+    }
+
+    @Data
+    public static class LoadingConfig {
+        /**
+         * 提前刷新系数（XFetch beta），越大越早刷新，0 表示不提前刷新
+         */
+        private double earlyRefreshBeta = 1.0;
+
+        /**
+         * 提前刷新线程数
+         */
+        private int refreshThreads = 2;
+
+        /**
+         * 最多记录加载耗时与过期时刻的键数，超过后新键不参与提前刷新
+         */
+        private int maxTrackedKeys = 100000;
+
+        /**
+         * 不存在的 ID 在缓存中的标记 TTL，0 表示不缓存不存在的 ID
+         */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class InvalidationConfig {
+        /**
+         * 是否在节点间同步 L1 失效（仅 two-level 生效）
+         */
+        private boolean enabled = true;
+
+        /**
+         * Redis pub/sub 频道
+         */
+        private String channel = "persistent:l1-invalidation";
+
+        /**
+         * 合并窗口，窗口内的失效合并为一条消息发送
+         */
+        private Duration flushInterval = Duration.ofMillis(10);
+
+        /**
+         * 每条消息最多携带的 key 数
+         */
+        private int batchSize = 256;
+
+        /**
+         * 按 key 保留最近收到的（节点 ID，版本）的时间，只用于忽略同一条失效的重复投递
+         */
+        private Duration versionRetention = Duration.ofMinutes(1);
     }
 
     @Data
@@ -72,17 +149,27 @@ public class PersistentProperties {
          * 默认 TTL
          */
         private Duration defaultTtl = Duration.ofMinutes(30);
+
+        /**
+         * 值格式：JSON 或 PROTOSTUFF（二进制，体积更小、编解码更快；切换后原有 JSON 值视为未命中）
+         */
+        private RedisValueFormat valueFormat = RedisValueFormat.JSON;
     }
 
     @Data
     public static class CaffeineConfig {
         /**
-         * 最大缓存数量
+         * 最大缓存数量（maxWeightBytes 大于 0 时不生效）
          */
         private long maxSize = 10000;
 
         /**
-         * 写入后过期时间
+         * 按序列化大小限制的总权重（字节），0 表示按条目数限制
+         */
+        private long maxWeightBytes = 0;
+
+        /**
+         * 写入后过期时间（未指定 TTL 的写入使用）
          */
         private Duration expireAfterWrite = Duration.ofMinutes(5);
     }
@@ -120,6 +207,52 @@ public class PersistentProperties {
         private MemoryConfig memory = new MemoryConfig();
     }
 
+    @Data
+    public static class WriteBehindConfig {
+        /**
+         * 是否启用写后合并（关闭时每次异步保存都立即发送消息）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 刷盘窗口，窗口内同一实体的多次保存只落盘最新版本
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * 每批最大实体数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 脏实体数超过该值后立即通知后台线程刷盘，不等窗口结束
+         */
+        private int maxPending = 10000;
+
+        /**
+         * 脏实体硬上限，达到后新实体的异步保存直接失败（RejectedExecutionException），不小于 maxPending
+         */
+        private int maxBuffered = 50000;
+
+        /**
+         * 等待一批消息发送确认的超时
+         */
+        private Duration sendTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class AsyncConfig {
+        /**
+         * 异步查询使用的 I/O 线程数
+         */
+        private int ioThreads = 16;
+
+        /**
+         * I/O 线程池等待队列容量，满时异步调用直接失败
+         */
+        private int queueCapacity = 10000;
+    }
+
     @Data
     public static class RocketMQConfig {
         /**
@@ -48,9 +48,10 @@ public class RepositoryAutoConfiguration {
 
         @Bean
         @ConditionalOnMissingBean(Repository.class)
-        public Repository<Identifiable<Object>, Object> jpaRepository(EntityManager entityManager) {
+        public Repository<Identifiable<Object>, Object> jpaRepository(EntityManager entityManager,
+                                                                      PersistentProperties properties) {
             log.info("Creating JPA Repository");
-            return new JpaRepository<>(entityManager);
+            return new JpaRepository<>(entityManager, properties.getStorage().getBatchSize());
         }
     }
 }
@@ -5,6 +5,7 @@ import org.markeb.persistent.entity.Identifiable;
 import org.markeb.persistent.queue.PersistentMessage;
 import org.markeb.persistent.repository.Repository;
 import org.markeb.persistent.repository.RepositoryFactory;
+import org.markeb.persistent.serialization.EntitySerializer;
 import org.markeb.persistent.service.EntityMetadataRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,13 +22,27 @@ public abstract class PersistentMessageConsumer {
     protected final CacheManager cacheManager;
     protected final EntityMetadataRegistry metadataRegistry;
 
+    /**
+     * 实体序列化器，为 null 时保存消息总是从缓存读取实体
+     */
+    protected final EntitySerializer entitySerializer;
+
     public PersistentMessageConsumer(
             RepositoryFactory repositoryFactory,
             CacheManager cacheManager,
             EntityMetadataRegistry metadataRegistry) {
+        this(repositoryFactory, cacheManager, metadataRegistry, null);
+    }
+
+    public PersistentMessageConsumer(
+            RepositoryFactory repositoryFactory,
+            CacheManager cacheManager,
+            EntityMetadataRegistry metadataRegistry,
+            EntitySerializer entitySerializer) {
         this.repositoryFactory = repositoryFactory;
         this.cacheManager = cacheManager;
         this.metadataRegistry = metadataRegistry;
+        this.entitySerializer = entitySerializer;
     }
 
     /**
@@ -56,20 +71,28 @@ public abstract class PersistentMessageConsumer {
 
     /**
      * 处理保存消息
+     * <p>
+     * 消息自带实体数据时直接反序列化，否则从缓存读取实体。
+     * </p>
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
     protected void handleSave(PersistentMessage message, Class<?> entityClass) {
         String cacheKey = message.getCacheKey();
 
-        // 从缓存获取实体
-        var entityOpt = cacheManager.get(cacheKey, entityClass);
-        if (entityOpt.isEmpty()) {
-            log.error("Cache miss for key: {}", cacheKey);
-            throw new RuntimeException("Cache miss for key: " + cacheKey);
+        Object entity;
+        if (entitySerializer != null && message.getPayload() != null && message.getPayload().length > 0) {
+            entity = entitySerializer.deserialize(message.getPayload(), entityClass);
+        } else {
+            // 从缓存获取实体
+            var entityOpt = cacheManager.get(cacheKey, entityClass);
+            if (entityOpt.isEmpty()) {
+                log.error("Cache miss for key: {}", cacheKey);
+                throw new RuntimeException("Cache miss for key: " + cacheKey);
+            }
+            entity = entityOpt.get();
         }
 
         // 保存到数据库
-        Object entity = entityOpt.get();
         Repository repository = repositoryFactory.getRepository((Class<Identifiable>) entityClass);
         repository.save((Identifiable) entity);
         log.info("Saved entity to database: {}", cacheKey);
@@ -3,6 +3,7 @@ package org.markeb.persistent.consumer;
 import org.markeb.persistent.cache.CacheManager;
 import org.markeb.persistent.queue.PersistentMessage;
 import org.markeb.persistent.repository.RepositoryFactory;
+import org.markeb.persistent.serialization.EntitySerializer;
 import org.markeb.persistent.service.EntityMetadataRegistry;
 import org.apache.rocketmq.spring.annotation.MessageModel;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
@@ -46,6 +47,14 @@ public abstract class RocketMQMessageConsumer extends PersistentMessageConsumer
         super(repositoryFactory, cacheManager, metadataRegistry);
     }
 
+    public RocketMQMessageConsumer(
+            RepositoryFactory repositoryFactory,
+            CacheManager cacheManager,
+            EntityMetadataRegistry metadataRegistry,
+            EntitySerializer entitySerializer) {
+        super(repositoryFactory, cacheManager, metadataRegistry, entitySerializer);
+    }
+
     @Override
     public void onMessage(PersistentMessage message) {
         handleMessage(message);
@@ -0,0 +1,83 @@
+package org.markeb.persistent.loading;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存未命中加载统计
+ * <p>
+ * 加载数与失败数之和为实际执行的数据库查询（含提前刷新），合并数为等待其他线程同一次加载结果的未命中，
+ * 合并数越大说明热点 key 过期时挡掉的重复查询越多。
+ * </p>
+ */
+public class LoadStats {
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    void recordLoad(long elapsedNanos) {
+        loads.increment();
+        totalLoadNanos.add(elapsedNanos);
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void recordEarlyRefresh() {
+        earlyRefreshes.increment();
+    }
+
+    /**
+     * 获取成功的加载次数
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * 获取合并到进行中加载的未命中次数（省下的数据库查询）
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 获取加载失败次数
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * 获取触发的提前刷新次数
+     */
+    public long getEarlyRefreshCount() {
+        return earlyRefreshes.sum();
+    }
+
+    /**
+     * 获取平均加载耗时（毫秒）
+     */
+    public double getAvgLoadMs() {
+        long count = loads.sum();
+        return count > 0 ? totalLoadNanos.sum() / 1_000_000.0 / count : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadStats{" +
+                "loads=" + getLoadCount() +
+                ", coalesced=" + getCoalescedCount() +
+                ", earlyRefreshes=" + getEarlyRefreshCount() +
+                ", failures=" + getFailureCount() +
+                ", avgLoadMs=" + String.format("%.2f", getAvgLoadMs()) +
+                '}';
+    }
+}
@@ -0,0 +1,279 @@
+package org.markeb.persistent.loading;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 缓存未命中的单飞加载与提前刷新
+ * <p>
+ * 同一缓存键并发未命中时只有第一个线程执行加载，其余线程等待同一个 {@link CompletableFuture} 的结果，
+ * 热点实体过期时数据库只收到一次查询。加载失败时等待的线程抛出同一个异常。
+ * </p>
+ * <p>
+ * 提前刷新使用概率提前过期（XFetch）：记录每个键上次加载的耗时 delta 与缓存过期时刻 expiry，
+ * 命中时若 {@code now - delta * beta * ln(rand) >= expiry} 则在后台线程重新加载，读取方继续使用缓存中的值。
+ * 越接近过期、加载越慢，提前刷新的概率越大；同一键同时最多一个加载（刷新与未命中共用单飞）。
+ * </p>
+ * <p>
+ * 过期时刻只来自本节点的加载与写入，其他节点续期的 TTL 本节点不知道，最多多一次刷新。
+ * 记录数有上限，达到上限时清理已过期的记录，仍然满时新键不参与提前刷新。
+ * </p>
+ */
+public class SingleFlightLoader implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightLoader.class);
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double beta;
+    private final int maxTrackedKeys;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LoadRecord> records = new ConcurrentHashMap<>();
+    private final LoadStats stats = new LoadStats();
+
+    /**
+     * 提前刷新线程池，未启用提前刷新时为 null
+     */
+    private final ExecutorService refreshExecutor;
+
+    private volatile long nextSweepNanos = System.nanoTime();
+
+    /**
+     * 只合并并发加载，不提前刷新
+     */
+    public SingleFlightLoader() {
+        this(0, 0, 0);
+    }
+
+    /**
+     * @param beta           提前刷新系数，越大越早刷新，0 表示不提前刷新
+     * @param maxTrackedKeys 最多记录的键数
+     * @param refreshThreads 提前刷新线程数
+     */
+    public SingleFlightLoader(double beta, int maxTrackedKeys, int refreshThreads) {
+        this.beta = beta;
+        this.maxTrackedKeys = maxTrackedKeys;
+        if (beta > 0 && maxTrackedKeys > 0) {
+            AtomicInteger index = new AtomicInteger();
+            this.refreshExecutor = Executors.newFixedThreadPool(Math.max(1, refreshThreads), r -> {
+                Thread t = new Thread(r, "persistent-cache-refresh-" + index.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.refreshExecutor = null;
+        }
+    }
+
+    /**
+     * 加载缓存键对应的值：已有同一键的加载在进行时等待其结果，否则由当前线程执行 loader
+     *
+     * @param key    缓存键
+     * @param ttl    loader 回填缓存使用的 TTL，用于提前刷新；null、0 或负数表示不参与
+     * @param loader 查询数据库并回填缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V load(String key, Duration ttl, Supplier<V> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            stats.recordCoalesced();
+            return (V) await(existing);
+        }
+        return (V) run(key, ttl, future, loader);
+    }
+
+    private Object run(String key, Duration ttl, CompletableFuture<Object> future, Supplier<?> loader) {
+        long start = System.nanoTime();
+        try {
+            Object value = loader.get();
+            long elapsed = System.nanoTime() - start;
+            stats.recordLoad(elapsed);
+            track(key, ttl, elapsed);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            stats.recordFailure();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 缓存命中后调用，按 XFetch 判断是否需要提前刷新
+     */
+    public boolean shouldRefresh(String key) {
+        if (refreshExecutor == null) {
+            return false;
+        }
+        LoadRecord record = records.get(key);
+        if (record == null) {
+            return false;
+        }
+        long remaining = record.expiresAtNanos - System.nanoTime();
+        if (remaining <= 0) {
+            // 已过记录的过期时刻仍然命中，说明其他节点续期了，等下次加载重新记录
+            records.remove(key, record);
+            return false;
+        }
+        double gap = -record.deltaNanos * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return gap >= remaining;
+    }
+
+    /**
+     * 在后台线程执行 loader，不阻塞调用方；同一键已有加载在进行时忽略
+     *
+     * @param key    缓存键
+     * @param ttl    loader 回填缓存使用的 TTL
+     * @param loader 查询数据库并回填缓存
+     */
+    public void refreshAsync(String key, Duration ttl, Supplier<?> loader) {
+        if (refreshExecutor == null) {
+            return;
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+        stats.recordEarlyRefresh();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    run(key, ttl, future, loader);
+                } catch (Throwable e) {
+                    log.warn("Early refresh failed: {}", key, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 缓存键被本节点写入后调用，顺延记录的过期时刻（保留上次加载耗时）
+     */
+    public void written(String key, Duration ttl) {
+        if (refreshExecutor == null) {
+            return;
+        }
+        if (!isPositive(ttl)) {
+            records.remove(key);
+            return;
+        }
+        long expiresAt = System.nanoTime() + ttl.toNanos();
+        records.computeIfPresent(key, (k, record) -> new LoadRecord(record.deltaNanos, expiresAt));
+    }
+
+    /**
+     * 缓存键被删除后调用，不再提前刷新
+     */
+    public void forget(String key) {
+        if (refreshExecutor != null) {
+            records.remove(key);
+        }
+    }
+
+    private void track(String key, Duration ttl, long deltaNanos) {
+        if (refreshExecutor == null) {
+            return;
+        }
+        if (!isPositive(ttl)) {
+            records.remove(key);
+            return;
+        }
+        long now = System.nanoTime();
+        if (records.size() >= maxTrackedKeys && !records.containsKey(key) && !sweep(now)) {
+            return;
+        }
+        records.put(key, new LoadRecord(deltaNanos, now + ttl.toNanos()));
+    }
+
+    /**
+     * 清理已过期的记录（最多每秒一次），返回是否还有空位
+     */
+    private boolean sweep(long now) {
+        if (now - nextSweepNanos >= 0) {
+            nextSweepNanos = now + SWEEP_INTERVAL_NANOS;
+            records.values().removeIf(record -> record.expiresAtNanos - now <= 0);
+        }
+        return records.size() < maxTrackedKeys;
+    }
+
+    private static boolean isPositive(Duration ttl) {
+        return ttl != null && !ttl.isZero() && !ttl.isNegative();
+    }
+
+    /**
+     * 获取当前进行中的加载数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 获取参与提前刷新的键数
+     */
+    public int getTrackedKeyCount() {
+        return records.size();
+    }
+
+    public LoadStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 停止提前刷新线程，等待进行中的刷新完成
+     */
+    @Override
+    public void close() {
+        if (refreshExecutor == null) {
+            return;
+        }
+        refreshExecutor.shutdown();
+        try {
+            if (!refreshExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                refreshExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            refreshExecutor.shutdownNow();
+        }
+        log.info("Single-flight loader closed: {}", stats);
+    }
+
+    /**
+     * 上次加载的耗时与缓存过期时刻（System.nanoTime 时间轴）
+     */
+    private record LoadRecord(long deltaNanos, long expiresAtNanos) {
+    }
+}
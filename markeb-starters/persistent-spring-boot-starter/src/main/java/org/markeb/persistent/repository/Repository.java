@@ -2,6 +2,7 @@ package org.markeb.persistent.repository;
 
 import org.markeb.persistent.entity.Identifiable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,15 @@ public interface Repository<T extends Identifiable<ID>, ID> {
      */
     <E extends T> Optional<E> findById(Class<E> clazz, ID id);
 
+    /**
+     * 根据ID批量查找实体，一次查询返回所有存在的实体
+     *
+     * @param clazz 实体类型
+     * @param ids   实体ID集合
+     * @return 存在的实体（不保证与 ids 顺序一致）
+     */
+    <E extends T> List<E> findAllById(Class<E> clazz, Collection<ID> ids);
+
     /**
      * 保存实体（新增或更新）
      *
@@ -39,6 +49,14 @@ public interface Repository<T extends Identifiable<ID>, ID> {
      */
     <E extends T> E save(E entity);
 
+    /**
+     * 批量保存实体（新增或更新），一次往返写入多个实体
+     *
+     * @param entities 实体集合，可包含不同类型
+     * @return 保存后的实体
+     */
+    <E extends T> List<E> saveAll(Collection<E> entities);
+
     /**
      * 删除实体
      *
@@ -54,6 +72,14 @@ public interface Repository<T extends Identifiable<ID>, ID> {
      */
     <E extends T> void deleteById(Class<E> clazz, ID id);
 
+    /**
+     * 根据ID批量删除实体
+     *
+     * @param clazz 实体类型
+     * @param ids   实体ID集合
+     */
+    <E extends T> void deleteAllById(Class<E> clazz, Collection<ID> ids);
+
     /**
      * 查询所有实体
      *
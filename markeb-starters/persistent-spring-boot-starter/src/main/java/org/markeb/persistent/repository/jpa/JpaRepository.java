@@ -7,23 +7,39 @@ import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * JPA 仓储实现
+ * <p>
+ * 批量操作每 {@code batchSize} 个实体 flush 一次，配合 {@code hibernate.jdbc.batch_size}
+ * （以及 {@code hibernate.order_inserts} / {@code hibernate.order_updates}）合并为 JDBC 批量语句。
+ * 批量查询按 {@code batchSize} 拆分 IN 列表。
+ * </p>
  */
 public class JpaRepository<T extends Identifiable<ID>, ID> implements Repository<T, ID> {
 
     private static final Logger log = LoggerFactory.getLogger(JpaRepository.class);
 
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
     private final EntityManager entityManager;
+    private final int batchSize;
 
     public JpaRepository(EntityManager entityManager) {
+        this(entityManager, DEFAULT_BATCH_SIZE);
+    }
+
+    public JpaRepository(EntityManager entityManager, int batchSize) {
         this.entityManager = entityManager;
+        this.batchSize = Math.max(1, batchSize);
     }
 
     @Override
@@ -37,6 +53,27 @@ public class JpaRepository<T extends Identifiable<ID>, ID> implements Repository
         return Optional.ofNullable(entity);
     }
 
+    @Override
+    public <E extends T> List<E> findAllById(Class<E> clazz, Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        EntityType<E> entityType = entityManager.getMetamodel().entity(clazz);
+        String idAttribute = entityType.getId(entityType.getIdType().getJavaType()).getName();
+
+        List<ID> idList = new ArrayList<>(ids);
+        List<E> result = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += batchSize) {
+            List<ID> chunk = idList.subList(from, Math.min(from + batchSize, idList.size()));
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<E> cq = cb.createQuery(clazz);
+            Root<E> root = cq.from(clazz);
+            cq.select(root).where(root.get(idAttribute).in(chunk));
+            result.addAll(entityManager.createQuery(cq).getResultList());
+        }
+        return result;
+    }
+
     @Override
     public <E extends T> E save(E entity) {
         if (entity.getId() == null) {
@@ -47,6 +84,23 @@ public class JpaRepository<T extends Identifiable<ID>, ID> implements Repository
         }
     }
 
+    @Override
+    public <E extends T> List<E> saveAll(Collection<E> entities) {
+        List<E> saved = new ArrayList<>(entities.size());
+        int count = 0;
+        for (E entity : entities) {
+            saved.add(save(entity));
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+            }
+        }
+        if (count % batchSize != 0) {
+            entityManager.flush();
+        }
+        log.debug("Batch saved {} entities", count);
+        return saved;
+    }
+
     @Override
     public <E extends T> void delete(E entity) {
         if (entityManager.contains(entity)) {
@@ -62,6 +116,21 @@ public class JpaRepository<T extends Identifiable<ID>, ID> implements Repository
         findById(clazz, id).ifPresent(this::delete);
     }
 
+    @Override
+    public <E extends T> void deleteAllById(Class<E> clazz, Collection<ID> ids) {
+        // 逐个 remove 以保留级联语义，flush 时合并为批量 DELETE
+        int count = 0;
+        for (E entity : findAllById(clazz, ids)) {
+            entityManager.remove(entity);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+            }
+        }
+        if (count % batchSize != 0) {
+            entityManager.flush();
+        }
+    }
+
     @Override
     public <E extends T> List<E> findAll(Class<E> clazz) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
@@ -4,11 +4,17 @@ import org.markeb.persistent.entity.Identifiable;
 import org.markeb.persistent.repository.Repository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -35,11 +41,60 @@ public class MongoRepository<T extends Identifiable<ID>, ID> implements Reposito
         return Optional.ofNullable(entity);
     }
 
+    @Override
+    public <E extends T> List<E> findAllById(Class<E> clazz, Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        return mongoTemplate.find(query, clazz);
+    }
+
     @Override
     public <E extends T> E save(E entity) {
         return mongoTemplate.save(entity);
     }
 
+    /**
+     * 按实体类型分组，每组一次 BulkWrite：已有 ID 的实体按 _id 替换（upsert），
+     * 没有 ID 的实体批量插入并回填 ID
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E extends T> List<E> saveAll(Collection<E> entities) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        Map<Class<E>, List<E>> groups = new LinkedHashMap<>();
+        for (E entity : entities) {
+            groups.computeIfAbsent((Class<E>) entity.getClass(), k -> new ArrayList<>()).add(entity);
+        }
+
+        FindAndReplaceOptions upsert = FindAndReplaceOptions.options().upsert();
+        for (Map.Entry<Class<E>, List<E>> group : groups.entrySet()) {
+            Class<E> clazz = group.getKey();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, clazz);
+            List<E> inserts = new ArrayList<>();
+            int replaces = 0;
+            for (E entity : group.getValue()) {
+                if (entity.getId() == null) {
+                    inserts.add(entity);
+                } else {
+                    bulk.replaceOne(Query.query(Criteria.where("_id").is(entity.getId())), entity, upsert);
+                    replaces++;
+                }
+            }
+            if (replaces > 0) {
+                bulk.execute();
+            }
+            if (!inserts.isEmpty()) {
+                mongoTemplate.insert(inserts, clazz);
+            }
+            log.debug("Bulk saved {}: {} replaced, {} inserted", clazz.getSimpleName(), replaces, inserts.size());
+        }
+        return new ArrayList<>(entities);
+    }
+
     @Override
     public <E extends T> void delete(E entity) {
         mongoTemplate.remove(entity);
@@ -51,6 +106,15 @@ public class MongoRepository<T extends Identifiable<ID>, ID> implements Reposito
         mongoTemplate.remove(query, clazz);
     }
 
+    @Override
+    public <E extends T> void deleteAllById(Class<E> clazz, Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        mongoTemplate.remove(query, clazz);
+    }
+
     @Override
     public <E extends T> List<E> findAll(Class<E> clazz) {
         return mongoTemplate.findAll(clazz);
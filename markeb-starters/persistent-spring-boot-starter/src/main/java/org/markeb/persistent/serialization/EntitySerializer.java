@@ -21,5 +21,20 @@ public interface EntitySerializer {
      * @return 实体
      */
     <T> T deserialize(byte[] data, Class<T> clazz);
+
+    /**
+     * 从字节数组的一段反序列化实体
+     *
+     * @param data   字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     * @param clazz  实体类型
+     * @return 实体
+     */
+    default <T> T deserialize(byte[] data, int offset, int length, Class<T> clazz) {
+        byte[] copy = new byte[length];
+        System.arraycopy(data, offset, copy, 0, length);
+        return deserialize(copy, clazz);
+    }
 }
 
@@ -43,6 +43,15 @@ public class ProtostuffEntitySerializer implements EntitySerializer {
         return entity;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(byte[] data, int offset, int length, Class<T> clazz) {
+        Schema<T> schema = (Schema<T>) getSchema(clazz);
+        T entity = schema.newMessage();
+        ProtostuffIOUtil.mergeFrom(data, offset, length, entity, schema);
+        return entity;
+    }
+
     private Schema<?> getSchema(Class<?> clazz) {
         return schemaCache.computeIfAbsent(clazz, RuntimeSchema::getSchema);
     }
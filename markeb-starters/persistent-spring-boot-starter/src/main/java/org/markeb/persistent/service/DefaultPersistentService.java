@@ -1,68 +1,354 @@
 package org.markeb.persistent.service;
 
+import org.markeb.persistent.annotation.CacheConfig;
 import org.markeb.persistent.annotation.PersistentEntity;
+import org.markeb.persistent.async.IoWorkerPool;
 import org.markeb.persistent.cache.CacheManager;
+import org.markeb.persistent.cache.CacheType;
 import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.loading.SingleFlightLoader;
 import org.markeb.persistent.queue.PersistentMessage;
 import org.markeb.persistent.queue.PersistentQueue;
 import org.markeb.persistent.repository.Repository;
 import org.markeb.persistent.serialization.EntitySerializer;
+import org.markeb.persistent.writebehind.WriteBehindBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.NullValue;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 默认持久化服务实现
+ * <p>
+ * 缓存未命中时经 {@link SingleFlightLoader} 加载，同一实体的并发未命中只查询一次数据库，热点实体在过期前概率性地后台刷新。
+ * 数据库中不存在的 ID 以 {@link NullValue} 标记写入缓存（使用较短的 TTL），重复查询不再访问数据库；
+ * 保存实体时直接覆盖该标记。
+ * </p>
+ * <p>
+ * 启用写后合并时，实体从异步保存到落盘之间数据库中仍是旧版本。这期间缓存过期或被淘汰，
+ * 未命中时以缓冲区中的实体为准，不读数据库，也不用旧版本回填缓存。
+ * </p>
+ * <p>
+ * 异步查询在 {@link IoWorkerPool} 中执行同步实现；异步保存在调用线程更新缓存，数据库写入经写后合并或持久化队列完成。
+ * 未传入线程池时自建一个，由 {@link #close()} 关闭；传入的线程池由调用方管理。
+ * </p>
  */
-public class DefaultPersistentService implements PersistentService {
+public class DefaultPersistentService implements PersistentService, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultPersistentService.class);
 
+    /**
+     * 未传入线程池时自建线程池的线程数与队列容量
+     */
+    private static final int DEFAULT_IO_THREADS = 16;
+    private static final int DEFAULT_IO_QUEUE_CAPACITY = 10000;
+
     private final Repository<Identifiable<Object>, Object> repository;
     private final CacheManager cacheManager;
     private final PersistentQueue persistentQueue;
     private final EntitySerializer entitySerializer;
     private final Duration defaultCacheTtl;
 
-    @SuppressWarnings("unchecked")
+    /**
+     * 写后合并缓冲区，为 null 时每次异步保存都立即发送消息
+     */
+    private final WriteBehindBuffer writeBehindBuffer;
+
+    /**
+     * 未命中加载（单飞 + 提前刷新）
+     */
+    private final SingleFlightLoader loader;
+
+    /**
+     * 不存在标记的 TTL，为 null 时不缓存不存在的 ID
+     */
+    private final Duration negativeCacheTtl;
+
+    /**
+     * 异步查询使用的 I/O 线程池
+     */
+    private final IoWorkerPool ioPool;
+
+    /**
+     * 线程池是否由本服务创建，是则在 {@link #close()} 时关闭
+     */
+    private final boolean ownsIoPool;
+
     public DefaultPersistentService(Repository<?, ?> repository,
                                      CacheManager cacheManager,
                                      PersistentQueue persistentQueue,
                                      EntitySerializer entitySerializer,
                                      Duration defaultCacheTtl) {
+        this(repository, cacheManager, persistentQueue, entitySerializer, defaultCacheTtl, null);
+    }
+
+    public DefaultPersistentService(Repository<?, ?> repository,
+                                     CacheManager cacheManager,
+                                     PersistentQueue persistentQueue,
+                                     EntitySerializer entitySerializer,
+                                     Duration defaultCacheTtl,
+                                     WriteBehindBuffer writeBehindBuffer) {
+        this(repository, cacheManager, persistentQueue, entitySerializer, defaultCacheTtl, writeBehindBuffer,
+                new SingleFlightLoader(), null);
+    }
+
+    /**
+     * 异步查询使用自建的 I/O 线程池，需要调用 {@link #close()} 释放
+     *
+     * @param loader           未命中加载
+     * @param negativeCacheTtl 不存在标记的 TTL，null、0 或负数表示不缓存不存在的 ID
+     */
+    public DefaultPersistentService(Repository<?, ?> repository,
+                                     CacheManager cacheManager,
+                                     PersistentQueue persistentQueue,
+                                     EntitySerializer entitySerializer,
+                                     Duration defaultCacheTtl,
+                                     WriteBehindBuffer writeBehindBuffer,
+                                     SingleFlightLoader loader,
+                                     Duration negativeCacheTtl) {
+        this(repository, cacheManager, persistentQueue, entitySerializer, defaultCacheTtl, writeBehindBuffer,
+                loader, negativeCacheTtl, new IoWorkerPool(DEFAULT_IO_THREADS, DEFAULT_IO_QUEUE_CAPACITY), true);
+    }
+
+    /**
+     * @param ioPool 异步查询使用的 I/O 线程池，由调用方负责关闭
+     */
+    public DefaultPersistentService(Repository<?, ?> repository,
+                                     CacheManager cacheManager,
+                                     PersistentQueue persistentQueue,
+                                     EntitySerializer entitySerializer,
+                                     Duration defaultCacheTtl,
+                                     WriteBehindBuffer writeBehindBuffer,
+                                     SingleFlightLoader loader,
+                                     Duration negativeCacheTtl,
+                                     IoWorkerPool ioPool) {
+        this(repository, cacheManager, persistentQueue, entitySerializer, defaultCacheTtl, writeBehindBuffer,
+                loader, negativeCacheTtl, ioPool, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DefaultPersistentService(Repository<?, ?> repository,
+                                     CacheManager cacheManager,
+                                     PersistentQueue persistentQueue,
+                                     EntitySerializer entitySerializer,
+                                     Duration defaultCacheTtl,
+                                     WriteBehindBuffer writeBehindBuffer,
+                                     SingleFlightLoader loader,
+                                     Duration negativeCacheTtl,
+                                     IoWorkerPool ioPool,
+                                     boolean ownsIoPool) {
         this.repository = (Repository<Identifiable<Object>, Object>) repository;
         this.cacheManager = cacheManager;
         this.persistentQueue = persistentQueue;
         this.entitySerializer = entitySerializer;
         this.defaultCacheTtl = defaultCacheTtl != null ? defaultCacheTtl : Duration.ofMinutes(30);
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.loader = loader;
+        this.negativeCacheTtl = negativeCacheTtl != null && !negativeCacheTtl.isZero() && !negativeCacheTtl.isNegative()
+                ? negativeCacheTtl : null;
+        this.ioPool = ioPool;
+        this.ownsIoPool = ownsIoPool;
+    }
+
+    /**
+     * 关闭自建的 I/O 线程池，传入的线程池不受影响
+     */
+    @Override
+    public void close() {
+        if (ownsIoPool) {
+            ioPool.close();
+        }
+    }
+
+    @Override
+    public <T extends Identifiable<ID>, ID> CompletableFuture<Optional<T>> findAsync(Class<T> clazz, ID id) {
+        return ioPool.submit(() -> find(clazz, id));
+    }
+
+    @Override
+    public <T extends Identifiable<ID>, ID> CompletableFuture<Map<ID, T>> findManyAsync(Class<T> clazz,
+                                                                                       Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return ioPool.submit(() -> findMany(clazz, ids));
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T extends Identifiable<ID>, ID> Optional<T> find(Class<T> clazz, ID id) {
         String cacheKey = buildCacheKey(clazz, id);
 
-        // 先查缓存
-        Optional<T> cached = cacheManager.get(cacheKey, clazz);
+        // 先查缓存，开启不存在缓存时实体与不存在标记一次读出
+        Optional<?> cached = negativeCacheTtl != null
+                ? cacheManager.getEither(cacheKey, clazz, NullValue.class)
+                : cacheManager.get(cacheKey, clazz);
         if (cached.isPresent()) {
+            if (cached.get() instanceof NullValue) {
+                log.debug("Cache hit (absent): {} -> {}", clazz.getSimpleName(), id);
+                return Optional.empty();
+            }
             log.debug("Cache hit: {} -> {}", clazz.getSimpleName(), id);
-            return cached;
+            refreshEarly(clazz, id, cacheKey);
+            return Optional.of(clazz.cast(cached.get()));
         }
 
-        // 缓存未命中，查数据库
+        // 缓存未命中，查数据库；同一实体的并发未命中共用一次查询
         log.debug("Cache miss: {} -> {}", clazz.getSimpleName(), id);
+        return loader.load(cacheKey, getRefreshTtl(clazz), () -> loadAndCache(clazz, id, cacheKey));
+    }
+
+    /**
+     * 查数据库并回填缓存，不存在时写入不存在标记；有尚未落盘的异步保存时以缓冲的实体为准
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Identifiable<ID>, ID> Optional<T> loadAndCache(Class<T> clazz, ID id, String cacheKey) {
+        T pending = getPendingWrite(clazz, cacheKey);
+        if (pending != null) {
+            cacheManager.put(cacheKey, pending, getLocalCacheTtl(clazz), getCacheTtl(clazz));
+            return Optional.of(pending);
+        }
+
         Optional<T> entity = (Optional<T>) repository.findById((Class<Identifiable<Object>>) clazz, id);
+        if (entity.isPresent()) {
+            cacheManager.put(cacheKey, entity.get(), getLocalCacheTtl(clazz), getCacheTtl(clazz));
+        } else if (negativeCacheTtl != null) {
+            cacheManager.put(cacheKey, NullValue.INSTANCE, negativeCacheTtl, negativeCacheTtl);
+        }
+
+        // 查询期间有新的异步保存：它更新的缓存可能已被上面的回填覆盖，改回缓冲的版本
+        pending = getPendingWrite(clazz, cacheKey);
+        if (pending != null) {
+            cacheManager.put(cacheKey, pending, getLocalCacheTtl(clazz), getCacheTtl(clazz));
+            return Optional.of(pending);
+        }
+        return entity;
+    }
+
+    /**
+     * 获取写后合并缓冲区中尚未落盘的实体，没有时返回 null
+     */
+    private <T> T getPendingWrite(Class<T> clazz, String cacheKey) {
+        if (writeBehindBuffer == null) {
+            return null;
+        }
+        Identifiable<?> pending = writeBehindBuffer.getPending(cacheKey);
+        return clazz.isInstance(pending) ? clazz.cast(pending) : null;
+    }
 
-        // 回填缓存
-        entity.ifPresent(e -> {
-            Duration ttl = getCacheTtl(clazz);
-            cacheManager.put(cacheKey, e, ttl);
+    /**
+     * 命中后按概率在后台提前刷新；有尚未落盘的异步保存时数据库版本较旧，不刷新
+     */
+    private <T extends Identifiable<ID>, ID> void refreshEarly(Class<T> clazz, ID id, String cacheKey) {
+        if (!loader.shouldRefresh(cacheKey)) {
+            return;
+        }
+        if (writeBehindBuffer != null && writeBehindBuffer.isDirty(cacheKey)) {
+            return;
+        }
+        log.debug("Early refresh: {} -> {}", clazz.getSimpleName(), id);
+        loader.refreshAsync(cacheKey, getRefreshTtl(clazz), () -> loadAndCache(clazz, id, cacheKey));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Identifiable<ID>, ID> Map<ID, T> findMany(Class<T> clazz, Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        // 批量查缓存
+        Map<String, ID> keyToId = new LinkedHashMap<>();
+        for (ID id : ids) {
+            keyToId.put(buildCacheKey(clazz, id), id);
+        }
+        Map<String, ?> cached = negativeCacheTtl != null
+                ? cacheManager.getAllEither(keyToId.keySet(), clazz, NullValue.class)
+                : cacheManager.getAll(keyToId.keySet(), clazz);
+
+        // 缓存了不存在标记的 ID 既不算命中也不查数据库
+        Map<ID, T> found = new HashMap<>();
+        Map<String, ID> misses = new HashMap<>();
+        keyToId.forEach((cacheKey, id) -> {
+            Object value = cached.get(cacheKey);
+            if (value == null) {
+                misses.put(cacheKey, id);
+            } else if (!(value instanceof NullValue)) {
+                found.put(id, clazz.cast(value));
+            }
         });
 
-        return entity;
+        // 尚未落盘的异步保存以缓冲的实体为准，不查数据库
+        Map<String, T> pending = new HashMap<>();
+        takePendingWrites(clazz, misses, found, pending);
+        if (!pending.isEmpty()) {
+            cacheManager.putAll(pending, getLocalCacheTtl(clazz), getCacheTtl(clazz));
+        }
+
+        // 未命中的一次查数据库，并回填缓存
+        if (!misses.isEmpty()) {
+            List<T> loaded = (List<T>) repository.findAllById(
+                    (Class<Identifiable<Object>>) clazz, (Collection<Object>) misses.values());
+            Map<String, ID> loadedMisses = new HashMap<>(misses);
+            Map<String, T> backfill = new HashMap<>();
+            for (T entity : loaded) {
+                String cacheKey = buildCacheKey(clazz, entity.getId());
+                backfill.put(cacheKey, entity);
+                misses.remove(cacheKey);
+                found.put(entity.getId(), entity);
+            }
+            cacheManager.putAll(backfill, getLocalCacheTtl(clazz), getCacheTtl(clazz));
+            if (negativeCacheTtl != null && !misses.isEmpty()) {
+                Map<String, Object> absent = new HashMap<>();
+                misses.keySet().forEach(cacheKey -> absent.put(cacheKey, NullValue.INSTANCE));
+                cacheManager.putAll(absent, negativeCacheTtl, negativeCacheTtl);
+            }
+
+            // 查询期间有新的异步保存的，改用缓冲的版本，覆盖上面可能回填的旧版本或不存在标记
+            Map<String, T> newer = new HashMap<>();
+            takePendingWrites(clazz, loadedMisses, found, newer);
+            if (!newer.isEmpty()) {
+                cacheManager.putAll(newer, getLocalCacheTtl(clazz), getCacheTtl(clazz));
+                misses.keySet().retainAll(loadedMisses.keySet());
+            }
+            log.debug("Find many: {} -> {} cached, {} loaded, {} missing", clazz.getSimpleName(),
+                    cached.size(), loaded.size(), misses.size());
+        }
+
+        Map<ID, T> result = new LinkedHashMap<>();
+        for (ID id : keyToId.values()) {
+            T entity = found.get(id);
+            if (entity != null) {
+                result.put(id, entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 把有尚未落盘的异步保存的 ID 从 misses 中取出，缓冲的实体放入 found 与 backfill
+     */
+    private <T extends Identifiable<ID>, ID> void takePendingWrites(Class<T> clazz, Map<String, ID> misses,
+                                                                   Map<ID, T> found, Map<String, T> backfill) {
+        if (writeBehindBuffer == null || misses.isEmpty()) {
+            return;
+        }
+        misses.entrySet().removeIf(miss -> {
+            T pending = getPendingWrite(clazz, miss.getKey());
+            if (pending == null) {
+                return false;
+            }
+            found.put(miss.getValue(), pending);
+            backfill.put(miss.getKey(), pending);
+            return true;
+        });
     }
 
     @Override
@@ -73,19 +359,36 @@ public class DefaultPersistentService implements PersistentService {
 
         // 更新缓存
         String cacheKey = buildCacheKey(entity.getClass(), entity.getId());
-        Duration ttl = getCacheTtl(entity.getClass());
-        cacheManager.put(cacheKey, saved, ttl);
+        cacheManager.put(cacheKey, saved, getLocalCacheTtl(entity.getClass()), getCacheTtl(entity.getClass()));
+        loader.written(cacheKey, getRefreshTtl(entity.getClass()));
+        cancelWriteBehind(cacheKey);
 
         log.debug("Saved entity: {} -> {}", entity.getClass().getSimpleName(), entity.getId());
         return saved;
     }
 
     @Override
-    public <T extends Identifiable<ID>, ID> void saveAsync(T entity) {
-        // 先更新缓存
+    public <T extends Identifiable<ID>, ID> CompletableFuture<Void> saveAsync(T entity) {
         String cacheKey = buildCacheKey(entity.getClass(), entity.getId());
-        Duration ttl = getCacheTtl(entity.getClass());
-        cacheManager.put(cacheKey, entity, ttl);
+
+        // 写后合并：窗口内多次保存只落盘最新版本；缓冲区已满被拒绝时不更新缓存，缓存仍与数据库一致
+        if (writeBehindBuffer != null) {
+            CompletableFuture<Void> completion =
+                    writeBehindBuffer.markDirty(cacheKey, getCollectionName(entity.getClass()), entity);
+            if (completion.isCompletedExceptionally()) {
+                log.warn("Async save rejected (write-behind full): {} -> {}",
+                        entity.getClass().getSimpleName(), entity.getId());
+                return completion;
+            }
+            cacheManager.put(cacheKey, entity, getLocalCacheTtl(entity.getClass()), getCacheTtl(entity.getClass()));
+            loader.written(cacheKey, getRefreshTtl(entity.getClass()));
+            log.debug("Async save entity (write-behind): {} -> {}", entity.getClass().getSimpleName(), entity.getId());
+            return completion;
+        }
+
+        // 先更新缓存
+        cacheManager.put(cacheKey, entity, getLocalCacheTtl(entity.getClass()), getCacheTtl(entity.getClass()));
+        loader.written(cacheKey, getRefreshTtl(entity.getClass()));
 
         // 发送异步消息
         byte[] payload = entitySerializer.serialize(entity);
@@ -96,14 +399,16 @@ public class DefaultPersistentService implements PersistentService {
                 payload
         );
 
-        persistentQueue.sendAsync(message)
-                .exceptionally(ex -> {
-                    log.error("Failed to send async save message: {} -> {}",
-                            entity.getClass().getSimpleName(), entity.getId(), ex);
-                    return null;
+        CompletableFuture<Void> completion = persistentQueue.sendAsync(message)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send async save message: {} -> {}",
+                                entity.getClass().getSimpleName(), entity.getId(), ex);
+                    }
                 });
 
         log.debug("Async save entity: {} -> {}", entity.getClass().getSimpleName(), entity.getId());
+        return completion;
     }
 
     @Override
@@ -115,6 +420,8 @@ public class DefaultPersistentService implements PersistentService {
         // 删除缓存
         String cacheKey = buildCacheKey(entity.getClass(), entity.getId());
         cacheManager.evict(cacheKey);
+        loader.forget(cacheKey);
+        cancelWriteBehind(cacheKey);
 
         log.debug("Deleted entity: {} -> {}", entity.getClass().getSimpleName(), entity.getId());
     }
@@ -128,6 +435,8 @@ public class DefaultPersistentService implements PersistentService {
         // 删除缓存
         String cacheKey = buildCacheKey(clazz, id);
         cacheManager.evict(cacheKey);
+        loader.forget(cacheKey);
+        cancelWriteBehind(cacheKey);
 
         log.debug("Deleted entity by id: {} -> {}", clazz.getSimpleName(), id);
     }
@@ -143,11 +452,25 @@ public class DefaultPersistentService implements PersistentService {
     public <T extends Identifiable<ID>, ID> boolean exists(Class<T> clazz, ID id) {
         // 先查缓存
         String cacheKey = buildCacheKey(clazz, id);
-        if (cacheManager.exists(cacheKey)) {
+        if (negativeCacheTtl == null) {
+            if (cacheManager.exists(cacheKey) || getPendingWrite(clazz, cacheKey) != null) {
+                return true;
+            }
+            return repository.existsById((Class<Identifiable<Object>>) clazz, id);
+        }
+        Optional<Object> cached = cacheManager.getEither(cacheKey, clazz, NullValue.class);
+        if (cached.isPresent() && !(cached.get() instanceof NullValue) || getPendingWrite(clazz, cacheKey) != null) {
             return true;
         }
-        // 再查数据库
-        return repository.existsById((Class<Identifiable<Object>>) clazz, id);
+        if (cached.isPresent()) {
+            return false;
+        }
+        // 再查数据库，不存在时写入不存在标记
+        boolean exists = repository.existsById((Class<Identifiable<Object>>) clazz, id);
+        if (!exists) {
+            cacheManager.put(cacheKey, NullValue.INSTANCE, negativeCacheTtl, negativeCacheTtl);
+        }
+        return exists;
     }
 
     @Override
@@ -162,9 +485,19 @@ public class DefaultPersistentService implements PersistentService {
     public <T extends Identifiable<ID>, ID> void evictCache(Class<T> clazz, ID id) {
         String cacheKey = buildCacheKey(clazz, id);
         cacheManager.evict(cacheKey);
+        loader.forget(cacheKey);
         log.debug("Evicted cache: {} -> {}", clazz.getSimpleName(), id);
     }
 
+    /**
+     * 丢弃尚未落盘的异步保存，避免旧版本在同步保存或删除之后被写回
+     */
+    private void cancelWriteBehind(String cacheKey) {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.cancel(cacheKey);
+        }
+    }
+
     /**
      * 构建缓存键
      */
@@ -197,4 +530,27 @@ public class DefaultPersistentService implements PersistentService {
         }
         return defaultCacheTtl;
     }
+
+    /**
+     * 提前刷新依据的 TTL：只有本地缓存时取本地 TTL，否则取 Redis TTL（L1 过期后仍可从 L2 读取）
+     */
+    private <T> Duration getRefreshTtl(Class<T> clazz) {
+        return cacheManager.getType() == CacheType.CAFFEINE ? getLocalCacheTtl(clazz) : getCacheTtl(clazz);
+    }
+
+    /**
+     * 获取本地缓存 TTL：优先 @CacheConfig.localTtlSeconds，其次 @PersistentEntity.cacheTtl，
+     * 都未配置时返回 null，使用本地缓存自身的默认 TTL
+     */
+    private <T> Duration getLocalCacheTtl(Class<T> clazz) {
+        CacheConfig cacheConfig = clazz.getAnnotation(CacheConfig.class);
+        if (cacheConfig != null) {
+            return Duration.ofSeconds(cacheConfig.localTtlSeconds());
+        }
+        PersistentEntity annotation = clazz.getAnnotation(PersistentEntity.class);
+        if (annotation != null && annotation.cacheTtl() >= 0) {
+            return Duration.ofSeconds(annotation.cacheTtl()); // 0 表示永不过期
+        }
+        return null;
+    }
 }
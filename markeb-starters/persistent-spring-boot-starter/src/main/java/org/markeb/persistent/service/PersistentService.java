@@ -2,11 +2,18 @@ package org.markeb.persistent.service;
 
 import org.markeb.persistent.entity.Identifiable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 持久化服务接口
+ * <p>
+ * 带 Async 后缀的方法不阻塞调用线程：查询在独立的有界 I/O 线程池执行，返回的 future 在 I/O 线程（或刷盘线程）完成。
+ * Actor 内调用时用 {@code thenXxxAsync(..., context.executor())} 把回调投递回自己的邮箱，回调仍然串行执行。
+ * </p>
  */
 public interface PersistentService {
 
@@ -19,6 +26,33 @@ public interface PersistentService {
      */
     <T extends Identifiable<ID>, ID> Optional<T> find(Class<T> clazz, ID id);
 
+    /**
+     * 根据ID异步查找实体，语义同 {@link #find}
+     *
+     * @param clazz 实体类型
+     * @param id    实体ID
+     * @return 实体（可能为空）；I/O 线程池已满时以 RejectedExecutionException 失败
+     */
+    <T extends Identifiable<ID>, ID> CompletableFuture<Optional<T>> findAsync(Class<T> clazz, ID id);
+
+    /**
+     * 根据ID批量查找实体（批量查缓存，未命中的一次从数据库加载并回填缓存）
+     *
+     * @param clazz 实体类型
+     * @param ids   实体ID集合
+     * @return ID -> 实体，按 ids 顺序，不存在的 ID 不在结果中
+     */
+    <T extends Identifiable<ID>, ID> Map<ID, T> findMany(Class<T> clazz, Collection<ID> ids);
+
+    /**
+     * 根据ID异步批量查找实体，语义同 {@link #findMany}
+     *
+     * @param clazz 实体类型
+     * @param ids   实体ID集合
+     * @return ID -> 实体；I/O 线程池已满时以 RejectedExecutionException 失败
+     */
+    <T extends Identifiable<ID>, ID> CompletableFuture<Map<ID, T>> findManyAsync(Class<T> clazz, Collection<ID> ids);
+
     /**
      * 同步保存实体（直接写数据库和缓存）
      *
@@ -29,10 +63,14 @@ public interface PersistentService {
 
     /**
      * 异步保存实体（先写缓存，异步写数据库）
+     * <p>
+     * 返回时缓存已更新，之后的查询可以读到该实体。
+     * </p>
      *
      * @param entity 实体
+     * @return 实体发送到持久化队列并得到确认后完成（启用写后合并时为所在批次刷出后），发送失败时以异常完成
      */
-    <T extends Identifiable<ID>, ID> void saveAsync(T entity);
+    <T extends Identifiable<ID>, ID> CompletableFuture<Void> saveAsync(T entity);
 
     /**
      * 删除实体
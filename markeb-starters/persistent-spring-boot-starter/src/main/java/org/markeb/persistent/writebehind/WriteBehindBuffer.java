@@ -0,0 +1,431 @@
+package org.markeb.persistent.writebehind;
+
+import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.queue.PersistentMessage;
+import org.markeb.persistent.queue.PersistentQueue;
+import org.markeb.persistent.serialization.EntitySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 写后合并缓冲区
+ * <p>
+ * 异步保存不再立即序列化并发送消息，而是按缓存键记录脏实体，同一实体在一个刷盘窗口内的多次保存只保留最新版本。
+ * 后台线程每个窗口把脏实体按批序列化、发送到持久化队列，并等待这一批发送确认后再发下一批。
+ * </p>
+ * <p>
+ * 提前刷盘：脏实体数超过 maxPending 时通知后台线程立即刷盘，不等窗口结束；刷盘只在后台线程进行，
+ * 保存线程（通常是 Actor 线程）不会阻塞在序列化和发送确认上。
+ * 背压：持久化队列跟不上时脏实体会继续堆积，达到 maxBuffered 后新实体的保存直接以
+ * {@link RejectedExecutionException} 失败，不进入缓冲区，也不阻塞保存线程；已在缓冲区中的实体仍可合并更新。
+ * 上限按计数检查，并发保存时可能略微超出。
+ * 关闭时停止定时刷盘，并把剩余脏实体全部刷出。发送失败的实体重新标记为脏（若期间没有更新的版本），下个窗口重试。
+ * </p>
+ * <p>
+ * 实体在刷盘时才序列化，写入的是刷盘时刻的状态，与缓存中持有的实体引用一致。
+ * 从标记为脏到发送确认之前，数据库中仍是旧版本，{@link #getPending} 返回缓冲的实体，缓存未命中时以它为准。
+ * </p>
+ * <p>
+ * 发送中的实体被同步保存或删除取消时记下取消标记，即使这次发送失败也不再重试，避免把已删除或已被覆盖的旧版本写回。
+ * </p>
+ * <p>
+ * {@link #markDirty} 返回的 future 在该实体被刷出并得到发送确认后完成，窗口内合并的多次保存共用同一个 future；
+ * 被同步保存或删除取消时正常完成，关闭时仍未刷出则以异常完成；被拒绝时返回已失败的 future。
+ * </p>
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private static final int DEFAULT_BUFFERED_FACTOR = 5;
+
+    private final PersistentQueue persistentQueue;
+    private final EntitySerializer entitySerializer;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final int maxPending;
+    private final int maxBuffered;
+    private final long sendTimeoutMs;
+
+    private final ConcurrentHashMap<String, DirtyEntry> dirty = new ConcurrentHashMap<>();
+
+    /**
+     * 已取出发送、尚未得到确认的实体
+     */
+    private final ConcurrentHashMap<String, DirtyEntry> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final WriteBehindStats stats = new WriteBehindStats();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * 脏实体硬上限取 maxPending 的 {@value #DEFAULT_BUFFERED_FACTOR} 倍
+     */
+    public WriteBehindBuffer(PersistentQueue persistentQueue,
+                             EntitySerializer entitySerializer,
+                             long flushIntervalMs,
+                             int batchSize,
+                             int maxPending,
+                             long sendTimeoutMs) {
+        this(persistentQueue, entitySerializer, flushIntervalMs, batchSize, maxPending,
+                (int) Math.min(Integer.MAX_VALUE, (long) maxPending * DEFAULT_BUFFERED_FACTOR), sendTimeoutMs);
+    }
+
+    /**
+     * @param persistentQueue  持久化队列
+     * @param entitySerializer 实体序列化器
+     * @param flushIntervalMs  刷盘窗口（毫秒）
+     * @param batchSize        每批最大实体数
+     * @param maxPending       脏实体数超过该值后立即通知后台线程刷盘
+     * @param maxBuffered      脏实体硬上限，达到后拒绝新实体的保存，不小于 maxPending
+     * @param sendTimeoutMs    等待一批发送确认的超时（毫秒）
+     */
+    public WriteBehindBuffer(PersistentQueue persistentQueue,
+                             EntitySerializer entitySerializer,
+                             long flushIntervalMs,
+                             int batchSize,
+                             int maxPending,
+                             int maxBuffered,
+                             long sendTimeoutMs) {
+        this.persistentQueue = persistentQueue;
+        this.entitySerializer = entitySerializer;
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPending = Math.max(this.batchSize, maxPending);
+        this.maxBuffered = Math.max(this.maxPending, maxBuffered);
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "persistent-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::scheduledFlush,
+                this.flushIntervalMs, this.flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 标记实体为脏，等待下一次刷盘
+     *
+     * @param cacheKey   缓存键（合并粒度）
+     * @param collection 集合/表名
+     * @param entity     实体
+     * @return 实体被刷出并得到发送确认后完成；脏实体达到硬上限时以 {@link RejectedExecutionException} 失败
+     */
+    public CompletableFuture<Void> markDirty(String cacheKey, String collection, Identifiable<?> entity) {
+        if (closed) {
+            // 已关闭，直接发送，不再进入缓冲区
+            return send(new DirtyEntry(cacheKey, collection, entity, System.currentTimeMillis(),
+                    new CompletableFuture<>()));
+        }
+
+        DirtyEntry existing = dirty.get(cacheKey);
+        if (existing != null && existing.update(entity)) {
+            // 合并到尚未刷出的条目，不占用新的额度
+            stats.recordSave(true);
+            return existing.completion;
+        }
+        if (pendingCount.get() >= maxBuffered) {
+            stats.recordRejected();
+            requestFlush();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Write-behind buffer full: " + maxBuffered + " dirty entities"));
+        }
+
+        DirtyEntry created = new DirtyEntry(cacheKey, collection, entity, System.currentTimeMillis(),
+                new CompletableFuture<>());
+        existing = dirty.putIfAbsent(cacheKey, created);
+        while (existing != null && !existing.update(entity)) {
+            // 旧条目正被刷出，重新插入
+            existing = dirty.putIfAbsent(cacheKey, created);
+        }
+        if (existing == null) {
+            pendingCount.incrementAndGet();
+        }
+        stats.recordSave(existing != null);
+        CompletableFuture<Void> completion = existing != null ? existing.completion : created.completion;
+
+        if (pendingCount.get() > maxPending) {
+            stats.recordEarlyFlush();
+            requestFlush();
+        }
+        return completion;
+    }
+
+    /**
+     * 通知后台线程立即刷盘，已提交的请求尚未执行时不重复提交
+     */
+    private void requestFlush() {
+        if (!closed && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                scheduledFlush();
+            });
+        }
+    }
+
+    /**
+     * 取消尚未刷出的脏实体（实体被同步保存或删除时调用）
+     */
+    public void cancel(String cacheKey) {
+        DirtyEntry entry = dirty.remove(cacheKey);
+        if (entry != null) {
+            entry.seal();
+            pendingCount.decrementAndGet();
+            // 同步保存或删除已经取代了这次异步保存
+            entry.completion.complete(null);
+        }
+        DirtyEntry sending = inFlight.get(cacheKey);
+        if (sending != null) {
+            // 发送中的条目无法撤回，只标记为已取消，发送失败时不再重试
+            sending.cancel();
+        }
+    }
+
+    /**
+     * 刷出全部脏实体
+     */
+    public void flushAll() {
+        while (!dirty.isEmpty()) {
+            if (flushBatch() == 0) {
+                // 整批失败，留待下个窗口重试
+                break;
+            }
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flushAll();
+        } catch (Throwable e) {
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * 取出一批脏实体发送并等待确认
+     *
+     * @return 成功发送的实体数
+     */
+    private int flushBatch() {
+        List<DirtyEntry> batch = new ArrayList<>(Math.min(batchSize, pendingCount.get() + 1));
+        Iterator<DirtyEntry> it = dirty.values().iterator();
+        while (it.hasNext() && batch.size() < batchSize) {
+            DirtyEntry entry = it.next();
+            // 先封住条目再移除，之后的保存会插入新条目，不会丢失；
+            // 先登记为发送中再移除，读取方和取消方在两张表之间不会扑空
+            if (entry.seal()) {
+                inFlight.put(entry.cacheKey, entry);
+                if (dirty.remove(entry.cacheKey, entry)) {
+                    pendingCount.decrementAndGet();
+                    batch.add(entry);
+                } else {
+                    // 已被取消
+                    inFlight.remove(entry.cacheKey, entry);
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long maxDirtyAgeMs = 0;
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+        for (DirtyEntry entry : batch) {
+            maxDirtyAgeMs = Math.max(maxDirtyAgeMs, now - entry.dirtySince);
+            futures.add(send(entry));
+        }
+
+        int success = 0;
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            DirtyEntry entry = batch.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                entry.completion.complete(null);
+                success++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                retry(entry);
+            } catch (Exception e) {
+                retry(entry);
+            } finally {
+                inFlight.remove(entry.cacheKey, entry);
+            }
+        }
+        if (success < batch.size()) {
+            stats.recordFailure(batch.size() - success);
+            log.warn("Write-behind batch partially failed: {}/{} sent", success, batch.size());
+        }
+        stats.recordBatch(success, System.nanoTime() - start, maxDirtyAgeMs);
+        return success;
+    }
+
+    private CompletableFuture<Void> send(DirtyEntry entry) {
+        Identifiable<?> entity = entry.entity;
+        try {
+            PersistentMessage message = new PersistentMessage(
+                    PersistentMessage.MessageType.SAVE,
+                    entity.getClass().getName(),
+                    String.valueOf(entity.getId()),
+                    entitySerializer.serialize(entity)
+            );
+            message.setCollection(entry.collection);
+            return persistentQueue.sendAsync(message);
+        } catch (Exception e) {
+            log.error("Failed to send write-behind message: {}", entry.cacheKey, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 发送失败的实体重新标记为脏，期间已有新版本时以新版本为准（随新版本一起完成）；
+     * 发送期间被取消的直接丢弃
+     */
+    private void retry(DirtyEntry failed) {
+        if (failed.isCancelled()) {
+            failed.completion.complete(null);
+            return;
+        }
+        DirtyEntry entry = new DirtyEntry(failed.cacheKey, failed.collection, failed.entity, failed.dirtySince,
+                failed.completion);
+        DirtyEntry existing = dirty.putIfAbsent(failed.cacheKey, entry);
+        if (existing == null) {
+            pendingCount.incrementAndGet();
+        } else {
+            existing.completion.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    failed.completion.completeExceptionally(ex);
+                } else {
+                    failed.completion.complete(null);
+                }
+            });
+        }
+    }
+
+    /**
+     * 实体是否有尚未落盘的异步保存（此时数据库中的版本比缓存旧）
+     */
+    public boolean isDirty(String cacheKey) {
+        return getPending(cacheKey) != null;
+    }
+
+    /**
+     * 获取尚未落盘的最新版本实体（等待刷盘或发送中），没有时返回 null
+     */
+    public Identifiable<?> getPending(String cacheKey) {
+        DirtyEntry entry = dirty.get(cacheKey);
+        if (entry != null) {
+            return entry.entity();
+        }
+        entry = inFlight.get(cacheKey);
+        return entry != null && !entry.isCancelled() ? entry.entity() : null;
+    }
+
+    /**
+     * 获取当前脏实体数
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public WriteBehindStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 停止定时刷盘，并刷出全部剩余脏实体
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(flushIntervalMs + sendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+        flushAll();
+        if (!dirty.isEmpty()) {
+            log.error("Write-behind closed with {} unflushed entities", dirty.size());
+            IllegalStateException unflushed = new IllegalStateException("Write-behind closed before flush");
+            dirty.values().forEach(entry -> entry.completion.completeExceptionally(unflushed));
+        }
+        log.info("Write-behind buffer closed: {}", stats);
+    }
+
+    /**
+     * 脏实体条目
+     * <p>
+     * 刷盘前先 {@link #seal()}，封住后的条目不再接受更新，并发的保存会改为插入新条目。
+     * </p>
+     */
+    private static final class DirtyEntry {
+
+        private final String cacheKey;
+        private final String collection;
+        private final long dirtySince;
+        private final CompletableFuture<Void> completion;
+        private Identifiable<?> entity;
+        private boolean sealed;
+        private volatile boolean cancelled;
+
+        DirtyEntry(String cacheKey, String collection, Identifiable<?> entity, long dirtySince,
+                   CompletableFuture<Void> completion) {
+            this.cacheKey = cacheKey;
+            this.collection = collection;
+            this.entity = entity;
+            this.dirtySince = dirtySince;
+            this.completion = completion;
+        }
+
+        synchronized boolean update(Identifiable<?> entity) {
+            if (sealed) {
+                return false;
+            }
+            this.entity = entity;
+            return true;
+        }
+
+        synchronized boolean seal() {
+            if (sealed) {
+                return false;
+            }
+            sealed = true;
+            return true;
+        }
+
+        synchronized Identifiable<?> entity() {
+            return entity;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.markeb.persistent.writebehind;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 写后合并统计
+ * <p>
+ * 合并比 = 保存请求数 / 实际落盘数，越大说明合并掉的重复写越多。
+ * 刷盘延迟为一批消息从发送到全部确认的耗时，脏数据驻留时间为实体从第一次变脏到被刷出的时间。
+ * </p>
+ */
+public class WriteBehindStats {
+
+    private final LongAdder saves = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder earlyFlushes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicLong maxFlushLatencyNanos = new AtomicLong();
+    private final LongAdder totalFlushLatencyNanos = new LongAdder();
+    private volatile long lastFlushLatencyNanos;
+    private volatile long lastMaxDirtyAgeMs;
+
+    void recordSave(boolean merged) {
+        saves.increment();
+        if (merged) {
+            coalesced.increment();
+        }
+    }
+
+    void recordBatch(int size, long latencyNanos, long maxDirtyAgeMs) {
+        batches.increment();
+        flushed.add(size);
+        totalFlushLatencyNanos.add(latencyNanos);
+        lastFlushLatencyNanos = latencyNanos;
+        lastMaxDirtyAgeMs = maxDirtyAgeMs;
+        maxFlushLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    void recordFailure(int size) {
+        failures.add(size);
+    }
+
+    void recordEarlyFlush() {
+        earlyFlushes.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * 获取保存请求数
+     */
+    public long getSaveCount() {
+        return saves.sum();
+    }
+
+    /**
+     * 获取被合并（覆盖了尚未落盘的旧版本）的保存请求数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 获取实际落盘的实体数
+     */
+    public long getFlushedCount() {
+        return flushed.sum();
+    }
+
+    /**
+     * 获取刷盘批次数
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * 获取发送失败的实体数（失败的实体会重新标记为脏，下次刷盘重试）
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * 获取保存时脏实体超过 maxPending、提前通知后台线程刷盘的次数
+     */
+    public long getEarlyFlushCount() {
+        return earlyFlushes.sum();
+    }
+
+    /**
+     * 获取脏实体达到硬上限、被拒绝的保存请求数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 获取合并比：保存请求数 / 落盘数
+     */
+    public double getCoalescingRatio() {
+        long flushedCount = flushed.sum();
+        return flushedCount > 0 ? (double) saves.sum() / flushedCount : 0;
+    }
+
+    /**
+     * 获取平均每批刷盘延迟（毫秒）
+     */
+    public double getAvgFlushLatencyMs() {
+        long batchCount = batches.sum();
+        return batchCount > 0 ? totalFlushLatencyNanos.sum() / 1_000_000.0 / batchCount : 0;
+    }
+
+    /**
+     * 获取最近一批刷盘延迟（毫秒）
+     */
+    public double getLastFlushLatencyMs() {
+        return lastFlushLatencyNanos / 1_000_000.0;
+    }
+
+    /**
+     * 获取最大刷盘延迟（毫秒）
+     */
+    public double getMaxFlushLatencyMs() {
+        return maxFlushLatencyNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 获取最近一批中脏数据的最长驻留时间（毫秒）
+     */
+    public long getLastMaxDirtyAgeMs() {
+        return lastMaxDirtyAgeMs;
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindStats{" +
+                "saves=" + getSaveCount() +
+                ", flushed=" + getFlushedCount() +
+                ", coalescingRatio=" + String.format("%.2f", getCoalescingRatio()) +
+                ", batches=" + getBatchCount() +
+                ", avgFlushLatencyMs=" + String.format("%.2f", getAvgFlushLatencyMs()) +
+                ", maxFlushLatencyMs=" + String.format("%.2f", getMaxFlushLatencyMs()) +
+                ", failures=" + getFailureCount() +
+                ", earlyFlushes=" + getEarlyFlushCount() +
+                ", rejected=" + getRejectedCount() +
+                '}';
+    }
+}
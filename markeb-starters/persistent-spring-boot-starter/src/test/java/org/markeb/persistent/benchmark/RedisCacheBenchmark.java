@@ -0,0 +1,148 @@
+package org.markeb.persistent.benchmark;
+
+import org.markeb.persistent.cache.redis.ProtostuffRedisValueCodec;
+import org.markeb.persistent.cache.redis.RedisCacheManager;
+import org.markeb.persistent.serialization.ProtostuffEntitySerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量读写 1000 个实体缓存的开销，需要本地 Redis（REDIS_HOST / REDIS_PORT，默认 localhost:6379）
+ * <p>
+ * 对比：
+ * <ul>
+ *   <li>jsonPerKey：原先的做法，JSON 值，逐个 key 调用 SET / GET，每个 key 一次往返</li>
+ *   <li>jsonBatch：JSON 值，{@link RedisCacheManager#putAll} 管线写入、{@link RedisCacheManager#getAll} 一次 MGET</li>
+ *   <li>protostuffBatch：protostuff 二进制值，批量方式同上</li>
+ * </ul>
+ * 结果按每批 1000 个 key 计；配合 gc profiler 查看编解码的分配字节数。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RedisCacheBenchmark {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Param({"jsonPerKey", "jsonBatch", "protostuffBatch"})
+    public String mode;
+
+    @Param({"1000"})
+    public int keys;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisCacheManager cacheManager;
+    private String keyPrefix;
+    private Map<String, PlayerData> entries;
+    private List<String> keyList;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
+        connectionFactory = new LettuceConnectionFactory(host, port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        keyPrefix = "bench:" + mode + ":";
+        cacheManager = "protostuffBatch".equals(mode)
+                ? new RedisCacheManager(redisTemplate,
+                        new ProtostuffRedisValueCodec(new ProtostuffEntitySerializer()), keyPrefix, TTL)
+                : new RedisCacheManager(redisTemplate, keyPrefix, TTL);
+
+        entries = new LinkedHashMap<>();
+        for (int i = 0; i < keys; i++) {
+            entries.put("player:" + i, PlayerData.sample(i));
+        }
+        keyList = new ArrayList<>(entries.keySet());
+        writeAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cacheManager.clear();
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public int writeAll() {
+        if ("jsonPerKey".equals(mode)) {
+            entries.forEach((key, value) -> redisTemplate.opsForValue().set(keyPrefix + key, value, TTL));
+        } else {
+            cacheManager.putAll(entries);
+        }
+        return entries.size();
+    }
+
+    @Benchmark
+    public int readAll() {
+        if ("jsonPerKey".equals(mode)) {
+            int found = 0;
+            for (String key : keyList) {
+                if (redisTemplate.opsForValue().get(keyPrefix + key) != null) {
+                    found++;
+                }
+            }
+            return found;
+        }
+        return cacheManager.getAll(keyList, PlayerData.class).size();
+    }
+
+    /**
+     * 典型玩家数据：基本字段 + 背包列表
+     */
+    public static class PlayerData {
+
+        public long id;
+        public String name;
+        public int level;
+        public long gold;
+        public List<Integer> items;
+
+        static PlayerData sample(int i) {
+            PlayerData data = new PlayerData();
+            data.id = i;
+            data.name = "player-" + i;
+            data.level = i % 100;
+            data.gold = i * 1000L;
+            data.items = new ArrayList<>();
+            for (int j = 0; j < 20; j++) {
+                data.items.add(j * 31 + i);
+            }
+            return data;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RedisCacheBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,182 @@
+package org.markeb.persistent.loading;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单飞加载与提前刷新测试
+ */
+class SingleFlightLoaderTest {
+
+    private static final String KEY = "player:1";
+    private static final int WAITERS = 8;
+
+    private SingleFlightLoader loader = new SingleFlightLoader();
+
+    @AfterEach
+    void tearDown() {
+        loader.close();
+    }
+
+    @Test
+    void concurrentLoadsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        List<CompletableFuture<String>> results = startLoads(() -> {
+            calls.incrementAndGet();
+            await(release);
+            return "loaded";
+        });
+
+        // 第一个加载还在进行，其余调用都在等待它的结果
+        awaitUntil(() -> loader.getStats().getCoalescedCount() == WAITERS - 1);
+        release.countDown();
+
+        for (CompletableFuture<String> result : results) {
+            assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, loader.getStats().getLoadCount());
+        assertEquals(0, loader.getInFlightCount());
+    }
+
+    @Test
+    void failureIsRethrownToEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("db down");
+        List<CompletableFuture<String>> results = startLoads(() -> {
+            await(release);
+            throw failure;
+        });
+
+        awaitUntil(() -> loader.getStats().getCoalescedCount() == WAITERS - 1);
+        release.countDown();
+
+        for (CompletableFuture<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, loader.getStats().getFailureCount());
+        assertEquals(0, loader.getInFlightCount(), "failed load must not stay in flight");
+
+        // 失败不缓存，下一次调用重新加载
+        assertEquals("retry", loader.load(KEY, null, () -> "retry"));
+    }
+
+    @Test
+    void earlyRefreshReloadsInBackground() throws Exception {
+        loader = new SingleFlightLoader(1000, 16, 1);
+        // 加载耗时约 5ms、TTL 50ms，beta 足够大时几乎每次命中都应提前刷新
+        loader.load(KEY, Duration.ofMillis(50), () -> {
+            sleep(5);
+            return "v1";
+        });
+        assertEquals(1, loader.getTrackedKeyCount());
+
+        boolean refresh = false;
+        for (int i = 0; i < 100 && !refresh; i++) {
+            refresh = loader.shouldRefresh(KEY);
+        }
+        assertTrue(refresh);
+        assertFalse(loader.shouldRefresh("player:2"), "untracked key is never refreshed early");
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        loader.refreshAsync(KEY, Duration.ofMillis(50), () -> {
+            refreshed.countDown();
+            return "v2";
+        });
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, loader.getStats().getEarlyRefreshCount());
+        awaitUntil(() -> loader.getInFlightCount() == 0);
+        assertEquals(2, loader.getStats().getLoadCount());
+    }
+
+    @Test
+    void earlyRefreshSkipsKeyAlreadyLoading() throws Exception {
+        loader = new SingleFlightLoader(1000, 16, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> slowLoad = () -> {
+            await(release);
+            return "v1";
+        };
+        CompletableFuture<String> load = CompletableFuture.supplyAsync(
+                () -> loader.load(KEY, Duration.ofMinutes(1), slowLoad), newThread());
+        awaitUntil(() -> loader.getInFlightCount() == 1);
+
+        AtomicInteger refreshes = new AtomicInteger();
+        loader.refreshAsync(KEY, Duration.ofMinutes(1), refreshes::incrementAndGet);
+        release.countDown();
+
+        assertEquals("v1", load.get(5, TimeUnit.SECONDS));
+        assertEquals(0, refreshes.get());
+        assertEquals(0, loader.getStats().getEarlyRefreshCount());
+    }
+
+    @Test
+    void earlyRefreshDisabledWithoutBeta() {
+        loader.load(KEY, Duration.ofMillis(50), () -> "v1");
+
+        assertFalse(loader.shouldRefresh(KEY));
+        assertEquals(0, loader.getTrackedKeyCount());
+    }
+
+    /**
+     * 先启动一个加载，进入 loader 后再启动其余的，保证只有第一个执行 loader
+     */
+    private List<CompletableFuture<String>> startLoads(Supplier<String> supplier) throws InterruptedException {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        results.add(CompletableFuture.supplyAsync(() -> loader.load(KEY, null, supplier), newThread()));
+        awaitUntil(() -> loader.getInFlightCount() == 1);
+        for (int i = 1; i < WAITERS; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> loader.load(KEY, null, supplier), newThread()));
+        }
+        return results;
+    }
+
+    private static Executor newThread() {
+        return task -> {
+            Thread t = new Thread(task);
+            t.setDaemon(true);
+            t.start();
+        };
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
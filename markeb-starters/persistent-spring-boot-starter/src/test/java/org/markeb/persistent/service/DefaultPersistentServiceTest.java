@@ -0,0 +1,295 @@
+package org.markeb.persistent.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.cache.CacheManager;
+import org.markeb.persistent.cache.CacheType;
+import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.loading.SingleFlightLoader;
+import org.markeb.persistent.repository.Repository;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 持久化服务查询路径测试：未命中回填、不存在缓存、并发未命中合并
+ */
+class DefaultPersistentServiceTest {
+
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private final FakeCache cache = new FakeCache();
+    private final FakeRepository repository = new FakeRepository();
+    private final SingleFlightLoader loader = new SingleFlightLoader();
+    private final DefaultPersistentService service = new DefaultPersistentService(
+            repository, cache, null, null, Duration.ofMinutes(30), null, loader, NEGATIVE_TTL);
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+        loader.close();
+    }
+
+    @Test
+    void missLoadsFromRepositoryAndBackfillsCache() {
+        repository.add(new Player(1L));
+
+        assertEquals(Long.valueOf(1L), service.find(Player.class, 1L).orElseThrow().getId());
+        assertEquals(1, repository.findByIdCalls.get());
+        assertInstanceOf(Player.class, cache.values.get("player:1"));
+
+        assertTrue(service.find(Player.class, 1L).isPresent());
+        assertEquals(1, repository.findByIdCalls.get(), "second find must hit the cache");
+    }
+
+    @Test
+    void absentIdIsCachedAsMarker() {
+        assertTrue(service.find(Player.class, 2L).isEmpty());
+        assertSame(NullValue.INSTANCE, cache.values.get("player:2"));
+
+        int reads = cache.reads.get();
+        assertTrue(service.find(Player.class, 2L).isEmpty());
+        assertEquals(1, repository.findByIdCalls.get(), "absent id must not reach the repository again");
+        assertEquals(reads + 1, cache.reads.get(), "entity and marker are read in one lookup");
+        assertFalse(service.exists(Player.class, 2L));
+        assertEquals(0, repository.existsCalls.get());
+    }
+
+    @Test
+    void saveReplacesAbsentMarker() {
+        assertTrue(service.find(Player.class, 3L).isEmpty());
+        repository.add(new Player(3L));
+        service.save(new Player(3L));
+
+        assertTrue(service.find(Player.class, 3L).isPresent());
+        assertEquals(1, repository.findByIdCalls.get());
+    }
+
+    @Test
+    void findManyLoadsOnlyRealMisses() {
+        Player cached = new Player(1L);
+        cache.values.put("player:1", cached);
+        cache.values.put("player:2", NullValue.INSTANCE);
+        repository.add(new Player(3L));
+
+        Map<Long, Player> found = service.findMany(Player.class, List.of(1L, 2L, 3L, 4L));
+
+        assertEquals(List.of(1L, 3L), new ArrayList<>(found.keySet()));
+        assertSame(cached, found.get(1L));
+        assertEquals(1, repository.findAllCalls.get());
+        assertEquals(List.of(3L, 4L), repository.lastFindAllIds.stream().sorted().toList(),
+                "cached entity and absent marker must not be queried");
+        assertInstanceOf(Player.class, cache.values.get("player:3"));
+        assertSame(NullValue.INSTANCE, cache.values.get("player:4"));
+
+        // 再查一次全部命中缓存
+        assertEquals(found.keySet(), service.findMany(Player.class, List.of(1L, 2L, 3L, 4L)).keySet());
+        assertEquals(1, repository.findAllCalls.get());
+    }
+
+    @Test
+    void concurrentMissesQueryRepositoryOnce() throws Exception {
+        repository.add(new Player(5L));
+        repository.block = new CountDownLatch(1);
+
+        int callers = 8;
+        List<CompletableFuture<Optional<Player>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> service.find(Player.class, 5L), task -> {
+                Thread t = new Thread(task);
+                t.setDaemon(true);
+                t.start();
+            }));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loader.getStats().getCoalescedCount() < callers - 1) {
+            assertTrue(System.nanoTime() < deadline, "callers did not coalesce in time");
+            Thread.sleep(1);
+        }
+        repository.block.countDown();
+
+        for (CompletableFuture<Optional<Player>> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isPresent());
+        }
+        assertEquals(1, repository.findByIdCalls.get());
+    }
+
+    // ---------------------------------------------------------------- 测试替身
+
+    static class Player implements Identifiable<Long> {
+
+        private Long id;
+
+        Player(Long id) {
+            this.id = id;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(Long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 内存缓存，一次 get / getEither 记一次读取
+     */
+    static class FakeCache implements CacheManager {
+
+        final Map<String, Object> values = new ConcurrentHashMap<>();
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public CacheType getType() {
+            return CacheType.REDIS;
+        }
+
+        @Override
+        public <T> Optional<T> get(String key, Class<T> type) {
+            reads.incrementAndGet();
+            Object value = values.get(key);
+            return type.isInstance(value) ? Optional.of(type.cast(value)) : Optional.empty();
+        }
+
+        @Override
+        public Optional<Object> getEither(String key, Class<?> type, Class<?> alternative) {
+            reads.incrementAndGet();
+            Object value = values.get(key);
+            return type.isInstance(value) || alternative.isInstance(value) ? Optional.of(value) : Optional.empty();
+        }
+
+        @Override
+        public <T> void put(String key, T value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public <T> void put(String key, T value, Duration ttl) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void evict(String key) {
+            values.remove(key);
+        }
+
+        @Override
+        public boolean exists(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public void clear() {
+            values.clear();
+        }
+    }
+
+    /**
+     * 内存仓储，记录调用次数；block 不为 null 时 findById 等待其放行
+     */
+    static class FakeRepository implements Repository<Player, Long> {
+
+        final Map<Long, Player> rows = new ConcurrentHashMap<>();
+        final AtomicInteger findByIdCalls = new AtomicInteger();
+        final AtomicInteger findAllCalls = new AtomicInteger();
+        final AtomicInteger existsCalls = new AtomicInteger();
+        volatile Collection<Long> lastFindAllIds = List.of();
+        volatile CountDownLatch block;
+
+        void add(Player player) {
+            rows.put(player.getId(), player);
+        }
+
+        @Override
+        public Optional<Player> findById(Long id) {
+            return Optional.ofNullable(rows.get(id));
+        }
+
+        @Override
+        public <E extends Player> Optional<E> findById(Class<E> clazz, Long id) {
+            findByIdCalls.incrementAndGet();
+            CountDownLatch latch = block;
+            if (latch != null) {
+                try {
+                    assertTrue(latch.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Optional.ofNullable(rows.get(id)).map(clazz::cast);
+        }
+
+        @Override
+        public <E extends Player> List<E> findAllById(Class<E> clazz, Collection<Long> ids) {
+            findAllCalls.incrementAndGet();
+            lastFindAllIds = List.copyOf(ids);
+            List<E> result = new ArrayList<>();
+            for (Long id : ids) {
+                Player player = rows.get(id);
+                if (player != null) {
+                    result.add(clazz.cast(player));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public <E extends Player> E save(E entity) {
+            rows.put(entity.getId(), entity);
+            return entity;
+        }
+
+        @Override
+        public <E extends Player> List<E> saveAll(Collection<E> entities) {
+            entities.forEach(this::save);
+            return new ArrayList<>(entities);
+        }
+
+        @Override
+        public <E extends Player> void delete(E entity) {
+            rows.remove(entity.getId());
+        }
+
+        @Override
+        public <E extends Player> void deleteById(Class<E> clazz, Long id) {
+            rows.remove(id);
+        }
+
+        @Override
+        public <E extends Player> void deleteAllById(Class<E> clazz, Collection<Long> ids) {
+            ids.forEach(rows::remove);
+        }
+
+        @Override
+        public <E extends Player> List<E> findAll(Class<E> clazz) {
+            return rows.values().stream().map(clazz::cast).toList();
+        }
+
+        @Override
+        public <E extends Player> boolean existsById(Class<E> clazz, Long id) {
+            existsCalls.incrementAndGet();
+            return rows.containsKey(id);
+        }
+
+        @Override
+        public <E extends Player> long count(Class<E> clazz) {
+            return rows.size();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.markeb.persistent.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.queue.PersistentMessage;
+import org.markeb.persistent.queue.PersistentMessageHandler;
+import org.markeb.persistent.queue.PersistentQueue;
+import org.markeb.persistent.queue.QueueType;
+import org.markeb.persistent.serialization.EntitySerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 写后合并缓冲区测试
+ * <p>
+ * 刷盘窗口设为一分钟，定时刷盘不会介入，刷盘由测试显式调用；
+ * 队列可以挂起发送确认，在一批发送中途插入保存、取消或失败。
+ * </p>
+ */
+class WriteBehindBufferTest {
+
+    private static final long NO_TIMER_MS = 60_000;
+    private static final long SEND_TIMEOUT_MS = 5_000;
+
+    private final FakeQueue queue = new FakeQueue();
+    private WriteBehindBuffer buffer = new WriteBehindBuffer(queue, new VersionSerializer(),
+            NO_TIMER_MS, 10, 1000, SEND_TIMEOUT_MS);
+
+    @AfterEach
+    void tearDown() {
+        queue.holdAcks = false;
+        queue.releaseAll();
+        buffer.close();
+    }
+
+    @Test
+    void savesWithinWindowAreCoalesced() throws Exception {
+        CompletableFuture<Void> first = buffer.markDirty("player:1", "player", new Player(1, 1));
+        CompletableFuture<Void> second = buffer.markDirty("player:1", "player", new Player(1, 2));
+        CompletableFuture<Void> third = buffer.markDirty("player:1", "player", new Player(1, 3));
+
+        assertSame(first, second, "coalesced saves share one future");
+        assertSame(first, third);
+        assertEquals(1, buffer.getPendingCount());
+        assertEquals(3, ((Player) buffer.getPending("player:1")).version);
+
+        buffer.flushAll();
+
+        first.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("1@3"), queue.sent);
+        assertEquals(0, buffer.getPendingCount());
+        assertNull(buffer.getPending("player:1"));
+        assertEquals(3, buffer.getStats().getSaveCount());
+        assertEquals(2, buffer.getStats().getCoalescedCount());
+        assertEquals(1, buffer.getStats().getFlushedCount());
+    }
+
+    @Test
+    void failedSendIsMarkedDirtyAgain() throws Exception {
+        queue.failNext = true;
+        CompletableFuture<Void> saved = buffer.markDirty("player:1", "player", new Player(1, 1));
+
+        buffer.flushAll();
+
+        assertFalse(saved.isDone(), "failed entity waits for the retry");
+        assertEquals(1, buffer.getPendingCount());
+        assertTrue(buffer.isDirty("player:1"));
+        assertEquals(1, buffer.getStats().getFailureCount());
+
+        buffer.flushAll();
+
+        saved.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("1@1", "1@1"), queue.sent);
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void retryYieldsToNewerVersionSavedDuringFlight() throws Exception {
+        queue.holdAcks = true;
+        CompletableFuture<Void> old = buffer.markDirty("player:1", "player", new Player(1, 1));
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flushAll);
+        CompletableFuture<Void> ack = queue.nextAck();
+
+        // 发送中的条目已封住，新的保存进入新条目
+        CompletableFuture<Void> newer = buffer.markDirty("player:1", "player", new Player(1, 2));
+        assertNotSame(old, newer);
+        assertEquals(2, ((Player) buffer.getPending("player:1")).version);
+
+        queue.holdAcks = false;
+        ack.completeExceptionally(new IllegalStateException("broker down"));
+        flush.get(5, TimeUnit.SECONDS);
+        assertFalse(old.isDone(), "failed version completes with the newer one");
+
+        buffer.flushAll();
+
+        newer.get(1, TimeUnit.SECONDS);
+        old.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("1@1", "1@2"), queue.sent);
+    }
+
+    @Test
+    void cancelDropsDirtyEntry() throws Exception {
+        CompletableFuture<Void> saved = buffer.markDirty("player:1", "player", new Player(1, 1));
+
+        buffer.cancel("player:1");
+
+        saved.get(1, TimeUnit.SECONDS);
+        assertEquals(0, buffer.getPendingCount());
+        assertNull(buffer.getPending("player:1"));
+        buffer.flushAll();
+        assertTrue(queue.sent.isEmpty());
+    }
+
+    @Test
+    void cancelDuringFlightSuppressesRetry() throws Exception {
+        queue.holdAcks = true;
+        CompletableFuture<Void> saved = buffer.markDirty("player:1", "player", new Player(1, 1));
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flushAll);
+        CompletableFuture<Void> ack = queue.nextAck();
+        assertTrue(buffer.isDirty("player:1"), "in-flight entity is still pending");
+
+        // 同步保存或删除在发送途中取代了这次异步保存
+        buffer.cancel("player:1");
+        assertNull(buffer.getPending("player:1"));
+
+        queue.holdAcks = false;
+        ack.completeExceptionally(new IllegalStateException("broker down"));
+        flush.get(5, TimeUnit.SECONDS);
+
+        saved.get(1, TimeUnit.SECONDS);
+        assertEquals(0, buffer.getPendingCount());
+        buffer.flushAll();
+        assertEquals(List.of("1@1"), queue.sent, "cancelled entity must not be sent again");
+    }
+
+    @Test
+    void closeFlushesRemainingEntities() throws Exception {
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (int id = 0; id < 25; id++) {
+            saves.add(buffer.markDirty("player:" + id, "player", new Player(id, 1)));
+        }
+
+        buffer.close();
+
+        for (CompletableFuture<Void> save : saves) {
+            save.get(1, TimeUnit.SECONDS);
+        }
+        assertEquals(25, queue.sent.size());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void closeFailsEntitiesItCannotFlush() {
+        queue.failAll = true;
+        CompletableFuture<Void> saved = buffer.markDirty("player:1", "player", new Player(1, 1));
+
+        buffer.close();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> saved.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void rejectsNewEntitiesPastHardLimit() throws Exception {
+        buffer.close();
+        buffer = new WriteBehindBuffer(queue, new VersionSerializer(), NO_TIMER_MS, 1, 3, 3, SEND_TIMEOUT_MS);
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (int id = 0; id < 3; id++) {
+            saves.add(buffer.markDirty("player:" + id, "player", new Player(id, 1)));
+        }
+
+        // 已在缓冲区中的实体不占新额度，仍可合并
+        assertSame(saves.get(0), buffer.markDirty("player:0", "player", new Player(0, 2)));
+
+        CompletableFuture<Void> rejected = buffer.markDirty("player:3", "player", new Player(3, 1));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertNull(buffer.getPending("player:3"), "rejected entity is not buffered");
+        assertEquals(1, buffer.getStats().getRejectedCount());
+
+        // 拒绝时通知后台线程刷盘，腾出空间后可以继续保存
+        for (CompletableFuture<Void> save : saves) {
+            save.get(5, TimeUnit.SECONDS);
+        }
+        CompletableFuture<Void> accepted = buffer.markDirty("player:3", "player", new Player(3, 1));
+        buffer.flushAll();
+        accepted.get(1, TimeUnit.SECONDS);
+        assertTrue(queue.sent.contains("0@2"));
+        assertTrue(queue.sent.contains("3@1"));
+    }
+
+    // ---------------------------------------------------------------- 测试替身
+
+    static class Player implements Identifiable<Long> {
+
+        private Long id;
+        private final int version;
+
+        Player(long id, int version) {
+            this.id = id;
+            this.version = version;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(Long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 只序列化版本号，便于断言发送的是哪个版本
+     */
+    static class VersionSerializer implements EntitySerializer {
+
+        @Override
+        public byte[] serialize(Object entity) {
+            return String.valueOf(((Player) entity).version).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public <T> T deserialize(byte[] data, Class<T> clazz) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 记录发送的 "id@version"；holdAcks 时发送确认由测试完成，failNext / failAll 时发送失败
+     */
+    static class FakeQueue implements PersistentQueue {
+
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final BlockingQueue<CompletableFuture<Void>> pendingAcks = new LinkedBlockingQueue<>();
+        volatile boolean holdAcks;
+        volatile boolean failNext;
+        volatile boolean failAll;
+
+        @Override
+        public QueueType getType() {
+            return QueueType.MEMORY;
+        }
+
+        @Override
+        public CompletableFuture<Void> sendAsync(PersistentMessage message) {
+            sent.add(message.getEntityId() + "@" + new String(message.getPayload(), StandardCharsets.UTF_8));
+            if (failAll || failNext) {
+                failNext = false;
+                return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+            }
+            if (holdAcks) {
+                CompletableFuture<Void> ack = new CompletableFuture<>();
+                pendingAcks.add(ack);
+                return ack;
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        /**
+         * 等待下一个被挂起的发送确认
+         */
+        CompletableFuture<Void> nextAck() throws InterruptedException {
+            CompletableFuture<Void> ack = pendingAcks.poll(5, TimeUnit.SECONDS);
+            assertNotNull(ack, "no send within timeout");
+            return ack;
+        }
+
+        void releaseAll() {
+            CompletableFuture<Void> ack;
+            while ((ack = pendingAcks.poll()) != null) {
+                ack.complete(null);
+            }
+        }
+
+        @Override
+        public void sendSync(PersistentMessage message) {
+            sendAsync(message).join();
+        }
+
+        @Override
+        public void subscribe(PersistentMessageHandler handler) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+}